@@ -0,0 +1,52 @@
+package com.example.mtgdeckbox;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+
+/**
+ * This class configures Glide for the whole application. The bitmap pool and
+ * memory cache are given fixed sizes, so scrolling through a grid of card art
+ * can never grow the heap past a set budget, and decoded thumbnails are kept
+ * on disk so they load straight from storage when the grid is opened again.
+ */
+@GlideModule
+public class CardArtGlideModule extends AppGlideModule {
+    // The most memory Glide may use to reuse and cache bitmaps.
+    private static final long BITMAP_POOL_BYTES = 8L * 1024 * 1024;
+    private static final long MEMORY_CACHE_BYTES = 8L * 1024 * 1024;
+
+    // The most storage used for downloaded and resized images.
+    private static final long DISK_CACHE_BYTES = 100L * 1024 * 1024;
+    private static final String DISK_CACHE_NAME = "card_images";
+
+    /**
+     * This method sets the cache and pool sizes when Glide starts.
+     * @param context a Context for the application.
+     * @param builder the GlideBuilder which Glide is being created with.
+     */
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setBitmapPool(new LruBitmapPool(BITMAP_POOL_BYTES));
+        builder.setMemoryCache(new LruResourceCache(MEMORY_CACHE_BYTES));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                DISK_CACHE_NAME, DISK_CACHE_BYTES));
+    }
+
+    /**
+     * This method turns off reading Glide modules from the manifest, which
+     * only older libraries use.
+     * @return a Boolean which is false.
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.mtgdeckbox;
 
+import android.app.AlertDialog;
+import android.content.DialogInterface;
+import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
+import android.widget.EditText;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.viewpager2.widget.ViewPager2;
@@ -15,13 +20,22 @@ import com.example.mtgdeckbox.fragment.cardImageFragment;
 import com.example.mtgdeckbox.fragment.cardPickerFragment;
 import com.example.mtgdeckbox.fragment.commanderPickerFragment;
 import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.room.CardSummary;
 import com.example.mtgdeckbox.room.CardViewModel;
 import com.example.mtgdeckbox.room.Deck;
+import com.example.mtgdeckbox.room.DeckCardEntry;
 import com.example.mtgdeckbox.room.DeckCards;
+import com.example.mtgdeckbox.room.DeckLegality;
+import com.example.mtgdeckbox.room.DeckSnapshot;
+import com.example.mtgdeckbox.room.DeckSummary;
+import com.example.mtgdeckbox.room.LifecycleCancellation;
 import com.google.android.material.tabs.TabLayout;
 
+import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This is the DeckViewsActivity, which hosts the fragments which contain the
@@ -39,6 +53,19 @@ public class DeckViewsActivity extends AppCompatActivity
     private Deck currentDeck;
     private Toasty toastMaker;
     private List<Card> deckContents;
+    private DeckLegality legality;
+    private int latestVersion;
+    private List<DeckSnapshot> snapshots;
+
+    /* The stored deck name last put in the name field, and the commander last
+     * loaded. Every Card added or removed touches the Deck, so the Deck is
+     * observed again far more often than either of these changes.
+     */
+    private String shownDeckName;
+    private int shownCommanderID = -1;
+
+    // The most similar Decks to list.
+    private static final int SIMILAR_DECK_LIMIT = 10;
 
     /**
      * This is the default constructor.
@@ -50,32 +77,143 @@ public class DeckViewsActivity extends AppCompatActivity
      * Activity.
      */
     public void collectLatestData() {
+        if (currentDeck == null) {
+            return;
+        }
+
         /* If no name has been set for the deck yet, set the name of the deck
-         * to be the name of the commander card.
+         * to be the name of the commander card, once it has loaded.
          */
         if (currentDeck.getDeckName().isEmpty()) {
-            try {
-                binding.editTextDeckName.setText(
-                        viewModel.getCardByID(currentDeck.getCommanderID()).get().getName());
-            }
-            catch (Exception e) {
-                Log.d("DB ERROR:", "Could not execute query!");
-            }
+            LifecycleCancellation.cancelOnDestroy(this,
+                            viewModel.getCardByID(currentDeck.getCommanderID()))
+                    .thenAcceptAsync(new Consumer<Card>() {
+                        @Override
+                        public void accept(Card commander) {
+                            if (commander != null) {
+                                binding.editTextDeckName.setText(commander.getName());
+                            }
+                            saveDeck();
+                        }
+                    }, ContextCompat.getMainExecutor(this));
+        } else {
+            saveDeck();
         }
+    }
+
+    /**
+     * This method writes the deck name the user has typed to the database, and
+     * refreshes the deck contents.
+     */
+    public void saveDeck() {
         currentDeck.setDeckName(binding.editTextDeckName.getText().toString());
+        // The field already shows the name being saved.
+        shownDeckName = currentDeck.getDeckName();
         viewModel.updateDeck(currentDeck);
 
         // Refresh deck contents.
-        try {
-            List<DeckCards> deckCards = viewModel.getDeckCards(currentDeck.getDeckID()).get();
-            deckContents = new ArrayList<Card>();
-            for (DeckCards entry : deckCards) {
-                deckContents.add(viewModel.getCardByID(entry.getCardID()).get());
+        loadDeckContents(currentDeck.getDeckID());
+    }
+
+    /**
+     * This method loads the contents of the deck in the background. The query
+     * is cancelled if the Activity is destroyed before it finishes.
+     * @param deckID an Integer containing the ID number of the Deck to load.
+     */
+    public void loadDeckContents(int deckID) {
+        LifecycleCancellation.cancelOnDestroy(this, viewModel.getDeckContentsByFuture(deckID))
+                .thenAcceptAsync(new Consumer<List<Card>>() {
+                    @Override
+                    public void accept(List<Card> cards) {
+                        deckContents = cards;
+                    }
+                }, ContextCompat.getMainExecutor(this));
+    }
+
+    /**
+     * This method shows whether the Deck is legal, and if not, which rules it
+     * breaks.
+     */
+    public void showLegality() {
+        if (legality.isLegal()) {
+            binding.textViewLegality.setText(R.string.deckviews_legality_legal);
+            binding.textViewLegality.setTextColor(
+                    ContextCompat.getColor(this, android.R.color.holo_green_dark));
+            return;
+        }
+
+        List<String> problems = new ArrayList<String>();
+        if (legality.getTotalCards() != DeckLegality.DECK_SIZE) {
+            problems.add(getString(R.string.deckviews_legality_size,
+                    legality.getTotalCards(), DeckLegality.DECK_SIZE));
+        }
+        if (legality.getCommander() == null) {
+            problems.add(getString(R.string.deckviews_legality_noCommander));
+        } else if (!legality.isCommanderValid()) {
+            problems.add(getString(R.string.deckviews_legality_invalidCommander));
+        }
+        addProblem(problems, R.plurals.deckviews_legality_singleton, DeckLegality.Rule.SINGLETON);
+        addProblem(problems, R.plurals.deckviews_legality_identity,
+                DeckLegality.Rule.COLOUR_IDENTITY);
+        addProblem(problems, R.plurals.deckviews_legality_banned, DeckLegality.Rule.BANNED);
+
+        binding.textViewLegality.setText(String.join(" · ", problems));
+        binding.textViewLegality.setTextColor(
+                ContextCompat.getColor(this, android.R.color.holo_red_dark));
+    }
+
+    /**
+     * This method adds a line for a broken rule to a list of problems.
+     * @param problems a List of Strings describing the problems with the Deck.
+     * @param pluralsID an Integer containing the ID of the plurals resource
+     *                  describing the rule.
+     * @param rule the DeckLegality.Rule to check.
+     */
+    private void addProblem(List<String> problems, int pluralsID, DeckLegality.Rule rule) {
+        int count = legality.getViolations(rule).size();
+        if (count > 0) {
+            problems.add(getResources().getQuantityString(pluralsID, count, count));
+        }
+    }
+
+    /**
+     * This method shows a dialog naming every Card which breaks a rule.
+     */
+    public void showViolatingCards() {
+        StringBuilder message = new StringBuilder();
+        for (DeckLegality.Rule rule : DeckLegality.Rule.values()) {
+            int[] cardIDs = legality.getViolations(rule).toArray();
+            if (cardIDs.length == 0) {
+                continue;
+            }
+            int pluralsID = rule == DeckLegality.Rule.SINGLETON
+                    ? R.plurals.deckviews_legality_singleton
+                    : rule == DeckLegality.Rule.COLOUR_IDENTITY
+                    ? R.plurals.deckviews_legality_identity
+                    : R.plurals.deckviews_legality_banned;
+            message.append(getResources().getQuantityString(
+                    pluralsID, cardIDs.length, cardIDs.length)).append(":\n");
+            for (int cardID : cardIDs) {
+                message.append("  ").append(legality.getCardName(cardID)).append("\n");
             }
         }
-        catch (Exception e){
-            Log.d("DB ERROR:", "Could not execute query!");
+        if (message.length() == 0) {
+            return;
         }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setCancelable(true);
+        builder.setTitle(R.string.deckviews_legality_title);
+        builder.setMessage(message.toString().trim());
+        builder.setPositiveButton("Ok",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.dismiss();
+                    }
+                });
+        AlertDialog dialog = builder.create();
+        dialog.show();
     }
 
     /**
@@ -161,66 +299,81 @@ public class DeckViewsActivity extends AppCompatActivity
                         getApplication())
                 .create(CardViewModel.class);
 
-        /* Load the contents of the Deck we were passed from the deckListFragment.
-         * If this is a new deck, it should be created, ready to be written to the DB.
+        deckContents = new ArrayList<Card>();
+        legality = new DeckLegality();
+
+        /* Load the Deck we were passed from the deckListFragment. If this is a
+         * new deck, the deckListFragment may not have finished writing it before
+         * it passed us the deckID, so use the latest deck instead. The rest of
+         * the Activity is set up once the Deck has loaded, unless the Activity
+         * is finished first.
          */
         int deckID = getIntent().getExtras().getInt("deckID");
+        LifecycleCancellation.cancelOnDestroy(this,
+                        deckID == -1 ? viewModel.getLatestDeck() : viewModel.getDeck(deckID))
+                .thenAcceptAsync(new Consumer<Deck>() {
+                    @Override
+                    public void accept(Deck deck) {
+                        if (deck == null) {
+                            Log.d("DB ERROR:", "Could not execute query!");
+                            return;
+                        }
+                        currentDeck = deck;
+                        showDeck(deck.getDeckID());
+                    }
+                }, ContextCompat.getMainExecutor(this));
+    }
 
-        if (deckID == -1) {
-            /* If this is true, then the deckListFragment did not finish writing
-             * a new deck before it passed us the deckID. We should check the latest
-             * deck now.
-             */
-            try {
-                deckID = viewModel.getLatestDeck().get().getDeckID();
-            }
-            catch (Exception e) {
-                Log.d("DB ERROR:", "Could not execute query!");
-            }
-        }
-
-        // Retrieve the deck we are editing.
-        try {
-            currentDeck = viewModel.getDeck(deckID).get();
-            List<DeckCards> deckCards = viewModel.getDeckCards(deckID).get();
-            deckContents = new ArrayList<Card>();
-            for (DeckCards entry : deckCards) {
-                deckContents.add(viewModel.getCardByID(entry.getCardID()).get());
-            }
-        }
-        catch (Exception e) {
-            Log.d("DB ERROR:", "Could not execute query!");
-        }
-
+    /**
+     * This method sets up the tabs, observers and buttons for the Deck being
+     * edited, once it has loaded.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void showDeck(final int deckID) {
         // Setup an Observer which will set the commander and deck name.
         Observer<Deck> deckObserver = new Observer<Deck>() {
             @Override
             public void onChanged(@Nullable Deck deck) {
-                try {
-                    binding.textViewCommanderName.setText(
-                            viewModel.getCardByID(deck.getCommanderID()).get().getName());
-                    binding.editTextDeckName.setText(
-                            deck.getDeckName());
-                }
-                catch (NullPointerException e) {
+                if (deck == null) {
                     Log.d("ERROR", "Deck was null when observing.");
+                    return;
                 }
-                catch (Exception e) {
-                    Log.d("DB ERROR:", "Could not execute query!");
+
+                /* Undo, redo and restores rewrite the Deck in the background,
+                 * so keep our copy current or a stale name, commander or
+                 * version would be written back on the next save.
+                 */
+                currentDeck = deck;
+                showHistoryState();
+
+                /* Only overwrite the name field when the stored name has changed,
+                 * such as after an undo or restore, so a name the user is still
+                 * typing survives adding and removing Cards.
+                 */
+                if (!deck.getDeckName().equals(shownDeckName)) {
+                    shownDeckName = deck.getDeckName();
+                    binding.editTextDeckName.setText(shownDeckName);
+                }
+                if (deck.getCommanderID() != shownCommanderID) {
+                    shownCommanderID = deck.getCommanderID();
+                    showCommander(shownCommanderID);
                 }
             }
         };
 
-        // Setup an Observer to recreate the list of cards when it is updated.
+        /* Use the adapter for the tab view. Each tab observes the Deck itself,
+         * so the tabs are only created once and keep their scroll position.
+         */
+        final DeckViewsTabsAdapter tabsAdapter = new DeckViewsTabsAdapter(
+                getSupportFragmentManager(), getLifecycle(), deckID);
+        viewPager.setAdapter(tabsAdapter);
+
+        // Setup an Observer to keep our copy of the deck contents up to date.
         Observer<List<DeckCards>> contentsObserver = new Observer<List<DeckCards>>() {
             @Override
             public void onChanged(@Nullable List<DeckCards> deckCards) {
                 try {
-                    // Use the adapter for the tab view.
-                    final DeckViewsTabsAdapter tabsAdapter = new DeckViewsTabsAdapter(
-                            getSupportFragmentManager(), getLifecycle(), currentDeck.getDeckID());
-
-                    viewPager.setAdapter(tabsAdapter);
+                    loadDeckContents(currentDeck.getDeckID());
                 }
                 catch (NullPointerException e) {
                     Log.d("ERROR", "Deck was null when observing.");
@@ -231,13 +384,46 @@ public class DeckViewsActivity extends AppCompatActivity
             }
         };
 
+        /* Setup an Observer which checks the Deck is legal. Only the Cards
+         * which have changed are checked again.
+         */
+        Observer<List<DeckCardEntry>> legalityObserver = new Observer<List<DeckCardEntry>>() {
+            @Override
+            public void onChanged(@Nullable List<DeckCardEntry> entries) {
+                if (entries != null) {
+                    legality.update(entries);
+                    showLegality();
+                }
+            }
+        };
+
+        // Setup Observers which follow the Deck's history and saved versions.
+        Observer<Integer> historyObserver = new Observer<Integer>() {
+            @Override
+            public void onChanged(@Nullable Integer latest) {
+                latestVersion = latest == null ? 0 : latest;
+                showHistoryState();
+            }
+        };
+        Observer<List<DeckSnapshot>> snapshotObserver = new Observer<List<DeckSnapshot>>() {
+            @Override
+            public void onChanged(@Nullable List<DeckSnapshot> deckSnapshots) {
+                snapshots = deckSnapshots;
+            }
+        };
+
         viewModel.getLiveDeck(deckID).observe(this, deckObserver);
+        viewModel.getLiveHistoryLength(deckID).observe(this, historyObserver);
+        viewModel.getLiveDeckSnapshots(deckID).observe(this, snapshotObserver);
         viewModel.getLiveDeckCards(deckID).observe(this, contentsObserver);
+        viewModel.getLiveDeckEntries(deckID).observe(this, legalityObserver);
 
         // Create the tabs for the tab view.
         tabLayout.addTab(tabLayout.newTab().setText("Deck Builder"));
         tabLayout.addTab(tabLayout.newTab().setText("Suggestions"));
         tabLayout.addTab(tabLayout.newTab().setText("Graphs"));
+        tabLayout.addTab(tabLayout.newTab().setText("Mana Base"));
+        tabLayout.addTab(tabLayout.newTab().setText("Simulator"));
         tabLayout.setTabGravity(TabLayout.GRAVITY_FILL);
 
         // Add the ability to page between each of the tabs.
@@ -276,30 +462,299 @@ public class DeckViewsActivity extends AppCompatActivity
             }
         });
 
+        // Enable the user to see which Cards make the deck illegal.
+        binding.textViewLegality.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showViolatingCards();
+            }
+        });
+
+        // Step backwards and forwards through the deck's history.
+        binding.buttonUndo.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                viewModel.undoDeckChange(currentDeck.getDeckID());
+            }
+        });
+        binding.buttonRedo.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                viewModel.redoDeckChange(currentDeck.getDeckID());
+            }
+        });
+        binding.buttonHistory.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showSavedVersions();
+            }
+        });
+
+        // Find the user's other decks which share the most cards with this one.
+        binding.buttonSimilar.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showSimilarDecks();
+            }
+        });
+
+        // Share the deck as a plain-text decklist.
+        binding.buttonExport.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                exportDecklist();
+            }
+        });
+
         // Enable the user to check their commander card.
         binding.textViewCommanderName.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                try {
-                    Card commander = viewModel.getCardByID(currentDeck.getCommanderID()).get();
-                    cardImageFragment cardImage = new cardImageFragment(commander);
-                    cardImage.show(getSupportFragmentManager(), commander.getName());
+                LifecycleCancellation.cancelOnDestroy(DeckViewsActivity.this,
+                                viewModel.getCardByID(currentDeck.getCommanderID()))
+                        .thenAcceptAsync(new Consumer<Card>() {
+                            @Override
+                            public void accept(Card commander) {
+                                if (commander == null || isFinishing()) {
+                                    return;
+                                }
+                                cardImageFragment cardImage = new cardImageFragment(commander);
+                                cardImage.show(getSupportFragmentManager(), commander.getName());
+                            }
+                        }, ContextCompat.getMainExecutor(DeckViewsActivity.this));
+            }
+        });
+    }
+
+    /**
+     * This method loads the Deck's commander, then shows its name and checks
+     * the Deck against its colour identity.
+     * @param commanderID an Integer containing the ID number of the commander.
+     */
+    public void showCommander(final int commanderID) {
+        LifecycleCancellation.cancelOnDestroy(this, viewModel.getCardByID(commanderID))
+                .thenAcceptAsync(new Consumer<Card>() {
+                    @Override
+                    public void accept(Card commander) {
+                        // Ignore a commander which has been replaced while it loaded.
+                        if (currentDeck.getCommanderID() != commanderID) {
+                            return;
+                        }
+
+                        /* A new commander changes the colour identity every Card is
+                         * checked against, so only pass it on when it has changed.
+                         */
+                        Card checkedCommander = legality.getCommander();
+                        int checkedID = checkedCommander == null ? -1 : checkedCommander.getCardID();
+                        int newID = commander == null ? -1 : commander.getCardID();
+                        if (checkedID != newID) {
+                            legality.setCommander(commander);
+                            showLegality();
+                        }
+                        if (commander != null) {
+                            binding.textViewCommanderName.setText(commander.getName());
+                        }
+                    }
+                }, ContextCompat.getMainExecutor(this));
+    }
+
+    /**
+     * This method enables the undo and redo buttons when there is a change
+     * to undo or redo.
+     */
+    public void showHistoryState() {
+        int version = currentDeck == null ? 0 : currentDeck.getVersion();
+        binding.buttonUndo.setEnabled(version > 0);
+        binding.buttonRedo.setEnabled(latestVersion > version);
+    }
+
+    /**
+     * This method shows a dialog listing the versions of the deck the user has
+     * saved. Picking one puts the deck back the way it was.
+     */
+    public void showSavedVersions() {
+        final List<DeckSnapshot> saved = snapshots == null
+                ? new ArrayList<DeckSnapshot>() : new ArrayList<DeckSnapshot>(snapshots);
+        DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.MEDIUM,
+                DateFormat.SHORT);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setCancelable(true);
+        builder.setTitle(R.string.deckviews_history_title);
+        if (saved.isEmpty()) {
+            builder.setMessage(R.string.deckviews_history_empty);
+        } else {
+            String[] labels = new String[saved.size()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = saved.get(i).getName() + " \u2014 "
+                        + dateFormat.format(new Date(saved.get(i).getTime()));
+            }
+            builder.setItems(labels, new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    confirmRestore(saved.get(which));
                 }
-                catch (Exception e) {
-                    Log.d("DB ERROR:", "Could not execute query!");
+            });
+        }
+        builder.setPositiveButton(R.string.deckviews_history_save,
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        showSaveVersion();
+                    }
+                });
+        builder.setNegativeButton("Cancel",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.dismiss();
+                    }
+                });
+        AlertDialog dialog = builder.create();
+        dialog.show();
+    }
+
+    /**
+     * This method asks the user before putting the deck back to a saved
+     * version. The restore is recorded in the deck's history, so it can be
+     * undone.
+     * @param snapshot the DeckSnapshot to restore.
+     */
+    private void confirmRestore(final DeckSnapshot snapshot) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setCancelable(true);
+        builder.setMessage(getString(R.string.deckviews_history_restore, snapshot.getName()));
+        builder.setPositiveButton("Ok",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        viewModel.restoreDeckSnapshot(currentDeck.getDeckID(),
+                                snapshot.getSnapshotID());
+                    }
+                });
+        builder.setNegativeButton("Cancel",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.dismiss();
+                    }
+                });
+        AlertDialog dialog = builder.create();
+        dialog.show();
+    }
+
+    /**
+     * This method asks the user for a name, and saves the deck as it is now
+     * under that name.
+     */
+    private void showSaveVersion() {
+        final EditText nameInput = new EditText(this);
+        nameInput.setHint(R.string.deckviews_history_name_hint);
+        nameInput.setSingleLine(true);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setCancelable(true);
+        builder.setTitle(R.string.deckviews_history_save);
+        builder.setView(nameInput);
+        builder.setPositiveButton("Ok",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        String name = nameInput.getText().toString().trim();
+                        if (name.isEmpty()) {
+                            name = binding.editTextDeckName.getText().toString();
+                        }
+                        viewModel.saveDeckSnapshot(currentDeck.getDeckID(), name);
+                        toastMaker.popToastShort(getString(R.string.deckviews_history_saved));
+                    }
+                });
+        builder.setNegativeButton("Cancel",
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dialog.dismiss();
+                    }
+                });
+        AlertDialog dialog = builder.create();
+        dialog.show();
+    }
+
+    /**
+     * This method shows a dialog listing the user's decks most similar to this
+     * one. Picking one opens it.
+     */
+    public void showSimilarDecks() {
+        LifecycleCancellation.cancelOnDestroy(this,
+                viewModel.findSimilarDecks(currentDeck.getDeckID(), SIMILAR_DECK_LIMIT))
+                .thenAcceptAsync(new Consumer<List<DeckSummary>>() {
+            @Override
+            public void accept(final List<DeckSummary> similar) {
+                AlertDialog.Builder builder = new AlertDialog.Builder(DeckViewsActivity.this);
+                builder.setCancelable(true);
+                builder.setTitle(R.string.deckviews_similar_title);
+                if (similar.isEmpty()) {
+                    builder.setMessage(R.string.deckviews_similar_empty);
+                } else {
+                    String[] labels = new String[similar.size()];
+                    for (int i = 0; i < labels.length; i++) {
+                        DeckSummary deck = similar.get(i);
+                        labels[i] = getString(R.string.deckviews_similar_entry,
+                                deck.getDeckName(),
+                                deck.getCommanderName() == null ? "" : deck.getCommanderName(),
+                                deck.getCardCount());
+                    }
+                    builder.setItems(labels, new DialogInterface.OnClickListener() {
+                        @Override
+                        public void onClick(DialogInterface dialog, int which) {
+                            Intent deckIntent = new Intent(DeckViewsActivity.this,
+                                    DeckViewsActivity.class);
+                            Bundle deck = new Bundle();
+                            deck.putInt("deckID", similar.get(which).getDeckID());
+                            deckIntent.putExtras(deck);
+                            startActivity(deckIntent);
+                        }
+                    });
                 }
+                builder.setPositiveButton("Ok",
+                        new DialogInterface.OnClickListener() {
+                            @Override
+                            public void onClick(DialogInterface dialog, int which) {
+                                dialog.dismiss();
+                            }
+                        });
+                AlertDialog dialog = builder.create();
+                dialog.show();
             }
-        });
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    /**
+     * This method writes the deck out as a plain-text decklist, and offers it
+     * to any app which can take text, such as a messenger or the clipboard.
+     */
+    private void exportDecklist() {
+        viewModel.exportDecklist(currentDeck.getDeckID()).thenAcceptAsync(
+                new Consumer<String>() {
+            @Override
+            public void accept(String decklist) {
+                Intent share = new Intent(Intent.ACTION_SEND);
+                share.setType("text/plain");
+                share.putExtra(Intent.EXTRA_SUBJECT, currentDeck.getDeckName());
+                share.putExtra(Intent.EXTRA_TEXT, decklist);
+                startActivity(Intent.createChooser(share,
+                        getString(R.string.deckviews_export_title)));
+            }
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
      * This method listens for data being sent from the commanderPicker fragment
      * and processes it.
-     * @param chosenCard a Card which is the commander Card which the user has
+     * @param chosenCard a CardSummary of the commander Card which the user has
      *                   picked in the commanderPicker fragment.
      */
     @Override
-    public void sendInput(Card chosenCard) {
+    public void sendInput(CardSummary chosenCard) {
         // Set the chosen card as the deck commander.
         int cardID = chosenCard.getCardID();
         currentDeck.setCommanderID(cardID);
@@ -309,18 +764,18 @@ public class DeckViewsActivity extends AppCompatActivity
     /**
      * This method listens for data being sent from the cardPicker fragment
      * and processes it.
-     * @param chosenCards an ArrayList of Cards which contains the Cards which
-     *                    the user has picked in the cardPicker fragment.
+     * @param chosenCards an ArrayList of CardSummaries which contains the Cards
+     *                    which the user has picked in the cardPicker fragment.
      */
     @Override
-    public void sendInput(ArrayList<Card> chosenCards) {
+    public void sendInput(ArrayList<CardSummary> chosenCards) {
         // Receive the list of chosen Cards from the Card Picker.
 
         /* For each Card selected by the user, check to see if it is already in
          * in the deck. It will not be added.
          */
-        ArrayList<Card> successfulSelections = new ArrayList<Card>();
-        for (Card chosenCard : chosenCards) {
+        ArrayList<CardSummary> successfulSelections = new ArrayList<CardSummary>();
+        for (CardSummary chosenCard : chosenCards) {
             // Check to see if this card is already in the deck.
             boolean duplicate = false;
             for (Card card : deckContents) {
@@ -336,12 +791,39 @@ public class DeckViewsActivity extends AppCompatActivity
         }
 
         // The remaining cards are new entries. Add them to the deck.
-        for (Card card : successfulSelections) {
+        for (CardSummary card : successfulSelections) {
             viewModel.insertDeckCards(new DeckCards(
                     currentDeck.getDeckID(), card.getCardID(), 1));
         }
     }
 
+    /**
+     * This is the Accessor method for the legality field.
+     * @return a DeckLegality object which checks the deck against the rules
+     * of Commander.
+     */
+    public DeckLegality getLegality() {
+        return legality;
+    }
+
+    /**
+     * This is the Accessor method for the latestVersion field.
+     * @return an Integer containing the number of changes in the deck's
+     * history, including any which have been undone.
+     */
+    public int getLatestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * This is the Accessor method for the snapshots field.
+     * @return a List of DeckSnapshots which contains the versions of the deck
+     * the user has saved.
+     */
+    public List<DeckSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
     /**
      * This is the Mutator method for the binding field.
      * @param binding a DeckViewsFragmentBinding object which will be used to
@@ -403,4 +885,31 @@ public class DeckViewsActivity extends AppCompatActivity
     public void setDeckContents(List<Card> deckContents) {
         this.deckContents = deckContents;
     }
+
+    /**
+     * This is the Mutator method for the legality field.
+     * @param legality a DeckLegality object which will be used to check the
+     *                 deck against the rules of Commander.
+     */
+    public void setLegality(DeckLegality legality) {
+        this.legality = legality;
+    }
+
+    /**
+     * This is the Mutator method for the latestVersion field.
+     * @param latestVersion an Integer containing the number of changes in the
+     *                      deck's history.
+     */
+    public void setLatestVersion(int latestVersion) {
+        this.latestVersion = latestVersion;
+    }
+
+    /**
+     * This is the Mutator method for the snapshots field.
+     * @param snapshots a List of DeckSnapshots which contains the versions of
+     *                  the deck the user has saved.
+     */
+    public void setSnapshots(List<DeckSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
 }
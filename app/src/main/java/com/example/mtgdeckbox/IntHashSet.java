@@ -0,0 +1,207 @@
+package com.example.mtgdeckbox;
+
+import java.util.Arrays;
+
+/**
+ * This class is a hash set of primitive Integers, such as card ID numbers.
+ * Values are stored in a single open-addressed int array, so adding, removing
+ * and checking a value is O(1) and never boxes the value.
+ */
+public class IntHashSet {
+    // Marks an empty slot. The value itself is tracked by a separate flag.
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] slots;
+    private int size;
+    private boolean containsFree;
+
+    /**
+     * This is the default constructor.
+     */
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param expectedSize an Integer containing the number of values the set
+     *                     should hold before it needs to grow.
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        size = 0;
+        containsFree = false;
+    }
+
+    /**
+     * This method adds a value to the set.
+     * @param value an Integer to be added.
+     * @return a Boolean which is true if the value was not already in the set.
+     */
+    public boolean add(int value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != FREE) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+
+        // Keep the table at most half full, so probes stay short.
+        if (size * 2 > slots.length) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * This method removes every value from the set.
+     */
+    public void clear() {
+        Arrays.fill(slots, FREE);
+        size = 0;
+        containsFree = false;
+    }
+
+    /**
+     * This method checks if a value is in the set.
+     * @param value an Integer to look for.
+     * @return a Boolean which is true if the value is in the set.
+     */
+    public boolean contains(int value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != FREE) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * This method checks if the set is empty.
+     * @return a Boolean which is true if the set holds no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This method removes a value from the set.
+     * @param value an Integer to be removed.
+     * @return a Boolean which is true if the value was in the set.
+     */
+    public boolean remove(int value) {
+        if (value == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != value) {
+            if (slots[index] == FREE) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        /* Shift later values in the same run back into the gap, so that
+         * lookups never stop early at the removed slot.
+         */
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (slots[next] != FREE) {
+            int home = mix(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * This method returns the number of values in the set.
+     * @return an Integer containing the size of the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method copies the values in the set into an array.
+     * @return an Array of Integers containing every value, in no order.
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int count = 0;
+        if (containsFree) {
+            values[count++] = FREE;
+        }
+        for (int slot : slots) {
+            if (slot != FREE) {
+                values[count++] = slot;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * This method scrambles the bits of a value, so that sequential IDs are
+     * spread across the table.
+     * @param value an Integer to be hashed.
+     * @return an Integer containing the hash of the value.
+     */
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This method moves every value into a new table.
+     * @param capacity an Integer containing the new table size, a power of two.
+     */
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        int mask = capacity - 1;
+        for (int value : old) {
+            if (value != FREE) {
+                int index = mix(value) & mask;
+                while (slots[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.mtgdeckbox;
+
+import java.util.Arrays;
+
+/**
+ * This class is a hash map from primitive Integers to primitive Integers, such
+ * as card ID numbers to counts. Keys and values are stored in two parallel
+ * open-addressed int arrays, so looking up and changing a count is O(1) and
+ * never boxes the key or the value.
+ *
+ * Integer.MIN_VALUE marks an empty slot, so it cannot be used as a key.
+ */
+public class IntIntHashMap {
+    // Marks an empty slot.
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * This is the default constructor.
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param expectedSize an Integer containing the number of keys the map
+     *                     should hold before it needs to grow.
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * This method adds to the value of a key. A key whose value reaches 0 is
+     * removed, so the map only holds non-zero counts.
+     * @param key an Integer containing the key.
+     * @param delta an Integer to add to the key's value.
+     * @return an Integer containing the key's new value.
+     */
+    public int addTo(int key, int delta) {
+        checkKey(key);
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                int value = values[index] + delta;
+                if (value == 0) {
+                    removeSlot(index);
+                } else {
+                    values[index] = value;
+                }
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[index] = key;
+        values[index] = delta;
+        size++;
+
+        // Keep the table at most half full, so probes stay short.
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    /**
+     * This method removes every key from the map.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * This method returns the value of a key.
+     * @param key an Integer containing the key.
+     * @return an Integer containing the key's value, or 0 if it is not in the map.
+     */
+    public int get(int key) {
+        checkKey(key);
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * This method checks if the map is empty.
+     * @return a Boolean which is true if the map holds no keys.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This method returns the number of keys in the map.
+     * @return an Integer containing the size of the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the number of slots in the table, for walking the
+     * map with isUsed(), keyAt() and valueAt() without copying it.
+     * @return an Integer containing the number of slots.
+     */
+    public int slotCount() {
+        return keys.length;
+    }
+
+    /**
+     * This method checks if a slot in the table holds a key.
+     * @param slot an Integer containing the slot, below slotCount().
+     * @return a Boolean which is true if the slot holds a key.
+     */
+    public boolean isUsed(int slot) {
+        return keys[slot] != FREE;
+    }
+
+    /**
+     * This method returns the key held in a slot.
+     * @param slot an Integer containing a used slot.
+     * @return an Integer containing the key.
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * This method returns the value held in a slot.
+     * @param slot an Integer containing a used slot.
+     * @return an Integer containing the value.
+     */
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * This method rejects the key used to mark empty slots.
+     * @param key an Integer containing the key to check.
+     */
+    private static void checkKey(int key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Integer.MIN_VALUE cannot be a key");
+        }
+    }
+
+    /**
+     * This method empties a slot. Later keys in the same run are shifted back
+     * into the gap, so that lookups never stop early at the removed slot.
+     * @param index an Integer containing the slot to empty.
+     */
+    private void removeSlot(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+    }
+
+    /**
+     * This method scrambles the bits of a key, so that sequential IDs are
+     * spread across the table.
+     * @param key an Integer to be hashed.
+     * @return an Integer containing the hash of the key.
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This method moves every key into a new table.
+     * @param capacity an Integer containing the new table size, a power of two.
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -2,14 +2,22 @@ package com.example.mtgdeckbox.fragment.adapters;
 
 import android.content.Context;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.selection.ItemDetailsLookup;
+import androidx.recyclerview.selection.SelectionPredicates;
+import androidx.recyclerview.selection.SelectionTracker;
+import androidx.recyclerview.selection.StableIdKeyProvider;
+import androidx.recyclerview.selection.StorageStrategy;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.IntHashSet;
+import com.example.mtgdeckbox.room.CardSummary;
 import com.example.mtgdeckbox.R;
 
 import java.util.ArrayList;
@@ -18,111 +26,132 @@ import java.util.List;
 /**
  * This class transforms and provides the data for the RecyclerView in the
  * CardPickerFragment.
+ *
+ * Each row's stable ID is its card ID. Taps are handled by a SelectionTracker,
+ * and the selected card IDs are mirrored into an IntHashSet which the rows
+ * check when they are bound, so selecting a row never scans the list.
  * @author: Tom Barker
  */
 public class CardPickerAdapter extends
         RecyclerView.Adapter<CardPickerAdapter.ViewHolder> {
-    private List<Card> allCards;
-    private Card chosenCard;
-    private ArrayList<Card> selections;
-    private ArrayList<ViewHolder> holders;
+    private List<CardSummary> allCards;
+    private List<CardSummary> catalog;
+    private IntHashSet selectedIDs;
+    private SelectionTracker<Long> tracker;
 
     /**
      * This is the default constructor.
      */
     public CardPickerAdapter() {
-        allCards = null;
-        chosenCard = new Card();
-        selections = new ArrayList<>();
-        holders = new ArrayList<>();
+        allCards = new ArrayList<>();
+        catalog = allCards;
+        selectedIDs = new IntHashSet();
+        setHasStableIds(true);
     }
 
     /**
      * This is the non-default constructor, which takes a list of Cards.
      * @param cards a List of Cards to be loaded into the Picker.
      */
-    public CardPickerAdapter(List<Card> cards) {
+    public CardPickerAdapter(List<CardSummary> cards) {
         allCards = cards;
-        chosenCard = new Card();
-        selections = new ArrayList<>();
-        holders = new ArrayList<>();
+        catalog = cards;
+        selectedIDs = new IntHashSet();
+        setHasStableIds(true);
     }
 
     /**
-     * This method adds a Card to an ArrayList of selected Cards, when one is
-     * clicked on in the RecyclerView. This logic keeps track of the Cards the
-     * user is selecting to be added into their deck.
-     * @param chosenCard    a Card which has been clicked on in the list.
-     * @return              a Boolean which is true if this action is a
-     *                      de-selection and false if this action is a selection.
+     * This method sets up a SelectionTracker for the RecyclerView showing this
+     * adapter. Tapping a row selects it, and tapping it again de-selects it.
+     * It must be called after the adapter has been set on the RecyclerView.
+     * @param recyclerView the RecyclerView which is displaying this adapter.
      */
-    public boolean addSelections(Card chosenCard) {
-        // Initialise some variables.
-        boolean match = false;
-        int matchIndex = -1;
+    public void attachSelectionTracker(RecyclerView recyclerView) {
+        tracker = new SelectionTracker.Builder<Long>(
+                "card-picker-selection",
+                recyclerView,
+                new StableIdKeyProvider(recyclerView),
+                new CardDetailsLookup(recyclerView),
+                StorageStrategy.createLongStorage())
+                .withSelectionPredicate(SelectionPredicates.<Long>createSelectAnything())
+                .build();
 
-        // For each Card already selected, check if the clicked Card matches.
-        for (int i = 0; i < selections.size(); i++) {
-            if (selections.get(i).getName().equals(chosenCard.getName())) {
-                // We found a match. This Card should be de-selected.
-                match = true;
-                matchIndex = i;
-                break;
+        // Mirror the tracker's selection into our set of card IDs.
+        tracker.addObserver(new SelectionTracker.SelectionObserver<Long>() {
+            @Override
+            public void onItemStateChanged(@NonNull Long key, boolean selected) {
+                if (selected) {
+                    selectedIDs.add(key.intValue());
+                } else {
+                    selectedIDs.remove(key.intValue());
+                }
             }
-        }
-        if (match) {
-            // Remove the de-selected Card.
-            selections.remove(matchIndex);
-        } else {
-            // Add the selected Card.
-            selections.add(chosenCard);
-        }
-        return match;
+        });
     }
 
     /**
      * This is the Accessor method for the allCards field.
      * @return a List of all the Cards loaded into the CardPicker.
      */
-    public List<Card> getAllCards() {
+    public List<CardSummary> getAllCards() {
         return allCards;
     }
 
     /**
-     * This is the Accessor method for the chosenCard field.
-     * @return the Card which has been clicked on by the user.
+     * This method returns the size of the list.
+     * @return an Integer containing the full size of the list.
      */
-    public Card getChosenCard() {
-        return chosenCard;
+    @Override
+    public int getItemCount() {
+        return allCards.size();
     }
 
     /**
-     * This is the Accessor method for the holders field.
-     * @return an ArrayList of ViewHolders, which are all of the ViewHolders
-     * in the RecyclerView.
+     * This method returns the stable ID of a row, which is its card ID.
+     * @param position an Integer containing the position of the row.
+     * @return a Long containing the card ID of the row.
      */
-    public ArrayList<ViewHolder> getHolders() {
-        return holders;
+    @Override
+    public long getItemId(int position) {
+        return allCards.get(position).getCardID();
     }
 
     /**
-     * This method returns the size of the list.
-     * @return an Integer containing the full size of the list.
+     * This is the Accessor method for the selectedIDs field.
+     * @return an IntHashSet containing the card IDs of every selected Card.
      */
-    @Override
-    public int getItemCount() {
-        return allCards.size();
+    public IntHashSet getSelectedIDs() {
+        return selectedIDs;
     }
 
     /**
-     * This is the Accessor method for the selections field.
+     * This method returns the Cards which the user has selected, in the order
+     * they appear in the full list. Cards hidden by a filter stay selected.
      * @return  an ArrayList of Cards, containing all the Cards which the user
      *          has selected from this CardPicker.
      */
-    public ArrayList<Card> getSelections() {
+    public ArrayList<CardSummary> getSelections() {
+        ArrayList<CardSummary> selections = new ArrayList<>(selectedIDs.size());
+        if (selectedIDs.isEmpty()) {
+            return selections;
+        }
+        for (CardSummary card : catalog) {
+            if (selectedIDs.contains(card.getCardID())) {
+                selections.add(card);
+            }
+        }
         return selections;
     }
 
+    /**
+     * This is the Accessor method for the tracker field.
+     * @return the SelectionTracker which handles taps on the rows, or null if
+     * attachSelectionTracker() has not been called.
+     */
+    public SelectionTracker<Long> getTracker() {
+        return tracker;
+    }
+
     /**
      * This is the method which runs when data is bound to the ViewHolder.
      * @param holder    the ViewHolder to bind data to.
@@ -131,10 +160,16 @@ public class CardPickerAdapter extends
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holders.add(holder);
-        holder.cardName.setText(allCards.get(position).getName());
-        holder.cardType.setText(allCards.get(position).getTypes());
-        holder.position = position;
+        CardSummary card = allCards.get(position);
+        holder.cardName.setText(card.getName());
+        holder.cardType.setText(card.getTypes());
+
+        // Highlight the row if the Card has been selected.
+        if (selectedIDs.contains(card.getCardID())) {
+            holder.itemView.setBackgroundResource(R.drawable.frame_border);
+        } else {
+            holder.itemView.setBackgroundResource(0);
+        }
     }
 
     /**
@@ -163,106 +198,82 @@ public class CardPickerAdapter extends
     public class ViewHolder extends RecyclerView.ViewHolder {
         public TextView cardName;
         public TextView cardType;
-        public int position;
 
         public ViewHolder(View itemView) {
             super(itemView);
 
             cardName = itemView.findViewById(R.id.textView_cardName);
             cardType = itemView.findViewById(R.id.textView_cardType);
+        }
 
-            // @todo: Define onClickListener() somewhere else and re-use it.
-            /* Set the behaviour for clicking on each RecyclerView row. We need
-             * to set this behaviour on the name textView, type textView and the
-             * itemView itself, so the same behaviour happens no matter where
-             * on the row the user clicks.
-             */
-            cardName.setOnClickListener(new View.OnClickListener() {
+        /**
+         * This method describes the row to the SelectionTracker.
+         * @return the ItemDetails for this row, keyed by its card ID.
+         */
+        public ItemDetailsLookup.ItemDetails<Long> getItemDetails() {
+            return new ItemDetailsLookup.ItemDetails<Long>() {
                 @Override
-                public void onClick(View view) {
-                    /* If the clicked card is unselected, select it. If it is
-                     * already selected, unselect it.
-                     */
-                    chosenCard = allCards.get(getAbsoluteAdapterPosition());
-                    boolean removed = addSelections(chosenCard);
-                    if (removed) {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(0);
-                    } else {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(R.drawable.frame_border);
-                    }
+                public int getPosition() {
+                    return getAbsoluteAdapterPosition();
                 }
-            });
 
-            // Set the behaviour for clicking on the RecyclerView row.
-            itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
-                public void onClick(View view) {
-                    // Same behaviour as above.
-                    chosenCard = allCards.get(getAbsoluteAdapterPosition());
-                    boolean removed = addSelections(chosenCard);
-                    if (removed) {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(0);
-                    } else {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(R.drawable.frame_border);
-                    }
+                public Long getSelectionKey() {
+                    return getItemId();
                 }
-            });
 
-            // Set the behaviour for clicking on the card type text.
-            cardType.setOnClickListener(new View.OnClickListener() {
                 @Override
-                public void onClick(View view) {
-                    // Same behaviour as above.
-                    chosenCard = allCards.get(getAbsoluteAdapterPosition());
-                    boolean removed = addSelections(chosenCard);
-                    if (removed) {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(R.drawable.frame_border);
-                    } else {
-                        holders.get(getAbsoluteAdapterPosition()).itemView
-                                .setBackgroundResource(0);
-                    }
+                public boolean inSelectionHotspot(@NonNull MotionEvent e) {
+                    // The whole row toggles the selection with a single tap.
+                    return true;
                 }
-            });
+            };
         }
     }
 
     /**
-     * This is the Mutator method for the allCards field.
-     * @param allCards a List of Cards which should be displayed in the
-     *                 RecyclerView.
+     * This class finds the row under a touch, for the SelectionTracker.
      */
-    public void setAllCards(List<Card> allCards) {
-        this.allCards = allCards;
-    }
+    private static class CardDetailsLookup extends ItemDetailsLookup<Long> {
+        private final RecyclerView recyclerView;
 
-    /**
-     * This is the Mutator method for the chosenCard field.
-     * @param chosenCard a Card which has been selected by the user.
-     */
-    public void setChosenCard(Card chosenCard) {
-        this.chosenCard = chosenCard;
+        CardDetailsLookup(RecyclerView recyclerView) {
+            this.recyclerView = recyclerView;
+        }
+
+        @Nullable
+        @Override
+        public ItemDetails<Long> getItemDetails(@NonNull MotionEvent e) {
+            View view = recyclerView.findChildViewUnder(e.getX(), e.getY());
+            if (view == null) {
+                return null;
+            }
+            RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+            if (holder instanceof ViewHolder) {
+                return ((ViewHolder) holder).getItemDetails();
+            }
+            return null;
+        }
     }
 
     /**
-     * This is the Mutator method for the selections field.
-     * @param selections an ArrayList containing the Cards which have been
-     *                   selected by the user.
+     * This method shows a filtered part of the Cards the adapter was created
+     * with. Rows keep their stable IDs, so the selection is kept.
+     * @param cards a List of Cards which should be displayed in the
+     *              RecyclerView.
      */
-    public void setSelections(ArrayList<Card> selections) {
-        this.selections = selections;
+    public void showCards(List<CardSummary> cards) {
+        allCards = cards;
+        notifyDataSetChanged();
     }
 
     /**
-     * This is the Mutator method for the holders field.
-     * @param holders an ArrayList containing all of the ViewHolders in the
-     *                RecyclerView.
+     * This is the Mutator method for the allCards field.
+     * @param allCards a List of Cards which should be displayed in the
+     *                 RecyclerView.
      */
-    public void setHolders(ArrayList<ViewHolder> holders) {
-        this.holders = holders;
+    public void setAllCards(List<CardSummary> allCards) {
+        this.allCards = allCards;
+        catalog = allCards;
     }
 }
@@ -9,46 +9,59 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.room.CardSummary;
+import com.example.mtgdeckbox.room.CommanderIndex;
 import com.example.mtgdeckbox.R;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This class transforms and provides the data for the RecyclerView in the
  * CommanderPickerFragment.
+ *
+ * The rows come from a CommanderIndex, which puts a header row above each
+ * colour identity. The chosen commander is remembered by its card ID and the
+ * highlight is applied as rows are bound, so choosing a commander only
+ * redraws the old and new rows.
  * @author: Tom Barker
  */
 public class CommanderAdapter extends
-        RecyclerView.Adapter<CommanderAdapter.ViewHolder> {
+        RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private static final int VIEW_TYPE_HEADER = 0;
+    private static final int VIEW_TYPE_COMMANDER = 1;
+    private static final int NO_CARD = -1;
 
-    // The list of cards for this adapter.
-    private List<Card> deckContents;
-    private Card chosenCard;
-    private ArrayList<ViewHolder> holders;
+    // The sectioned commanders for this adapter.
+    private CommanderIndex commanders;
+    private CardSummary chosenCard;
+    private int chosenCardID;
 
     /**
      * This is the default constructor.
      */
-    public CommanderAdapter() {}
+    public CommanderAdapter() {
+        chosenCard = null;
+        chosenCardID = NO_CARD;
+    }
 
     /**
      * This is the non-default constructor.
-     * @param contents a List of Cards which contains the contents of the Deck.
+     * @param commanders a CommanderIndex containing every commander-eligible
+     *                   Card.
      */
-    public CommanderAdapter(List<Card> contents) {
-        deckContents = contents;
+    public CommanderAdapter(CommanderIndex commanders) {
+        this.commanders = commanders;
         chosenCard = null;
-        holders = new ArrayList<>();
+        chosenCardID = NO_CARD;
     }
 
     /**
      * This method clears the selected card from the RecyclerView.
      */
     public void clearSelection() {
-        for (int i = 0; i < holders.size(); i++) {
-            holders.get(i).itemView.setBackgroundResource(0);
+        int oldRow = chosenRow();
+        chosenCard = null;
+        chosenCardID = NO_CARD;
+        if (oldRow != RecyclerView.NO_POSITION) {
+            notifyItemChanged(oldRow);
         }
     }
 
@@ -56,35 +69,36 @@ public class CommanderAdapter extends
      * This is the Accessor method for the chosenCard field.
      * @return a Card which has been chosen by the user.
      */
-    public Card getChosenCard() {
+    public CardSummary getChosenCard() {
         return chosenCard;
     }
 
     /**
-     * This is the Accessor method for the deckContents field.
-     * @return a List of Cards which contains the contents of the
-     * current Deck.
+     * This is the Accessor method for the commanders field.
+     * @return a CommanderIndex containing every commander-eligible Card.
      */
-    public List<Card> getDeckContents() {
-        return deckContents;
+    public CommanderIndex getCommanders() {
+        return commanders;
     }
 
     /**
-     * This is the Accessor method for the holder field.
-     * @return an ArrayList which contains all the ViewHolders for the
-     * RecyclerView.
+     * This method returns the size of the list.
+     * @return an Integer containing the full size of the list, headers
+     * included.
      */
-    public ArrayList<ViewHolder> getHolders() {
-        return holders;
+    @Override
+    public int getItemCount() {
+        return commanders == null ? 0 : commanders.getRowCount();
     }
 
     /**
-     * This method returns the size of the list.
-     * @return an Integer containing the full size of the list.
+     * This method returns the type of a row.
+     * @param position an Integer containing the position of the row.
+     * @return an Integer which describes whether the row is a header.
      */
     @Override
-    public int getItemCount() {
-        return deckContents.size();
+    public int getItemViewType(int position) {
+        return commanders.isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_COMMANDER;
     }
 
     /**
@@ -94,10 +108,23 @@ public class CommanderAdapter extends
      *                  the layout.
      */
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holders.add(holder);
-        holder.commanderName.setText(deckContents.get(position).getName());
-        holder.position = position;
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).sectionName.setText(
+                    commanders.getSectionLabel(commanders.getSectionForRow(position)));
+            return;
+        }
+
+        CardSummary card = commanders.getCard(position);
+        ViewHolder commanderHolder = (ViewHolder) holder;
+        commanderHolder.commanderName.setText(card.getName());
+
+        // Highlight the row if it holds the chosen commander.
+        if (card.getCardID() == chosenCardID) {
+            commanderHolder.itemView.setBackgroundResource(R.drawable.frame_border);
+        } else {
+            commanderHolder.itemView.setBackgroundResource(0);
+        }
     }
 
     /**
@@ -109,23 +136,63 @@ public class CommanderAdapter extends
      */
     @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         Context context = parent.getContext();
         LayoutInflater inflater = LayoutInflater.from(context);
 
+        if (viewType == VIEW_TYPE_HEADER) {
+            View headerView = inflater.inflate(R.layout.commander_picker_header,
+                    parent, false);
+            return new HeaderViewHolder(headerView);
+        }
+
         View deckContentsView = inflater.inflate(R.layout.commander_picker_item,
                 parent, false);
 
         return new ViewHolder(deckContentsView);
     }
 
+    /**
+     * This method finds the row of the chosen commander.
+     * @return an Integer containing the row, or NO_POSITION if no commander
+     * is chosen.
+     */
+    private int chosenRow() {
+        if (chosenCardID == NO_CARD || commanders == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        int row = commanders.getRowForCard(chosenCardID);
+        return row < 0 ? RecyclerView.NO_POSITION : row;
+    }
+
+    /**
+     * This method chooses the commander on a row, and redraws the rows whose
+     * highlight has changed.
+     * @param position an Integer containing the position of the tapped row.
+     */
+    private void choose(int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        CardSummary card = commanders.getCard(position);
+        if (card == null || card.getCardID() == chosenCardID) {
+            return;
+        }
+        int oldRow = chosenRow();
+        chosenCard = card;
+        chosenCardID = card.getCardID();
+        if (oldRow != RecyclerView.NO_POSITION) {
+            notifyItemChanged(oldRow);
+        }
+        notifyItemChanged(position);
+    }
+
     /**
      * This class represents the ViewHolder which will bind necessary
      * data to a RecyclerView row.
      */
     public class ViewHolder extends RecyclerView.ViewHolder {
         public TextView commanderName;
-        public int position;
 
         public ViewHolder(View itemView) {
             super(itemView);
@@ -138,13 +205,7 @@ public class CommanderAdapter extends
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    /* Clear all previously selected cards. Set the chosen card
-                     * into memory, and then highlight it on the view.
-                     */
-                    clearSelection();
-                    chosenCard = deckContents.get(getAbsoluteAdapterPosition());
-                    holders.get(getLayoutPosition()).itemView
-                                    .setBackgroundResource(R.drawable.frame_border);
+                    choose(getAbsoluteAdapterPosition());
                 }
             });
 
@@ -152,38 +213,49 @@ public class CommanderAdapter extends
                 @Override
                 public void onClick(View view) {
                     // Same behaviour as above.
-                    clearSelection();
-                    chosenCard = deckContents.get(getAbsoluteAdapterPosition());
-                    holders.get(getLayoutPosition()).itemView
-                            .setBackgroundResource(R.drawable.frame_border);
+                    choose(getAbsoluteAdapterPosition());
                 }
             });
         }
     }
 
     /**
-     * This is the Mutator method for the deckContents field.
-     * @param deckContents a List of Cards to be set as the current contents
-     *                     of the Deck.
+     * This class represents the ViewHolder for a colour identity header row.
      */
-    public void setDeckContents(List<Card> deckContents) {
-        this.deckContents = deckContents;
+    public static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        public TextView sectionName;
+
+        public HeaderViewHolder(View itemView) {
+            super(itemView);
+            sectionName = itemView.findViewById(R.id.textView_sectionName);
+        }
     }
 
     /**
-     * This is the Mutator method for the chosenCard field.
-     * @param chosenCard a Card which represents the Card chosen by the user.
+     * This is the Mutator method for the commanders field. Any chosen
+     * commander is kept, as it is remembered by card ID.
+     * @param commanders a CommanderIndex containing every commander-eligible
+     *                   Card.
      */
-    public void setChosenCard(Card chosenCard) {
-        this.chosenCard = chosenCard;
+    public void setCommanders(CommanderIndex commanders) {
+        this.commanders = commanders;
+        notifyDataSetChanged();
     }
 
     /**
-     * This is the Mutator method for the holders field.
-     * @param holders an ArrayList of ViewHolders which contains all of the
-     *                ViewHolders used in the RecyclerView.
+     * This is the Mutator method for the chosenCard field.
+     * @param chosenCard a Card which represents the Card chosen by the user.
      */
-    public void setHolders(ArrayList<ViewHolder> holders) {
-        this.holders = holders;
+    public void setChosenCard(CardSummary chosenCard) {
+        int oldRow = chosenRow();
+        this.chosenCard = chosenCard;
+        chosenCardID = chosenCard == null ? NO_CARD : chosenCard.getCardID();
+        if (oldRow != RecyclerView.NO_POSITION) {
+            notifyItemChanged(oldRow);
+        }
+        int newRow = chosenRow();
+        if (newRow != RecyclerView.NO_POSITION) {
+            notifyItemChanged(newRow);
+        }
     }
 }
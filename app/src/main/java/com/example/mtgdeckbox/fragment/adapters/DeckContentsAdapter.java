@@ -6,38 +6,77 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.FragmentActivity;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.mtgdeckbox.R;
 import com.example.mtgdeckbox.fragment.cardImageFragment;
-import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.retrofit.ScryfallImages;
+import com.example.mtgdeckbox.room.CardArtSummary;
 import com.example.mtgdeckbox.room.CardViewModel;
 import com.example.mtgdeckbox.room.DeckCards;
+import com.google.android.material.snackbar.Snackbar;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * This class is the adapter which provides the data for the RecyclerView to see
- * the contents of the current Deck.
+ * the contents of the current Deck. New contents are diffed against the old
+ * contents on a background thread, so adding or removing a Card only rebinds
+ * that row.
+ *
+ * In grid mode each Card is shown as an art thumbnail. Thumbnails are
+ * requested at the exact size of a cell and decoded as RGB_565, and a cell's
+ * request is cancelled as soon as it is recycled.
  * @author: Tom Barker
  */
 public class DeckContentsAdapter extends
-        RecyclerView.Adapter<DeckContentsAdapter.ViewHolder> {
+        ListAdapter<CardArtSummary, RecyclerView.ViewHolder> {
+    private static final int VIEW_TYPE_ROW = 0;
+    private static final int VIEW_TYPE_GRID = 1;
+
+    private boolean gridMode;
+    private int thumbnailWidth;
+    private int thumbnailHeight;
     private int deckID;
-    private List<Card> contents;
     private CardViewModel viewModel;
     private FragmentActivity parentActivity;
 
+    // Cards are the same item if they share an ID.
+    private static final DiffUtil.ItemCallback<CardArtSummary> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<CardArtSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CardArtSummary oldCard,
+                                       @NonNull CardArtSummary newCard) {
+            return oldCard.getCardID() == newCard.getCardID();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CardArtSummary oldCard,
+                                          @NonNull CardArtSummary newCard) {
+            return oldCard.getName().equals(newCard.getName())
+                    && oldCard.getTypes().equals(newCard.getTypes());
+        }
+    };
+
     /**
      * This is the default constructor.
      */
     public DeckContentsAdapter() {
+        super(DIFF_CALLBACK);
         deckID = -1;
-        contents = null;
         viewModel = null;
         parentActivity = null;
     }
@@ -53,10 +92,11 @@ public class DeckContentsAdapter extends
      * @param myContext a Context which provides the context for this adapter
      *                  object.
      */
-    public DeckContentsAdapter(int deckID, List<Card> deckContents,
+    public DeckContentsAdapter(int deckID, List<CardArtSummary> deckContents,
                                CardViewModel viewModel, Context myContext) {
+        super(DIFF_CALLBACK);
         this.deckID = deckID;
-        contents = deckContents;
+        submitList(deckContents);
         this.viewModel = viewModel;
         parentActivity = (FragmentActivity)myContext;
     }
@@ -67,25 +107,54 @@ public class DeckContentsAdapter extends
      *                 should be removed from the contents.
      */
     public void deleteCard(int position) {
-        // Remove the card from the deck.
-        Card removedCard = contents.get(position);
-        contents.remove(position);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        // Remove the card from the deck, and from the list straight away.
+        CardArtSummary removedCard = getItem(position);
+        List<CardArtSummary> remaining = new ArrayList<>(getCurrentList());
+        remaining.remove(position);
+        submitList(remaining);
 
+        final CompletableFuture<Integer> removal;
         try {
-            viewModel.removeSpecificDeckCards(deckID, removedCard.getCardID());
+            removal = viewModel.removeSpecificDeckCards(deckID, removedCard.getCardID());
         }
         catch (Exception e) {
             Log.d("DB ERROR:", "Could not execute query!");
+            return;
         }
+
+        /* The removal is in the Deck's history, so offer to undo it. Only this
+         * removal is undone, and only if nothing has changed the Deck since.
+         */
+        final int removedFrom = deckID;
+        Snackbar.make(parentActivity.findViewById(android.R.id.content),
+                        parentActivity.getString(R.string.deckcontents_card_removed,
+                                removedCard.getName()),
+                        Snackbar.LENGTH_LONG)
+                .setAction(R.string.deckviews_button_undo, new View.OnClickListener() {
+                    @Override
+                    public void onClick(View view) {
+                        removal.thenAccept(new Consumer<Integer>() {
+                            @Override
+                            public void accept(Integer version) {
+                                viewModel.undoDeckChange(removedFrom, version);
+                            }
+                        });
+                    }
+                })
+                .show();
     }
 
     /**
-     * This is the Accessor method for the contents field.
+     * This method returns the contents currently shown in the list.
      * @return a List of Cards which contains the current contents of the
      * Deck being edited.
      */
-    public List<Card> getContents() {
-        return contents;
+    public List<CardArtSummary> getContents() {
+        return getCurrentList();
     }
 
     /**
@@ -97,15 +166,6 @@ public class DeckContentsAdapter extends
         return deckID;
     }
 
-    /**
-     * This method returns the size of the list.
-     * @return an Integer containing the full size of the list.
-     */
-    @Override
-    public int getItemCount() {
-        return contents.size();
-    }
-
     /**
      * This is the Accessor method for the parentActivity field.
      * @return a FragmentActivity which is the parent Activity for this
@@ -131,9 +191,76 @@ public class DeckContentsAdapter extends
      *                  the layout.
      */
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holder.cardName.setText(contents.get(position).getName());
-        holder.cardType.setText(contents.get(position).getTypes());
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        CardArtSummary card = getItem(position);
+        if (holder instanceof GridViewHolder) {
+            GridViewHolder gridHolder = (GridViewHolder) holder;
+            gridHolder.cardName.setText(card.getName());
+
+            // Size the image to the cell, so the thumbnail is decoded at exactly that size.
+            ViewGroup.LayoutParams params = gridHolder.cardArt.getLayoutParams();
+            params.height = thumbnailHeight;
+            gridHolder.cardArt.setLayoutParams(params);
+
+            Glide
+                    .with(gridHolder.cardArt)
+                    .load(ScryfallImages.artCropUrl(card.getScryfallID()))
+                    .override(thumbnailWidth, thumbnailHeight)
+                    .centerCrop()
+                    .format(DecodeFormat.PREFER_RGB_565)
+                    .diskCacheStrategy(DiskCacheStrategy.ALL)
+                    .error(R.mipmap.ic_launcher)
+                    .placeholder(R.mipmap.ic_launcher)
+                    .into(gridHolder.cardArt);
+            return;
+        }
+
+        ViewHolder rowHolder = (ViewHolder) holder;
+        rowHolder.cardName.setText(card.getName());
+        rowHolder.cardType.setText(card.getTypes());
+    }
+
+    /**
+     * This method returns the type of a row.
+     * @param position an Integer containing the position of the row.
+     * @return an Integer which describes whether the row is a grid cell.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return gridMode ? VIEW_TYPE_GRID : VIEW_TYPE_ROW;
+    }
+
+    /**
+     * This method runs when a row scrolls off screen and is about to be
+     * reused. Any thumbnail request for the row is cancelled, and its bitmap
+     * goes back to Glide's pool.
+     * @param holder the ViewHolder which is being recycled.
+     */
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        if (holder instanceof GridViewHolder) {
+            Glide.with(holder.itemView).clear(((GridViewHolder) holder).cardArt);
+        }
+    }
+
+    /**
+     * This method opens a larger image of the Card on a row.
+     * @param position an Integer containing the position of the row.
+     */
+    private void showCardImage(int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        try {
+            CardArtSummary clickedCard = getItem(position);
+            cardImageFragment cardImage = new cardImageFragment(clickedCard.getCardID());
+            cardImage.show(parentActivity.getSupportFragmentManager(),
+                    clickedCard.getName());
+        }
+        catch (Exception e) {
+            Log.d("DB ERROR:", "Could not execute query!");
+        }
     }
 
     /**
@@ -145,10 +272,16 @@ public class DeckContentsAdapter extends
      */
     @NonNull
     @Override
-    public DeckContentsAdapter.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         Context context = parent.getContext();
         LayoutInflater inflater = LayoutInflater.from(context);
 
+        if (viewType == VIEW_TYPE_GRID) {
+            View gridView = inflater.inflate(R.layout.deck_content_grid_item,
+                    parent, false);
+            return new GridViewHolder(gridView);
+        }
+
         View deckContentsView = inflater.inflate(R.layout.deck_content_item,
                 parent, false);
 
@@ -172,7 +305,6 @@ public class DeckContentsAdapter extends
             cardType = itemView.findViewById(R.id.textView_cardType);
             deleteButton = itemView.findViewById(R.id.imageButton_delete);
 
-            // @todo: Define onClickListener() somewhere else and re-use it.
             /* Set the behaviour for clicking on each RecyclerView row. We need
              * to set this behaviour on the name textView, type textView and the
              * itemView itself, so the same behaviour happens no matter where
@@ -181,15 +313,7 @@ public class DeckContentsAdapter extends
             cardName.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    try {
-                        Card clickedCard = contents.get(getAbsoluteAdapterPosition());
-                        cardImageFragment cardImage = new cardImageFragment(clickedCard);
-                        cardImage.show(parentActivity.getSupportFragmentManager(),
-                                clickedCard.getName());
-                    }
-                    catch (Exception e) {
-                        Log.d("DB ERROR:", "Could not execute query!");
-                    }
+                    showCardImage(getAbsoluteAdapterPosition());
                 }
             });
 
@@ -197,15 +321,7 @@ public class DeckContentsAdapter extends
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    try {
-                        Card clickedCard = contents.get(getAbsoluteAdapterPosition());
-                        cardImageFragment cardImage = new cardImageFragment(clickedCard);
-                        cardImage.show(parentActivity.getSupportFragmentManager(),
-                                clickedCard.getName());
-                    }
-                    catch (Exception e) {
-                        Log.d("DB ERROR:", "Could not execute query!");
-                    }
+                    showCardImage(getAbsoluteAdapterPosition());
                 }
             });
 
@@ -213,15 +329,7 @@ public class DeckContentsAdapter extends
             cardType.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View view) {
-                    try {
-                        Card clickedCard = contents.get(getAbsoluteAdapterPosition());
-                        cardImageFragment cardImage = new cardImageFragment(clickedCard);
-                        cardImage.show(parentActivity.getSupportFragmentManager(),
-                                clickedCard.getName());
-                    }
-                    catch (Exception e) {
-                        Log.d("DB ERROR:", "Could not execute query!");
-                    }
+                    showCardImage(getAbsoluteAdapterPosition());
                 }
             });
 
@@ -236,12 +344,64 @@ public class DeckContentsAdapter extends
     }
 
     /**
-     * This is the Mutator method for the contents field.
+     * This class represents the ViewHolder for a cell of the grid.
+     */
+    public class GridViewHolder extends RecyclerView.ViewHolder {
+        public ImageView cardArt;
+        public TextView cardName;
+
+        public GridViewHolder(View itemView) {
+            super(itemView);
+            cardArt = itemView.findViewById(R.id.imageView_cardArt);
+            cardName = itemView.findViewById(R.id.textView_cardName);
+
+            // Set the behaviour for clicking on a cell.
+            itemView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    showCardImage(getAbsoluteAdapterPosition());
+                }
+            });
+        }
+    }
+
+    /**
+     * This method checks if the adapter is showing the grid of thumbnails.
+     * @return a Boolean which is true in grid mode.
+     */
+    public boolean isGridMode() {
+        return gridMode;
+    }
+
+    /**
+     * This method switches between the list of rows and the grid of
+     * thumbnails. Every row is rebound in the new style.
+     * @param gridMode a Boolean which is true to show the grid.
+     */
+    public void setGridMode(boolean gridMode) {
+        this.gridMode = gridMode;
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    /**
+     * This method sets the size which thumbnails are requested at. It should
+     * match the size of a grid cell exactly.
+     * @param width an Integer containing the cell width, in pixels.
+     * @param height an Integer containing the image height, in pixels.
+     */
+    public void setThumbnailSize(int width, int height) {
+        thumbnailWidth = width;
+        thumbnailHeight = height;
+    }
+
+    /**
+     * This method gives the adapter the latest contents of the Deck. Only the
+     * Cards which differ from the current contents are rebound.
      * @param contents a List of Cards containing the contents of the Deck
      *                 currently being edited.
      */
-    public void setContents(List<Card> contents) {
-        this.contents = contents;
+    public void setContents(List<CardArtSummary> contents) {
+        submitList(contents);
     }
 
     /**
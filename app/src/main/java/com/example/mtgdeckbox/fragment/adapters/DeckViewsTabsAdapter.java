@@ -8,6 +8,8 @@ import androidx.viewpager2.adapter.FragmentStateAdapter;
 
 import com.example.mtgdeckbox.fragment.deckContentsFragment;
 import com.example.mtgdeckbox.fragment.deckGraphsFragment;
+import com.example.mtgdeckbox.fragment.deckManaBaseFragment;
+import com.example.mtgdeckbox.fragment.deckSimulatorFragment;
 import com.example.mtgdeckbox.fragment.deckSuggestionsFragment;
 
 /**
@@ -50,6 +52,10 @@ public class DeckViewsTabsAdapter extends FragmentStateAdapter {
                 return new deckSuggestionsFragment(deckID);
             case 2:
                 return new deckGraphsFragment(deckID);
+            case 3:
+                return new deckManaBaseFragment(deckID);
+            case 4:
+                return new deckSimulatorFragment(deckID);
             default:
                 return new Fragment();
         }
@@ -70,7 +76,7 @@ public class DeckViewsTabsAdapter extends FragmentStateAdapter {
      */
     @Override
     public int getItemCount() {
-        return 3;
+        return 5;
     }
 
     /**
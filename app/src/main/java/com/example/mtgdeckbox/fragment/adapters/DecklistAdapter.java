@@ -5,7 +5,7 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
+import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,62 +13,80 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mtgdeckbox.DeckViewsActivity;
 import com.example.mtgdeckbox.R;
 import com.example.mtgdeckbox.room.CardViewModel;
 import com.example.mtgdeckbox.room.Deck;
-
-import java.util.List;
+import com.example.mtgdeckbox.room.DeckSummary;
 
 /**
  * This class contains the data which powers the RecyclerView for the user to
- * see the list of Decks they have created.
+ * see the list of Decks they have created. The Decks are paged in as the user
+ * scrolls, and each page is diffed against the old one on a background
+ * thread, so only the Decks which changed are rebound.
  */
 public class DecklistAdapter extends
-        RecyclerView.Adapter<DecklistAdapter.ViewHolder> {
-    private List<Deck> userDecks;
+        PagingDataAdapter<DeckSummary, DecklistAdapter.ViewHolder> {
     private CardViewModel viewModel;
 
-    /**
-     * This is the default constructor.
-     */
-    public DecklistAdapter() {}
+    // Decks are the same item if they share an ID.
+    private static final DiffUtil.ItemCallback<DeckSummary> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<DeckSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull DeckSummary oldDeck, @NonNull DeckSummary newDeck) {
+            return oldDeck.getDeckID() == newDeck.getDeckID();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull DeckSummary oldDeck, @NonNull DeckSummary newDeck) {
+            String oldCommander = oldDeck.getCommanderName();
+            String newCommander = newDeck.getCommanderName();
+            return oldDeck.getDeckName().equals(newDeck.getDeckName())
+                    && (oldCommander == null ? newCommander == null : oldCommander.equals(newCommander))
+                    && oldDeck.getCardCount() == newDeck.getCardCount()
+                    && oldDeck.getLastModified() == newDeck.getLastModified();
+        }
+    };
 
     /**
-     * This is a non-default constructor.
-     * @param decks a List of Decks which contains all of the user's created
-     *              Decks.
+     * This is the default constructor.
      */
-    public DecklistAdapter(List<Deck> decks) {
-        userDecks = decks;
+    public DecklistAdapter() {
+        super(DIFF_CALLBACK);
     }
 
     /**
-     * This is a non-default constructor.
+     * This is a non-default constructor. The Decks are given to the adapter
+     * with submitData(), as they are paged in.
      * @param viewModel a CardViewModel which will provide access to the
      *                  Android Room database.
      */
     public DecklistAdapter(CardViewModel viewModel) {
+        super(DIFF_CALLBACK);
         this.viewModel = viewModel;
-        try {
-            userDecks = viewModel.getAllDecksByFuture().get();
-        }
-        catch (Exception e) {
-            Log.d("DB ERROR:", "Could not execute query!");
-        }
     }
 
     /**
-     * This method removes a Deck from the user's list of Decks.
+     * This method removes a Deck from the user's list of Decks. The list
+     * reloads the current page once the Deck has been deleted.
      * @param position an Integer describing the Deck's position in the list
      *                 of the user's Decks, which should be deleted.
      */
     public void deleteDeck(int position) {
-        viewModel.removeDeck(userDecks.get(position));
-        userDecks.remove(position);
-        notifyDataSetChanged();
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        DeckSummary summary = getItem(position);
+        if (summary == null) {
+            return;
+        }
+        Deck deck = new Deck();
+        deck.setDeckID(summary.getDeckID());
+        viewModel.removeDeck(deck);
     }
 
     /**
@@ -79,7 +97,10 @@ public class DecklistAdapter extends
      * @param context a Context for the next Activity to be started.
      */
     public void editDeck(int position, Context context) {
-        int deckID = userDecks.get(position).getDeckID();
+        if (position == RecyclerView.NO_POSITION || getItem(position) == null) {
+            return;
+        }
+        int deckID = getItem(position).getDeckID();
         Intent editIntent = new Intent(context, DeckViewsActivity.class);
         Bundle deck = new Bundle();
         deck.putInt("deckID", deckID);
@@ -87,23 +108,6 @@ public class DecklistAdapter extends
         context.startActivity(editIntent);
     }
 
-    /**
-     * This method returns the size of the list.
-     * @return an Integer containing the full size of the list.
-     */
-    @Override
-    public int getItemCount() {
-        return userDecks.size();
-    }
-
-    /**
-     * This is the Accessor method for the userDecks field.
-     * @return a List of Decks which the user has created.
-     */
-    public List<Deck> getUserDecks() {
-        return userDecks;
-    }
-
     /**
      * This is the Accessor method for the viewModel field.
      * @return a CardViewModel object which provides access to the Android
@@ -121,8 +125,22 @@ public class DecklistAdapter extends
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holder.deckName.setText(userDecks.get(position).getDeckName());
-        holder.position = position;
+        DeckSummary deck = getItem(position);
+        if (deck == null) {
+            return;
+        }
+        holder.deckName.setText(deck.getDeckName());
+
+        // Describe the Deck as "Commander · 100 cards · 5 minutes ago".
+        Context context = holder.itemView.getContext();
+        String commander = deck.getCommanderName() == null
+                ? context.getString(R.string.decklist_no_commander)
+                : deck.getCommanderName();
+        CharSequence modified = DateUtils.getRelativeTimeSpanString(deck.getLastModified(),
+                System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS);
+        holder.deckDetails.setText(context.getResources().getQuantityString(
+                R.plurals.decklist_details, deck.getCardCount(),
+                commander, deck.getCardCount(), modified));
     }
 
     /**
@@ -149,14 +167,15 @@ public class DecklistAdapter extends
      */
     public class ViewHolder extends RecyclerView.ViewHolder {
         public TextView deckName;
+        public TextView deckDetails;
         public ImageButton editButton;
         public ImageButton deleteButton;
-        public int position;
 
         public ViewHolder(View itemView) {
             super(itemView);
 
             deckName = itemView.findViewById(R.id.textView_deckName);
+            deckDetails = itemView.findViewById(R.id.textView_deckDetails);
             editButton = itemView.findViewById(R.id.imageButton_edit);
             deleteButton = itemView.findViewById(R.id.imageButton_delete);
 
@@ -196,14 +215,6 @@ public class DecklistAdapter extends
         }
     }
 
-    /**
-     * This is the Mutator method for the userDecks field.
-     * @param userDecks a List of Decks which the user has created.
-     */
-    public void setUserDecks(List<Deck> userDecks) {
-        this.userDecks = userDecks;
-    }
-
     /**
      * This is the Mutator method for the viewModel field.
      * @param viewModel a CardViewModel object which will provide access to the
@@ -11,6 +11,7 @@ import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
 
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.lifecycle.ViewModelProvider;
 
@@ -23,8 +24,10 @@ import com.example.mtgdeckbox.retrofit.RetrofitInterface;
 import com.example.mtgdeckbox.retrofit.SearchResponse;
 import com.example.mtgdeckbox.room.Card;
 import com.example.mtgdeckbox.room.CardViewModel;
+import com.example.mtgdeckbox.room.LifecycleCancellation;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -39,12 +42,15 @@ public class cardImageFragment extends DialogFragment {
     private FragmentCardImageBinding binding;
     private CardViewModel viewModel;
     private Card selectedCard;
+    private int selectedCardID;
     private RetrofitInterface retrofitInterface;
 
     /**
      * This is the default constructor.
      */
-    public cardImageFragment() {}
+    public cardImageFragment() {
+        selectedCardID = -1;
+    }
 
     /**
      * This is the non-default constructor.
@@ -52,6 +58,18 @@ public class cardImageFragment extends DialogFragment {
      */
     public cardImageFragment (Card card) {
         selectedCard = card;
+        selectedCardID = card.getCardID();
+    }
+
+    /**
+     * This is the non-default constructor used by the list screens, which
+     * only hold a CardSummary. The full Card is loaded when the Fragment opens.
+     * @param cardID an Integer containing the ID number of the Card of which
+     *               the Fragment should display an image.
+     */
+    public cardImageFragment (int cardID) {
+        selectedCard = null;
+        selectedCardID = cardID;
     }
 
     /**
@@ -80,6 +98,15 @@ public class cardImageFragment extends DialogFragment {
         return selectedCard;
     }
 
+    /**
+     * This is the Accessor method for the selectedCardID field.
+     * @return an Integer containing the ID number of the Card which has been
+     * selected for display by the user.
+     */
+    public int getSelectedCardID() {
+        return selectedCardID;
+    }
+
     /**
      * This is the Accessor method for the retrofitInterface field.
      * @return a RetrofitInterface which is used to place calls to the
@@ -111,8 +138,38 @@ public class cardImageFragment extends DialogFragment {
 
         // Setup Retrofit.
         retrofitInterface = RetrofitClient.getRetrofitService();
+
+        /* If we were only given the ID of the Card, load the full Card first.
+         * The query is cancelled if the Fragment is closed before it finishes.
+         */
+        if (selectedCard != null) {
+            loadCardImage(selectedCard);
+        } else {
+            LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(),
+                            viewModel.getCardByID(selectedCardID))
+                    .thenAcceptAsync(new Consumer<Card>() {
+                        @Override
+                        public void accept(Card card) {
+                            if (binding == null || card == null) {
+                                return;
+                            }
+                            selectedCard = card;
+                            loadCardImage(card);
+                        }
+                    }, ContextCompat.getMainExecutor(requireContext()));
+        }
+
+        return view;
+    }
+
+    /**
+     * This method uses Retrofit to query the Scryfall API for a Card, and loads
+     * the image it returns into the imageView.
+     * @param card the Card of which the Fragment should display an image.
+     */
+    private void loadCardImage(Card card) {
         Call<SearchResponse> callAsync = retrofitInterface.customSearch(
-                selectedCard.getScryfallID());
+                card.getScryfallID());
 
         // Log some data for debugging.
         Log.d("CALL:", callAsync.request().toString());
@@ -142,8 +199,6 @@ public class cardImageFragment extends DialogFragment {
                 Log.d("ERROR!", "Retrofit Request Failed! " + call.request().toString());
             }
         });
-
-        return view;
     }
 
     /**
@@ -206,6 +261,15 @@ public class cardImageFragment extends DialogFragment {
         this.selectedCard = selectedCard;
     }
 
+    /**
+     * This is the Mutator method for the selectedCardID field.
+     * @param selectedCardID an Integer containing the ID number of the Card
+     *                       for which the Fragment should display an image.
+     */
+    public void setSelectedCardID(int selectedCardID) {
+        this.selectedCardID = selectedCardID;
+    }
+
     /**
      * This is the Mutator method for the retrofitInterface field.
      * @param retrofitInterface a RetrofitInterface which will be used to place
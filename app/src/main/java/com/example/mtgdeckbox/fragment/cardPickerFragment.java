@@ -2,11 +2,16 @@ package com.example.mtgdeckbox.fragment;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CompoundButton;
 
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
@@ -14,21 +19,36 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mtgdeckbox.fragment.adapters.CardPickerAdapter;
+import com.example.mtgdeckbox.IntHashSet;
+import com.example.mtgdeckbox.R;
 import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.room.CardQuery;
+import com.example.mtgdeckbox.room.CardSummary;
 import com.example.mtgdeckbox.databinding.FragmentCardPickerBinding;
 import com.example.mtgdeckbox.room.CardViewModel;
 import com.example.mtgdeckbox.room.Deck;
 import com.example.mtgdeckbox.room.DeckCards;
+import com.example.mtgdeckbox.room.FacetIndex;
+import com.example.mtgdeckbox.room.LifecycleCancellation;
+import com.example.mtgdeckbox.room.NameTrie;
+import com.google.android.material.chip.Chip;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * This Fragment allows the user to choose Cards to add into their Deck.
  * @author: Tom Barker
  */
 public class cardPickerFragment extends DialogFragment {
+    // The most recommendations shown in a category list.
+    private static final int RECOMMENDATION_LIMIT = 100;
+    // The most Cards shown with names close to a misspelt search.
+    private static final int CLOSE_NAME_LIMIT = 5;
+
     private FragmentCardPickerBinding binding;
     private CardPickerAdapter adapter;
     private RecyclerView.LayoutManager layoutManager;
@@ -36,6 +56,11 @@ public class cardPickerFragment extends DialogFragment {
     private final int deckID;
     private OnInputListener myInputListener;
     private String type;
+    private FacetIndex facetIndex;
+    private int[] selectedFacets;
+    private Chip[][] facetChips;
+    private CompletableFuture<List<CardSummary>> search;
+    private NameTrie nameTrie;
 
     /**
      * This is the default constructor.
@@ -159,24 +184,36 @@ public class cardPickerFragment extends DialogFragment {
          * This will vary depending on the type of list we have been
           * asked to display.
          */
-        CompletableFuture<List<Card>> cardList = null;
+        CompletableFuture<List<CardSummary>> cardList = null;
         try {
 
+            /* Category lists are ranked for this Deck: only Cards in the
+             * commander's colours which are not already in the Deck, best first.
+             */
             switch (type) {
                 case "ramp":
-                    cardList = viewModel.getRampCardsByFuture();
+                    cardList = viewModel.getRecommendations(deckID, Card.RAMP,
+                            RECOMMENDATION_LIMIT);
                     break;
                 case "draw":
-                    cardList = viewModel.getDrawCardsByFuture();
+                    cardList = viewModel.getRecommendations(deckID, Card.DRAW,
+                            RECOMMENDATION_LIMIT);
                     break;
                 case "removal":
-                    cardList = viewModel.getRemovalCardsByFuture();
+                    cardList = viewModel.getRecommendations(deckID, Card.REMOVAL,
+                            RECOMMENDATION_LIMIT);
                     break;
                 case "wipe":
-                    cardList = viewModel.getBoardWipesByFuture();
+                    cardList = viewModel.getRecommendations(deckID, Card.BOARD_WIPE,
+                            RECOMMENDATION_LIMIT);
+                    break;
+                case "companions":
+                    // Cards the user's other Decks play alongside this one's.
+                    cardList = viewModel.getDeckCompanions(deckID, RECOMMENDATION_LIMIT);
                     break;
                 default:
-                    cardList = viewModel.getAllCardsByFuture();
+                    // The whole catalogue is browsed through the facet chips.
+                    loadFacetIndex();
                     break;
             }
         }
@@ -184,19 +221,28 @@ public class cardPickerFragment extends DialogFragment {
             Log.d("DB ERROR:", "Could not execute query!");
         }
 
-        // Create the adapter based on the retrieved list of cards.
-        try {
-            adapter = new CardPickerAdapter(cardList.get());
-        }
-        catch (Exception e) {
-            Log.d("DB ERROR:", "Could not execute query!");
-        }
-
         // Create a line divider between items
         binding.recyclerViewCardPicker.addItemDecoration(
                 new DividerItemDecoration(getActivity(), LinearLayoutManager.VERTICAL));
 
-        binding.recyclerViewCardPicker.setAdapter(adapter);
+        /* Create the adapter once the list of cards has loaded, without blocking
+         * the main thread. If the picker is closed first, the query is cancelled.
+         */
+        if (cardList != null) {
+            LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(), cardList)
+                    .thenAcceptAsync(new Consumer<List<CardSummary>>() {
+                        @Override
+                        public void accept(List<CardSummary> cards) {
+                            if (binding == null) {
+                                return;
+                            }
+                            adapter = new CardPickerAdapter(cards);
+                            binding.recyclerViewCardPicker.setAdapter(adapter);
+                            adapter.attachSelectionTracker(binding.recyclerViewCardPicker);
+                        }
+                    }, ContextCompat.getMainExecutor(requireContext()));
+        }
+
         layoutManager = new LinearLayoutManager(getActivity());
         binding.recyclerViewCardPicker.setLayoutManager(layoutManager);
 
@@ -212,7 +258,11 @@ public class cardPickerFragment extends DialogFragment {
         binding.buttonAddToDeck.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                ArrayList<Card> chosenCards = adapter.getSelections();
+                if (adapter == null) {
+                    dismiss();
+                    return;
+                }
+                ArrayList<CardSummary> chosenCards = adapter.getSelections();
                 if (!chosenCards.isEmpty()) {
                     myInputListener.sendInput(chosenCards);
                 }
@@ -222,6 +272,225 @@ public class cardPickerFragment extends DialogFragment {
         return view;
     }
 
+    /**
+     * This method loads the FacetIndex in the background, then shows the whole
+     * catalogue with a chip for each facet value.
+     */
+    private void loadFacetIndex() {
+        LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(), viewModel.getFacetIndex())
+                .thenAcceptAsync(new Consumer<FacetIndex>() {
+                    @Override
+                    public void accept(FacetIndex index) {
+                        if (binding == null) {
+                            return;
+                        }
+                        facetIndex = index;
+                        selectedFacets = new int[FacetIndex.Facet.values().length];
+                        FacetIndex.Result result = index.filter(selectedFacets);
+
+                        adapter = new CardPickerAdapter(result.getCards());
+                        binding.recyclerViewCardPicker.setAdapter(adapter);
+                        adapter.attachSelectionTracker(binding.recyclerViewCardPicker);
+
+                        createFacetChips();
+                        updateFacetChips(result);
+                        showSearchBox();
+                    }
+                }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method shows the search box above the catalogue. Typing a search
+     * replaces the facet chips with the Cards which match it, and clearing
+     * the box brings the chips back. The NameTrie for completing names is
+     * built in the background meanwhile.
+     */
+    private void showSearchBox() {
+        LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(), viewModel.getNameTrie())
+                .thenAcceptAsync(new Consumer<NameTrie>() {
+                    @Override
+                    public void accept(NameTrie trie) {
+                        nameTrie = trie;
+                    }
+                }, ContextCompat.getMainExecutor(requireContext()));
+
+        binding.editTextCardSearch.setVisibility(View.VISIBLE);
+        binding.editTextCardSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                runSearch(s.toString());
+            }
+        });
+    }
+
+    /**
+     * This method runs a search typed into the search box. Only the latest
+     * search is shown: the one before it is cancelled if it is still waiting.
+     * A search for a name first shows the best ranked names starting with it
+     * straight away, from the NameTrie, and then the rest of the Cards whose
+     * names contain it once the query returns.
+     * @param text a String containing the search.
+     */
+    private void runSearch(String text) {
+        if (search != null) {
+            search.cancel(true);
+            search = null;
+        }
+        if (text.trim().isEmpty()) {
+            binding.editTextCardSearch.setError(null);
+            binding.scrollViewFacets.setVisibility(View.VISIBLE);
+            applyFacets();
+            return;
+        }
+
+        final CardQuery query = CardQuery.compile(text);
+        if (query.getInvalidTerms().isEmpty()) {
+            binding.editTextCardSearch.setError(null);
+        } else {
+            binding.editTextCardSearch.setError(getString(R.string.card_picker_search_invalid,
+                    TextUtils.join(" ", query.getInvalidTerms())));
+        }
+        binding.scrollViewFacets.setVisibility(View.GONE);
+
+        final List<CardSummary> completions = nameTrie == null || query.getNameText().isEmpty()
+                ? Collections.<CardSummary>emptyList()
+                : nameTrie.complete(query.getNameText());
+        if (!completions.isEmpty()) {
+            adapter.showCards(completions);
+        }
+
+        final CompletableFuture<List<CardSummary>> future = viewModel.searchCards(query);
+        search = future;
+        future.thenAcceptAsync(new Consumer<List<CardSummary>>() {
+            @Override
+            public void accept(List<CardSummary> cards) {
+                if (binding == null || future != search) {
+                    return;
+                }
+                if (cards.isEmpty() && completions.isEmpty()
+                        && !query.getNameText().isEmpty()) {
+                    showCloseNames(query.getNameText());
+                } else {
+                    adapter.showCards(withCompletionsFirst(completions, cards));
+                }
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method puts the completions already on show ahead of a search's
+     * results, so the top of the list does not move when the results arrive.
+     * @param completions a List of the CardSummaries completed from the NameTrie.
+     * @param cards a List of the CardSummaries the search returned.
+     * @return a List of the completions, then the other Cards from the search.
+     */
+    private static List<CardSummary> withCompletionsFirst(List<CardSummary> completions,
+                                                          List<CardSummary> cards) {
+        if (completions.isEmpty()) {
+            return cards;
+        }
+        IntHashSet shown = new IntHashSet();
+        List<CardSummary> merged = new ArrayList<>(completions.size() + cards.size());
+        for (CardSummary card : completions) {
+            shown.add(card.getCardID());
+            merged.add(card);
+        }
+        for (CardSummary card : cards) {
+            if (!shown.contains(card.getCardID())) {
+                merged.add(card);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * This method shows the Cards with names closest to a name which matched
+     * nothing, in case it was misspelt.
+     * @param name a String containing the name searched for.
+     */
+    private void showCloseNames(String name) {
+        final CompletableFuture<List<CardSummary>> future =
+                viewModel.findCardsNamedLike(name, CLOSE_NAME_LIMIT);
+        search = future;
+        future.thenAcceptAsync(new Consumer<List<CardSummary>>() {
+            @Override
+            public void accept(List<CardSummary> cards) {
+                if (binding == null || future != search) {
+                    return;
+                }
+                if (!cards.isEmpty()) {
+                    binding.editTextCardSearch.setError(
+                            getString(R.string.card_picker_search_close));
+                }
+                adapter.showCards(cards);
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method adds a filter chip to the picker for every facet value.
+     */
+    private void createFacetChips() {
+        FacetIndex.Facet[] facets = FacetIndex.Facet.values();
+        facetChips = new Chip[facets.length][];
+        for (final FacetIndex.Facet facet : facets) {
+            facetChips[facet.ordinal()] = new Chip[facet.size()];
+            for (int v = 0; v < facet.size(); v++) {
+                final int value = v;
+                Chip chip = new Chip(requireContext());
+                chip.setCheckable(true);
+                chip.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+                    @Override
+                    public void onCheckedChanged(CompoundButton button, boolean checked) {
+                        if (checked) {
+                            selectedFacets[facet.ordinal()] |= 1 << value;
+                        } else {
+                            selectedFacets[facet.ordinal()] &= ~(1 << value);
+                        }
+                        applyFacets();
+                    }
+                });
+                facetChips[facet.ordinal()][v] = chip;
+                binding.chipGroupFacets.addView(chip);
+            }
+        }
+        binding.scrollViewFacets.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * This method filters the catalogue by the chosen chips, and shows the
+     * matching Cards in rank order.
+     */
+    private void applyFacets() {
+        if (facetIndex == null || adapter == null) {
+            return;
+        }
+        FacetIndex.Result result = facetIndex.filter(selectedFacets);
+        adapter.showCards(result.getCards());
+        updateFacetChips(result);
+    }
+
+    /**
+     * This method shows on each chip how many Cards would match if it were
+     * chosen, given the other facets' filters.
+     * @param result the FacetIndex.Result of the current filter.
+     */
+    private void updateFacetChips(FacetIndex.Result result) {
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            String[] labels = facet.getLabels();
+            for (int v = 0; v < labels.length; v++) {
+                facetChips[facet.ordinal()][v].setText(
+                        labels[v] + " (" + result.getCount(facet, v) + ")");
+            }
+        }
+    }
+
     /**
      * This method clears some objects from memory and resets the binding,
      * when the Fragment is destroyed.
@@ -229,6 +498,10 @@ public class cardPickerFragment extends DialogFragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (search != null) {
+            search.cancel(true);
+            search = null;
+        }
         binding = null;
     }
 
@@ -237,7 +510,7 @@ public class cardPickerFragment extends DialogFragment {
      * to send data back to the parent Fragment.
      */
     public interface OnInputListener {
-        void sendInput(ArrayList<Card> chosenCards);
+        void sendInput(ArrayList<CardSummary> chosenCards);
     }
 
     /**
@@ -4,11 +4,15 @@ import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
@@ -17,11 +21,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mtgdeckbox.databinding.FragmentCommanderPickerBinding;
 import com.example.mtgdeckbox.fragment.adapters.CommanderAdapter;
-import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.room.CardSummary;
 import com.example.mtgdeckbox.room.CardViewModel;
+import com.example.mtgdeckbox.room.CommanderIndex;
+import com.example.mtgdeckbox.room.LifecycleCancellation;
 
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * This Fragment provides a list of commander-eligible Cards for the user to
@@ -31,7 +36,7 @@ import java.util.concurrent.CompletableFuture;
 public class commanderPickerFragment extends DialogFragment {
     private FragmentCommanderPickerBinding binding;
     private CommanderAdapter adapter;
-    private RecyclerView.LayoutManager layoutManager;
+    private LinearLayoutManager layoutManager;
     private CardViewModel viewModel;
     public OnInputListener myInputListener;
 
@@ -60,10 +65,10 @@ public class commanderPickerFragment extends DialogFragment {
 
     /**
      * This is the Accessor method for the layoutManager field.
-     * @return a RecyclerView.LayoutManager object which helps to manager
+     * @return a LinearLayoutManager object which helps to manager
      * the RecyclerView.
      */
-    public RecyclerView.LayoutManager getLayoutManager() {
+    public LinearLayoutManager getLayoutManager() {
         return layoutManager;
     }
 
@@ -123,22 +128,47 @@ public class commanderPickerFragment extends DialogFragment {
                         getActivity().getApplication())
                 .create(CardViewModel.class);
 
-        // Retrieve a list of commander-eligible Cards.
-        CompletableFuture<List<Card>> commanderCardsCompletableFuture = viewModel.getAllCommanders();
-        try {
-            adapter = new CommanderAdapter(commanderCardsCompletableFuture.get());
-        }
-        catch (Exception e) {
-            Log.d("DB ERROR:", "Could not execute query!");
-        }
-
         // Create a line divider between items
         binding.recyclerViewCommanderPicker.addItemDecoration(
                 new DividerItemDecoration(getActivity(), LinearLayoutManager.VERTICAL));
 
+        /* Start with an empty adapter, and fill it once the commanders have
+         * been loaded and sectioned off the main thread.
+         */
+        adapter = new CommanderAdapter();
         binding.recyclerViewCommanderPicker.setAdapter(adapter);
         layoutManager = new LinearLayoutManager(getActivity());
         binding.recyclerViewCommanderPicker.setLayoutManager(layoutManager);
+        loadCommanders();
+
+        // Keep the label above the list showing the section being scrolled through.
+        binding.recyclerViewCommanderPicker.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                updateCurrentSection();
+            }
+        });
+
+        // Jump to the first commander whose name starts with the typed text.
+        binding.editTextCommanderSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                CommanderIndex commanders = adapter.getCommanders();
+                if (commanders == null) {
+                    return;
+                }
+                int row = commanders.findRowByPrefix(s.toString());
+                if (row >= 0) {
+                    layoutManager.scrollToPositionWithOffset(row, 0);
+                }
+            }
+        });
 
         // Set the behaviour for the dismiss button.
         binding.buttonCancel.setOnClickListener(new View.OnClickListener() {
@@ -153,7 +183,7 @@ public class commanderPickerFragment extends DialogFragment {
             @Override
             public void onClick(View view) {
                 // Get the selected commander card and write it into the deck.
-                Card chosenCommander = adapter.getChosenCard();
+                CardSummary chosenCommander = adapter.getChosenCard();
                 if (chosenCommander == null) {
                     AlertDialog.Builder builder = new AlertDialog.Builder(binding.buttonChoose.getContext());
                     builder.setCancelable(true);
@@ -178,6 +208,46 @@ public class commanderPickerFragment extends DialogFragment {
         return view;
     }
 
+    /**
+     * This method loads the commander-eligible Cards, already sorted and
+     * sectioned by colour identity, and shows them once they are ready.
+     */
+    private void loadCommanders() {
+        LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(), viewModel.getCommanderIndex())
+                .thenAcceptAsync(new Consumer<CommanderIndex>() {
+                    @Override
+                    public void accept(CommanderIndex commanders) {
+                        if (binding == null) {
+                            return;
+                        }
+                        adapter.setCommanders(commanders);
+
+                        // Re-apply any text typed while the list was loading.
+                        int row = commanders.findRowByPrefix(
+                                binding.editTextCommanderSearch.getText().toString());
+                        if (row >= 0) {
+                            layoutManager.scrollToPositionWithOffset(row, 0);
+                        }
+                        updateCurrentSection();
+                    }
+                }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method shows the colour identity of the top visible row above the
+     * list, so the user can tell which section they are in while scrolling.
+     */
+    private void updateCurrentSection() {
+        CommanderIndex commanders = adapter.getCommanders();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        if (binding == null || commanders == null || first == RecyclerView.NO_POSITION) {
+            return;
+        }
+        binding.textViewCurrentSection.setText(
+                commanders.getSectionLabel(commanders.getSectionForRow(first)));
+        binding.textViewCurrentSection.setVisibility(View.VISIBLE);
+    }
+
     /**
      * This method clears some objects from memory and resets the binding,
      * when the Fragment is destroyed.
@@ -193,7 +263,7 @@ public class commanderPickerFragment extends DialogFragment {
      * to send data back to the parent Fragment.
      */
     public interface OnInputListener {
-        void sendInput(Card chosenCard);
+        void sendInput(CardSummary chosenCard);
     }
 
     /**
@@ -230,10 +300,10 @@ public class commanderPickerFragment extends DialogFragment {
 
     /**
      * This is the Mutator method for the layoutManager field.
-     * @param layoutManager a RecyclerView.LayoutManager object which will help
+     * @param layoutManager a LinearLayoutManager object which will help
      *                      manager the RecyclerView.
      */
-    public void setLayoutManager(RecyclerView.LayoutManager layoutManager) {
+    public void setLayoutManager(LinearLayoutManager layoutManager) {
         this.layoutManager = layoutManager;
     }
 
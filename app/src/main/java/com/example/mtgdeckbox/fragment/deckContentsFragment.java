@@ -2,11 +2,13 @@ package com.example.mtgdeckbox.fragment;
 
 import android.os.Bundle;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -15,11 +17,12 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.bumptech.glide.Glide;
+import com.example.mtgdeckbox.R;
 import com.example.mtgdeckbox.databinding.FragmentDeckContentsBinding;
 import com.example.mtgdeckbox.fragment.adapters.DeckContentsAdapter;
-import com.example.mtgdeckbox.room.Card;
+import com.example.mtgdeckbox.room.CardArtSummary;
 import com.example.mtgdeckbox.room.CardViewModel;
-import com.example.mtgdeckbox.room.DeckCards;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,7 +38,12 @@ public class deckContentsFragment extends Fragment {
     private CardViewModel viewModel;
     private RecyclerView.LayoutManager layoutManager;
     private final int deckID;
-    private List<Card> deckContents;
+    private List<CardArtSummary> deckContents;
+    private DividerItemDecoration divider;
+
+    // The smallest width of a grid cell, and the shape of Scryfall's art crops.
+    private static final int MIN_CELL_WIDTH_DP = 110;
+    private static final float ART_CROP_ASPECT = 457f / 626f;
 
     /**
      * This is the default constructor.
@@ -51,7 +59,7 @@ public class deckContentsFragment extends Fragment {
      */
     public deckContentsFragment(int deckID) {
         this.deckID = deckID;
-        deckContents = new ArrayList<Card>();
+        deckContents = new ArrayList<CardArtSummary>();
     }
 
     /**
@@ -103,7 +111,7 @@ public class deckContentsFragment extends Fragment {
      * This is the Accessor method for the deckContents field.
      * @return a List of Cards containing all the Cards in the Deck.
      */
-    public List<Card> getDeckContents() {
+    public List<CardArtSummary> getDeckContents() {
         return deckContents;
     }
 
@@ -125,27 +133,19 @@ public class deckContentsFragment extends Fragment {
                         getActivity().getApplication())
                 .create(CardViewModel.class);
 
-        // To track the contents of the deck, setup the ArrayList of contents.
-        try {
-            List<DeckCards> currentDeck = viewModel.getDeckCards(deckID).get();
-            for (DeckCards deckCard : currentDeck) {
-                deckContents.add(viewModel.getCardByID(deckCard.getCardID()).get());
-            }
-        }
-        catch (Exception e) {
-            Log.d("DB ERROR:", "Could not execute query!");
-        }
-
         // Setup the RecyclerView to display the deck contents.
         adapter = new DeckContentsAdapter(deckID, deckContents, viewModel, getActivity());
 
-        // Setup an Observer to refresh the contents of the Deck when it is edited.
-        Observer<List<DeckCards>> myObserver = new Observer<List<DeckCards>>() {
+        /* Setup an Observer to refresh the contents of the Deck when it is edited.
+         * The contents are loaded in one query, with only the columns the list shows,
+         * and only the rows which changed are rebound.
+         */
+        Observer<List<CardArtSummary>> myObserver = new Observer<List<CardArtSummary>>() {
             @Override
-            public void onChanged(@Nullable List<DeckCards> deckCards) {
+            public void onChanged(@Nullable List<CardArtSummary> cards) {
                 try {
-                    adapter = new DeckContentsAdapter(deckID, deckContents, viewModel, getActivity());
-                    binding.recyclerViewDeckContents.setAdapter(adapter);
+                    deckContents = cards;
+                    adapter.submitList(cards);
                 }
                 catch (NullPointerException e) {
                     Log.d("ERROR", "Deck was null when observing.");
@@ -156,16 +156,37 @@ public class deckContentsFragment extends Fragment {
             }
         };
 
-        viewModel.getLiveDeckCards(deckID).observe(getViewLifecycleOwner(), myObserver);
+        viewModel.getLiveDeckContents(deckID).observe(getViewLifecycleOwner(), myObserver);
 
         // Create a line divider between items
-        binding.recyclerViewDeckContents.addItemDecoration(
-                new DividerItemDecoration(getActivity(), LinearLayoutManager.VERTICAL));
+        divider = new DividerItemDecoration(getActivity(), LinearLayoutManager.VERTICAL);
+        binding.recyclerViewDeckContents.addItemDecoration(divider);
 
         binding.recyclerViewDeckContents.setAdapter(adapter);
+        binding.recyclerViewDeckContents.setHasFixedSize(true);
         layoutManager = new LinearLayoutManager(getActivity());
         binding.recyclerViewDeckContents.setLayoutManager(layoutManager);
 
+        // Hold off starting thumbnail requests while the grid is being flung.
+        binding.recyclerViewDeckContents.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                    Glide.with(deckContentsFragment.this).pauseRequests();
+                } else {
+                    Glide.with(deckContentsFragment.this).resumeRequests();
+                }
+            }
+        });
+
+        // Set the behaviour for the button which switches between list and grid.
+        binding.fabToggleView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                setGridMode(!adapter.isGridMode());
+            }
+        });
+
         // Set the behaviour for the floating action button.
         binding.fabAddCards.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -177,6 +198,35 @@ public class deckContentsFragment extends Fragment {
         return binding.getRoot();
     }
 
+    /**
+     * This method switches the deck contents between a list of rows and a
+     * grid of card art. The grid has as many columns as fit the screen, and
+     * thumbnails are requested at the exact size of one cell.
+     * @param gridMode a Boolean which is true to show the grid.
+     */
+    private void setGridMode(boolean gridMode) {
+        RecyclerView recyclerView = binding.recyclerViewDeckContents;
+        if (gridMode) {
+            int width = recyclerView.getWidth() - recyclerView.getPaddingStart()
+                    - recyclerView.getPaddingEnd();
+            int minCellWidth = Math.round(MIN_CELL_WIDTH_DP
+                    * getResources().getDisplayMetrics().density);
+            int columns = Math.max(2, width / minCellWidth);
+            int cellWidth = width / columns;
+            adapter.setThumbnailSize(cellWidth, Math.round(cellWidth * ART_CROP_ASPECT));
+
+            recyclerView.removeItemDecoration(divider);
+            layoutManager = new GridLayoutManager(getActivity(), columns);
+            binding.fabToggleView.setImageResource(R.drawable.ic_baseline_view_stream_24);
+        } else {
+            recyclerView.addItemDecoration(divider);
+            layoutManager = new LinearLayoutManager(getActivity());
+            binding.fabToggleView.setImageResource(R.drawable.ic_baseline_view_quilt_24);
+        }
+        recyclerView.setLayoutManager(layoutManager);
+        adapter.setGridMode(gridMode);
+    }
+
     /**
      * This method clears some objects from memory and resets the binding,
      * when the Fragment is destroyed.
@@ -228,7 +278,7 @@ public class deckContentsFragment extends Fragment {
      * @param deckContents a List of Cards which contains the Cards in the Deck
      *                     currently being edited.
      */
-    public void setDeckContents(List<Card> deckContents) {
+    public void setDeckContents(List<CardArtSummary> deckContents) {
         this.deckContents = deckContents;
     }
 }
\ No newline at end of file
@@ -8,35 +8,38 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.example.mtgdeckbox.databinding.FragmentDeckGraphsBinding;
-import com.example.mtgdeckbox.room.Card;
-import com.example.mtgdeckbox.room.CardViewModel;
-import com.example.mtgdeckbox.room.DeckCards;
+import com.example.mtgdeckbox.room.DeckStats;
+import com.example.mtgdeckbox.room.DeckStatsViewModel;
+import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.components.Description;
 import com.github.mikephil.charting.data.BarData;
 import com.github.mikephil.charting.data.BarDataSet;
 import com.github.mikephil.charting.data.BarEntry;
-import com.github.mikephil.charting.interfaces.datasets.IBarDataSet;
+import com.github.mikephil.charting.data.PieData;
+import com.github.mikephil.charting.data.PieDataSet;
+import com.github.mikephil.charting.data.PieEntry;
+import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * This Fragment displays graphs to the User to give them visual feedback
- * about their Deck.
+ * about their Deck. The statistics are worked out by the DeckStatsViewModel,
+ * which outlives this Fragment, so switching tabs only redraws the graphs.
  */
 public class deckGraphsFragment extends Fragment {
     private FragmentDeckGraphsBinding binding;
-    private CardViewModel viewModel;
+    private DeckStatsViewModel viewModel;
     private final int deckID;
-    private List<Card> deckContents;
+    private DeckStats deckStats;
 
     /**
      * This is the default constructor.
@@ -52,7 +55,6 @@ public class deckGraphsFragment extends Fragment {
      */
     public deckGraphsFragment(int deckID) {
         this.deckID = deckID;
-        deckContents = new ArrayList<Card>();
     }
 
     /**
@@ -66,10 +68,10 @@ public class deckGraphsFragment extends Fragment {
 
     /**
      * This is the Accessor method for the viewModel field.
-     * @return a CardViewModel object which provides access to the Android
-     * Room database.
+     * @return a DeckStatsViewModel object which provides the statistics for
+     * the Deck.
      */
-    public CardViewModel getViewModel() {
+    public DeckStatsViewModel getViewModel() {
         return viewModel;
     }
 
@@ -82,11 +84,11 @@ public class deckGraphsFragment extends Fragment {
     }
 
     /**
-     * This is the Accessor method for the deckContents field.
-     * @return a List of Cards containing the Cards in the current Deck.
+     * This is the Accessor method for the deckStats field.
+     * @return a DeckStats containing the statistics currently on display.
      */
-    public List<Card> getDeckContents() {
-        return deckContents;
+    public DeckStats getDeckStats() {
+        return deckStats;
     }
 
     /**
@@ -103,124 +105,134 @@ public class deckGraphsFragment extends Fragment {
                              Bundle savedInstanceState) {
         binding = FragmentDeckGraphsBinding.inflate(inflater, container, false);
 
-        viewModel = ViewModelProvider.AndroidViewModelFactory.getInstance(
-                        getActivity().getApplication())
-                .create(CardViewModel.class);
+        // Share the statistics with the Activity, so they outlive this tab.
+        viewModel = new ViewModelProvider(requireActivity(),
+                ViewModelProvider.AndroidViewModelFactory.getInstance(
+                        requireActivity().getApplication()))
+                .get(DeckStatsViewModel.class);
 
-        // Setup an Observer, to create and refresh bar graph data.
-        Observer<List<DeckCards>> myObserver = new Observer<List<DeckCards>>() {
+        // Redraw the graphs whenever a new analysis of the Deck arrives.
+        viewModel.getDeckStats(deckID).observe(getViewLifecycleOwner(), new Observer<DeckStats>() {
             @Override
-            public void onChanged(@Nullable List<DeckCards> deckCards) {
-                // To track the contents of the deck, re-populate the ArrayList of contents.
-                try {
-                    List<DeckCards> currentDeck = viewModel.getDeckCards(deckID).get();
-                    deckContents.clear();
-                    for (DeckCards deckCard : currentDeck) {
-                        deckContents.add(viewModel.getCardByID(deckCard.getCardID()).get());
-                    }
-                }
-                catch (Exception e) {
-                    Log.d("DB ERROR:", "Could not execute query!");
+            public void onChanged(@Nullable DeckStats stats) {
+                if (stats == null || binding == null) {
+                    return;
                 }
+                // Only animate when the Deck has actually changed.
+                boolean changed = stats != deckStats;
+                deckStats = stats;
+                showAverages(stats);
+                showManaCurve(stats, changed);
+                showColourPips(stats);
+                showTypes(stats);
+                showCategories(stats);
+            }
+        });
 
-                // Setup some helper variables.
-                int column0 = 0;
-                int column1 = 0;
-                int column2 = 0;
-                int column3 = 0;
-                int column4 = 0;
-                int column5 = 0;
-                int column6 = 0;
-                int column7 = 0;
-                int column8 = 0;
-                int column9 = 0;
-                int column10 = 0;
-                int column10plus = 0;
+        return binding.getRoot();
+    }
 
-                for (Card card : deckContents) {
-                    switch (card.getManaValue()) {
-                        case 0:
-                            column0++;
-                            break;
-                        case 1:
-                            column1++;
-                            break;
-                        case 2:
-                            column2++;
-                            break;
-                        case 3:
-                            column3++;
-                            break;
-                        case 4:
-                            column4++;
-                            break;
-                        case 5:
-                            column5++;
-                            break;
-                        case 6:
-                            column6++;
-                            break;
-                        case 7:
-                            column7++;
-                            break;
-                        case 8:
-                            column8++;
-                            break;
-                        case 9:
-                            column9++;
-                            break;
-                        case 10:
-                            column10++;
-                            break;
-                        default:
-                            column10plus++;
-                            break;
-                    }
-                }
+    /**
+     * This method shows the card counts and average mana values of the Deck.
+     * @param stats the DeckStats to display.
+     */
+    private void showAverages(DeckStats stats) {
+        binding.textViewDeckAverages.setText(String.format(Locale.getDefault(),
+                "%d cards, %d lands\nAverage mana value: %.2f (%.2f without lands)",
+                stats.getTotalCards(), stats.getLandCount(),
+                stats.getAverageManaValue(), stats.getAverageManaValueWithoutLands()));
+    }
 
-                // Create and set our bar chart.
-                List<BarEntry> barEntries = new ArrayList<>();
-                barEntries.add(new BarEntry(0, column0));
-                barEntries.add(new BarEntry(1, column1));
-                barEntries.add(new BarEntry(2, column2));
-                barEntries.add(new BarEntry(3, column3));
-                barEntries.add(new BarEntry(4, column4));
-                barEntries.add(new BarEntry(5, column5));
-                barEntries.add(new BarEntry(6, column6));
-                barEntries.add(new BarEntry(7, column7));
-                barEntries.add(new BarEntry(8, column8));
-                barEntries.add(new BarEntry(9, column9));
-                barEntries.add(new BarEntry(10, column10));
-                barEntries.add(new BarEntry(11, column10plus));
+    /**
+     * This method draws the mana curve of the Deck's non-land Cards.
+     * @param stats the DeckStats to display.
+     * @param animate a Boolean which is true if the bars should grow in.
+     */
+    private void showManaCurve(DeckStats stats, boolean animate) {
+        List<BarEntry> barEntries = new ArrayList<>();
+        for (int i = 0; i < DeckStats.CURVE_LABELS.length; i++) {
+            barEntries.add(new BarEntry(i, stats.getCurveCount(i)));
+        }
+        showBarChart(binding.barChart, barEntries, DeckStats.CURVE_LABELS,
+                "Count of Cards in Deck by Mana Value (excluding lands)");
+        if (animate) {
+            binding.barChart.animateY(4000);
+        }
+    }
+
+    /**
+     * This method draws the share of each colour among the Deck's mana symbols.
+     * @param stats the DeckStats to display.
+     */
+    private void showColourPips(DeckStats stats) {
+        List<PieEntry> pieEntries = new ArrayList<>();
+        for (int i = 0; i < DeckStats.PIP_LABELS.length; i++) {
+            if (stats.getColourPips(i) > 0) {
+                pieEntries.add(new PieEntry(stats.getColourPips(i), DeckStats.PIP_LABELS[i]));
+            }
+        }
+        PieDataSet pieDataSet = new PieDataSet(pieEntries, "Mana Symbols");
+        pieDataSet.setColors(ColorTemplate.COLORFUL_COLORS);
+        binding.pieChartColourPips.setData(new PieData(pieDataSet));
 
-                BarDataSet barDataSet = new BarDataSet(barEntries, "Count of Cards");
-                barDataSet.setColors(ColorTemplate.COLORFUL_COLORS);
+        Description description = new Description();
+        description.setText("Coloured Mana Symbols in Deck");
+        binding.pieChartColourPips.setDescription(description);
+        binding.pieChartColourPips.invalidate();
+    }
 
-                ArrayList<IBarDataSet> dataSets = new ArrayList<>();
-                List<String> xAxisValues = new ArrayList<>(Arrays.asList("0", "1", "2", "3", "4",
-                        "5", "6", "7", "8", "9", "10", "10-plus"));
-                binding.barChart.getXAxis().setValueFormatter(new com.github.mikephil.charting.
-                        formatter.IndexAxisValueFormatter(xAxisValues));
-                BarData barData = new BarData(barDataSet);
-                binding.barChart.setData(barData);
+    /**
+     * This method draws how many Cards of each type the Deck holds.
+     * @param stats the DeckStats to display.
+     */
+    private void showTypes(DeckStats stats) {
+        List<BarEntry> barEntries = new ArrayList<>();
+        for (int i = 0; i < DeckStats.TYPE_LABELS.length; i++) {
+            barEntries.add(new BarEntry(i, stats.getTypeCount(i)));
+        }
+        showBarChart(binding.barChartTypes, barEntries, DeckStats.TYPE_LABELS,
+                "Count of Cards in Deck by Type");
+    }
 
-                barData.setBarWidth(1.0f);
-                binding.barChart.setVisibility(View.VISIBLE);
-                binding.barChart.animateY(4000);
+    /**
+     * This method draws how many Cards in the Deck cover each category.
+     * @param stats the DeckStats to display.
+     */
+    private void showCategories(DeckStats stats) {
+        List<BarEntry> barEntries = new ArrayList<>();
+        for (int i = 0; i < DeckStats.CATEGORY_LABELS.length; i++) {
+            barEntries.add(new BarEntry(i, stats.getCategoryCount(i)));
+        }
+        showBarChart(binding.barChartCategories, barEntries, DeckStats.CATEGORY_LABELS,
+                "Count of Cards in Deck by Category");
+    }
 
-                // Provide a description label.
-                Description description = new Description();
-                description.setText("Count of Cards in Deck by Mana Value");
-                binding.barChart.setDescription(description);
+    /**
+     * This method fills in one of the bar charts.
+     * @param chart the BarChart to draw into.
+     * @param barEntries a List of BarEntries, one for each label.
+     * @param labels an Array of Strings labelling each bar.
+     * @param descriptionText a String describing the chart.
+     */
+    private void showBarChart(BarChart chart, List<BarEntry> barEntries, String[] labels,
+                              String descriptionText) {
+        BarDataSet barDataSet = new BarDataSet(barEntries, "Count of Cards");
+        barDataSet.setColors(ColorTemplate.COLORFUL_COLORS);
 
-                // Refresh the chart.
-                binding.barChart.invalidate();
-            }
-        };
+        chart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
+        chart.getXAxis().setLabelCount(labels.length);
+        BarData barData = new BarData(barDataSet);
+        barData.setBarWidth(0.9f);
+        chart.setData(barData);
+        chart.setVisibility(View.VISIBLE);
 
-        viewModel.getLiveDeckCards(deckID).observe(getViewLifecycleOwner(), myObserver);
+        // Provide a description label.
+        Description description = new Description();
+        description.setText(descriptionText);
+        chart.setDescription(description);
 
-        return binding.getRoot();
+        // Refresh the chart.
+        chart.invalidate();
     }
 
     /**
@@ -244,19 +256,10 @@ public class deckGraphsFragment extends Fragment {
 
     /**
      * This is the Mutator method for the viewModel field.
-     * @param viewModel a CardViewModel object which will provide access to the
-     *                  Android Room database.
+     * @param viewModel a DeckStatsViewModel object which will provide the
+     *                  statistics for the Deck.
      */
-    public void setViewModel(CardViewModel viewModel) {
+    public void setViewModel(DeckStatsViewModel viewModel) {
         this.viewModel = viewModel;
     }
-
-    /**
-     * This is the Mutator method for the deckContents field.
-     * @param deckContents a List of Cards containing the Cards in the Deck
-     *                     currently being edited.
-     */
-    public void setDeckContents(List<Card> deckContents) {
-        this.deckContents = deckContents;
-    }
-}
\ No newline at end of file
+}
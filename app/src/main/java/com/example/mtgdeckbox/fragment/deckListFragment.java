@@ -1,27 +1,44 @@
 package com.example.mtgdeckbox.fragment;
 
+import android.app.AlertDialog;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mtgdeckbox.CSVReader;
 import com.example.mtgdeckbox.DeckViewsActivity;
+import com.example.mtgdeckbox.R;
+import com.example.mtgdeckbox.Toasty;
 import com.example.mtgdeckbox.databinding.DecklistFragmentBinding;
+import com.example.mtgdeckbox.databinding.DialogImportDecklistBinding;
 import com.example.mtgdeckbox.fragment.adapters.DecklistAdapter;
 import com.example.mtgdeckbox.room.Card;
 import com.example.mtgdeckbox.room.CardViewModel;
 import com.example.mtgdeckbox.room.Deck;
+import com.example.mtgdeckbox.room.DecklistImport;
+import com.example.mtgdeckbox.room.DeckSummary;
+import com.google.android.material.chip.ChipGroup;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This Fragment contains a RecyclerView list of all the Decks in the database.
@@ -33,6 +50,10 @@ public class deckListFragment extends Fragment {
     private RecyclerView.LayoutManager layoutManager;
     private CardViewModel viewModel;
     private CSVReader reader;
+    private Toasty toastMaker;
+    private LiveData<PagingData<DeckSummary>> deckPages;
+    private DeckSummary.Sort sort = DeckSummary.Sort.NAME;
+    private String nameFilter = "";
 
     /**
      * This is the default constructor.
@@ -83,6 +104,14 @@ public class deckListFragment extends Fragment {
         return reader;
     }
 
+    /**
+     * This is the Accessor method for the toastMaker field.
+     * @return a Toasty object which is used to create Toasts in this Fragment.
+     */
+    public Toasty getToastMaker() {
+        return toastMaker;
+    }
+
     /**
      * This method first wipes the database clean, and then imports all of the
      * Card data from the CSV file and inserts it into the database.
@@ -91,10 +120,11 @@ public class deckListFragment extends Fragment {
         viewModel.wipeDatabase();
         reader = new CSVReader(getContext());
         ArrayList<ArrayList<String>> cardData = reader.readCSV("final_data_set.csv");
+        ArrayList<Card> cards = new ArrayList<>(cardData.size());
         for (int i = 0; i < cardData.size(); i++) {
-            String cardName = cardData.get(i).get(0);
-            viewModel.addCard(new Card(cardData.get(i)));
+            cards.add(new Card(cardData.get(i)));
         }
+        viewModel.addCards(cards);
     }
 
     /**
@@ -120,22 +150,56 @@ public class deckListFragment extends Fragment {
          * check to see if any cards have been loaded yet. If not, read them from
          * the CSV file.
          */
-        List<Card> contents = new ArrayList<Card>();
+        int cardCount = 0;
         try {
-            contents = viewModel.getAllCardsByFuture().get();
+            cardCount = viewModel.getCardCount().get();
         }
         catch (Exception e) {
             Log.d("DB ERROR:", "Could not execute query!");
         }
 
-        if (contents.isEmpty())
+        if (cardCount == 0)
         {
             importData();
         }
 
+        toastMaker = new Toasty(getContext());
+
         // Setup the RecyclerView to display the list of decks.
         adapter = new DecklistAdapter(viewModel);
 
+        loadDecks();
+
+        // Re-query the list whenever the user types into the filter box.
+        binding.editTextDeckFilter.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                nameFilter = s.toString();
+                loadDecks();
+            }
+        });
+
+        // Re-query the list whenever the user picks a different sort order.
+        binding.chipGroupDeckSort.setOnCheckedChangeListener(new ChipGroup.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(ChipGroup group, int checkedId) {
+                if (checkedId == R.id.chip_sortRecent) {
+                    sort = DeckSummary.Sort.RECENT;
+                } else if (checkedId == R.id.chip_sortSize) {
+                    sort = DeckSummary.Sort.SIZE;
+                } else {
+                    sort = DeckSummary.Sort.NAME;
+                }
+                loadDecks();
+            }
+        });
+
         // Create a line divider between items
         binding.recyclerViewDeckList.addItemDecoration(
                 new DividerItemDecoration(getActivity(), LinearLayoutManager.VERTICAL));
@@ -168,9 +232,110 @@ public class deckListFragment extends Fragment {
                 startActivity(newDeckIntent);
             }
         });
+
+        // Add an on-click listener for the import button.
+        binding.fabImportDeck.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showImportDialog();
+            }
+        });
         return binding.getRoot();
     }
 
+    /**
+     * This method asks the user for a deck name and a pasted decklist, and
+     * imports them as a new Deck.
+     */
+    private void showImportDialog() {
+        // Start building the name index while the user pastes their list.
+        viewModel.getCardNameIndex();
+
+        final DialogImportDecklistBinding dialogBinding =
+                DialogImportDecklistBinding.inflate(getLayoutInflater());
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+        builder.setTitle(R.string.decklist_import_title);
+        builder.setView(dialogBinding.getRoot());
+        builder.setNegativeButton("Cancel", null);
+        builder.setPositiveButton(R.string.decklist_import_button,
+                new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        importDecklist(dialogBinding.editTextImportName.getText().toString(),
+                                dialogBinding.editTextImportList.getText().toString());
+                    }
+                });
+        builder.create().show();
+    }
+
+    /**
+     * This method imports a decklist as a new Deck. Any lines which were left
+     * out are listed for the user before the new Deck is opened.
+     * @param deckName a String containing the name of the new Deck.
+     * @param text a String containing the decklist.
+     */
+    private void importDecklist(String deckName, String text) {
+        viewModel.importDecklist(deckName.trim(), text).thenAcceptAsync(
+                new Consumer<DecklistImport>() {
+            @Override
+            public void accept(final DecklistImport result) {
+                if (binding == null) {
+                    return;
+                }
+                toastMaker.popToastShort(getString(R.string.decklist_import_done,
+                        result.getCardCount()));
+                if (result.getProblems().isEmpty()) {
+                    openDeck(result.getDeckID());
+                    return;
+                }
+
+                AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
+                builder.setTitle(R.string.decklist_import_problems);
+                builder.setMessage(TextUtils.join("\n", result.getProblems()));
+                builder.setPositiveButton("Ok", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        openDeck(result.getDeckID());
+                    }
+                });
+                builder.create().show();
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method opens a Deck in the DeckViewsActivity for editing.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    private void openDeck(int deckID) {
+        Intent deckIntent = new Intent(getContext(), DeckViewsActivity.class);
+        Bundle deck = new Bundle();
+        deck.putInt("deckID", deckID);
+        deckIntent.putExtras(deck);
+        startActivity(deckIntent);
+    }
+
+    /**
+     * This method pages the user's Decks into the list, using the current sort
+     * order and name filter. Only one page of summaries is read at a time, and
+     * the list keeps itself up to date as Decks change.
+     */
+    private void loadDecks() {
+        if (deckPages != null) {
+            deckPages.removeObservers(getViewLifecycleOwner());
+        }
+        deckPages = PagingLiveData.cachedIn(viewModel.getDeckSummaries(sort, nameFilter),
+                getViewLifecycleOwner().getLifecycle());
+        deckPages.observe(getViewLifecycleOwner(), new Observer<PagingData<DeckSummary>>() {
+            @Override
+            public void onChanged(@Nullable PagingData<DeckSummary> page) {
+                if (page != null) {
+                    adapter.submitData(getViewLifecycleOwner().getLifecycle(), page);
+                }
+            }
+        });
+    }
+
     /**
      * This method clears some objects from memory and resets the binding,
      * when the Fragment is destroyed.
@@ -225,4 +390,13 @@ public class deckListFragment extends Fragment {
     public void setReader(CSVReader reader) {
         this.reader = reader;
     }
+
+    /**
+     * This is the Mutator method for the toastMaker field.
+     * @param toastMaker a Toasty object which is used to create Toasts in
+     *                   this Fragment.
+     */
+    public void setToastMaker(Toasty toastMaker) {
+        this.toastMaker = toastMaker;
+    }
 }
@@ -0,0 +1,219 @@
+package com.example.mtgdeckbox.fragment;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.example.mtgdeckbox.R;
+import com.example.mtgdeckbox.databinding.FragmentDeckManaBaseBinding;
+import com.example.mtgdeckbox.room.DeckStats;
+import com.example.mtgdeckbox.room.DeckStatsViewModel;
+import com.example.mtgdeckbox.room.ManaBase;
+import com.github.mikephil.charting.components.Description;
+import com.github.mikephil.charting.data.BarData;
+import com.github.mikephil.charting.data.BarDataSet;
+import com.github.mikephil.charting.data.BarEntry;
+import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
+import com.github.mikephil.charting.utils.ColorTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This Fragment sits beside the graphs tab and recommends a mana base for the
+ * Deck: how many lands to play, and how to split them between the colours
+ * the Deck's spells ask for. The recommendation comes from the
+ * DeckStatsViewModel, which only counts the Cards that change.
+ */
+public class deckManaBaseFragment extends Fragment {
+    // The space between each colour's pair of bars, and between the two bars.
+    private static final float GROUP_SPACE = 0.1f;
+    private static final float BAR_SPACE = 0.05f;
+    private static final float BAR_WIDTH = 0.4f;
+
+    private FragmentDeckManaBaseBinding binding;
+    private DeckStatsViewModel viewModel;
+    private final int deckID;
+    private ManaBase manaBase;
+
+    /**
+     * This is the default constructor.
+     */
+    public deckManaBaseFragment() {
+        this.deckID = -1;
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param deckID an Integer containing the ID number of the Deck
+     *               being edited.
+     */
+    public deckManaBaseFragment(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Accessor method for the binding field.
+     * @return a FragmentDeckManaBaseBinding object which is used to bind data
+     * to all of the Views.
+     */
+    public FragmentDeckManaBaseBinding getBinding() {
+        return binding;
+    }
+
+    /**
+     * This is the Accessor method for the viewModel field.
+     * @return a DeckStatsViewModel object which provides the mana base for
+     * the Deck.
+     */
+    public DeckStatsViewModel getViewModel() {
+        return viewModel;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck being edited.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the manaBase field.
+     * @return a ManaBase containing the recommendation currently on display.
+     */
+    public ManaBase getManaBase() {
+        return manaBase;
+    }
+
+    /**
+     * This method initialises the view and binds appropriate data, when the fragment
+     * is created.
+     * @param inflater a LayoutInflater used to inflate all of the Views.
+     * @param container a ViewGroup which contains all of the Views.
+     * @param savedInstanceState a Bundle containing the saved instance state, which
+     *                           the Application can use to restore to, if needed.
+     * @return a View containing the graphical interface of the Fragment.
+     */
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        binding = FragmentDeckManaBaseBinding.inflate(inflater, container, false);
+
+        // Share the calculator with the Activity, so it outlives this tab.
+        viewModel = new ViewModelProvider(requireActivity(),
+                ViewModelProvider.AndroidViewModelFactory.getInstance(
+                        requireActivity().getApplication()))
+                .get(DeckStatsViewModel.class);
+
+        // Redraw whenever the Deck's contents change.
+        viewModel.getManaBase(deckID).observe(getViewLifecycleOwner(), new Observer<ManaBase>() {
+            @Override
+            public void onChanged(@Nullable ManaBase base) {
+                if (base == null || binding == null) {
+                    return;
+                }
+                manaBase = base;
+                showSummary(base);
+                showColours(base);
+            }
+        });
+
+        return binding.getRoot();
+    }
+
+    /**
+     * This method shows how many lands the Deck should play, and why.
+     * @param base the ManaBase to display.
+     */
+    private void showSummary(ManaBase base) {
+        binding.textViewManaBaseSummary.setText(getString(R.string.manabase_summary,
+                base.getRecommendedLands(), base.getCurrentLands(),
+                base.getAverageManaValue(), base.getCheapRampAndDraw()));
+    }
+
+    /**
+     * This method draws the recommended lands for each colour beside the
+     * lands which make that colour now, and lists them underneath.
+     * @param base the ManaBase to display.
+     */
+    private void showColours(ManaBase base) {
+        List<BarEntry> recommended = new ArrayList<>();
+        List<BarEntry> current = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < DeckStats.PIP_LABELS.length; i++) {
+            recommended.add(new BarEntry(i, base.getRecommendedForColour(i)));
+            current.add(new BarEntry(i, base.getCurrentSources(i)));
+            if (base.getDemandShare(i) > 0) {
+                lines.append(getString(R.string.manabase_colour, DeckStats.PIP_LABELS[i],
+                        base.getRecommendedForColour(i),
+                        Math.round(base.getDemandShare(i) * 100),
+                        base.getCurrentSources(i))).append('\n');
+            }
+        }
+        if (lines.length() == 0) {
+            binding.textViewManaBaseColours.setText(R.string.manabase_no_pips);
+        } else {
+            binding.textViewManaBaseColours.setText(lines.toString().trim());
+        }
+
+        BarDataSet recommendedSet = new BarDataSet(recommended,
+                getString(R.string.manabase_recommended));
+        recommendedSet.setColor(ColorTemplate.COLORFUL_COLORS[0]);
+        BarDataSet currentSet = new BarDataSet(current, getString(R.string.manabase_current));
+        currentSet.setColor(Color.GRAY);
+
+        BarData barData = new BarData(recommendedSet, currentSet);
+        barData.setBarWidth(BAR_WIDTH);
+        binding.barChartManaBase.setData(barData);
+
+        // Pair the two bars for each colour, with the colour's label between them.
+        binding.barChartManaBase.getXAxis().setValueFormatter(
+                new IndexAxisValueFormatter(DeckStats.PIP_LABELS));
+        binding.barChartManaBase.getXAxis().setCenterAxisLabels(true);
+        binding.barChartManaBase.getXAxis().setGranularity(1f);
+        binding.barChartManaBase.getXAxis().setAxisMinimum(0f);
+        binding.barChartManaBase.getXAxis().setAxisMaximum(DeckStats.PIP_LABELS.length);
+        binding.barChartManaBase.groupBars(0f, GROUP_SPACE, BAR_SPACE);
+
+        Description description = new Description();
+        description.setText(getString(R.string.manabase_description));
+        binding.barChartManaBase.setDescription(description);
+        binding.barChartManaBase.invalidate();
+    }
+
+    /**
+     * This method clears some objects from memory and resets the binding,
+     * when the Fragment is destroyed.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+
+    /**
+     * This is the Mutator method for the binding field.
+     * @param binding a FragmentDeckManaBaseBinding object which will be used to
+     *                bind data to all of the Views.
+     */
+    public void setBinding(FragmentDeckManaBaseBinding binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * This is the Mutator method for the viewModel field.
+     * @param viewModel a DeckStatsViewModel object which will provide the
+     *                  mana base for the Deck.
+     */
+    public void setViewModel(DeckStatsViewModel viewModel) {
+        this.viewModel = viewModel;
+    }
+}
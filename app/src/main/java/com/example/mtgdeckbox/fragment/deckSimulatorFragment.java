@@ -0,0 +1,242 @@
+package com.example.mtgdeckbox.fragment;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.example.mtgdeckbox.R;
+import com.example.mtgdeckbox.databinding.FragmentDeckSimulatorBinding;
+import com.example.mtgdeckbox.room.CardViewModel;
+import com.example.mtgdeckbox.room.DeckCardEntry;
+import com.example.mtgdeckbox.room.GoldfishResult;
+import com.example.mtgdeckbox.room.GoldfishSimulator;
+import com.example.mtgdeckbox.room.LifecycleCancellation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * This Fragment lets the User goldfish their Deck: it plays the Deck out many
+ * times with no opponent and reports how reliably it hits its land drops and
+ * has something to cast.
+ */
+public class deckSimulatorFragment extends Fragment {
+    // The number of games played each time the simulation is run.
+    private static final int TRIALS = 100000;
+
+    // The number of turns played in each game.
+    private static final int TURNS = 10;
+
+    private FragmentDeckSimulatorBinding binding;
+    private CardViewModel viewModel;
+    private final int deckID;
+    private List<DeckCardEntry> deckEntries;
+
+    /**
+     * This is the default constructor.
+     */
+    public deckSimulatorFragment() {
+        this.deckID = -1;
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param deckID an Integer containing the ID number of the Deck
+     *               being edited.
+     */
+    public deckSimulatorFragment(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Accessor method for the binding field.
+     * @return a FragmentDeckSimulatorBinding object which is used to bind data
+     * to all of the Views.
+     */
+    public FragmentDeckSimulatorBinding getBinding() {
+        return binding;
+    }
+
+    /**
+     * This is the Accessor method for the viewModel field.
+     * @return a CardViewModel object which is used to direct queries to the
+     * SQL database.
+     */
+    public CardViewModel getViewModel() {
+        return viewModel;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck being edited.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the deckEntries field.
+     * @return a List of DeckCardEntries holding the current contents of the Deck.
+     */
+    public List<DeckCardEntry> getDeckEntries() {
+        return deckEntries;
+    }
+
+    /**
+     * This method initialises the view and binds appropriate data, when the fragment
+     * is created.
+     * @param inflater a LayoutInflater used to inflate all of the Views.
+     * @param container a ViewGroup which contains all of the Views.
+     * @param savedInstanceState a Bundle containing the saved instance state, which
+     *                           the Application can use to restore to, if needed.
+     * @return a View containing the graphical interface of the Fragment.
+     */
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        binding = FragmentDeckSimulatorBinding.inflate(inflater, container, false);
+        viewModel = ViewModelProvider.AndroidViewModelFactory.getInstance(
+                        requireActivity().getApplication())
+                .create(CardViewModel.class);
+        deckEntries = new ArrayList<DeckCardEntry>();
+
+        // Keep our copy of the Deck up to date.
+        viewModel.getLiveDeckEntries(deckID).observe(getViewLifecycleOwner(),
+                new Observer<List<DeckCardEntry>>() {
+            @Override
+            public void onChanged(@Nullable List<DeckCardEntry> entries) {
+                if (entries != null) {
+                    deckEntries = entries;
+                }
+            }
+        });
+
+        // Set the behaviour for the simulate button.
+        binding.buttonSimulate.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                runSimulation();
+            }
+        });
+
+        return binding.getRoot();
+    }
+
+    /**
+     * This method plays the Deck out in the background, and shows the results
+     * when they are ready. The simulation is dropped if the tab is destroyed
+     * first.
+     */
+    private void runSimulation() {
+        final List<DeckCardEntry> entries = deckEntries;
+        final int targetManaValue = readNumber(
+                binding.editTextTargetManaValue.getText().toString(), 4);
+        final int targetTurn = Math.min(TURNS,
+                Math.max(1, readNumber(binding.editTextTargetTurn.getText().toString(), 4)));
+        binding.buttonSimulate.setEnabled(false);
+        binding.textViewSimulatorResults.setText(R.string.simulator_running);
+
+        // The simulator spreads its trials across the common fork/join pool.
+        CompletableFuture<GoldfishResult> simulation = CompletableFuture.supplyAsync(
+                new Supplier<GoldfishResult>() {
+            @Override
+            public GoldfishResult get() {
+                return GoldfishSimulator.simulate(entries, TRIALS, TURNS,
+                        targetManaValue, targetTurn);
+            }
+        });
+
+        LifecycleCancellation.cancelOnDestroy(getViewLifecycleOwner(), simulation)
+                .thenAcceptAsync(new Consumer<GoldfishResult>() {
+                    @Override
+                    public void accept(GoldfishResult result) {
+                        if (binding == null) {
+                            return;
+                        }
+                        binding.buttonSimulate.setEnabled(true);
+                        showResults(result);
+                    }
+                }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    /**
+     * This method shows the results of a simulation.
+     * @param result the GoldfishResult to display.
+     */
+    private void showResults(GoldfishResult result) {
+        if (result.getTrials() == 0) {
+            binding.textViewSimulatorResults.setText(R.string.simulator_too_small);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.getDefault(),
+                "%,d games, on the play\n\nOpening hand: %.2f lands\n" +
+                "%d-%d lands: %.1f%%\nMana value %d by turn %d: %.1f%%\n\n" +
+                "Turn  All land drops  Cast a spell\n",
+                result.getTrials(), result.getAverageOpeningLands(),
+                GoldfishSimulator.MIN_KEEP_LANDS, GoldfishSimulator.MAX_KEEP_LANDS,
+                result.getKeepableHandChance() * 100,
+                result.getTargetManaValue(), result.getTargetTurn(),
+                result.getTargetChance() * 100));
+        for (int turn = 0; turn < result.getTurns(); turn++) {
+            text.append(String.format(Locale.getDefault(), "%4d  %13.1f%%  %11.1f%%\n",
+                    turn + 1, result.getLandDropChance(turn) * 100,
+                    result.getCastChance(turn) * 100));
+        }
+        binding.textViewSimulatorResults.setText(text.toString());
+    }
+
+    /**
+     * This method reads a number typed by the User.
+     * @param text a String containing the typed text.
+     * @param fallback an Integer to use if the text is not a number.
+     * @return an Integer containing the number.
+     */
+    private static int readNumber(String text, int fallback) {
+        try {
+            return Integer.parseInt(text.trim());
+        }
+        catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * This method clears some objects from memory and resets the binding,
+     * when the Fragment is destroyed.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+
+    /**
+     * This is the Mutator method for the binding field.
+     * @param binding a FragmentDeckSimulatorBinding object which will be used to
+     *                bind data to all of the Views.
+     */
+    public void setBinding(FragmentDeckSimulatorBinding binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * This is the Mutator method for the viewModel field.
+     * @param viewModel a CardViewModel object which will be used to send queries
+     *                  to the SQL database.
+     */
+    public void setViewModel(CardViewModel viewModel) {
+        this.viewModel = viewModel;
+    }
+}
@@ -7,18 +7,21 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.SeekBar;
+import android.widget.TextView;
 
+import com.example.mtgdeckbox.R;
 import com.example.mtgdeckbox.databinding.FragmentDeckSuggestionsBinding;
-import com.example.mtgdeckbox.fragment.adapters.DeckContentsAdapter;
 import com.example.mtgdeckbox.room.Card;
 import com.example.mtgdeckbox.room.CardViewModel;
-import com.example.mtgdeckbox.room.DeckCards;
+import com.example.mtgdeckbox.room.DeckCardEntry;
+import com.example.mtgdeckbox.room.Hypergeometric;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -27,16 +30,27 @@ import java.util.List;
  * @author: Tom Barker
  */
 public class deckSuggestionsFragment extends Fragment {
+    // The number of Cards in an opening hand.
+    private static final int OPENING_HAND = 7;
+
+    // The category bits, in the order of the counters on screen.
+    private static final int[] CATEGORY_BITS = {Card.RAMP, Card.DRAW, Card.REMOVAL,
+            Card.BOARD_WIPE};
+
     private FragmentDeckSuggestionsBinding binding;
     private final int deckID;
     private CardViewModel viewModel;
     private List<Card> deckContents;
+    private final int[] categoryCounts;
+    private int deckSize;
 
     /**
      * This is the default constructor.
      */
     public deckSuggestionsFragment() {
         this.deckID = -1;
+        deckContents = new ArrayList<Card>();
+        categoryCounts = new int[CATEGORY_BITS.length];
     }
 
     /**
@@ -47,7 +61,8 @@ public class deckSuggestionsFragment extends Fragment {
     public deckSuggestionsFragment(int deckID) {
         this.deckID = deckID;
         deckContents = new ArrayList<Card>();
-        }
+        categoryCounts = new int[CATEGORY_BITS.length];
+    }
 
     /**
      * This is the Accessor method for the binding field.
@@ -103,52 +118,52 @@ public class deckSuggestionsFragment extends Fragment {
                 .create(CardViewModel.class);
 
         // Setup an Observer which can track the quantities and update them for us.
-        Observer<List<DeckCards>> myObserver = new Observer<List<DeckCards>>() {
+        Observer<List<DeckCardEntry>> myObserver = new Observer<List<DeckCardEntry>>() {
             @Override
-            public void onChanged(@Nullable List<DeckCards> deckCards) {
-                // To track the contents of the deck, re-populate the ArrayList of contents.
-                try {
-                    List<DeckCards> currentDeck = viewModel.getDeckCards(deckID).get();
-                    deckContents.clear();
-                    for (DeckCards deckCard : currentDeck) {
-                        deckContents.add(viewModel.getCardByID(deckCard.getCardID()).get());
-                    }
-                }
-                catch (Exception e) {
-                    Log.d("DB ERROR:", "Could not execute query!");
+            public void onChanged(@Nullable List<DeckCardEntry> entries) {
+                if (entries == null) {
+                    return;
                 }
 
                 // Count the number of cards in each category currently in the deck.
-                int ramp = 0;
-                int wipe = 0;
-                int draw = 0;
-                int removal = 0;
-
-                for (Card card : deckContents) {
-                    String categories = card.getCategories();
-                    if (categories.contains("cardraw")) {
-                        draw++;
-                    }
-                    if (categories.contains("wrath")) {
-                        wipe++;
-                    }
-                    if (categories.contains("removal")) {
-                        removal++;
-                    }
-                    if (categories.contains("ramp") || categories.contains("mana")) {
-                        ramp++;
+                deckContents.clear();
+                deckSize = 0;
+                Arrays.fill(categoryCounts, 0);
+                for (DeckCardEntry entry : entries) {
+                    deckContents.add(entry.getCard());
+                    deckSize += entry.getQuantity();
+                    int categories = Card.parseCategoryMask(entry.getCard().getCategories());
+                    for (int i = 0; i < CATEGORY_BITS.length; i++) {
+                        if ((categories & CATEGORY_BITS[i]) != 0) {
+                            categoryCounts[i] += entry.getQuantity();
+                        }
                     }
                 }
-
-                // Set the quantities to the display.
-                binding.textViewRampCurrent.setText(String.valueOf(ramp));
-                binding.textViewDrawCurrent.setText(String.valueOf(draw));
-                binding.textViewRemovalCurrent.setText(String.valueOf(removal));
-                binding.textViewWipeCurrent.setText(String.valueOf(wipe));
+                showCounts();
             }
         };
 
-        viewModel.getLiveDeckCards(deckID).observe(getViewLifecycleOwner(), myObserver);
+        viewModel.getLiveDeckEntries(deckID).observe(getViewLifecycleOwner(), myObserver);
+
+        // Build the recommendations ahead of time, so the pickers open quickly.
+        viewModel.getRecommendationEngine();
+
+        // Let the user choose which turn the odds are worked out for.
+        binding.seekBarOddsTurn.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+                showCounts();
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+            }
+        });
+        showCounts();
 
         // Set the behaviour for each of the buttons.
         binding.buttonRamp.setOnClickListener(new View.OnClickListener() {
@@ -183,9 +198,38 @@ public class deckSuggestionsFragment extends Fragment {
             }
         });
 
+        binding.buttonCompanions.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                cardPickerFragment cardPicker = new cardPickerFragment(deckID, "companions");
+                cardPicker.show(getActivity().getSupportFragmentManager(), "Card Picker");
+            }
+        });
+
         return binding.getRoot();
     }
 
+    /**
+     * This method shows how many cards of each category are in the deck,
+     * along with the odds of drawing at least one of them by the chosen turn.
+     * The odds are exact and cheap to work out, so they are redone on every
+     * change.
+     */
+    private void showCounts() {
+        int turn = binding.seekBarOddsTurn.getProgress();
+        int cardsSeen = OPENING_HAND + turn;
+        binding.textViewOddsLabel.setText(getString(R.string.suggestions_odds_label,
+                turn, cardsSeen));
+
+        TextView[] counters = {binding.textViewRampCurrent, binding.textViewDrawCurrent,
+                binding.textViewRemovalCurrent, binding.textViewWipeCurrent};
+        for (int i = 0; i < counters.length; i++) {
+            double odds = Hypergeometric.atLeast(deckSize, categoryCounts[i], cardsSeen, 1);
+            counters[i].setText(getString(R.string.suggestions_count_odds,
+                    categoryCounts[i], odds * 100));
+        }
+    }
+
     /**
      * This method clears some objects from memory and resets the binding,
      * when the Fragment is destroyed.
@@ -0,0 +1,20 @@
+package com.example.mtgdeckbox.retrofit;
+
+/**
+ * This class builds links to card images on Scryfall. The image endpoints
+ * redirect straight to the image file, so thumbnails can be loaded without
+ * first asking the API for the card's image URIs.
+ */
+public class ScryfallImages {
+    private static final String BASE_URL = "https://api.scryfall.com/";
+
+    /**
+     * This method returns the link to a Card's cropped art, which is used for
+     * thumbnails.
+     * @param scryfallID a String containing the Scryfall ID of the Card.
+     * @return a String containing the link to the art crop image.
+     */
+    public static String artCropUrl(String scryfallID) {
+        return BASE_URL + "cards/" + scryfallID + "?format=image&version=art_crop";
+    }
+}
@@ -3,6 +3,7 @@ package com.example.mtgdeckbox.room;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.ArrayList;
@@ -12,7 +13,7 @@ import java.util.ArrayList;
  * SQL Entity.
  * @author: Tom Barker
  */
-@Entity
+@Entity (indices = {@Index (value = {"canBeCommander", "identityMask", "card_name"})})
 public class Card {
     @PrimaryKey (autoGenerate = true)
     private int cardID;
@@ -73,6 +74,50 @@ public class Card {
     @NonNull
     private String categories;
 
+    @ColumnInfo (name = "identityMask")
+    private int identityMask;
+
+    // The mana cost, counted by ManaCost when the Card is imported.
+    @ColumnInfo (name = "whitePips")
+    private int whitePips;
+
+    @ColumnInfo (name = "bluePips")
+    private int bluePips;
+
+    @ColumnInfo (name = "blackPips")
+    private int blackPips;
+
+    @ColumnInfo (name = "redPips")
+    private int redPips;
+
+    @ColumnInfo (name = "greenPips")
+    private int greenPips;
+
+    @ColumnInfo (name = "colourlessPips")
+    private int colourlessPips;
+
+    @ColumnInfo (name = "genericMana")
+    private int genericMana;
+
+    @ColumnInfo (name = "xCount")
+    private int xCount;
+
+    @ColumnInfo (name = "manaFlags")
+    private int manaFlags;
+
+    // The bits used for each colour in the identityMask field.
+    public static final int WHITE = 1;
+    public static final int BLUE = 2;
+    public static final int BLACK = 4;
+    public static final int RED = 8;
+    public static final int GREEN = 16;
+
+    // The bits returned by parseCategoryMask for each deck-building category.
+    public static final int RAMP = 1;
+    public static final int DRAW = 2;
+    public static final int REMOVAL = 4;
+    public static final int BOARD_WIPE = 8;
+
     /**
      * This is the default constructor.
      */
@@ -91,6 +136,7 @@ public class Card {
         scryfallID = "";
         commanderLegal = false;
         categories = "";
+        identityMask = 0;
     }
 
     /**
@@ -158,6 +204,110 @@ public class Card {
 
         // Strip quotation marks from the categories.
         categories = cardData.get(13).replace("\"", "");
+
+        // Store the colour identity as bits, so it can be compared cheaply.
+        identityMask = parseIdentityMask(colourIdentity);
+
+        // Count the symbols of the mana cost once, rather than every time it is read.
+        ManaCost cost = ManaCost.parse(manaCost);
+        whitePips = cost.getPips(ManaCost.WHITE);
+        bluePips = cost.getPips(ManaCost.BLUE);
+        blackPips = cost.getPips(ManaCost.BLACK);
+        redPips = cost.getPips(ManaCost.RED);
+        greenPips = cost.getPips(ManaCost.GREEN);
+        colourlessPips = cost.getPips(ManaCost.COLOURLESS);
+        genericMana = cost.getGeneric();
+        xCount = cost.getXCount();
+        manaFlags = cost.getFlags();
+    }
+
+    /**
+     * This method converts a colour identity such as "W,U" into a mask with
+     * one bit set for each colour.
+     * @param colourIdentity a String containing the colour identity.
+     * @return an Integer with the WHITE, BLUE, BLACK, RED and GREEN bits set
+     * for each colour in the identity.
+     */
+    public static int parseIdentityMask(String colourIdentity) {
+        int mask = 0;
+        if (colourIdentity == null) {
+            return mask;
+        }
+        for (int i = 0; i < colourIdentity.length(); i++) {
+            switch (colourIdentity.charAt(i)) {
+                case 'W':
+                    mask |= WHITE;
+                    break;
+                case 'U':
+                    mask |= BLUE;
+                    break;
+                case 'B':
+                    mask |= BLACK;
+                    break;
+                case 'R':
+                    mask |= RED;
+                    break;
+                case 'G':
+                    mask |= GREEN;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * This method converts a Card's categories into a mask with one bit set
+     * for each deck-building category, matching the CardDAO category queries.
+     * @param categories a String containing the Card's categories.
+     * @return an Integer with the RAMP, DRAW, REMOVAL and BOARD_WIPE bits set
+     * for each category the Card belongs to.
+     */
+    public static int parseCategoryMask(String categories) {
+        int mask = 0;
+        if (categories == null) {
+            return mask;
+        }
+        if (categories.contains("ramp") || categories.contains("mana")) {
+            mask |= RAMP;
+        }
+        if (categories.contains("cardraw")) {
+            mask |= DRAW;
+        }
+        if (categories.contains("removal")) {
+            mask |= REMOVAL;
+        }
+        if (categories.contains("wrath")) {
+            mask |= BOARD_WIPE;
+        }
+        return mask;
+    }
+
+    /**
+     * This method returns the number of mana symbols of one kind in the Card's
+     * mana cost.
+     * @param kind an Integer containing ManaCost.WHITE, BLUE, BLACK, RED, GREEN
+     *             or COLOURLESS.
+     * @return an Integer containing the number of symbols of that kind.
+     */
+    public int getPips(int kind) {
+        switch (kind) {
+            case ManaCost.WHITE:
+                return whitePips;
+            case ManaCost.BLUE:
+                return bluePips;
+            case ManaCost.BLACK:
+                return blackPips;
+            case ManaCost.RED:
+                return redPips;
+            case ManaCost.GREEN:
+                return greenPips;
+            case ManaCost.COLOURLESS:
+                return colourlessPips;
+            default:
+                return 0;
+        }
     }
 
     /**
@@ -168,6 +318,24 @@ public class Card {
         return alternateLimit;
     }
 
+    /**
+     * This is the Accessor method for the blackPips field.
+     * @return an Integer containing the number of black mana symbols in this Card's
+     * mana cost.
+     */
+    public int getBlackPips() {
+        return blackPips;
+    }
+
+    /**
+     * This is the Accessor method for the bluePips field.
+     * @return an Integer containing the number of blue mana symbols in this Card's
+     * mana cost.
+     */
+    public int getBluePips() {
+        return bluePips;
+    }
+
     /**
      * This is the Accessor method for the canBeCommander field.
      * @return a Boolean describing if the card is legal to be the deck Commander or not.
@@ -198,6 +366,15 @@ public class Card {
         return colourIdentity;
     }
 
+    /**
+     * This is the Accessor method for the colourlessPips field.
+     * @return an Integer containing the number of colourless mana symbols in this Card's
+     * mana cost.
+     */
+    public int getColourlessPips() {
+        return colourlessPips;
+    }
+
     /**
      * This is the Accessor method for the commanderLegal field.
      * @return a Boolean describing if this Card is legal in Commander or not.
@@ -206,6 +383,33 @@ public class Card {
         return commanderLegal;
     }
 
+    /**
+     * This is the Accessor method for the genericMana field.
+     * @return an Integer containing the amount of generic mana in this
+     * Card's mana cost.
+     */
+    public int getGenericMana() {
+        return genericMana;
+    }
+
+    /**
+     * This is the Accessor method for the greenPips field.
+     * @return an Integer containing the number of green mana symbols in this Card's
+     * mana cost.
+     */
+    public int getGreenPips() {
+        return greenPips;
+    }
+
+    /**
+     * This is the Accessor method for the identityMask field.
+     * @return an Integer with one bit set for each colour in the card's
+     * colour identity.
+     */
+    public int getIdentityMask() {
+        return identityMask;
+    }
+
     /**
      * This is the Accessor method for the manaCost field.
      * @return a String containing the mana cost for this Card.
@@ -214,6 +418,15 @@ public class Card {
         return manaCost;
     }
 
+    /**
+     * This is the Accessor method for the manaFlags field.
+     * @return an Integer with the ManaCost.HYBRID and ManaCost.PHYREXIAN
+     * bits set if this Card's mana cost holds those symbols.
+     */
+    public int getManaFlags() {
+        return manaFlags;
+    }
+
     /**
      * This is the Accessor method for the manaValue field.
      * @return an Integer describing the converted mana value for the Card.
@@ -246,6 +459,15 @@ public class Card {
         return rank;
     }
 
+    /**
+     * This is the Accessor method for the redPips field.
+     * @return an Integer containing the number of red mana symbols in this Card's
+     * mana cost.
+     */
+    public int getRedPips() {
+        return redPips;
+    }
+
     /**
      * This is the Accessor method for the scryfallID field.
      * @return a String containing the Scryfall UID for this Card.
@@ -278,6 +500,24 @@ public class Card {
         return types;
     }
 
+    /**
+     * This is the Accessor method for the whitePips field.
+     * @return an Integer containing the number of white mana symbols in this
+     * Card's mana cost.
+     */
+    public int getWhitePips() {
+        return whitePips;
+    }
+
+    /**
+     * This is the Accessor method for the xCount field.
+     * @return an Integer containing the number of X symbols in this Card's
+     * mana cost.
+     */
+    public int getXCount() {
+        return xCount;
+    }
+
     /**
      * This is the Mutator method for the alternateLimit field.
      * @param alternateLimit a Boolean describing if the Card has an alternate
@@ -287,6 +527,24 @@ public class Card {
         this.alternateLimit = alternateLimit;
     }
 
+    /**
+     * This is the Mutator method for the blackPips field.
+     * @param blackPips an Integer containing the number of black mana symbols
+     *                  in this Card's mana cost.
+     */
+    public void setBlackPips(int blackPips) {
+        this.blackPips = blackPips;
+    }
+
+    /**
+     * This is the Mutator method for the bluePips field.
+     * @param bluePips an Integer containing the number of blue mana symbols
+     *                 in this Card's mana cost.
+     */
+    public void setBluePips(int bluePips) {
+        this.bluePips = bluePips;
+    }
+
     /**
      * This is the Mutator method for the canBeCommander field.
      * @param canBeCommander a Boolean describing if this Card can be the Commander
@@ -319,6 +577,15 @@ public class Card {
         this.colourIdentity = colourIdentity;
     }
 
+    /**
+     * This is the Mutator method for the colourlessPips field.
+     * @param colourlessPips an Integer containing the number of colourless mana symbols
+     *                       in this Card's mana cost.
+     */
+    public void setColourlessPips(int colourlessPips) {
+        this.colourlessPips = colourlessPips;
+    }
+
     /**
      * This is the Mutator method for the commanderLegal field.
      * @param commanderLegal a Boolean describing if this Card is legal to be played
@@ -328,6 +595,33 @@ public class Card {
         this.commanderLegal = commanderLegal;
     }
 
+    /**
+     * This is the Mutator method for the genericMana field.
+     * @param genericMana an Integer containing the amount of generic mana in
+     *                    this Card's mana cost.
+     */
+    public void setGenericMana(int genericMana) {
+        this.genericMana = genericMana;
+    }
+
+    /**
+     * This is the Mutator method for the greenPips field.
+     * @param greenPips an Integer containing the number of green mana symbols
+     *                  in this Card's mana cost.
+     */
+    public void setGreenPips(int greenPips) {
+        this.greenPips = greenPips;
+    }
+
+    /**
+     * This is the Mutator method for the identityMask field.
+     * @param identityMask an Integer with one bit set for each colour in the
+     *                     card's colour identity.
+     */
+    public void setIdentityMask(int identityMask) {
+        this.identityMask = identityMask;
+    }
+
     /**
      * This is the Mutator method for the manaCost field.
      * @param manaCost a String containing the mana cost information for this Card.
@@ -336,6 +630,15 @@ public class Card {
         this.manaCost = manaCost;
     }
 
+    /**
+     * This is the Mutator method for the manaFlags field.
+     * @param manaFlags an Integer with the ManaCost.HYBRID and
+     *                  ManaCost.PHYREXIAN bits set for this Card's mana cost.
+     */
+    public void setManaFlags(int manaFlags) {
+        this.manaFlags = manaFlags;
+    }
+
     /**
      * This is the Mutator method for the manaValue field.
      * @param manaValue an Integer containing the new converted mana value for
@@ -369,6 +672,15 @@ public class Card {
         this.rank = rank;
     }
 
+    /**
+     * This is the Mutator method for the redPips field.
+     * @param redPips an Integer containing the number of red mana symbols
+     *                in this Card's mana cost.
+     */
+    public void setRedPips(int redPips) {
+        this.redPips = redPips;
+    }
+
     /**
      * This is the Mutator method for the scryfall ID field.
      * @param scryfallID a String containing the new Scryfall UID for this Card.
@@ -401,6 +713,24 @@ public class Card {
         this.types = types;
     }
 
+    /**
+     * This is the Mutator method for the whitePips field.
+     * @param whitePips an Integer containing the number of white mana symbols
+     *                  in this Card's mana cost.
+     */
+    public void setWhitePips(int whitePips) {
+        this.whitePips = whitePips;
+    }
+
+    /**
+     * This is the Mutator method for the xCount field.
+     * @param xCount an Integer containing the number of X symbols in this
+     *               Card's mana cost.
+     */
+    public void setXCount(int xCount) {
+        this.xCount = xCount;
+    }
+
     /**
      * This method returns all of the Card information in a String format.
      * @return a String containing all of the fields for this Card.
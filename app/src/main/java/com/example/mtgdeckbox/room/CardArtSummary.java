@@ -0,0 +1,39 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * This class is a CardSummary which also holds the Card's Scryfall ID, so
+ * that screens which show card art can find the image without loading the
+ * full Card.
+ */
+public class CardArtSummary extends CardSummary {
+    // The columns to select from the card table to fill a CardArtSummary.
+    public static final String COLUMNS = CardSummary.COLUMNS + ", card.scryfallID";
+
+    @ColumnInfo (name = "scryfallID")
+    private String scryfallID;
+
+    /**
+     * This is the default constructor.
+     */
+    public CardArtSummary() {
+        super();
+    }
+
+    /**
+     * This is the Accessor method for the scryfallID field.
+     * @return a String containing the Scryfall ID of the Card.
+     */
+    public String getScryfallID() {
+        return scryfallID;
+    }
+
+    /**
+     * This is the Mutator method for the scryfallID field.
+     * @param scryfallID a String containing the Scryfall ID of the Card.
+     */
+    public void setScryfallID(String scryfallID) {
+        this.scryfallID = scryfallID;
+    }
+}
@@ -5,8 +5,10 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -18,19 +20,59 @@ import java.util.concurrent.CompletableFuture;
 @Dao
 public interface CardDAO {
 
+    /* These statements are shared with the CardRepository, which runs them
+     * directly when the query needs to be cancellable. List screens only
+     * select the columns in a CardSummary, rather than whole Cards.
+     */
+    String ALL_CARDS = "SELECT " + CardSummary.COLUMNS + " FROM card " +
+            "ORDER BY card_name ASC";
+    String RAMP_CARDS = "SELECT " + CardSummary.COLUMNS + " FROM card " +
+            "WHERE categories LIKE '%ramp%' OR categories LIKE '%mana%' ORDER BY rank ASC";
+    String DRAW_CARDS = "SELECT " + CardSummary.COLUMNS + " FROM card " +
+            "WHERE categories LIKE '%cardraw%' ORDER BY rank ASC";
+    String REMOVAL_CARDS = "SELECT " + CardSummary.COLUMNS + " FROM card " +
+            "WHERE categories LIKE '%removal%' ORDER BY card_name ASC";
+    String BOARD_WIPES = "SELECT " + CardSummary.COLUMNS + " FROM card " +
+            "WHERE categories LIKE '%wrath%' ORDER BY card_name ASC";
+    String DECK_CONTENTS = "SELECT card.* FROM card INNER JOIN deckcards " +
+            "ON card.cardID = deckcards.card_ID WHERE deckcards.deck_ID = ?";
+    String FACET_ROWS = "SELECT " + CardSummary.COLUMNS + ", card.manaValue, " +
+            "card.categories, card.commanderLegal FROM card ORDER BY rank < 0, rank ASC";
+    String RECOMMENDATION_ROWS = "SELECT " + CardSummary.COLUMNS + ", card.categories " +
+            "FROM card WHERE commanderLegal = 1 ORDER BY rank < 0, rank ASC";
+    String NAME_ROWS = "SELECT cardID, card_name FROM card ORDER BY rank < 0, rank ASC";
+    String DECK_CONTENT_SUMMARIES = "SELECT " + CardArtSummary.COLUMNS + " FROM card " +
+            "INNER JOIN deckcards ON card.cardID = deckcards.card_ID " +
+            "WHERE deckcards.deck_ID = :deckID";
+
     /**
      * This query returns all of the cards in the database.
      * @return a LiveData object containing a List of all Cards in the database.
      */
-    @Query ("SELECT * FROM card ORDER BY card_name ASC")
-    LiveData<List<Card>> getAll();
+    @Query (ALL_CARDS)
+    LiveData<List<CardSummary>> getAll();
 
     /**
      * This query returns all of the cards in the database, for a Supplier.
      * @return a List of all Cards in the database.
      */
-    @Query ("SELECT * FROM card ORDER BY card_name ASC")
-    List<Card> getAllCards();
+    @Query (ALL_CARDS)
+    List<CardSummary> getAllCards();
+
+    /**
+     * This query counts the Cards in the database, without loading them.
+     * @return an Integer containing the number of Cards in the database.
+     */
+    @Query ("SELECT COUNT(*) FROM card")
+    int getCardCount();
+
+    /**
+     * This query returns the Cards in a specific Deck, as LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of CardSummaries for the Cards in the Deck.
+     */
+    @Query (DECK_CONTENT_SUMMARIES)
+    LiveData<List<CardArtSummary>> getLiveDeckContents(int deckID);
 
     /**
      * This query inserts a new Card into the database.
@@ -39,6 +81,14 @@ public interface CardDAO {
     @Insert
     void insertCard(Card card);
 
+    /**
+     * This query inserts a batch of new Cards into the database, in a single
+     * transaction.
+     * @param cards a List of Cards to be inserted.
+     */
+    @Insert
+    void insertAllCards(List<Card> cards);
+
     /**
      * This query updates an existing Card in the database.
      * @param card a Card to be updated.
@@ -61,11 +111,40 @@ public interface CardDAO {
 
     /**
      * This query returns all Cards from the database which are eligible to be
-     * chosen as commanders.
+     * chosen as commanders, grouped by colour identity and then sorted by name.
+     * The index on the card table covers this ordering, so no sort is needed.
      * @return a List of Cards which are eligible to be chosen as commanders.
      */
-    @Query ("SELECT * FROM card WHERE canBeCommander = 1")
-    List<Card> getCommanders();
+    @Query ("SELECT " + CardSummary.COLUMNS + " FROM card WHERE canBeCommander = 1 " +
+            "ORDER BY identityMask, card_name")
+    List<CardSummary> getCommanders();
+
+    /**
+     * This query returns the colour identity of a Deck's commander.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return an Integer with one bit set for each colour in the commander's
+     * colour identity, or null if the Deck has no commander.
+     */
+    @Query ("SELECT card.identityMask FROM card INNER JOIN deck " +
+            "ON card.cardID = deck.commanderID WHERE deck.deckID = :deckID")
+    Integer getCommanderIdentity(int deckID);
+
+    /**
+     * This query returns the CardSummaries for a set of Cards, in no particular
+     * order.
+     * @param cardIDs an Array of the ID numbers of the Cards.
+     * @return a List of CardSummaries for the Cards which exist.
+     */
+    @Query ("SELECT " + CardSummary.COLUMNS + " FROM card WHERE cardID IN (:cardIDs)")
+    List<CardSummary> getSummariesByID(int[] cardIDs);
+
+    /**
+     * This query runs a search compiled by CardQuery.
+     * @param query a SupportSQLiteQuery from CardQuery.toQuery().
+     * @return a List of CardSummaries for the Cards which match the search.
+     */
+    @RawQuery (observedEntities = Card.class)
+    List<CardSummary> searchCards(SupportSQLiteQuery query);
 
     /**
      * This query returns a specific requested Card.
@@ -81,45 +160,41 @@ public interface CardDAO {
      *                       requested.
      * @return a List of Cards matching the requested colour identity.
      */
-    @Query ("SELECT * FROM card WHERE colourIdentity LIKE :colourIdentity")
-    List<Card> getFutureCardsByColourIdentity(String colourIdentity);
+    @Query ("SELECT " + CardSummary.COLUMNS + " FROM card WHERE colourIdentity LIKE :colourIdentity")
+    List<CardSummary> getFutureCardsByColourIdentity(String colourIdentity);
 
     /**
      * This query returns all colourless Cards from the database.
      * @return a List of Cards which have no colour identity.
      */
-    @Query ("SELECT * FROM card WHERE colourIdentity IS null")
-    List<Card> getFutureColourlessCards();
+    @Query ("SELECT " + CardSummary.COLUMNS + " FROM card WHERE colourIdentity IS null")
+    List<CardSummary> getFutureColourlessCards();
 
     /**
      * This query returns all Ramp Cards from the database.
      * @return a List of Cards which have the matching category.
      */
-    @Query ("SELECT * FROM card WHERE categories LIKE '%ramp%' OR " +
-            "categories LIKE '%mana%' ORDER BY rank ASC")
-    List<Card> getRampCards();
+    @Query (RAMP_CARDS)
+    List<CardSummary> getRampCards();
 
     /**
      * This query returns all Card-draw Cards from the database.
      * @return a List of Cards which have the matching category.
      */
-    @Query ("SELECT * FROM card WHERE categories LIKE '%cardraw%' " +
-            "ORDER BY rank ASC")
-    List<Card> getDrawCards();
+    @Query (DRAW_CARDS)
+    List<CardSummary> getDrawCards();
 
     /**
      * This query returns all Removal Cards from the database.
      * @return a List of Cards which have the matching category.
      */
-    @Query ("SELECT * FROM card WHERE categories LIKE '%removal%' " +
-            "ORDER BY card_name ASC")
-    List<Card> getRemovalCards();
+    @Query (REMOVAL_CARDS)
+    List<CardSummary> getRemovalCards();
 
     /**
      * This query returns all Board-wipes from the database.
      * @return a List of Cards which have the matching category.
      */
-    @Query ("SELECT * FROM card WHERE categories LIKE '%wrath%' " +
-            "ORDER BY card_name ASC")
-    List<Card> getBoardWipes();
+    @Query (BOARD_WIPES)
+    List<CardSummary> getBoardWipes();
 }
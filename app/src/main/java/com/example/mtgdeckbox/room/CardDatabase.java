@@ -1,40 +1,307 @@
 package com.example.mtgdeckbox.room;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.example.mtgdeckbox.BuildConfig;
+import com.example.mtgdeckbox.IntHashSet;
 
 /**
  * This class contains the Android Room SQL database for the application.
  * @author: Tom Barker
  */
-@Database(entities = {Card.class, Deck.class, DeckCards.class},
-            version = 1, exportSchema = false)
+@Database(entities = {Card.class, Deck.class, DeckCards.class, DeckEvent.class,
+            DeckSnapshot.class, DeckSignature.class}, version = 7, exportSchema = false)
 public abstract class CardDatabase extends RoomDatabase {
 
     public abstract CardDAO cardDAO();
     public abstract DeckDAO deckDAO();
     public abstract DeckCardDAO quantities();
+    public abstract DeckHistoryDAO history();
+    public abstract DeckSignatureDAO signatures();
 
     private static CardDatabase INSTANCE;
 
     private static final int NUMBER_OF_THREADS = 4;
 
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    // Statements slower than this are flagged by the SlowQueryLogger in debug builds.
+    private static final long SLOW_QUERY_THRESHOLD_MS = 16;
+
+    private static SlowQueryLogger slowQueryLogger;
+
+    // The logger which times every statement run on this database, if any.
+    private volatile SlowQueryLogger queryLogger;
+
+    // Database work is queued by Priority, so the user's reads run first.
+    public static final PriorityDatabaseExecutor databaseWriteExecutor =
+            new PriorityDatabaseExecutor(NUMBER_OF_THREADS);
+
+    // Version 2 stores each Card's colour identity as bits.
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `Card` ADD COLUMN `identityMask` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `Card` SET `identityMask` = " + identityBit('W', Card.WHITE)
+                    + " | " + identityBit('U', Card.BLUE) + " | " + identityBit('B', Card.BLACK)
+                    + " | " + identityBit('R', Card.RED) + " | " + identityBit('G', Card.GREEN));
+        }
+    };
+
+    // Version 3 indexes the commander picker's query.
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS "
+                    + "`index_Card_canBeCommander_identityMask_card_name` "
+                    + "ON `Card` (`canBeCommander`, `identityMask`, `card_name`)");
+        }
+    };
+
+    // Version 4 adds lastModified to Deck, and compares Deck names without case.
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // A column's collation cannot be altered, so the table is copied.
+            db.execSQL("CREATE TABLE `Deck_new` (`deckID` INTEGER PRIMARY KEY AUTOINCREMENT "
+                    + "NOT NULL, `deckName` TEXT NOT NULL COLLATE NOCASE, "
+                    + "`commanderID` INTEGER NOT NULL, `lastModified` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `Deck_new` (`deckID`, `deckName`, `commanderID`, "
+                    + "`lastModified`) SELECT `deckID`, `deckName`, `commanderID`, ? FROM `Deck`",
+                    new Object[] {System.currentTimeMillis()});
+            db.execSQL("DROP TABLE `Deck`");
+            db.execSQL("ALTER TABLE `Deck_new` RENAME TO `Deck`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Deck_deckName` ON `Deck` (`deckName`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_Deck_lastModified` "
+                    + "ON `Deck` (`lastModified`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_DeckCards_deck_ID` "
+                    + "ON `DeckCards` (`deck_ID`)");
+        }
+    };
+
+    // Version 5 adds each Deck's history. It starts at version 0, from the
+    // Deck as it is, the first time the Deck is changed.
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `Deck` ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `DeckEvent` (`eventID` INTEGER PRIMARY KEY "
+                    + "AUTOINCREMENT NOT NULL, `deck_ID` INTEGER NOT NULL, "
+                    + "`sequence` INTEGER NOT NULL, `type` INTEGER NOT NULL, "
+                    + "`card_ID` INTEGER NOT NULL, `oldValue` INTEGER NOT NULL, "
+                    + "`newValue` INTEGER NOT NULL, `oldName` TEXT, `newName` TEXT, "
+                    + "`time` INTEGER NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_DeckEvent_deck_ID_sequence` "
+                    + "ON `DeckEvent` (`deck_ID`, `sequence`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `DeckSnapshot` (`snapshotID` INTEGER "
+                    + "PRIMARY KEY AUTOINCREMENT NOT NULL, `deck_ID` INTEGER NOT NULL, "
+                    + "`sequence` INTEGER NOT NULL, `name` TEXT, `deckName` TEXT, "
+                    + "`commanderID` INTEGER NOT NULL, `cards` BLOB, `time` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_DeckSnapshot_deck_ID_sequence` "
+                    + "ON `DeckSnapshot` (`deck_ID`, `sequence`)");
+        }
+    };
+
+    // Version 6 adds a MinHash signature for each Deck, worked out here for
+    // the Decks already saved.
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `DeckSignature` (`deck_ID` INTEGER NOT NULL, "
+                    + "`signature` BLOB, PRIMARY KEY(`deck_ID`))");
+            Cursor cursor = db.query(DeckCardDAO.CO_OCCURRENCE_ROWS);
+            try {
+                IntHashSet cardIDs = new IntHashSet();
+                int deckID = 0;
+                boolean hasDeck = false;
+                while (cursor.moveToNext()) {
+                    int rowDeck = cursor.getInt(0);
+                    if (hasDeck && rowDeck != deckID) {
+                        insertSignature(db, deckID, cardIDs.toArray());
+                        cardIDs = new IntHashSet();
+                    }
+                    deckID = rowDeck;
+                    hasDeck = true;
+                    cardIDs.add(cursor.getInt(1));
+                }
+                if (hasDeck) {
+                    insertSignature(db, deckID, cardIDs.toArray());
+                }
+            }
+            finally {
+                cursor.close();
+            }
+        }
+    };
+
+    // Version 7 stores the symbols of each Card's mana cost.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            String[] columns = {"whitePips", "bluePips", "blackPips", "redPips", "greenPips",
+                    "colourlessPips", "genericMana", "xCount", "manaFlags"};
+            for (String column : columns) {
+                db.execSQL("ALTER TABLE `Card` ADD COLUMN `" + column
+                        + "` INTEGER NOT NULL DEFAULT 0");
+            }
+
+            SupportSQLiteStatement update = db.compileStatement("UPDATE `Card` SET "
+                    + "`whitePips` = ?, `bluePips` = ?, `blackPips` = ?, `redPips` = ?, "
+                    + "`greenPips` = ?, `colourlessPips` = ?, `genericMana` = ?, "
+                    + "`xCount` = ?, `manaFlags` = ? WHERE `cardID` = ?");
+            Cursor cursor = db.query("SELECT `cardID`, `manaCost` FROM `Card`");
+            try {
+                while (cursor.moveToNext()) {
+                    ManaCost cost = ManaCost.parse(cursor.getString(1));
+                    update.bindLong(1, cost.getPips(ManaCost.WHITE));
+                    update.bindLong(2, cost.getPips(ManaCost.BLUE));
+                    update.bindLong(3, cost.getPips(ManaCost.BLACK));
+                    update.bindLong(4, cost.getPips(ManaCost.RED));
+                    update.bindLong(5, cost.getPips(ManaCost.GREEN));
+                    update.bindLong(6, cost.getPips(ManaCost.COLOURLESS));
+                    update.bindLong(7, cost.getGeneric());
+                    update.bindLong(8, cost.getXCount());
+                    update.bindLong(9, cost.getFlags());
+                    update.bindLong(10, cursor.getInt(0));
+                    update.executeUpdateDelete();
+                }
+            }
+            finally {
+                cursor.close();
+            }
+        }
+    };
+
+    // Every Migration, oldest first.
+    static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4,
+            MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7};
 
     public static synchronized CardDatabase getInstance(final Context context) {
         if (INSTANCE == null) {
-            INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                    CardDatabase.class, "CardDatabase")
-                    .fallbackToDestructiveMigration()
-                    .build();
+            // Only a version with no Migration to it, such as a downgrade, starts again.
+            RoomDatabase.Builder<CardDatabase> builder = Room.databaseBuilder(
+                    context.getApplicationContext(), CardDatabase.class, "CardDatabase")
+                    .addMigrations(MIGRATIONS)
+                    .fallbackToDestructiveMigration();
+
+            // Look for full table scans and slow statements in debug builds.
+            if (BuildConfig.DEBUG) {
+                slowQueryLogger = new SlowQueryLogger(SLOW_QUERY_THRESHOLD_MS);
+                slowQueryLogger.install(builder);
+            }
+
+            INSTANCE = builder.build();
+
+            if (slowQueryLogger != null) {
+                INSTANCE.logSlowQueries(slowQueryLogger);
+            }
         }
         return INSTANCE;
     }
+
+    /**
+     * This method hands every query and statement run on this database to a
+     * SlowQueryLogger, which times them and checks their query plans. The
+     * logger must already be installed on the builder.
+     * @param logger the SlowQueryLogger to report to.
+     */
+    public void logSlowQueries(SlowQueryLogger logger) {
+        logger.attach(this);
+        queryLogger = logger;
+    }
+
+    /**
+     * This method runs a query for the DAOs, LiveData and the Repository,
+     * timing it if a SlowQueryLogger is attached.
+     * @param query a SupportSQLiteQuery containing the query and its arguments.
+     * @param signal a CancellationSignal which stops the query, or null.
+     * @return a Cursor over the results of the query.
+     */
+    @NonNull
+    @Override
+    public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
+        SlowQueryLogger logger = queryLogger;
+        if (logger == null) {
+            return super.query(query, signal);
+        }
+        long start = System.nanoTime();
+        Cursor cursor = super.query(query, signal);
+        return logger.time(query.getSql(), SlowQueryLogger.argsOf(query),
+                System.nanoTime() - start, cursor);
+    }
+
+    /**
+     * This method runs a raw query, timing it if a SlowQueryLogger is attached.
+     * @param query a String containing the query.
+     * @param args the arguments to be bound to the query.
+     * @return a Cursor over the results of the query.
+     */
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String query, @Nullable Object[] args) {
+        SlowQueryLogger logger = queryLogger;
+        if (logger == null) {
+            return super.query(query, args);
+        }
+        long start = System.nanoTime();
+        Cursor cursor = super.query(query, args);
+        return logger.time(query, args == null ? new Object[0] : args,
+                System.nanoTime() - start, cursor);
+    }
+
+    /**
+     * This method compiles the inserts, updates and deletes run by the DAOs,
+     * timing each execution if a SlowQueryLogger is attached.
+     * @param sql a String containing the statement.
+     * @return a SupportSQLiteStatement which runs the statement.
+     */
+    @Override
+    public SupportSQLiteStatement compileStatement(@NonNull String sql) {
+        SlowQueryLogger logger = queryLogger;
+        SupportSQLiteStatement statement = super.compileStatement(sql);
+        return logger == null ? statement : logger.time(sql, statement);
+    }
+
+    /**
+     * This method builds the SQL which gives one colour's bit of a Card's
+     * identity mask, for MIGRATION_1_2.
+     * @param colour a Character containing the colour's letter, such as 'W'.
+     * @param bit an Integer containing the colour's bit.
+     * @return a String containing the SQL expression.
+     */
+    private static String identityBit(char colour, int bit) {
+        return "(CASE WHEN instr(`colourIdentity`, '" + colour + "') > 0 THEN " + bit
+                + " ELSE 0 END)";
+    }
+
+    /**
+     * This method saves the signature of a Deck's Cards, for MIGRATION_5_6.
+     * @param db the SupportSQLiteDatabase being migrated.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardIDs an Array of the ID numbers of every Card in the Deck.
+     */
+    private static void insertSignature(SupportSQLiteDatabase db, int deckID, int[] cardIDs) {
+        db.execSQL("INSERT OR REPLACE INTO `DeckSignature` (`deck_ID`, `signature`) "
+                + "VALUES (?, ?)", new Object[] {deckID, MinHash.encode(MinHash.of(cardIDs))});
+    }
+
+    /**
+     * This is the Accessor method for the slowQueryLogger field.
+     * @return the SlowQueryLogger installed on the database, or null in
+     * release builds.
+     */
+    public static SlowQueryLogger getSlowQueryLogger() {
+        return slowQueryLogger;
+    }
 }
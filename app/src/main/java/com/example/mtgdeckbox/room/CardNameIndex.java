@@ -0,0 +1,290 @@
+package com.example.mtgdeckbox.room;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class looks up Cards by name. Names are normalised before they are
+ * stored or looked up, so case, spacing, punctuation and accents do not
+ * matter: "Lim-Dul's Vault", "lim dul's vault" and "LIMDULS VAULT" all find
+ * the same Card, as does the accented spelling. Double-faced and split Cards
+ * can also be found by the name of their front face.
+ *
+ * Names which are not found can be given a suggestion. Misspelt names are
+ * matched by edit distance through a TrigramIndex, which is built the first
+ * time it is needed, as most lookups never need it. Names which were cut
+ * short are matched through the normalised names kept sorted, where the
+ * neighbours of the unknown name which share the longest start with it are
+ * offered instead.
+ */
+public class CardNameIndex {
+    // The separator between the faces of a double-faced or split Card.
+    private static final String FACE_SEPARATOR = " // ";
+
+    private final Map<String, Integer> byName;
+    private final Map<Integer, String> names;
+    private final String[] sortedKeys;
+    private final int[] sortedIDs;
+    private final String[] rankedKeys;
+    private TrigramIndex typoIndex;
+
+    /**
+     * This is the non-default constructor, used by the Builder.
+     * @param byName a Map from each normalised name to a Card ID number.
+     * @param names a Map from each Card ID number to the Card's full name.
+     * @param sortedKeys an Array of the normalised names, in order.
+     * @param sortedIDs an Array of the Card ID numbers for sortedKeys.
+     * @param rankedKeys an Array of the normalised names, in the order the
+     *                   Cards were added.
+     */
+    private CardNameIndex(Map<String, Integer> byName, Map<Integer, String> names,
+                          String[] sortedKeys, int[] sortedIDs, String[] rankedKeys) {
+        this.byName = byName;
+        this.names = names;
+        this.sortedKeys = sortedKeys;
+        this.sortedIDs = sortedIDs;
+        this.rankedKeys = rankedKeys;
+    }
+
+    /**
+     * This method finds the Cards whose names are closest to a name which may
+     * be misspelt. Short names may be one edit out, names of up to eleven
+     * letters two, and longer names three.
+     * @param name a String containing the name, in any case or punctuation.
+     * @param limit an Integer containing the most Cards to return.
+     * @return an Array of the ID numbers of the closest Cards, closest first,
+     * and in the order the Cards were added among those equally close.
+     */
+    public int[] findClosest(String name, int limit) {
+        String key = normalise(name);
+        if (key.isEmpty()) {
+            return new int[0];
+        }
+        int maxDistance = key.length() <= 4 ? 1 : key.length() <= 11 ? 2 : 3;
+        return getTypoIndex().search(key, maxDistance, limit);
+    }
+
+    /**
+     * This method builds the TrigramIndex for misspelt names, if it has not
+     * been built yet. The Repository calls it in the background once the
+     * index has loaded, so the first suggestion does not have to wait.
+     */
+    public void prepareSuggestions() {
+        getTypoIndex();
+    }
+
+    /**
+     * This method finds a Card by name.
+     * @param name a String containing the name, in any case or punctuation.
+     * @return an Integer containing the Card's ID number, or -1 if no Card
+     * has that name.
+     */
+    public int find(String name) {
+        Integer cardID = byName.get(normalise(name));
+        return cardID == null ? -1 : cardID;
+    }
+
+    /**
+     * This method returns the full name of a Card in the index.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return a String containing the Card's name, or null if it is not indexed.
+     */
+    public String getName(int cardID) {
+        return names.get(cardID);
+    }
+
+    /**
+     * This method suggests the Card a name which was not found may have meant.
+     * @param name a String containing the name which was not found.
+     * @return a String containing the full name of the closest Card, or null
+     * if no Card is close enough to suggest.
+     */
+    public String suggest(String name) {
+        String key = normalise(name);
+        if (key.isEmpty() || sortedKeys.length == 0) {
+            return null;
+        }
+
+        // The names sharing the longest start with the key sort either side of it.
+        int insertion = Arrays.binarySearch(sortedKeys, key);
+        if (insertion >= 0) {
+            return names.get(sortedIDs[insertion]);
+        }
+        insertion = -insertion - 1;
+        int best = -1;
+        int bestShared = 0;
+        for (int i = Math.max(0, insertion - 2);
+             i < Math.min(sortedKeys.length, insertion + 2); i++) {
+            int shared = sharedPrefix(key, sortedKeys[i]);
+            if (shared > bestShared) {
+                best = i;
+                bestShared = shared;
+            }
+        }
+
+        // A name cut short is the start of the one meant; otherwise it may be misspelt.
+        if (bestShared < key.length()) {
+            int[] closest = findClosest(name, 1);
+            if (closest.length > 0) {
+                return names.get(closest[0]);
+            }
+        }
+
+        // Only suggest a Card which matches at least half of what was typed.
+        return best < 0 || bestShared * 2 < key.length() ? null : names.get(sortedIDs[best]);
+    }
+
+    /**
+     * This method returns the number of names in the index.
+     * @return an Integer containing the number of normalised names.
+     */
+    public int size() {
+        return byName.size();
+    }
+
+    /**
+     * This method returns the TrigramIndex over every normalised name,
+     * building it the first time.
+     * @return the TrigramIndex.
+     */
+    private synchronized TrigramIndex getTypoIndex() {
+        if (typoIndex == null) {
+            int[] cardIDs = new int[rankedKeys.length];
+            for (int i = 0; i < rankedKeys.length; i++) {
+                cardIDs[i] = byName.get(rankedKeys[i]);
+            }
+            typoIndex = new TrigramIndex(rankedKeys, cardIDs);
+        }
+        return typoIndex;
+    }
+
+    /**
+     * This method normalises a Card name for looking up. Letters are lower
+     * cased and stripped of accents, and everything but letters and digits is
+     * dropped.
+     * @param name a String containing a Card name.
+     * @return a String containing the normalised name.
+     */
+    public static String normalise(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    key.append((char) (c + ('a' - 'A')));
+                } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                    key.append(c);
+                }
+            } else {
+                appendFolded(key, c);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * This method appends a non-ASCII character to a normalised name, with
+     * its accents removed.
+     * @param key a StringBuilder holding the normalised name so far.
+     * @param c a Character outside of ASCII.
+     */
+    private static void appendFolded(StringBuilder key, char c) {
+        // The ligature in names such as Aether has no accent to strip.
+        if (c == '\u00C6' || c == '\u00E6') {
+            key.append("ae");
+            return;
+        }
+        String folded = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        for (int i = 0; i < folded.length(); i++) {
+            char f = Character.toLowerCase(folded.charAt(i));
+            if ((f >= 'a' && f <= 'z') || (f >= '0' && f <= '9')) {
+                key.append(f);
+            }
+        }
+    }
+
+    /**
+     * This method counts how many characters two Strings share at the start.
+     * @param a a String.
+     * @param b another String.
+     * @return an Integer containing the length of the shared start.
+     */
+    private static int sharedPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * This class builds a CardNameIndex one Card at a time.
+     */
+    public static class Builder {
+        private final Map<String, Integer> byName;
+        private final Map<Integer, String> names;
+        private final List<String> rankedKeys;
+
+        /**
+         * This is the default constructor.
+         */
+        public Builder() {
+            byName = new HashMap<>();
+            names = new HashMap<>();
+            rankedKeys = new ArrayList<>();
+        }
+
+        /**
+         * This method adds a Card to the index. If two Cards share a name, the
+         * first one added is kept. Cards should be added most popular first, as
+         * close names found for a misspelling are ordered that way.
+         * @param cardID an Integer containing the ID number of the Card.
+         * @param name a String containing the Card's full name.
+         */
+        public void add(int cardID, String name) {
+            if (name == null) {
+                return;
+            }
+            names.put(cardID, name);
+            putIfAbsent(normalise(name), cardID);
+
+            // Let the front face of a double-faced or split Card find it too.
+            int separator = name.indexOf(FACE_SEPARATOR);
+            if (separator > 0) {
+                putIfAbsent(normalise(name.substring(0, separator)), cardID);
+            }
+        }
+
+        /**
+         * This method builds the index from every Card added so far.
+         * @return the finished CardNameIndex.
+         */
+        public CardNameIndex build() {
+            String[] sortedKeys = byName.keySet().toArray(new String[0]);
+            Arrays.sort(sortedKeys);
+            int[] sortedIDs = new int[sortedKeys.length];
+            for (int i = 0; i < sortedKeys.length; i++) {
+                sortedIDs[i] = byName.get(sortedKeys[i]);
+            }
+            return new CardNameIndex(byName, names, sortedKeys, sortedIDs,
+                    rankedKeys.toArray(new String[0]));
+        }
+
+        /**
+         * This method adds a normalised name, unless it is already taken.
+         * @param key a String containing the normalised name.
+         * @param cardID an Integer containing the ID number of the Card.
+         */
+        private void putIfAbsent(String key, int cardID) {
+            if (!key.isEmpty() && !byName.containsKey(key)) {
+                byName.put(key, cardID);
+                rankedKeys.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class compiles the search language typed into the card picker into a
+ * parameterised query against the card table. A search is a list of terms,
+ * all of which a Card must match, such as
+ * "t:creature id<=bg mv<=3 cat:ramp -t:legendary sort:rank":
+ *
+ *   t:text          the Card's super types, types or subtypes contain the text.
+ *   id:wubrg        the Card's colour identity fits within those colours; it can
+ *                   also be compared with =, !=, <, <=, > or >=, and c means
+ *                   colourless.
+ *   mv, rank        the Card's mana value or EDHREC rank compared with a number.
+ *   cat:category    the Card is in a deck-building category, such as ramp,
+ *                   draw, removal or wipe.
+ *   is:commander    the Card can be a commander; is:legal means it is legal
+ *                   in Commander.
+ *   sort:order      list by rank, name or mv. Rank is the default.
+ *
+ * Any other word is looked for in the Card's name, and quotes keep spaces
+ * inside a single word. A leading '-' negates a term. Terms which cannot be
+ * read are left out of the query and kept in getInvalidTerms().
+ *
+ * Colour identity terms are turned into the list of the 32 identity masks
+ * which they allow, and combined into one IN list, so SQLite can seek into
+ * the (canBeCommander, identityMask, card_name) index rather than read every
+ * row. Compiled queries are cached by their normalised text, so a search
+ * typed again never has to be parsed again.
+ */
+public final class CardQuery {
+    // The most Cards a search returns, so a broad search still lists quickly.
+    public static final int RESULT_LIMIT = 500;
+
+    // The number of compiled queries kept in the plan cache.
+    private static final int PLAN_CACHE_SIZE = 32;
+
+    // The mask with a bit set for every one of the 32 colour identities.
+    private static final long ALL_IDENTITIES = 0xFFFFFFFFL;
+
+    // All of a Card's type line, for a t: term of more than one word.
+    private static final String TYPE_LINE =
+            "(card.superTypes || ' ' || card.types || ' ' || card.subtypes)";
+
+    // Compiled queries, least recently used first.
+    private static final LinkedHashMap<String, CardQuery> plans =
+            new LinkedHashMap<String, CardQuery>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CardQuery> eldest) {
+                    return size() > PLAN_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * This enum describes the orders a search can list its Cards in.
+     */
+    public enum Sort {
+        RANK ("card.rank < 0, card.rank, card.card_name"),
+        NAME ("card.card_name"),
+        MANA_VALUE ("card.manaValue, card.rank < 0, card.rank");
+
+        private final String orderBy;
+
+        Sort(String orderBy) {
+            this.orderBy = orderBy;
+        }
+    }
+
+    private final String sql;
+    private final Object[] args;
+    private final List<String> invalidTerms;
+    private final String nameText;
+
+    /**
+     * This is the non-default constructor, used by compile().
+     * @param sql a String containing the compiled query.
+     * @param args an Array of the arguments to bind to the query.
+     * @param invalidTerms a List of the terms which could not be read.
+     * @param nameText a String containing the name searched for, if the search
+     *                 only names a Card.
+     */
+    private CardQuery(String sql, Object[] args, List<String> invalidTerms, String nameText) {
+        this.sql = sql;
+        this.args = args;
+        this.invalidTerms = Collections.unmodifiableList(invalidTerms);
+        this.nameText = nameText;
+    }
+
+    /**
+     * This method compiles a search, or returns it from the plan cache if the
+     * same search has been compiled before.
+     * @param text a String containing the search typed by the user.
+     * @return a CardQuery holding the compiled query.
+     */
+    public static CardQuery compile(String text) {
+        String key = normalise(text);
+        synchronized (plans) {
+            CardQuery cached = plans.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        CardQuery query = new Compiler().compile(tokenise(key));
+        synchronized (plans) {
+            plans.put(key, query);
+        }
+        return query;
+    }
+
+    /**
+     * This method tidies a search so that searches which differ only in case
+     * or spacing share a cached plan.
+     * @param text a String containing the search.
+     * @return a String in lower case, with runs of whitespace made single spaces.
+     */
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This method splits a search into its terms. Text in double quotes is
+     * kept in one term, without the quotes.
+     * @param text a String containing the normalised search.
+     * @return a List of the terms.
+     */
+    static List<String> tokenise(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ' ' && !quoted) {
+                if (term.length() > 0) {
+                    terms.add(term.toString());
+                    term.setLength(0);
+                }
+            } else {
+                term.append(c);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    /**
+     * This method returns the compiled query, ready for CardDAO.searchCards().
+     * @return a SupportSQLiteQuery with its arguments bound.
+     */
+    public SupportSQLiteQuery toQuery() {
+        return new SimpleSQLiteQuery(sql, args);
+    }
+
+    /**
+     * This is the Accessor method for the sql field.
+     * @return a String containing the compiled query.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * This is the Accessor method for the args field.
+     * @return a copy of the Array of arguments bound to the query.
+     */
+    public Object[] getArgs() {
+        return args.clone();
+    }
+
+    /**
+     * This is the Accessor method for the invalidTerms field.
+     * @return a List of the terms which could not be read, and were left out.
+     */
+    public List<String> getInvalidTerms() {
+        return invalidTerms;
+    }
+
+    /**
+     * This is the Accessor method for the nameText field. When a search for a
+     * name finds nothing, this is the name to look for misspellings of.
+     * @return a String containing the words of the search, if every term is a
+     * plain word of a Card's name, or an empty String otherwise.
+     */
+    public String getNameText() {
+        return nameText;
+    }
+
+    /**
+     * This class turns the terms of one search into SQL. A new Compiler is
+     * used for every search.
+     */
+    private static class Compiler {
+        private final List<String> conditions = new ArrayList<>();
+        private final List<Object> args = new ArrayList<>();
+        private final List<String> patterns = new ArrayList<>();
+        private final List<Object> patternArgs = new ArrayList<>();
+        private final List<String> invalidTerms = new ArrayList<>();
+        private final StringBuilder nameText = new StringBuilder();
+        private boolean onlyNames = true;
+        private long identities = ALL_IDENTITIES;
+        private boolean commanderOnly = false;
+        private Sort sort = Sort.RANK;
+
+        /**
+         * This method compiles every term of a search.
+         * @param terms a List of the terms.
+         * @return a CardQuery holding the compiled query.
+         */
+        CardQuery compile(List<String> terms) {
+            for (String term : terms) {
+                boolean negated = term.length() > 1 && term.charAt(0) == '-';
+                if (!addTerm(negated ? term.substring(1) : term, negated)) {
+                    invalidTerms.add(term);
+                    onlyNames = false;
+                }
+            }
+
+            List<String> where = new ArrayList<>();
+            List<Object> whereArgs = new ArrayList<>();
+            if (identities != ALL_IDENTITIES) {
+                /* Constrain the first column of the index as well, so both
+                 * IN lists become seeks into it.
+                 */
+                if (!commanderOnly) {
+                    where.add("card.canBeCommander IN (0, 1)");
+                }
+                where.add(identityCondition(whereArgs));
+            }
+            // Compare numbers before matching text, which is much slower.
+            where.addAll(conditions);
+            whereArgs.addAll(args);
+            where.addAll(patterns);
+            whereArgs.addAll(patternArgs);
+
+            StringBuilder sql = new StringBuilder("SELECT ").append(CardSummary.COLUMNS)
+                    .append(" FROM card");
+            for (int i = 0; i < where.size(); i++) {
+                sql.append(i == 0 ? " WHERE " : " AND ").append(where.get(i));
+            }
+            sql.append(" ORDER BY ").append(sort.orderBy).append(" LIMIT ?");
+            whereArgs.add(RESULT_LIMIT);
+            return new CardQuery(sql.toString(), whereArgs.toArray(), invalidTerms,
+                    onlyNames ? nameText.toString().trim() : "");
+        }
+
+        /**
+         * This method compiles one term.
+         * @param term a String containing the term, without any leading '-'.
+         * @param negated a Boolean which is true if the term had a leading '-'.
+         * @return a Boolean which is true if the term could be read.
+         */
+        private boolean addTerm(String term, boolean negated) {
+            // Find where the key ends and the comparison starts.
+            int opStart = 0;
+            while (opStart < term.length() && Character.isLetter(term.charAt(opStart))) {
+                opStart++;
+            }
+            int opEnd = opStart;
+            while (opEnd < term.length() && ":=<>!".indexOf(term.charAt(opEnd)) >= 0) {
+                opEnd++;
+            }
+            if (opStart == 0 || opEnd == opStart) {
+                // A plain word is looked for in the name.
+                if (negated) {
+                    onlyNames = false;
+                } else {
+                    nameText.append(term).append(' ');
+                }
+                return addLike("card.card_name", term, negated);
+            }
+            onlyNames = false;
+
+            String key = term.substring(0, opStart);
+            String op = term.substring(opStart, opEnd);
+            String value = term.substring(opEnd);
+            if (value.isEmpty() || !isOperator(op)) {
+                return false;
+            }
+            switch (key) {
+                case "t":
+                case "type":
+                    return op.equals(":") && addType(value, negated);
+                case "name":
+                    return op.equals(":") && addLike("card.card_name", value, negated);
+                case "id":
+                case "ci":
+                case "identity":
+                    return addIdentity(op, value, negated);
+                case "mv":
+                case "cmc":
+                    return addNumber("card.manaValue", op, value, negated);
+                case "rank":
+                    return addNumber("card.rank", op, value, negated);
+                case "cat":
+                case "category":
+                    return op.equals(":") && addCategory(value, negated);
+                case "is":
+                    return op.equals(":") && addIs(value, negated);
+                case "sort":
+                case "order":
+                    return op.equals(":") && !negated && setSort(value);
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * This method adds a condition that a column contains some text.
+         * @param column a String containing the column or expression to search.
+         * @param text a String containing the text to look for.
+         * @param negated a Boolean which is true if the column must not contain it.
+         * @return a Boolean which is always true.
+         */
+        private boolean addLike(String column, String text, boolean negated) {
+            patterns.add(column + (negated ? " NOT" : "") + " LIKE ? ESCAPE '\\'");
+            patternArgs.add("%" + DeckSummary.likePattern(text));
+            return true;
+        }
+
+        /**
+         * This method adds a condition that a Card's type line contains some
+         * text. A single word is looked for in each type column in turn, which
+         * is quicker than joining them; only longer text needs the whole line.
+         * @param text a String containing the text to look for.
+         * @param negated a Boolean which is true if the type line must not contain it.
+         * @return a Boolean which is always true.
+         */
+        private boolean addType(String text, boolean negated) {
+            if (text.indexOf(' ') >= 0) {
+                return addLike(TYPE_LINE, text, negated);
+            }
+            String pattern = "%" + DeckSummary.likePattern(text);
+            patterns.add((negated ? "NOT " : "") + "(card.types LIKE ? ESCAPE '\\' " +
+                    "OR card.superTypes LIKE ? ESCAPE '\\' OR card.subtypes LIKE ? ESCAPE '\\')");
+            patternArgs.add(pattern);
+            patternArgs.add(pattern);
+            patternArgs.add(pattern);
+            return true;
+        }
+
+        /**
+         * This method adds a comparison between a numeric column and a number.
+         * @param column a String containing the column to compare.
+         * @param op a String containing the comparison.
+         * @param value a String containing the number.
+         * @param negated a Boolean which is true if the comparison must fail.
+         * @return a Boolean which is true if the value was a number.
+         */
+        private boolean addNumber(String column, String op, String value, boolean negated) {
+            int number;
+            try {
+                number = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            String comparison = column + " " + (op.equals(":") ? "=" : op) + " ?";
+            // Unranked Cards are stored as -1, and should not count as highly ranked.
+            if (column.equals("card.rank")) {
+                comparison = "(card.rank >= 0 AND " + comparison + ")";
+            }
+            conditions.add(negated ? "NOT " + comparison : comparison);
+            args.add(number);
+            return true;
+        }
+
+        /**
+         * This method narrows the colour identities a Card may have.
+         * @param op a String containing the comparison.
+         * @param value a String containing the colour letters, or c for colourless.
+         * @param negated a Boolean which is true if the comparison must fail.
+         * @return a Boolean which is true if the colours could be read.
+         */
+        private boolean addIdentity(String op, String value, boolean negated) {
+            int mask = 0;
+            if (!value.equals("c")) {
+                for (int i = 0; i < value.length(); i++) {
+                    int colour = "wubrg".indexOf(value.charAt(i));
+                    if (colour < 0) {
+                        return false;
+                    }
+                    mask |= 1 << colour;
+                }
+            }
+
+            long allowed = 0;
+            for (int identity = 0; identity < 32; identity++) {
+                boolean subset = (identity & ~mask) == 0;
+                boolean superset = (identity & mask) == mask;
+                boolean match;
+                switch (op) {
+                    case ":":
+                    case "<=":
+                        match = subset;
+                        break;
+                    case "<":
+                        match = subset && identity != mask;
+                        break;
+                    case ">=":
+                        match = superset;
+                        break;
+                    case ">":
+                        match = superset && identity != mask;
+                        break;
+                    case "!=":
+                        match = identity != mask;
+                        break;
+                    default:
+                        match = identity == mask;
+                        break;
+                }
+                if (match != negated) {
+                    allowed |= 1L << identity;
+                }
+            }
+            identities &= allowed;
+            return true;
+        }
+
+        /**
+         * This method adds a condition that a Card is in a deck-building
+         * category. The common categories match the CardDAO category lists.
+         * @param category a String containing the category.
+         * @param negated a Boolean which is true if the Card must not be in it.
+         * @return a Boolean which is always true.
+         */
+        private boolean addCategory(String category, boolean negated) {
+            switch (category) {
+                case "ramp":
+                    patterns.add((negated ? "NOT " : "") +
+                            "(card.categories LIKE ? OR card.categories LIKE ?)");
+                    patternArgs.add("%ramp%");
+                    patternArgs.add("%mana%");
+                    return true;
+                case "draw":
+                    return addLike("card.categories", "cardraw", negated);
+                case "wipe":
+                    return addLike("card.categories", "wrath", negated);
+                default:
+                    return addLike("card.categories", category, negated);
+            }
+        }
+
+        /**
+         * This method adds an is: condition.
+         * @param value a String containing commander or legal.
+         * @param negated a Boolean which is true if the condition must fail.
+         * @return a Boolean which is true if the value was understood.
+         */
+        private boolean addIs(String value, boolean negated) {
+            switch (value) {
+                case "commander":
+                    if (negated) {
+                        // Most Cards match, so the '+' stops SQLite reading them through the index.
+                        conditions.add("+card.canBeCommander = 0");
+                    } else {
+                        // This takes the place of the IN (0, 1) on the index's first column.
+                        commanderOnly = true;
+                        conditions.add("card.canBeCommander = 1");
+                    }
+                    return true;
+                case "legal":
+                    conditions.add("card.commanderLegal = " + (negated ? "0" : "1"));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * This method chooses the order of the results.
+         * @param value a String containing rank, name or mv.
+         * @return a Boolean which is true if the order was understood.
+         */
+        private boolean setSort(String value) {
+            switch (value) {
+                case "rank":
+                    sort = Sort.RANK;
+                    return true;
+                case "name":
+                    sort = Sort.NAME;
+                    return true;
+                case "mv":
+                case "cmc":
+                    sort = Sort.MANA_VALUE;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * This method writes the IN list of the colour identities still allowed.
+         * @param whereArgs the List of arguments to add the identities to.
+         * @return a String containing the condition.
+         */
+        private String identityCondition(List<Object> whereArgs) {
+            if (identities == 0) {
+                // The identity terms contradict each other, so nothing matches.
+                return "0";
+            }
+            StringBuilder in = new StringBuilder("card.identityMask IN (");
+            boolean first = true;
+            for (int identity = 0; identity < 32; identity++) {
+                if ((identities & (1L << identity)) != 0) {
+                    in.append(first ? "?" : ", ?");
+                    whereArgs.add(identity);
+                    first = false;
+                }
+            }
+            return in.append(')').toString();
+        }
+
+        /**
+         * This method checks that a comparison is one the language uses.
+         * @param op a String containing the comparison.
+         * @return a Boolean which is true if it is :, =, !=, <, <=, > or >=.
+         */
+        private static boolean isOperator(String op) {
+            switch (op) {
+                case ":":
+                case "=":
+                case "!=":
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -1,21 +1,84 @@
 package com.example.mtgdeckbox.room;
 
 import android.app.Application;
+import android.database.Cursor;
+import android.os.CancellationSignal;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
+import androidx.sqlite.db.SimpleSQLiteQuery;
 
+import com.example.mtgdeckbox.IntHashSet;
+import com.example.mtgdeckbox.room.PriorityDatabaseExecutor.Priority;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import kotlin.jvm.functions.Function0;
+
 /**
  * This class is the Repository used by the ViewModel to access the database.
  * @author: Tom Barker
  */
 public class CardRepository {
+    // Executors which tag queries with how urgently the user needs them.
+    private static final Executor INTERACTIVE_EXECUTOR =
+            CardDatabase.databaseWriteExecutor.forPriority(Priority.INTERACTIVE);
+    private static final Executor PREFETCH_EXECUTOR =
+            CardDatabase.databaseWriteExecutor.forPriority(Priority.PREFETCH);
+
+    // Writes to each Deck are queued here, so they always run in order.
+    private static DeckWriteQueue deckWriteQueue;
+
+    /* Picker lists are cached here until the card table changes. The cached
+     * Lists are shared between screens, so they must not be modified.
+     */
+    private static final int QUERY_CACHE_SIZE = 12;
+    private static QueryResultCache queryCache;
+
+    // The number of Cards inserted in each transaction of the card import.
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // The number of Decks loaded into the deck list at a time.
+    private static final int DECK_PAGE_SIZE = 50;
+
+    /* Counts of which Cards the user's Decks play together. Deck writes keep
+     * it up to date, and the first reader fills it from the whole table.
+     */
+    private static final CoOccurrenceIndex coOccurrenceIndex = new CoOccurrenceIndex();
+    private static CompletableFuture<CoOccurrenceIndex> coOccurrenceBuild;
+
+    /* MinHash buckets for finding similar Decks. Like the co-occurrence counts,
+     * Deck writes keep it up to date and the first reader fills it, here from
+     * the stored signatures.
+     */
+    private static final DeckSimilarityIndex similarityIndex = new DeckSimilarityIndex();
+    private static CompletableFuture<DeckSimilarityIndex> similarityBuild;
+
+    // The lowest estimated similarity for a Deck to be suggested as similar.
+    private static final double MIN_DECK_SIMILARITY = 0.3;
+
+    private CardDatabase database;
     private CardDAO cardDAO;
     private DeckDAO deckDAO;
     private DeckCardDAO deckCardDAO;
+    private DeckHistoryDAO historyDAO;
+    private DeckHistory history;
+    private DeckSignatureDAO signatureDAO;
 
     /**
      * This is the default constructor.
@@ -27,10 +90,32 @@ public class CardRepository {
      * @param application The Application which is creating this Repository.
      */
     public CardRepository(Application application) {
-        CardDatabase db = CardDatabase.getInstance(application);
+        this(CardDatabase.getInstance(application));
+    }
+
+    /**
+     * This is the non-default constructor used by the tests, which run against
+     * a database of their own.
+     * @param db the CardDatabase which this Repository reads and writes.
+     */
+    CardRepository(CardDatabase db) {
+        database = db;
         cardDAO = db.cardDAO();
         deckDAO = db.deckDAO();
         deckCardDAO = db.quantities();
+        historyDAO = db.history();
+        signatureDAO = db.signatures();
+        history = new DeckHistory(deckDAO, deckCardDAO, historyDAO);
+
+        synchronized (CardRepository.class) {
+            if (deckWriteQueue == null) {
+                deckWriteQueue = new DeckWriteQueue(db, CardDatabase.databaseWriteExecutor);
+            }
+            if (queryCache == null) {
+                queryCache = new QueryResultCache(QUERY_CACHE_SIZE);
+                queryCache.watch(db, "card");
+            }
+        }
     }
 
     /**
@@ -38,7 +123,7 @@ public class CardRepository {
      * @param card a Card to be added to the database.
      */
     public void addCard(final Card card) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        CardDatabase.databaseWriteExecutor.execute(Priority.BULK, new Runnable() {
             @Override
             public void run() {
                 cardDAO.insertCard(card);
@@ -46,21 +131,50 @@ public class CardRepository {
         });
     }
 
+    /**
+     * This method adds many new Cards to the database, such as the whole card
+     * import. They are inserted in batches, each in one transaction, rather
+     * than one task and one transaction per Card.
+     * @param cards a List of Cards to be added to the database.
+     */
+    public void addCards(final List<Card> cards) {
+        for (int start = 0; start < cards.size(); start += IMPORT_BATCH_SIZE) {
+            final List<Card> batch = new ArrayList<>(
+                    cards.subList(start, Math.min(start + IMPORT_BATCH_SIZE, cards.size())));
+            CardDatabase.databaseWriteExecutor.execute(Priority.BULK, new Runnable() {
+                @Override
+                public void run() {
+                    cardDAO.insertAllCards(batch);
+                }
+            });
+        }
+    }
+
     /**
      * This method cleans up any DeckCards with quantity zero from the database.
+     * It runs after every Deck write made before it, and before any made after.
      */
     public void cleanDeckCards() {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        deckWriteQueue.enqueue(DeckWriteQueue.ALL_DECKS, new Runnable() {
             @Override
             public void run() {deckCardDAO.cleanDeckCards();}
         });
     }
 
+    /**
+     * This method returns a future which completes once every Deck write made
+     * so far has been committed, or has failed.
+     * @return a CompletableFuture which completes when the writes are done.
+     */
+    public CompletableFuture<Void> flushDeckWrites() {
+        return deckWriteQueue.flush();
+    }
+
     /**
      * This method deletes all Cards from the database.
      */
     public void deleteAllCards() {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        CardDatabase.databaseWriteExecutor.execute(Priority.BULK, new Runnable() {
             @Override
             public void run() {
                 cardDAO.deleteAllCards();
@@ -73,11 +187,14 @@ public class CardRepository {
      * @param deck a Deck to be deleted from the database.
      */
     public void deleteDeck(Deck deck) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        deckWriteQueue.enqueue(deck.getDeckID(), new Runnable() {
             @Override
             public void run() {
                 deckDAO.deleteDeck(deck);
                 deckCardDAO.deleteDeck(deck.getDeckID());
+                history.deleteHistory(deck.getDeckID());
+                setCoOccurrences(deck.getDeckID(), new int[0]);
+                writeSignature(deck.getDeckID(), new int[0]);
             }
         });
     }
@@ -86,22 +203,19 @@ public class CardRepository {
      * This method returns a list of all Cards in the database.
      * @return a LiveData List of all Cards from the database.
      */
-    public LiveData<List<Card>> getAllCards() {
+    public LiveData<List<CardSummary>> getAllCards() {
         return cardDAO.getAll();
     }
 
     /**
      * This method returns a list of all Cards in the database, as a
-     * CompletableFuture.
+     * CompletableFuture. The list is shared with any other screen loading it,
+     * so cancelling the future only cancels the running query once every
+     * screen waiting on it has cancelled.
      * @return a CompletableFuture containing a List of all Cards in the database.
      */
-    public CompletableFuture<List<Card>> getAllCardsByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
-            @Override
-            public List<Card> get() {
-                return cardDAO.getAllCards();
-            }
-        }, CardDatabase.databaseWriteExecutor);
+    public CompletableFuture<List<CardSummary>> getAllCardsByFuture() {
+        return cachedSummaries(CardDAO.ALL_CARDS);
     }
 
     /**
@@ -110,11 +224,35 @@ public class CardRepository {
      * @return a CompletableFuture containing a List of all Cards eligible
      * to be a commander.
      */
-    public CompletableFuture<List<Card>> getAllCommandersByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
+    public CompletableFuture<List<CardSummary>> getAllCommandersByFuture() {
+        return queryCache.get("commanders", new Supplier<CompletableFuture<List<CardSummary>>>() {
             @Override
-            public List<Card> get() {return cardDAO.getCommanders();}
-        }, CardDatabase.databaseWriteExecutor);
+            public CompletableFuture<List<CardSummary>> get() {
+                return CompletableFuture.supplyAsync(new Supplier<List<CardSummary>>() {
+                    @Override
+                    public List<CardSummary> get() {return cardDAO.getCommanders();}
+                }, PREFETCH_EXECUTOR);
+            }
+        });
+    }
+
+    /**
+     * This method returns every Card eligible to be a commander, laid out in
+     * colour identity sections for the commander picker, as a CompletableFuture.
+     * The sections are built on the database thread and cached with the list.
+     * @return a CompletableFuture containing a CommanderIndex of every Card
+     * eligible to be a commander.
+     */
+    public CompletableFuture<CommanderIndex> getCommanderIndex() {
+        return queryCache.get("commander-index", new Supplier<CompletableFuture<CommanderIndex>>() {
+            @Override
+            public CompletableFuture<CommanderIndex> get() {
+                return CompletableFuture.supplyAsync(new Supplier<CommanderIndex>() {
+                    @Override
+                    public CommanderIndex get() {return new CommanderIndex(cardDAO.getCommanders());}
+                }, INTERACTIVE_EXECUTOR);
+            }
+        });
     }
 
     /**
@@ -126,7 +264,37 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<List<Deck>>() {
             @Override
             public List<Deck> get() {return deckDAO.getAllDecks();}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method pages through the summaries of the user's Decks, as a
+     * LiveData. Each page is read with a single aggregate query, and the list
+     * reloads itself when a Deck or its contents change.
+     * @param sort the order to list the Decks in.
+     * @param nameFilter a String which Deck names must start with, or an empty
+     *                   String to list every Deck.
+     * @return a LiveData of PagingData containing the DeckSummaries.
+     */
+    public LiveData<PagingData<DeckSummary>> getDeckSummaries(final DeckSummary.Sort sort,
+                                                              String nameFilter) {
+        final String pattern = DeckSummary.likePattern(nameFilter);
+        Pager<Integer, DeckSummary> pager = new Pager<>(
+                new PagingConfig(DECK_PAGE_SIZE, DECK_PAGE_SIZE, false),
+                new Function0<PagingSource<Integer, DeckSummary>>() {
+                    @Override
+                    public PagingSource<Integer, DeckSummary> invoke() {
+                        switch (sort) {
+                            case RECENT:
+                                return deckDAO.getDeckSummariesByRecent(pattern);
+                            case SIZE:
+                                return deckDAO.getDeckSummariesBySize(pattern);
+                            default:
+                                return deckDAO.getDeckSummariesByName(pattern);
+                        }
+                    }
+                });
+        return PagingLiveData.getLiveData(pager);
     }
 
     /**
@@ -135,13 +303,8 @@ public class CardRepository {
      * @return a CompletableFuture containing a list of all board-wipe Cards
      * in the database.
      */
-    public CompletableFuture<List<Card>> getBoardWipesByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
-            @Override
-            public List<Card> get() {
-                return cardDAO.getBoardWipes();
-            }
-        }, CardDatabase.databaseWriteExecutor);
+    public CompletableFuture<List<CardSummary>> getBoardWipesByFuture() {
+        return cachedSummaries(CardDAO.BOARD_WIPES);
     }
 
     /**
@@ -153,7 +316,19 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<Card>() {
             @Override
             public Card get() {return cardDAO.getCardByID(cardID);}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method counts the Cards in the database without loading them, as
+     * a CompletableFuture.
+     * @return a CompletableFuture containing the number of Cards in the database.
+     */
+    public CompletableFuture<Integer> getCardCount() {
+        return CompletableFuture.supplyAsync(new Supplier<Integer>() {
+            @Override
+            public Integer get() {return cardDAO.getCardCount();}
+        }, INTERACTIVE_EXECUTOR);
     }
 
     /**
@@ -173,7 +348,7 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<Deck>() {
             @Override
             public Deck get() {return deckDAO.getDeck(deckID);}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
     }
 
     /**
@@ -187,7 +362,202 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<List<DeckCards>>() {
             @Override
             public List<DeckCards> get() {return deckCardDAO.getDeckCardQuantities(deckID);}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns the Cards in a specific Deck in a single query, as a
+     * CompletableFuture. Cancelling the future cancels the running query.
+     * @param deckID an Integer containing the deck ID number to be returned.
+     * @return a CompletableFuture containing a List of Cards in the specified Deck.
+     */
+    public CompletableFuture<List<Card>> getDeckContentsByFuture(int deckID) {
+        return queryCards(CardDAO.DECK_CONTENTS, INTERACTIVE_EXECUTOR, deckID);
+    }
+
+    /**
+     * This method returns the CardNameIndex over every Card in the database, as
+     * a CompletableFuture. The index is cached until the card table changes,
+     * and its index of misspellings is built in the background once it loads.
+     * @return a CompletableFuture containing the CardNameIndex.
+     */
+    public CompletableFuture<CardNameIndex> getCardNameIndex() {
+        return queryCache.get(QueryResultCache.key(CardDAO.NAME_ROWS),
+                new Supplier<CompletableFuture<CardNameIndex>>() {
+            @Override
+            public CompletableFuture<CardNameIndex> get() {
+                CompletableFuture<CardNameIndex> future = runQuery(CardDAO.NAME_ROWS,
+                        INTERACTIVE_EXECUTOR, new Function<Cursor, CardNameIndex>() {
+                    @Override
+                    public CardNameIndex apply(Cursor cursor) {
+                        return readCardNameIndex(cursor);
+                    }
+                });
+
+                // Build the misspelling index in the background once the names load.
+                future.thenAcceptAsync(new Consumer<CardNameIndex>() {
+                    @Override
+                    public void accept(CardNameIndex index) {
+                        index.prepareSuggestions();
+                    }
+                }, PREFETCH_EXECUTOR);
+                return future;
+            }
+        });
+    }
+
+    /**
+     * This method finds the Cards whose names are closest to a name which may
+     * be misspelt, as a CompletableFuture.
+     * @param name a String containing the name.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, closest
+     * first.
+     */
+    public CompletableFuture<List<CardSummary>> findCardsNamedLike(final String name,
+                                                                   final int limit) {
+        return getCardNameIndex().thenApplyAsync(
+                new Function<CardNameIndex, List<CardSummary>>() {
+            @Override
+            public List<CardSummary> apply(CardNameIndex index) {
+                return summariesInOrder(index.findClosest(name, limit));
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns the CoOccurrenceIndex over the user's Decks, as a
+     * CompletableFuture. The first call fills it from the deckcards table;
+     * after that, every Deck write keeps it up to date.
+     * @return a CompletableFuture containing the CoOccurrenceIndex.
+     */
+    public CompletableFuture<CoOccurrenceIndex> getCoOccurrenceIndex() {
+        synchronized (CardRepository.class) {
+            if (coOccurrenceBuild == null || coOccurrenceBuild.isCompletedExceptionally()) {
+                coOccurrenceBuild = CompletableFuture.supplyAsync(
+                        new Supplier<CoOccurrenceIndex>() {
+                    @Override
+                    public CoOccurrenceIndex get() {
+                        /* Hold the index while reading, so a Deck written during the
+                         * read waits and then replaces the older rows read here.
+                         */
+                        synchronized (coOccurrenceIndex) {
+                            readCoOccurrences(database.query(
+                                    new SimpleSQLiteQuery(DeckCardDAO.CO_OCCURRENCE_ROWS)));
+                        }
+                        return coOccurrenceIndex;
+                    }
+                }, PREFETCH_EXECUTOR);
+            }
+            return coOccurrenceBuild;
+        }
+    }
+
+    /**
+     * This method returns the Cards most often played alongside a Card in the
+     * user's Decks, as a CompletableFuture.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, most
+     * often paired first.
+     */
+    public CompletableFuture<List<CardSummary>> getCardCompanions(final int cardID,
+                                                                  final int limit) {
+        return getCoOccurrenceIndex().thenApplyAsync(
+                new Function<CoOccurrenceIndex, List<CardSummary>>() {
+            @Override
+            public List<CardSummary> apply(CoOccurrenceIndex index) {
+                return summariesInOrder(index.getTopCompanions(cardID, limit));
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns the Cards which the user's other Decks play alongside
+     * a Deck's contents, but which the Deck does not hold, as a CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, best first.
+     */
+    public CompletableFuture<List<CardSummary>> getDeckCompanions(final int deckID,
+                                                                  final int limit) {
+        return getCoOccurrenceIndex().thenApplyAsync(
+                new Function<CoOccurrenceIndex, List<CardSummary>>() {
+            @Override
+            public List<CardSummary> apply(CoOccurrenceIndex index) {
+                return summariesInOrder(index.getMissingCompanions(deckID, limit));
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns the DeckSimilarityIndex over the user's Decks, as a
+     * CompletableFuture. The first call fills it from the decksignature table;
+     * after that, every Deck write keeps it up to date.
+     * @return a CompletableFuture containing the DeckSimilarityIndex.
+     */
+    public CompletableFuture<DeckSimilarityIndex> getDeckSimilarityIndex() {
+        synchronized (CardRepository.class) {
+            if (similarityBuild == null || similarityBuild.isCompletedExceptionally()) {
+                similarityBuild = CompletableFuture.supplyAsync(
+                        new Supplier<DeckSimilarityIndex>() {
+                    @Override
+                    public DeckSimilarityIndex get() {
+                        // Hold the index while reading, as for the CoOccurrenceIndex.
+                        synchronized (similarityIndex) {
+                            readSignatures(database.query(
+                                    new SimpleSQLiteQuery(DeckSignatureDAO.SIGNATURE_ROWS)));
+                        }
+                        return similarityIndex;
+                    }
+                }, PREFETCH_EXECUTOR);
+            }
+            return similarityBuild;
+        }
+    }
+
+    /**
+     * This method returns the Decks whose Cards most overlap a Deck's, as a
+     * CompletableFuture. Only Decks sharing a MinHash band with the Deck are
+     * compared, so the cost does not grow with the number of Decks.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Decks to return.
+     * @return a CompletableFuture containing a List of DeckSummaries, most
+     * similar first.
+     */
+    public CompletableFuture<List<DeckSummary>> findSimilarDecks(final int deckID,
+                                                                 final int limit) {
+        return getDeckSimilarityIndex().thenApplyAsync(
+                new Function<DeckSimilarityIndex, List<DeckSummary>>() {
+            @Override
+            public List<DeckSummary> apply(DeckSimilarityIndex index) {
+                int[] deckIDs = index.findSimilar(deckID, limit, MIN_DECK_SIMILARITY);
+                if (deckIDs.length == 0) {
+                    return new ArrayList<>();
+                }
+                Map<Integer, DeckSummary> byID = new HashMap<>();
+                for (DeckSummary summary : deckDAO.getDeckSummariesByID(deckIDs)) {
+                    byID.put(summary.getDeckID(), summary);
+                }
+                List<DeckSummary> summaries = new ArrayList<>(deckIDs.length);
+                for (int similarID : deckIDs) {
+                    DeckSummary summary = byID.get(similarID);
+                    if (summary != null) {
+                        summaries.add(summary);
+                    }
+                }
+                return summaries;
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This is the Accessor method for the queryCache field.
+     * @return the QueryResultCache which holds the picker lists, and counts
+     * its hits and misses.
+     */
+    public static QueryResultCache getQueryCache() {
+        return queryCache;
     }
 
     /**
@@ -206,19 +576,141 @@ public class CardRepository {
         return deckDAO;
     }
 
+    /**
+     * This is the Accessor method for the signatureDAO field.
+     * @return a DeckSignatureDAO object used to access the DeckSignature Entity.
+     */
+    public DeckSignatureDAO getSignatureDAO() {
+        return signatureDAO;
+    }
+
+    /**
+     * This is the Accessor method for the historyDAO field.
+     * @return a DeckHistoryDAO object used to access the history of each Deck.
+     */
+    public DeckHistoryDAO getHistoryDAO() {
+        return historyDAO;
+    }
+
     /**
      * This method returns a list of Cards categorised as 'Draw' cards from
      * the database, as a CompletableFuture.
      * @return a CompletableFuture containing a List of 'Draw' Cards from
      * the database.
      */
-    public CompletableFuture<List<Card>> getDrawCardsByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
+    public CompletableFuture<List<CardSummary>> getDrawCardsByFuture() {
+        return cachedSummaries(CardDAO.DRAW_CARDS);
+    }
+
+    /**
+     * This method returns the RecommendationEngine over every Commander-legal
+     * Card, as a CompletableFuture. The engine is cached until the card table
+     * changes.
+     * @return a CompletableFuture containing the RecommendationEngine.
+     */
+    public CompletableFuture<RecommendationEngine> getRecommendationEngine() {
+        return queryCache.get(QueryResultCache.key(CardDAO.RECOMMENDATION_ROWS),
+                new Supplier<CompletableFuture<RecommendationEngine>>() {
+            @Override
+            public CompletableFuture<RecommendationEngine> get() {
+                return runQuery(CardDAO.RECOMMENDATION_ROWS, INTERACTIVE_EXECUTOR,
+                        new Function<Cursor, RecommendationEngine>() {
+                    @Override
+                    public RecommendationEngine apply(Cursor cursor) {
+                        return readRecommendationEngine(cursor);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * This method recommends Cards for a Deck, as a CompletableFuture. Only
+     * the Deck's contents and commander are read from the database; the
+     * candidates come from the cached RecommendationEngine.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param requiredCategory an Integer containing a category bit every
+     *                         recommendation must have, or 0 for any Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, best first.
+     */
+    public CompletableFuture<List<CardSummary>> getRecommendations(final int deckID,
+                                                                   final int requiredCategory,
+                                                                   final int limit) {
+        return getRecommendationEngine().thenApplyAsync(
+                new Function<RecommendationEngine, List<CardSummary>>() {
+            @Override
+            public List<CardSummary> apply(RecommendationEngine engine) {
+                Integer commanderMask = cardDAO.getCommanderIdentity(deckID);
+                // Without a commander, every colour is allowed.
+                int mask = commanderMask == null ? Card.WHITE | Card.BLUE | Card.BLACK
+                        | Card.RED | Card.GREEN : commanderMask;
+                Deck deck = deckDAO.getDeck(deckID);
+                int commanderID = deck == null ? -1 : deck.getCommanderID();
+                return engine.recommend(mask, commanderID, deckCardDAO.getDeckEntries(deckID),
+                        requiredCategory, limit);
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns the number of changes in a Deck's history, including
+     * any which have been undone, as LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData Integer containing the number of events.
+     */
+    public LiveData<Integer> getLiveHistoryLength(int deckID) {
+        return historyDAO.getLiveLatestSequence(deckID);
+    }
+
+    /**
+     * This method returns the snapshots the user has saved of a Deck, as
+     * LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of DeckSnapshots, newest first.
+     */
+    public LiveData<List<DeckSnapshot>> getLiveDeckSnapshots(int deckID) {
+        return historyDAO.getLiveNamedSnapshots(deckID);
+    }
+
+    /**
+     * This method returns the FacetIndex over every Card in the database, as a
+     * CompletableFuture. The index is cached until the card table changes.
+     * @return a CompletableFuture containing the FacetIndex.
+     */
+    public CompletableFuture<FacetIndex> getFacetIndex() {
+        return queryCache.get(QueryResultCache.key(CardDAO.FACET_ROWS),
+                new Supplier<CompletableFuture<FacetIndex>>() {
             @Override
-            public List<Card> get() {
-                return cardDAO.getDrawCards();
+            public CompletableFuture<FacetIndex> get() {
+                return runQuery(CardDAO.FACET_ROWS, PREFETCH_EXECUTOR,
+                        new Function<Cursor, FacetIndex>() {
+                    @Override
+                    public FacetIndex apply(Cursor cursor) {return readFacetIndex(cursor);}
+                });
             }
-        }, CardDatabase.databaseWriteExecutor);
+        });
+    }
+
+    /**
+     * This method returns the NameTrie which completes Card names as they are
+     * typed, as a CompletableFuture. It is built in the background from the
+     * FacetIndex, so it shares its CardSummaries, and is cached with it until
+     * the card table changes.
+     * @return a CompletableFuture containing the NameTrie.
+     */
+    public CompletableFuture<NameTrie> getNameTrie() {
+        return queryCache.get("name-trie", new Supplier<CompletableFuture<NameTrie>>() {
+            @Override
+            public CompletableFuture<NameTrie> get() {
+                return getFacetIndex().thenApplyAsync(new Function<FacetIndex, NameTrie>() {
+                    @Override
+                    public NameTrie apply(FacetIndex index) {
+                        return NameTrie.build(index.getCards());
+                    }
+                }, PREFETCH_EXECUTOR);
+            }
+        });
     }
 
     /**
@@ -228,11 +720,11 @@ public class CardRepository {
      * @return a CompletableFuture containing a List of Cards matching the
      * specified colour identity.
      */
-    public CompletableFuture<List<Card>> getFutureCardsByColourIdentity (String colourIdentity) {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
+    public CompletableFuture<List<CardSummary>> getFutureCardsByColourIdentity (String colourIdentity) {
+        return CompletableFuture.supplyAsync(new Supplier<List<CardSummary>>() {
             @Override
-            public List<Card> get() {return cardDAO.getFutureCardsByColourIdentity(colourIdentity);}
-        }, CardDatabase.databaseWriteExecutor);
+            public List<CardSummary> get() {return cardDAO.getFutureCardsByColourIdentity(colourIdentity);}
+        }, PREFETCH_EXECUTOR);
     }
 
     /**
@@ -241,13 +733,13 @@ public class CardRepository {
      * @return a CompletableFuture containing a List of Cards which are colourless
      * colour identity.
      */
-    public CompletableFuture<List<Card>> getFutureColourlessCards() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
+    public CompletableFuture<List<CardSummary>> getFutureColourlessCards() {
+        return CompletableFuture.supplyAsync(new Supplier<List<CardSummary>>() {
             @Override
-            public List<Card> get() {
+            public List<CardSummary> get() {
                 return cardDAO.getFutureColourlessCards();
             }
-        }, CardDatabase.databaseWriteExecutor);
+        }, PREFETCH_EXECUTOR);
     }
 
     /**
@@ -260,7 +752,15 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<Deck>() {
             @Override
             public Deck get() {return deckDAO.getLatestDeck();}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method returns a list of all Decks in the database, as a LiveData.
+     * @return a LiveData List of all Decks in the database.
+     */
+    public LiveData<List<Deck>> getLiveDecks() {
+        return deckDAO.getAll();
     }
 
     /**
@@ -272,6 +772,16 @@ public class CardRepository {
         return deckDAO.getLiveDeck(deckID);
     }
 
+    /**
+     * This method returns the Cards in a specific Deck from the database, as
+     * a LiveData List of CardSummaries.
+     * @param deckID an Integer containing the deck ID number to be requested.
+     * @return a LiveData List of CardSummaries for the Cards in the Deck.
+     */
+    public LiveData<List<CardArtSummary>> getLiveDeckContents(int deckID) {
+        return cardDAO.getLiveDeckContents(deckID);
+    }
+
     /**
      * This method returns a List of DeckCards for a specific Deck from the
      * database, as a LiveData.
@@ -282,19 +792,24 @@ public class CardRepository {
         return deckCardDAO.getLiveDeckCards(deckID);
     }
 
+    /**
+     * This method returns every Card in a Deck along with its quantity, as a
+     * LiveData.
+     * @param deckID an Integer containing the deck ID number to be requested.
+     * @return a LiveData List of DeckCardEntries for the specified Deck.
+     */
+    public LiveData<List<DeckCardEntry>> getLiveDeckEntries(int deckID) {
+        return deckCardDAO.getLiveDeckEntries(deckID);
+    }
+
     /**
      * This method returns a list of Cards categorised as 'Ramp' from
      * the database.
      * @return a CompletableFuture containing a List of Cards categorised
      * as 'Ramp'.
      */
-    public CompletableFuture<List<Card>> getRampCardsByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
-            @Override
-            public List<Card> get() {
-                return cardDAO.getRampCards();
-            }
-        }, CardDatabase.databaseWriteExecutor);
+    public CompletableFuture<List<CardSummary>> getRampCardsByFuture() {
+        return cachedSummaries(CardDAO.RAMP_CARDS);
     }
 
     /**
@@ -303,13 +818,22 @@ public class CardRepository {
      * @return a CompletableFuture containing a List of Cards categorised
      * as 'Removal'.
      */
-    public CompletableFuture<List<Card>> getRemovalCardsByFuture() {
-        return CompletableFuture.supplyAsync(new Supplier<List<Card>>() {
+    public CompletableFuture<List<CardSummary>> getRemovalCardsByFuture() {
+        return cachedSummaries(CardDAO.REMOVAL_CARDS);
+    }
+
+    /**
+     * This method runs a card picker search, as a CompletableFuture. Searches
+     * change with every keystroke, so their results are not cached; cancelling
+     * the future before it starts skips the query.
+     * @param query a CardQuery holding the compiled search.
+     * @return a CompletableFuture containing a List of the matching CardSummaries.
+     */
+    public CompletableFuture<List<CardSummary>> searchCards(final CardQuery query) {
+        return CompletableFuture.supplyAsync(new Supplier<List<CardSummary>>() {
             @Override
-            public List<Card> get() {
-                return cardDAO.getRemovalCards();
-            }
-        }, CardDatabase.databaseWriteExecutor);
+            public List<CardSummary> get() {return cardDAO.searchCards(query.toQuery());}
+        }, INTERACTIVE_EXECUTOR);
     }
 
     /**
@@ -323,7 +847,77 @@ public class CardRepository {
         return CompletableFuture.supplyAsync(new Supplier<DeckCards>() {
             @Override
             public DeckCards get() {return deckCardDAO.getSpecificDeckCards(deckID, cardID);}
-        }, CardDatabase.databaseWriteExecutor);
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method writes a Deck out as a plain-text decklist, as a
+     * CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a CompletableFuture containing the decklist.
+     */
+    public CompletableFuture<String> exportDecklist(final int deckID) {
+        return CompletableFuture.supplyAsync(new Supplier<String>() {
+            @Override
+            public String get() {
+                Deck deck = deckDAO.getDeck(deckID);
+                Card commander = deck == null ? null : cardDAO.getCardByID(deck.getCommanderID());
+                return Decklist.format(commander, deckCardDAO.getDeckEntries(deckID));
+            }
+        }, INTERACTIVE_EXECUTOR);
+    }
+
+    /**
+     * This method imports a plain-text decklist as a new Deck, as a
+     * CompletableFuture. Names are looked up in the cached CardNameIndex, and
+     * the Deck and all of its DeckCards are written in one write on the
+     * DeckWriteQueue, which also starts the Deck's history from the imported
+     * list.
+     * @param deckName a String containing the name of the new Deck.
+     * @param text a String containing the decklist.
+     * @return a CompletableFuture containing the DecklistImport, which holds
+     * the new Deck's ID number and any lines which were left out.
+     */
+    public CompletableFuture<DecklistImport> importDecklist(final String deckName,
+                                                            final String text) {
+        return getCardNameIndex().thenComposeAsync(
+                new Function<CardNameIndex, CompletableFuture<DecklistImport>>() {
+            @Override
+            public CompletableFuture<DecklistImport> apply(CardNameIndex index) {
+                final DecklistImport result = Decklist.parse(text).resolve(index);
+                // The Deck has no ID number until it is written.
+                return deckWriteQueue.enqueue(DeckWriteQueue.ALL_DECKS, new Runnable() {
+                    @Override
+                    public void run() {
+                        Deck deck = new Deck();
+                        deck.setDeckName(deckName);
+                        deck.setCommanderID(result.getCommanderID());
+                        final int deckID = (int) deckDAO.insertDeck(deck);
+
+                        List<DeckCards> rows = new ArrayList<>(result.getCardIDs().length);
+                        for (int i = 0; i < result.getCardIDs().length; i++) {
+                            rows.add(new DeckCards(deckID, result.getCardIDs()[i],
+                                    result.getQuantities()[i]));
+                        }
+                        deckCardDAO.insertAllDeckCards(rows);
+                        history.startHistory(deckID);
+                        writeSignature(deckID, result.getCardIDs());
+                        deckWriteQueue.afterCommit(new Runnable() {
+                            @Override
+                            public void run() {
+                                result.setDeckID(deckID);
+                            }
+                        });
+                    }
+                }).thenApplyAsync(new Function<Void, DecklistImport>() {
+                    @Override
+                    public DecklistImport apply(Void written) {
+                        coOccurrenceIndex.setDeck(result.getDeckID(), result.getCardIDs());
+                        return result;
+                    }
+                }, INTERACTIVE_EXECUTOR);
+            }
+        }, INTERACTIVE_EXECUTOR);
     }
 
     /**
@@ -331,20 +925,29 @@ public class CardRepository {
      * @param deck a Deck to be inserted.
      */
     public void insertDeck(Deck deck) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        CardDatabase.databaseWriteExecutor.execute(Priority.INTERACTIVE, new Runnable() {
             @Override
             public void run() { deckDAO.insertDeck(deck);}
         });
     }
 
     /**
-     * This method inserts a new DeckCards into the database.
+     * This method inserts a new DeckCards into the database. Writes to the
+     * same Deck run in the order they were made.
      * @param deckCards a DeckCards to be inserted.
      */
     public void insertDeckCards(DeckCards deckCards) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        deckWriteQueue.enqueue(deckCards.getDeckID(), new Runnable() {
             @Override
-            public void run() {deckCardDAO.insertDeckCards(deckCards);}
+            public void run() {
+                history.recordCardChange(deckCards.getDeckID(), deckCards.getCardID(),
+                        deckCardDAO.getCardQuantity(deckCards.getDeckID(),
+                                deckCards.getCardID()) + deckCards.getQuantity());
+                deckCardDAO.insertDeckCards(deckCards);
+                deckDAO.touchDeck(deckCards.getDeckID(), System.currentTimeMillis());
+                updateCoOccurrences(deckCards.getDeckID());
+                addToSignature(deckCards.getDeckID(), deckCards.getCardID());
+            }
         });
     }
 
@@ -373,16 +976,156 @@ public class CardRepository {
     }
 
     /**
-     * This method removes specific DeckCards from the database.
+     * This is the Mutator method for the signatureDAO field.
+     * @param signatureDAO a DeckSignatureDAO object used to access the
+     *                     DeckSignature Entity.
+     */
+    public void setSignatureDAO(DeckSignatureDAO signatureDAO) {
+        this.signatureDAO = signatureDAO;
+    }
+
+    /**
+     * This is the Mutator method for the historyDAO field.
+     * @param historyDAO a DeckHistoryDAO object used to access the history of
+     *                   each Deck.
+     */
+    public void setHistoryDAO(DeckHistoryDAO historyDAO) {
+        this.historyDAO = historyDAO;
+        history = new DeckHistory(deckDAO, deckCardDAO, historyDAO);
+    }
+
+    /**
+     * This method removes specific DeckCards from the database. Writes to the
+     * same Deck run in the order they were made.
      * @param deckID an Integer containing the deckID of the DeckCards to
      *               be removed.
      * @param cardID an Integer containing the cardID of the DeckCards to
      *               be removed.
+     * @return a CompletableFuture containing the Deck's version just after the
+     * removal, which can be passed to undoDeckChange, or -1 if nothing was
+     * removed.
+     */
+    public CompletableFuture<Integer> removeSpecificDeckCards(final int deckID,
+                                                              final int cardID) {
+        final AtomicInteger removedAt = new AtomicInteger(-1);
+        return deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                Deck before = deckDAO.getDeck(deckID);
+                history.recordCardChange(deckID, cardID, 0);
+                deckCardDAO.removeSpecificDeckCards(deckID, cardID);
+                deckDAO.touchDeck(deckID, System.currentTimeMillis());
+                updateCoOccurrences(deckID);
+                removeFromSignature(deckID, cardID);
+
+                Deck after = deckDAO.getDeck(deckID);
+                removedAt.set(before != null && after.getVersion() != before.getVersion()
+                        ? after.getVersion() : -1);
+            }
+        }).thenApply(new Function<Void, Integer>() {
+            @Override
+            public Integer apply(Void removed) {
+                return removedAt.get();
+            }
+        });
+    }
+
+    /**
+     * This method undoes the latest change to a Deck. Writes to the same Deck
+     * run in the order they were made.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void undoDeckChange(final int deckID) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                if (history.undo(deckID)) {
+                    updateDeckIndexes(deckID);
+                }
+            }
+        });
+    }
+
+    /**
+     * This method undoes one particular change to a Deck, but only if it is
+     * still the Deck's latest change, so an undo offered for a change never
+     * undoes a different one made since.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the Deck's version just after the
+     *                change, as returned when it was made.
      */
-    public void removeSpecificDeckCards(int deckID, int cardID) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+    public void undoDeckChange(final int deckID, final int version) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
             @Override
-            public void run() {deckCardDAO.removeSpecificDeckCards(deckID, cardID);}
+            public void run() {
+                Deck deck = deckDAO.getDeck(deckID);
+                if (version > 0 && deck != null && deck.getVersion() == version
+                        && history.undo(deckID)) {
+                    updateDeckIndexes(deckID);
+                }
+            }
+        });
+    }
+
+    /**
+     * This method redoes the latest change to a Deck which was undone.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void redoDeckChange(final int deckID) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                if (history.redo(deckID)) {
+                    updateDeckIndexes(deckID);
+                }
+            }
+        });
+    }
+
+    /**
+     * This method moves a Deck to any version in its history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the number of changes to keep.
+     */
+    public void restoreDeckVersion(final int deckID, final int version) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                if (history.restoreVersion(deckID, version)) {
+                    updateDeckIndexes(deckID);
+                }
+            }
+        });
+    }
+
+    /**
+     * This method saves a Deck as it is now under a name.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param name a String containing the name of the snapshot.
+     */
+    public void saveDeckSnapshot(final int deckID, final String name) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                history.saveSnapshot(deckID, name);
+            }
+        });
+    }
+
+    /**
+     * This method puts a Deck back the way it was in a named snapshot. The
+     * restore is itself recorded, so it can be undone.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param snapshotID an Integer containing the ID number of the snapshot.
+     */
+    public void restoreDeckSnapshot(final int deckID, final int snapshotID) {
+        deckWriteQueue.enqueue(deckID, new Runnable() {
+            @Override
+            public void run() {
+                if (history.restoreSnapshot(deckID, snapshotID)) {
+                    updateDeckIndexes(deckID);
+                }
+            }
         });
     }
 
@@ -391,9 +1134,13 @@ public class CardRepository {
      * @param deck a Deck to be updated.
      */
     public void updateDeck(Deck deck) {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        deckWriteQueue.enqueue(deck.getDeckID(), new Runnable() {
             @Override
-            public void run() { deckDAO.updateDeck(deck);}
+            public void run() {
+                deck.setVersion(history.recordDeckChange(deck));
+                deck.setLastModified(System.currentTimeMillis());
+                deckDAO.updateDeck(deck);
+            }
         });
     }
 
@@ -401,13 +1148,478 @@ public class CardRepository {
      * This method wipes the entire database - used mostly for debugging.
      */
     public void wipeDatabase() {
-        CardDatabase.databaseWriteExecutor.execute(new Runnable() {
+        CardDatabase.databaseWriteExecutor.execute(Priority.BULK, new Runnable() {
             @Override
             public void run() {
                 cardDAO.deleteAllCards();
                 deckDAO.deleteAllDecks();
                 deckCardDAO.deleteAllDeckCards();
+                history.deleteAllHistory();
+                signatureDAO.deleteAllSignatures();
+                coOccurrenceIndex.clear();
+                similarityIndex.clear();
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * This method loads the CardSummaries for a set of Cards, keeping the order
+     * the ID numbers were given in.
+     * @param cardIDs an Array of Card ID numbers.
+     * @return a List of CardSummaries in the same order.
+     */
+    private List<CardSummary> summariesInOrder(int[] cardIDs) {
+        if (cardIDs.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Integer, CardSummary> byID = new HashMap<>();
+        for (CardSummary summary : cardDAO.getSummariesByID(cardIDs)) {
+            byID.put(summary.getCardID(), summary);
+        }
+        List<CardSummary> summaries = new ArrayList<>(cardIDs.length);
+        for (int cardID : cardIDs) {
+            CardSummary summary = byID.get(cardID);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * This method reads the current Cards of a Deck into the CoOccurrenceIndex.
+     * It runs inside the Deck's write, so it sees the write's own changes.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    private void updateCoOccurrences(int deckID) {
+        setCoOccurrences(deckID, deckCardDAO.getDeckCardIDs(deckID));
+    }
+
+    /**
+     * This method files a Deck's Cards in the CoOccurrenceIndex once the
+     * write it is called from has been committed.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardIDs an Array of the ID numbers of every Card in the Deck.
+     */
+    private void setCoOccurrences(final int deckID, final int[] cardIDs) {
+        deckWriteQueue.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                coOccurrenceIndex.setDeck(deckID, cardIDs);
+            }
+        });
+    }
+
+    /**
+     * This method files a Deck's signature in the DeckSimilarityIndex once
+     * the write it is called from has been committed.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param signature an Array holding the Deck's signature, or null if it
+     *                  has none.
+     */
+    private void setSimilarity(final int deckID, final int[] signature) {
+        deckWriteQueue.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                similarityIndex.setDeck(deckID, signature);
+            }
+        });
+    }
+
+    /**
+     * This method reads the current Cards of a Deck into both the
+     * CoOccurrenceIndex and the Deck's signature, after a change which may
+     * have touched many Cards at once.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    private void updateDeckIndexes(int deckID) {
+        int[] cardIDs = deckCardDAO.getDeckCardIDs(deckID);
+        setCoOccurrences(deckID, cardIDs);
+        writeSignature(deckID, cardIDs);
+    }
+
+    /**
+     * This method updates a Deck's signature for a Card added to it. Only the
+     * new Card is hashed, unless the Deck has no signature yet.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardID an Integer containing the ID number of the Card added.
+     */
+    private void addToSignature(int deckID, int cardID) {
+        DeckSignature stored = signatureDAO.getSignature(deckID);
+        int[] signature = stored == null ? null : stored.toSignature();
+        if (signature == null) {
+            writeSignature(deckID, deckCardDAO.getDeckCardIDs(deckID));
+        } else if (MinHash.add(signature, cardID)) {
+            signatureDAO.saveSignature(new DeckSignature(deckID, signature));
+            setSimilarity(deckID, signature);
+        }
+    }
+
+    /**
+     * This method updates a Deck's signature for a Card taken out of it. The
+     * Deck is only read again if the Card held one of the signature's rows.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardID an Integer containing the ID number of the Card removed.
+     */
+    private void removeFromSignature(int deckID, int cardID) {
+        DeckSignature stored = signatureDAO.getSignature(deckID);
+        int[] signature = stored == null ? null : stored.toSignature();
+        if (signature == null || MinHash.dependsOn(signature, cardID)) {
+            writeSignature(deckID, deckCardDAO.getDeckCardIDs(deckID));
+        }
+    }
+
+    /**
+     * This method computes a Deck's signature from all of its Cards, saves it
+     * and files it in the DeckSimilarityIndex. A Deck with no Cards has no
+     * signature.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardIDs an Array of the ID numbers of every Card in the Deck.
+     */
+    private void writeSignature(int deckID, int[] cardIDs) {
+        if (cardIDs.length == 0) {
+            signatureDAO.deleteSignature(deckID);
+            setSimilarity(deckID, null);
+            return;
+        }
+        int[] signature = MinHash.of(cardIDs);
+        signatureDAO.saveSignature(new DeckSignature(deckID, signature));
+        setSimilarity(deckID, signature);
+    }
+
+    /**
+     * This method returns the CardSummaries for a query from the cache, or runs
+     * the query and caches its result until the card table changes.
+     * @param sql a String containing the query to be run.
+     * @return a CompletableFuture containing a List of the CardSummaries returned.
+     */
+    private CompletableFuture<List<CardSummary>> cachedSummaries(final String sql) {
+        return queryCache.get(QueryResultCache.key(sql),
+                new Supplier<CompletableFuture<List<CardSummary>>>() {
+            @Override
+            public CompletableFuture<List<CardSummary>> get() {
+                return querySummaries(sql, PREFETCH_EXECUTOR);
+            }
+        });
+    }
+
+    /**
+     * This method runs a query for whole Cards which can be cancelled.
+     * @param sql a String containing the query to be run.
+     * @param executor the Executor to run the query on.
+     * @param args the arguments to be bound to the query.
+     * @return a CompletableFuture containing a List of the Cards returned.
+     */
+    private CompletableFuture<List<Card>> queryCards(String sql, Executor executor,
+                                                     Object... args) {
+        return runQuery(sql, executor, new Function<Cursor, List<Card>>() {
+            @Override
+            public List<Card> apply(Cursor cursor) {return readCards(cursor);}
+        }, args);
+    }
+
+    /**
+     * This method runs a query for CardSummaries which can be cancelled.
+     * @param sql a String containing the query to be run.
+     * @param executor the Executor to run the query on.
+     * @param args the arguments to be bound to the query.
+     * @return a CompletableFuture containing a List of the CardSummaries returned.
+     */
+    private CompletableFuture<List<CardSummary>> querySummaries(String sql, Executor executor,
+                                                                Object... args) {
+        return runQuery(sql, executor, new Function<Cursor, List<CardSummary>>() {
+            @Override
+            public List<CardSummary> apply(Cursor cursor) {return readSummaries(cursor);}
+        }, args);
+    }
+
+    /**
+     * This method runs a query which can be cancelled. Cancelling the returned
+     * future before it starts takes the query off the database queue, and
+     * cancelling it while it runs stops SQLite through a CancellationSignal.
+     * @param sql a String containing the query to be run.
+     * @param executor the Executor to run the query on.
+     * @param reader a Function which reads the results out of the Cursor.
+     * @param args the arguments to be bound to the query.
+     * @return a CompletableFuture containing the results read from the Cursor.
+     */
+    private <T> CompletableFuture<T> runQuery(final String sql, final Executor executor,
+                                              final Function<Cursor, T> reader,
+                                              final Object... args) {
+        final CancellationSignal signal = createCancellationSignal();
+        // Keep hold of the queued task, so it can be taken off the queue.
+        final AtomicReference<Runnable> queued = new AtomicReference<>();
+        final CompletableFuture<T> future = CompletableFuture.supplyAsync(
+                new Supplier<T>() {
+            @Override
+            public T get() {
+                return reader.apply(database.query(new SimpleSQLiteQuery(sql, args), signal));
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.set(command);
+                executor.execute(command);
+            }
+        });
+
+        // Pass cancellation of the future through to the queue and the running query.
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T results, Throwable throwable) {
+                if (future.isCancelled()) {
+                    CardDatabase.databaseWriteExecutor.remove(queued.get());
+                    signal.cancel();
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * This method creates the CancellationSignal which stops a query when its
+     * future is cancelled. The tests override it to watch the signals.
+     * @return a new CancellationSignal.
+     */
+    CancellationSignal createCancellationSignal() {
+        return new CancellationSignal();
+    }
+
+    /**
+     * This method reads every row of a Cursor over the Card table into Cards,
+     * and closes the Cursor.
+     * @param cursor a Cursor containing rows from the Card table.
+     * @return a List of the Cards read from the Cursor.
+     */
+    private static List<Card> readCards(Cursor cursor) {
+        List<Card> cards = new ArrayList<>();
+        try {
+            int cardID = cursor.getColumnIndexOrThrow("cardID");
+            int name = cursor.getColumnIndexOrThrow("card_name");
+            int superTypes = cursor.getColumnIndexOrThrow("superTypes");
+            int types = cursor.getColumnIndexOrThrow("types");
+            int subtypes = cursor.getColumnIndexOrThrow("subtypes");
+            int colourIdentity = cursor.getColumnIndexOrThrow("colourIdentity");
+            int manaCost = cursor.getColumnIndexOrThrow("manaCost");
+            int manaValue = cursor.getColumnIndexOrThrow("manaValue");
+            int rank = cursor.getColumnIndexOrThrow("rank");
+            int alternateLimit = cursor.getColumnIndexOrThrow("alternateLimit");
+            int canBeCommander = cursor.getColumnIndexOrThrow("canBeCommander");
+            int multiverseID = cursor.getColumnIndexOrThrow("multiverseID");
+            int scryfallID = cursor.getColumnIndexOrThrow("scryfallID");
+            int commanderLegal = cursor.getColumnIndexOrThrow("commanderLegal");
+            int categories = cursor.getColumnIndexOrThrow("categories");
+            int identityMask = cursor.getColumnIndexOrThrow("identityMask");
+            int whitePips = cursor.getColumnIndexOrThrow("whitePips");
+            int bluePips = cursor.getColumnIndexOrThrow("bluePips");
+            int blackPips = cursor.getColumnIndexOrThrow("blackPips");
+            int redPips = cursor.getColumnIndexOrThrow("redPips");
+            int greenPips = cursor.getColumnIndexOrThrow("greenPips");
+            int colourlessPips = cursor.getColumnIndexOrThrow("colourlessPips");
+            int genericMana = cursor.getColumnIndexOrThrow("genericMana");
+            int xCount = cursor.getColumnIndexOrThrow("xCount");
+            int manaFlags = cursor.getColumnIndexOrThrow("manaFlags");
+
+            while (cursor.moveToNext()) {
+                Card card = new Card();
+                card.setCardID(cursor.getInt(cardID));
+                card.setName(cursor.getString(name));
+                card.setSuperTypes(cursor.getString(superTypes));
+                card.setTypes(cursor.getString(types));
+                card.setSubtypes(cursor.getString(subtypes));
+                card.setColourIdentity(cursor.getString(colourIdentity));
+                card.setManaCost(cursor.getString(manaCost));
+                card.setManaValue(cursor.getInt(manaValue));
+                card.setRank(cursor.getInt(rank));
+                card.setAlternateLimit(cursor.getInt(alternateLimit) != 0);
+                card.setCanBeCommander(cursor.getInt(canBeCommander) != 0);
+                card.setMultiverseID(cursor.getInt(multiverseID));
+                card.setScryfallID(cursor.getString(scryfallID));
+                card.setCommanderLegal(cursor.getInt(commanderLegal) != 0);
+                card.setCategories(cursor.getString(categories));
+                card.setIdentityMask(cursor.getInt(identityMask));
+                card.setWhitePips(cursor.getInt(whitePips));
+                card.setBluePips(cursor.getInt(bluePips));
+                card.setBlackPips(cursor.getInt(blackPips));
+                card.setRedPips(cursor.getInt(redPips));
+                card.setGreenPips(cursor.getInt(greenPips));
+                card.setColourlessPips(cursor.getInt(colourlessPips));
+                card.setGenericMana(cursor.getInt(genericMana));
+                card.setXCount(cursor.getInt(xCount));
+                card.setManaFlags(cursor.getInt(manaFlags));
+                cards.add(card);
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return cards;
+    }
+
+    /**
+     * This method reads every row of a Cursor into CardSummaries, and closes
+     * the Cursor. Only the columns in CardSummary.COLUMNS are read.
+     * @param cursor a Cursor containing rows selected with CardSummary.COLUMNS.
+     * @return a List of the CardSummaries read from the Cursor.
+     */
+    private static List<CardSummary> readSummaries(Cursor cursor) {
+        List<CardSummary> summaries = new ArrayList<>();
+        try {
+            int cardID = cursor.getColumnIndexOrThrow("cardID");
+            int name = cursor.getColumnIndexOrThrow("card_name");
+            int types = cursor.getColumnIndexOrThrow("types");
+            int rank = cursor.getColumnIndexOrThrow("rank");
+            int identityMask = cursor.getColumnIndexOrThrow("identityMask");
+
+            while (cursor.moveToNext()) {
+                summaries.add(new CardSummary(cursor.getInt(cardID),
+                        cursor.getString(name), cursor.getString(types),
+                        cursor.getInt(rank), cursor.getInt(identityMask)));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return summaries;
+    }
+
+    /**
+     * This method reads every row of a Cursor into a RecommendationEngine, and
+     * closes the Cursor. The rows must be selected with
+     * CardDAO.RECOMMENDATION_ROWS.
+     * @param cursor a Cursor containing rows in rank order.
+     * @return the RecommendationEngine built from the Cursor.
+     */
+    private static RecommendationEngine readRecommendationEngine(Cursor cursor) {
+        RecommendationEngine.Builder builder = new RecommendationEngine.Builder();
+        try {
+            int cardID = cursor.getColumnIndexOrThrow("cardID");
+            int name = cursor.getColumnIndexOrThrow("card_name");
+            int types = cursor.getColumnIndexOrThrow("types");
+            int rank = cursor.getColumnIndexOrThrow("rank");
+            int identityMask = cursor.getColumnIndexOrThrow("identityMask");
+            int categories = cursor.getColumnIndexOrThrow("categories");
+
+            while (cursor.moveToNext()) {
+                builder.add(new CardSummary(cursor.getInt(cardID),
+                        cursor.getString(name), cursor.getString(types),
+                        cursor.getInt(rank), cursor.getInt(identityMask)),
+                        cursor.getString(categories));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return builder.build();
+    }
+
+    /**
+     * This method reads every row of a Cursor into a CardNameIndex, and closes
+     * the Cursor. The rows must be selected with CardDAO.NAME_ROWS.
+     * @param cursor a Cursor containing rows in rank order.
+     * @return the CardNameIndex built from the Cursor.
+     */
+    private static CardNameIndex readCardNameIndex(Cursor cursor) {
+        CardNameIndex.Builder builder = new CardNameIndex.Builder();
+        try {
+            int cardID = cursor.getColumnIndexOrThrow("cardID");
+            int name = cursor.getColumnIndexOrThrow("card_name");
+
+            while (cursor.moveToNext()) {
+                builder.add(cursor.getInt(cardID), cursor.getString(name));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return builder.build();
+    }
+
+    /**
+     * This method reads every row of a Cursor into the CoOccurrenceIndex, one
+     * Deck at a time, and closes the Cursor. The rows must be selected with
+     * DeckCardDAO.CO_OCCURRENCE_ROWS.
+     * @param cursor a Cursor containing rows ordered by Deck.
+     */
+    private static void readCoOccurrences(Cursor cursor) {
+        try {
+            int deckColumn = cursor.getColumnIndexOrThrow("deck_ID");
+            int cardColumn = cursor.getColumnIndexOrThrow("card_ID");
+            IntHashSet cardIDs = new IntHashSet();
+            int deckID = 0;
+            boolean hasDeck = false;
+
+            while (cursor.moveToNext()) {
+                int rowDeck = cursor.getInt(deckColumn);
+                if (hasDeck && rowDeck != deckID) {
+                    coOccurrenceIndex.setDeck(deckID, cardIDs.toArray());
+                    cardIDs = new IntHashSet();
+                }
+                deckID = rowDeck;
+                hasDeck = true;
+                cardIDs.add(cursor.getInt(cardColumn));
+            }
+            if (hasDeck) {
+                coOccurrenceIndex.setDeck(deckID, cardIDs.toArray());
+            }
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This method reads every row of a Cursor into the DeckSimilarityIndex,
+     * and closes the Cursor. The rows must be selected with
+     * DeckSignatureDAO.SIGNATURE_ROWS.
+     * @param cursor a Cursor containing one row per Deck.
+     */
+    private static void readSignatures(Cursor cursor) {
+        try {
+            int deckColumn = cursor.getColumnIndexOrThrow("deck_ID");
+            int signatureColumn = cursor.getColumnIndexOrThrow("signature");
+
+            while (cursor.moveToNext()) {
+                int[] signature = MinHash.decode(cursor.getBlob(signatureColumn));
+                if (signature != null) {
+                    similarityIndex.setDeck(cursor.getInt(deckColumn), signature);
+                }
+            }
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This method reads every row of a Cursor into a FacetIndex, and closes the
+     * Cursor. The rows must be selected with CardDAO.FACET_ROWS.
+     * @param cursor a Cursor containing rows in rank order.
+     * @return the FacetIndex built from the Cursor.
+     */
+    private static FacetIndex readFacetIndex(Cursor cursor) {
+        FacetIndex.Builder builder = new FacetIndex.Builder();
+        try {
+            int cardID = cursor.getColumnIndexOrThrow("cardID");
+            int name = cursor.getColumnIndexOrThrow("card_name");
+            int types = cursor.getColumnIndexOrThrow("types");
+            int rank = cursor.getColumnIndexOrThrow("rank");
+            int identityMask = cursor.getColumnIndexOrThrow("identityMask");
+            int manaValue = cursor.getColumnIndexOrThrow("manaValue");
+            int categories = cursor.getColumnIndexOrThrow("categories");
+            int commanderLegal = cursor.getColumnIndexOrThrow("commanderLegal");
+
+            while (cursor.moveToNext()) {
+                CardSummary card = new CardSummary(cursor.getInt(cardID),
+                        cursor.getString(name), cursor.getString(types),
+                        cursor.getInt(rank), cursor.getInt(identityMask));
+                builder.add(card, cursor.getInt(manaValue), cursor.getString(categories),
+                        cursor.getInt(commanderLegal) != 0);
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return builder.build();
+    }
+}
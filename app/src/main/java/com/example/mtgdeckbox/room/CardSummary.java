@@ -0,0 +1,142 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * This class is a slim view of a Card, holding only the columns the list
+ * screens display. The full Card is loaded by its ID when it is opened.
+ */
+public class CardSummary {
+    // The columns to select from the card table to fill a CardSummary.
+    public static final String COLUMNS =
+            "card.cardID, card.card_name, card.types, card.rank, card.identityMask";
+
+    @ColumnInfo (name = "cardID")
+    private int cardID;
+
+    @ColumnInfo (name = "card_name")
+    @NonNull
+    private String name;
+
+    @ColumnInfo (name = "types")
+    @NonNull
+    private String types;
+
+    @ColumnInfo (name = "rank")
+    private int rank;
+
+    @ColumnInfo (name = "identityMask")
+    private int identityMask;
+
+    /**
+     * This is the default constructor.
+     */
+    public CardSummary() {
+        name = "";
+        types = "";
+        rank = -1;
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param name a String containing the name of the Card.
+     * @param types a String containing the types of the Card.
+     * @param rank an Integer containing the EDHREC rank of the Card.
+     * @param identityMask an Integer with one bit set for each colour in the
+     *                     Card's colour identity.
+     */
+    public CardSummary(int cardID, @NonNull String name, @NonNull String types,
+                       int rank, int identityMask) {
+        this.cardID = cardID;
+        this.name = name;
+        this.types = types;
+        this.rank = rank;
+        this.identityMask = identityMask;
+    }
+
+    /**
+     * This is the Accessor method for the cardID field.
+     * @return an Integer containing the ID number of the Card.
+     */
+    public int getCardID() {
+        return cardID;
+    }
+
+    /**
+     * This is the Accessor method for the identityMask field.
+     * @return an Integer with one bit set for each colour in the Card's
+     * colour identity.
+     */
+    public int getIdentityMask() {
+        return identityMask;
+    }
+
+    /**
+     * This is the Accessor method for the name field.
+     * @return a String containing the name of the Card.
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * This is the Accessor method for the rank field.
+     * @return an Integer containing the EDHREC rank of the Card.
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * This is the Accessor method for the types field.
+     * @return a String containing the types of the Card.
+     */
+    @NonNull
+    public String getTypes() {
+        return types;
+    }
+
+    /**
+     * This is the Mutator method for the cardID field.
+     * @param cardID an Integer containing the ID number of the Card.
+     */
+    public void setCardID(int cardID) {
+        this.cardID = cardID;
+    }
+
+    /**
+     * This is the Mutator method for the identityMask field.
+     * @param identityMask an Integer with one bit set for each colour in the
+     *                     Card's colour identity.
+     */
+    public void setIdentityMask(int identityMask) {
+        this.identityMask = identityMask;
+    }
+
+    /**
+     * This is the Mutator method for the name field.
+     * @param name a String containing the name of the Card.
+     */
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * This is the Mutator method for the rank field.
+     * @param rank an Integer containing the EDHREC rank of the Card.
+     */
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    /**
+     * This is the Mutator method for the types field.
+     * @param types a String containing the types of the Card.
+     */
+    public void setTypes(@NonNull String types) {
+        this.types = types;
+    }
+}
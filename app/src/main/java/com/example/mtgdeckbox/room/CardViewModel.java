@@ -4,6 +4,7 @@ import android.app.Application;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingData;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +34,14 @@ public class CardViewModel extends AndroidViewModel {
         repository.addCard(card);
     }
 
+    /**
+     * This method adds many new Cards into the database, in batches.
+     * @param cards a List of Cards to be inserted into the database.
+     */
+    public void addCards (List<Card> cards) {
+        repository.addCards(cards);
+    }
+
     /**
      * This method cleans out all DeckCards with zero quantity from the database.
      */
@@ -52,7 +61,7 @@ public class CardViewModel extends AndroidViewModel {
      * as a CompletableFuture.
      * @return a CompletableFuture containing a List of all Cards from the database.
      */
-    public CompletableFuture<List<Card>> getAllCardsByFuture() {
+    public CompletableFuture<List<CardSummary>> getAllCardsByFuture() {
         return repository.getAllCardsByFuture();
     }
 
@@ -62,10 +71,32 @@ public class CardViewModel extends AndroidViewModel {
      * @return a CompletableFuture containing a List of all Cards eligible
      * to be commanders from the database.
      */
-    public CompletableFuture<List<Card>> getAllCommanders() {
+    public CompletableFuture<List<CardSummary>> getAllCommanders() {
         return repository.getAllCommandersByFuture();
     }
 
+    /**
+     * This method returns every Card eligible to be a commander, sectioned by
+     * colour identity, from the Repository.
+     * @return a CompletableFuture containing a CommanderIndex of all Cards
+     * eligible to be commanders.
+     */
+    public CompletableFuture<CommanderIndex> getCommanderIndex() {
+        return repository.getCommanderIndex();
+    }
+
+    /**
+     * This method pages through the summaries of the user's Decks, from the
+     * Repository.
+     * @param sort the order to list the Decks in.
+     * @param nameFilter a String which Deck names must start with.
+     * @return a LiveData of PagingData containing the DeckSummaries.
+     */
+    public LiveData<PagingData<DeckSummary>> getDeckSummaries(DeckSummary.Sort sort,
+                                                              String nameFilter) {
+        return repository.getDeckSummaries(sort, nameFilter);
+    }
+
     /**
      * This method returns a list of all Decks from the database.
      * @return a CompletableFuture containing a List of all Decks
@@ -81,10 +112,31 @@ public class CardViewModel extends AndroidViewModel {
      * @return a CompletableFuture containing a List of all 'Board Wipe' Cards
      * from the database.
      */
-    public CompletableFuture<List<Card>> getBoardWipesByFuture() {
+    public CompletableFuture<List<CardSummary>> getBoardWipesByFuture() {
         return repository.getBoardWipesByFuture();
     }
 
+    /**
+     * This method returns the CardNameIndex over every Card in the database, as
+     * a CompletableFuture.
+     * @return a CompletableFuture containing the CardNameIndex.
+     */
+    public CompletableFuture<CardNameIndex> getCardNameIndex() {
+        return repository.getCardNameIndex();
+    }
+
+    /**
+     * This method finds the Cards whose names are closest to a name which may
+     * be misspelt, as a CompletableFuture.
+     * @param name a String containing the name.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, closest
+     * first.
+     */
+    public CompletableFuture<List<CardSummary>> findCardsNamedLike(String name, int limit) {
+        return repository.findCardsNamedLike(name, limit);
+    }
+
     /**
      * This method returns a specified Card from the database, as a CompletableFuture.
      * @param cardID an Integer containing the ID number of the requested Card.
@@ -92,6 +144,25 @@ public class CardViewModel extends AndroidViewModel {
      */
     public CompletableFuture<Card> getCardByID(int cardID) {return repository.getCardByID(cardID);}
 
+    /**
+     * This method returns the number of Cards in the database, as a
+     * CompletableFuture.
+     * @return a CompletableFuture containing the number of Cards.
+     */
+    public CompletableFuture<Integer> getCardCount() {return repository.getCardCount();}
+
+    /**
+     * This method returns the Cards most often played alongside a Card in the
+     * user's Decks, as a CompletableFuture.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, most
+     * often paired first.
+     */
+    public CompletableFuture<List<CardSummary>> getCardCompanions(int cardID, int limit) {
+        return repository.getCardCompanions(cardID, limit);
+    }
+
     /**
      * This method returns a specified Deck from the database, as a CompletableFuture.
      * @param deckID an Integer containing the ID number of the requested Deck.
@@ -111,15 +182,99 @@ public class CardViewModel extends AndroidViewModel {
         return repository.getDeckCards(deckID);
     }
 
+    /**
+     * This method returns the Cards in a specified Deck, as a CompletableFuture.
+     * Cancelling the future cancels the query.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a CompletableFuture containing a List of the Cards in the Deck.
+     */
+    public CompletableFuture<List<Card>> getDeckContentsByFuture(int deckID) {
+        return repository.getDeckContentsByFuture(deckID);
+    }
+
+    /**
+     * This method returns the Cards which the user's other Decks play alongside
+     * a Deck's contents, but which the Deck does not hold, as a CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, best first.
+     */
+    public CompletableFuture<List<CardSummary>> getDeckCompanions(int deckID, int limit) {
+        return repository.getDeckCompanions(deckID, limit);
+    }
+
+    /**
+     * This method returns the Decks whose Cards most overlap a Deck's, as a
+     * CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Decks to return.
+     * @return a CompletableFuture containing a List of DeckSummaries, most
+     * similar first.
+     */
+    public CompletableFuture<List<DeckSummary>> findSimilarDecks(int deckID, int limit) {
+        return repository.findSimilarDecks(deckID, limit);
+    }
+
     /**
      * This method returns a list of all 'Draw' Cards from the database, as a
      * CompletableFuture.
      * @return a CompletableFuture containing a list of all 'Draw' Cards.
      */
-    public CompletableFuture<List<Card>> getDrawCardsByFuture() {
+    public CompletableFuture<List<CardSummary>> getDrawCardsByFuture() {
         return repository.getDrawCardsByFuture();
     }
 
+    /**
+     * This method returns the RecommendationEngine over every Commander-legal
+     * Card, as a CompletableFuture.
+     * @return a CompletableFuture containing the RecommendationEngine.
+     */
+    public CompletableFuture<RecommendationEngine> getRecommendationEngine() {
+        return repository.getRecommendationEngine();
+    }
+
+    /**
+     * This method recommends Cards for a Deck, as a CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param requiredCategory an Integer containing a category bit every
+     *                         recommendation must have, or 0 for any Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a CompletableFuture containing a List of CardSummaries, best first.
+     */
+    public CompletableFuture<List<CardSummary>> getRecommendations(int deckID,
+                                                                   int requiredCategory,
+                                                                   int limit) {
+        return repository.getRecommendations(deckID, requiredCategory, limit);
+    }
+
+    /**
+     * This method writes a Deck out as a plain-text decklist, as a
+     * CompletableFuture.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a CompletableFuture containing the decklist.
+     */
+    public CompletableFuture<String> exportDecklist(int deckID) {
+        return repository.exportDecklist(deckID);
+    }
+
+    /**
+     * This method returns the FacetIndex over every Card in the database, as a
+     * CompletableFuture.
+     * @return a CompletableFuture containing the FacetIndex.
+     */
+    public CompletableFuture<FacetIndex> getFacetIndex() {
+        return repository.getFacetIndex();
+    }
+
+    /**
+     * This method returns the NameTrie which completes Card names as they are
+     * typed, as a CompletableFuture.
+     * @return a CompletableFuture containing the NameTrie.
+     */
+    public CompletableFuture<NameTrie> getNameTrie() {
+        return repository.getNameTrie();
+    }
+
     /**
      * This method returns a list of all Cards of a specified colour identity from
      * the database, as a CompletableFuture.
@@ -127,7 +282,7 @@ public class CardViewModel extends AndroidViewModel {
      * @return a CompletableFuture containing a list of Cards of the specified
      * colour identity.
      */
-    public CompletableFuture<List<Card>> getFutureCardsByColourIdentity(String identity) {
+    public CompletableFuture<List<CardSummary>> getFutureCardsByColourIdentity(String identity) {
         return repository.getFutureCardsByColourIdentity(identity);
     }
 
@@ -137,7 +292,7 @@ public class CardViewModel extends AndroidViewModel {
      * @return a CompletableFuture containing a list of all colourless Cards
      * from the database.
      */
-    public CompletableFuture<List<Card>> getFutureColourlessCards() {
+    public CompletableFuture<List<CardSummary>> getFutureColourlessCards() {
         return repository.getFutureColourlessCards();
     }
 
@@ -156,6 +311,21 @@ public class CardViewModel extends AndroidViewModel {
      */
     public LiveData<Deck> getLiveDeck(int liveDeckID) {return repository.getLiveDeck(liveDeckID);}
 
+    /**
+     * This method returns a list of all Decks from the database, as LiveData.
+     * @return a LiveData List of all Decks from the database.
+     */
+    public LiveData<List<Deck>> getLiveDecks() {return repository.getLiveDecks();}
+
+    /**
+     * This method returns the Cards in a specified Deck, as LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of CardSummaries for the Cards in the Deck.
+     */
+    public LiveData<List<CardArtSummary>> getLiveDeckContents(int deckID) {
+        return repository.getLiveDeckContents(deckID);
+    }
+
     /**
      * This method returns a list of DeckCards from the database for a specified
      * Deck, as LiveData.
@@ -167,12 +337,42 @@ public class CardViewModel extends AndroidViewModel {
         return repository.getLiveDeckCards(deckID);
     }
 
+    /**
+     * This method returns every Card in a Deck along with its quantity, as
+     * LiveData.
+     * @param deckID an Integer containing the deck ID number to be requested.
+     * @return a LiveData List of DeckCardEntries for the specified Deck.
+     */
+    public LiveData<List<DeckCardEntry>> getLiveDeckEntries (int deckID) {
+        return repository.getLiveDeckEntries(deckID);
+    }
+
+    /**
+     * This method returns the number of changes in a Deck's history, including
+     * any which have been undone, as LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData Integer containing the number of changes.
+     */
+    public LiveData<Integer> getLiveHistoryLength(int deckID) {
+        return repository.getLiveHistoryLength(deckID);
+    }
+
+    /**
+     * This method returns the snapshots the user has saved of a Deck, as
+     * LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of DeckSnapshots, newest first.
+     */
+    public LiveData<List<DeckSnapshot>> getLiveDeckSnapshots(int deckID) {
+        return repository.getLiveDeckSnapshots(deckID);
+    }
+
     /**
      * This method returns a list of all 'Ramp' Cards from the database,
      * as a CompletableFuture.
      * @return a CompletableFuture containing a list of all 'Ramp' Cards.
      */
-    public CompletableFuture<List<Card>> getRampCardsByFuture() {
+    public CompletableFuture<List<CardSummary>> getRampCardsByFuture() {
         return repository.getRampCardsByFuture();
     }
 
@@ -181,10 +381,19 @@ public class CardViewModel extends AndroidViewModel {
      * as a CompletableFuture.
      * @return a CompletableFuture containing a List of all 'Removal' Cards.
      */
-    public CompletableFuture<List<Card>> getRemovalCardsByFuture() {
+    public CompletableFuture<List<CardSummary>> getRemovalCardsByFuture() {
         return repository.getRemovalCardsByFuture();
     }
 
+    /**
+     * This method runs a card picker search, as a CompletableFuture.
+     * @param query a CardQuery holding the compiled search.
+     * @return a CompletableFuture containing a List of the matching CardSummaries.
+     */
+    public CompletableFuture<List<CardSummary>> searchCards(CardQuery query) {
+        return repository.searchCards(query);
+    }
+
     /**
      * This is the Accessor method for the repository field.
      * @return a CardRepository object which allows access to the DAOs.
@@ -206,6 +415,18 @@ public class CardViewModel extends AndroidViewModel {
         return repository.getSpecificDeckCards(deckID, cardID);
     }
 
+    /**
+     * This method imports a plain-text decklist as a new Deck, as a
+     * CompletableFuture.
+     * @param deckName a String containing the name of the new Deck.
+     * @param text a String containing the decklist.
+     * @return a CompletableFuture containing the DecklistImport, which holds
+     * the new Deck's ID number and any lines which were left out.
+     */
+    public CompletableFuture<DecklistImport> importDecklist(String deckName, String text) {
+        return repository.importDecklist(deckName, text);
+    }
+
     /**
      * This method inserts a Deck into the database.
      * @param deck a Deck to be inserted into the database.
@@ -232,9 +453,46 @@ public class CardViewModel extends AndroidViewModel {
      *               to be removed.
      * @param cardID an Integer containing the card ID number of the DeckCards
      *               to be removed.
+     * @return a CompletableFuture containing the Deck's version just after the
+     * removal, or -1 if nothing was removed.
      */
-    public void removeSpecificDeckCards (int deckID, int cardID) {
-        repository.removeSpecificDeckCards(deckID, cardID);
+    public CompletableFuture<Integer> removeSpecificDeckCards (int deckID, int cardID) {
+        return repository.removeSpecificDeckCards(deckID, cardID);
+    }
+
+    /**
+     * This method puts a Deck back the way it was in a named snapshot.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param snapshotID an Integer containing the ID number of the snapshot.
+     */
+    public void restoreDeckSnapshot(int deckID, int snapshotID) {
+        repository.restoreDeckSnapshot(deckID, snapshotID);
+    }
+
+    /**
+     * This method moves a Deck to any version in its history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the number of changes to keep.
+     */
+    public void restoreDeckVersion(int deckID, int version) {
+        repository.restoreDeckVersion(deckID, version);
+    }
+
+    /**
+     * This method redoes the latest change to a Deck which was undone.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void redoDeckChange(int deckID) {
+        repository.redoDeckChange(deckID);
+    }
+
+    /**
+     * This method saves a Deck as it is now under a name.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param name a String containing the name of the snapshot.
+     */
+    public void saveDeckSnapshot(int deckID, String name) {
+        repository.saveDeckSnapshot(deckID, name);
     }
 
     /**
@@ -245,6 +503,25 @@ public class CardViewModel extends AndroidViewModel {
         this.repository = repository;
     }
 
+    /**
+     * This method undoes the latest change to a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void undoDeckChange(int deckID) {
+        repository.undoDeckChange(deckID);
+    }
+
+    /**
+     * This method undoes one particular change to a Deck, if it is still the
+     * Deck's latest change.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the Deck's version just after the
+     *                change.
+     */
+    public void undoDeckChange(int deckID, int version) {
+        repository.undoDeckChange(deckID, version);
+    }
+
     /**
      * This method updates a Deck in the database.
      * @param deck a Deck to be updated.
@@ -0,0 +1,202 @@
+package com.example.mtgdeckbox.room;
+
+import com.example.mtgdeckbox.IntHashSet;
+import com.example.mtgdeckbox.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class counts how often each pair of Cards is played together across the
+ * user's Decks. For every Card it keeps an IntIntHashMap from each companion's
+ * ID number to the number of Decks holding both, so only pairs which actually
+ * occur take up memory.
+ *
+ * The index also remembers which Cards each Deck holds. When a Deck changes,
+ * only the pairs involving the Cards added or removed are updated, so the
+ * index is never rebuilt. All methods are synchronized, as Decks are written
+ * from the database threads while the screens read from their own.
+ */
+public class CoOccurrenceIndex {
+    private final Map<Integer, IntHashSet> decks;
+    private IntIntHashMap[] companions;
+
+    /**
+     * This is the default constructor.
+     */
+    public CoOccurrenceIndex() {
+        decks = new HashMap<>();
+        companions = new IntIntHashMap[0];
+    }
+
+    /**
+     * This method brings the index up to date with a Deck's contents. Calling
+     * it again with the same contents changes nothing.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardIDs an Array of the ID numbers of every Card in the Deck, or
+     *                an empty Array if the Deck has been deleted.
+     */
+    public synchronized void setDeck(int deckID, int[] cardIDs) {
+        IntHashSet current = decks.get(deckID);
+        if (current == null) {
+            current = new IntHashSet(cardIDs.length);
+            decks.put(deckID, current);
+        }
+        IntHashSet wanted = new IntHashSet(cardIDs.length);
+        for (int cardID : cardIDs) {
+            wanted.add(cardID);
+        }
+
+        // Take out the Cards which have gone, one at a time.
+        for (int cardID : current.toArray()) {
+            if (!wanted.contains(cardID)) {
+                current.remove(cardID);
+                pairWith(cardID, current, -1);
+            }
+        }
+
+        // Then put in the new Cards, pairing each with everything already there.
+        for (int cardID : cardIDs) {
+            if (!current.contains(cardID)) {
+                pairWith(cardID, current, 1);
+                current.add(cardID);
+            }
+        }
+
+        if (current.isEmpty()) {
+            decks.remove(deckID);
+        }
+    }
+
+    /**
+     * This method empties the index, for when every Deck has been deleted.
+     */
+    public synchronized void clear() {
+        decks.clear();
+        companions = new IntIntHashMap[0];
+    }
+
+    /**
+     * This method returns the number of Decks holding both of two Cards.
+     * @param cardID an Integer containing the ID number of one Card.
+     * @param otherID an Integer containing the ID number of the other Card.
+     * @return an Integer containing the number of Decks.
+     */
+    public synchronized int getPairCount(int cardID, int otherID) {
+        IntIntHashMap counts = companionsOf(cardID);
+        return counts == null ? 0 : counts.get(otherID);
+    }
+
+    /**
+     * This method returns the Cards most often played alongside a Card.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return an Array of Card ID numbers, most often paired first.
+     */
+    public synchronized int[] getTopCompanions(int cardID, int limit) {
+        IntIntHashMap counts = companionsOf(cardID);
+        if (counts == null || limit <= 0) {
+            return new int[0];
+        }
+        TopK best = new TopK(limit);
+        for (int slot = 0; slot < counts.slotCount(); slot++) {
+            if (counts.isUsed(slot)) {
+                best.offer(counts.keyAt(slot), counts.valueAt(slot));
+            }
+        }
+        return best.drainBestFirst();
+    }
+
+    /**
+     * This method finds the Cards which the user's other Decks play alongside
+     * a Deck's contents, but which the Deck does not hold. Each candidate
+     * scores one point for every Deck pairing it with each Card in the Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Cards to return.
+     * @return an Array of Card ID numbers, best first.
+     */
+    public synchronized int[] getMissingCompanions(int deckID, int limit) {
+        IntHashSet deck = decks.get(deckID);
+        if (deck == null || limit <= 0) {
+            return new int[0];
+        }
+        // Card ID numbers are dense, so the scores go straight into an array.
+        int[] scores = new int[companions.length];
+        IntHashSet candidates = new IntHashSet();
+        for (int cardID : deck.toArray()) {
+            IntIntHashMap counts = companionsOf(cardID);
+            if (counts == null) {
+                continue;
+            }
+            for (int slot = 0; slot < counts.slotCount(); slot++) {
+                if (counts.isUsed(slot) && !deck.contains(counts.keyAt(slot))) {
+                    if (scores[counts.keyAt(slot)] == 0) {
+                        candidates.add(counts.keyAt(slot));
+                    }
+                    scores[counts.keyAt(slot)] += counts.valueAt(slot);
+                }
+            }
+        }
+
+        TopK best = new TopK(limit);
+        for (int candidate : candidates.toArray()) {
+            best.offer(candidate, scores[candidate]);
+        }
+        return best.drainBestFirst();
+    }
+
+    /**
+     * This method returns the number of Decks in the index.
+     * @return an Integer containing the number of non-empty Decks.
+     */
+    public synchronized int getDeckCount() {
+        return decks.size();
+    }
+
+    /**
+     * This method changes the count of every pair between one Card and a set
+     * of others.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param others an IntHashSet of the other Cards' ID numbers.
+     * @param delta an Integer containing 1 to add the pairs, or -1 to remove them.
+     */
+    private void pairWith(int cardID, IntHashSet others, int delta) {
+        if (others.isEmpty()) {
+            return;
+        }
+        IntIntHashMap counts = companionsFor(cardID);
+        for (int otherID : others.toArray()) {
+            counts.addTo(otherID, delta);
+            companionsFor(otherID).addTo(cardID, delta);
+        }
+    }
+
+    /**
+     * This method returns the companion counts of a Card, if it has any.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return an IntIntHashMap of companion counts, or null.
+     */
+    private IntIntHashMap companionsOf(int cardID) {
+        return cardID >= 0 && cardID < companions.length ? companions[cardID] : null;
+    }
+
+    /**
+     * This method returns the companion counts of a Card, creating them if
+     * needed. Card ID numbers are small and dense, so they index an array.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return an IntIntHashMap of companion counts.
+     */
+    private IntIntHashMap companionsFor(int cardID) {
+        if (cardID >= companions.length) {
+            companions = Arrays.copyOf(companions,
+                    Math.max(cardID + 1, companions.length + (companions.length >> 1)));
+        }
+        IntIntHashMap counts = companions[cardID];
+        if (counts == null) {
+            counts = new IntIntHashMap();
+            companions[cardID] = counts;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class lays out the commander-eligible Cards as the rows of the
+ * commander picker: one header row for each colour identity, followed by the
+ * commanders with that identity in name order.
+ *
+ * The row of every section header is worked out once, when the index is
+ * built, so the picker can find the section under any row and jump to a
+ * section with a binary search. A second, name-sorted copy of the names lets
+ * the type-ahead box jump to the first commander starting with a prefix.
+ */
+public class CommanderIndex {
+    private final CardSummary[] cards;
+    private final int[] sectionMasks;
+    private final int[] sectionRows;
+    private final int[] cardRows;
+    private final String[] sortedNames;
+    private final int[] sortedNameRows;
+
+    /**
+     * This is the non-default constructor.
+     * @param commanders a List of commander-eligible Cards, already ordered by
+     *                   colour identity and then name.
+     */
+    public CommanderIndex(List<CardSummary> commanders) {
+        cards = commanders.toArray(new CardSummary[0]);
+
+        // Start a new section wherever the colour identity changes.
+        List<Integer> masks = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < cards.length; i++) {
+            int mask = cards[i].getIdentityMask();
+            if (i == 0 || mask != cards[i - 1].getIdentityMask()) {
+                masks.add(mask);
+                // Each earlier section adds its own header row.
+                rows.add(i + rows.size());
+            }
+        }
+        sectionMasks = new int[masks.size()];
+        sectionRows = new int[rows.size()];
+        for (int s = 0; s < sectionRows.length; s++) {
+            sectionMasks[s] = masks.get(s);
+            sectionRows[s] = rows.get(s);
+        }
+
+        // Each commander sits one row below its header, plus the earlier commanders.
+        cardRows = new int[cards.length];
+        int section = -1;
+        for (int i = 0; i < cards.length; i++) {
+            if (section + 1 < sectionRows.length && i + section + 1 == sectionRows[section + 1]) {
+                section++;
+            }
+            cardRows[i] = i + section + 1;
+        }
+
+        // Sort the card positions by name, for the type-ahead search.
+        final String[] names = new String[cards.length];
+        Integer[] order = new Integer[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            names[i] = cards[i].getName().toLowerCase(Locale.ROOT);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return names[a].compareTo(names[b]);
+            }
+        });
+        sortedNames = new String[cards.length];
+        sortedNameRows = new int[cards.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedNames[i] = names[order[i]];
+            sortedNameRows[i] = cardRows[order[i]];
+        }
+    }
+
+    /**
+     * This method finds the row of the first commander, in name order, whose
+     * name starts with the given text.
+     * @param prefix a String containing the text the user has typed.
+     * @return an Integer containing the row of the matching commander, or -1
+     * if no commander matches.
+     */
+    public int findRowByPrefix(String prefix) {
+        String key = prefix.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return -1;
+        }
+        // Find the first name which is not less than the prefix.
+        int low = 0;
+        int high = sortedNames.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedNames[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low < sortedNames.length && sortedNames[low].startsWith(key)) {
+            return sortedNameRows[low];
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the Card shown on a row.
+     * @param row an Integer containing the position of the row.
+     * @return the CardSummary on that row, or null if the row is a header.
+     */
+    public CardSummary getCard(int row) {
+        int section = getSectionForRow(row);
+        if (sectionRows[section] == row) {
+            return null;
+        }
+        return cards[row - section - 1];
+    }
+
+    /**
+     * This method returns the number of commanders in the index.
+     * @return an Integer containing the number of commanders.
+     */
+    public int getCommanderCount() {
+        return cards.length;
+    }
+
+    /**
+     * This method returns the total number of rows, headers included.
+     * @return an Integer containing the number of rows.
+     */
+    public int getRowCount() {
+        return cards.length + sectionRows.length;
+    }
+
+    /**
+     * This method finds the row showing a specific commander.
+     * @param cardID an Integer containing the card ID of the commander.
+     * @return an Integer containing the row of the commander, or -1 if it is
+     * not in the index.
+     */
+    public int getRowForCard(int cardID) {
+        for (int i = 0; i < cards.length; i++) {
+            if (cards[i].getCardID() == cardID) {
+                return cardRows[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns the number of colour identity sections.
+     * @return an Integer containing the number of sections.
+     */
+    public int getSectionCount() {
+        return sectionRows.length;
+    }
+
+    /**
+     * This method finds the section which a row belongs to.
+     * @param row an Integer containing the position of the row.
+     * @return an Integer containing the index of the section.
+     */
+    public int getSectionForRow(int row) {
+        // Find the last section header at or before the row.
+        int low = 0;
+        int high = sectionRows.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sectionRows[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns the label of a section, such as "WUB" or "Colourless".
+     * @param section an Integer containing the index of the section.
+     * @return a String naming the colour identity of the section.
+     */
+    public String getSectionLabel(int section) {
+        return identityLabel(sectionMasks[section]);
+    }
+
+    /**
+     * This method returns the row of a section's header.
+     * @param section an Integer containing the index of the section.
+     * @return an Integer containing the row of the header.
+     */
+    public int getSectionRow(int section) {
+        return sectionRows[section];
+    }
+
+    /**
+     * This method checks if a row is a section header.
+     * @param row an Integer containing the position of the row.
+     * @return a Boolean which is true if the row is a header.
+     */
+    public boolean isHeader(int row) {
+        return sectionRows[getSectionForRow(row)] == row;
+    }
+
+    /**
+     * This method describes a colour identity bitmask in WUBRG order.
+     * @param mask an Integer containing the colour identity bitmask.
+     * @return a String of colour letters, or "Colourless".
+     */
+    public static String identityLabel(int mask) {
+        if (mask == 0) {
+            return "Colourless";
+        }
+        int[] colours = {Card.WHITE, Card.BLUE, Card.BLACK, Card.RED, Card.GREEN};
+        String letters = "WUBRG";
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < colours.length; i++) {
+            if ((mask & colours[i]) != 0) {
+                label.append(letters.charAt(i));
+            }
+        }
+        return label.toString();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.mtgdeckbox.room;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.ArrayList;
@@ -11,24 +12,33 @@ import java.util.ArrayList;
  * This class represents a Deck Entity object.
  * @author: Tom Barker
  */
-@Entity
+@Entity (indices = {@Index (value = {"deckName"}), @Index (value = {"lastModified"})})
 public class Deck {
     @PrimaryKey (autoGenerate = true)
     private int deckID;
 
-    @ColumnInfo (name = "deckName")
+    // Compared case-insensitively, so the deck list can sort and filter on the index.
+    @ColumnInfo (name = "deckName", collate = ColumnInfo.NOCASE)
     @NonNull
     private String deckName;
 
     @ColumnInfo (name = "commanderID")
     private int commanderID;
 
+    @ColumnInfo (name = "lastModified")
+    private long lastModified;
+
+    // How many events of the Deck's history are applied; see DeckHistory.
+    @ColumnInfo (name = "version")
+    private int version;
+
     /**
      * This is the default constructor.
      */
     public Deck() {
         deckName = "";
         commanderID = -1;
+        lastModified = System.currentTimeMillis();
     }
 
     /**
@@ -57,6 +67,24 @@ public class Deck {
         return commanderID;
     }
 
+    /**
+     * This is the Accessor method for the lastModified field.
+     * @return a Long containing the time this deck was last changed, in
+     *         milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * This is the Accessor method for the version field.
+     * @return an Integer containing the number of history events applied to
+     * this deck.
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * This is the Mutator method for the deckID field.
      * @param deckID an Integer containing the new ID number for this deck.
@@ -82,4 +110,22 @@ public class Deck {
         this.commanderID = commanderID;
     }
 
+    /**
+     * This is the Mutator method for the lastModified field.
+     * @param lastModified a Long containing the time this deck was last
+     *                     changed, in milliseconds since the epoch.
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * This is the Mutator method for the version field.
+     * @param version an Integer containing the number of history events
+     *                applied to this deck.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
 }
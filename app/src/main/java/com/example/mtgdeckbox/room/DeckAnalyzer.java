@@ -0,0 +1,83 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.List;
+
+/**
+ * This class works out the statistics shown on the graphs tab. It walks the
+ * Deck once, adding each Card into plain int arrays, so it creates no objects
+ * per Card and can run on a background thread whenever the Deck changes.
+ */
+public final class DeckAnalyzer {
+    // The highest mana value with its own bucket. Anything above shares the last one.
+    private static final int MAX_CURVE_VALUE = DeckStats.CURVE_LABELS.length - 2;
+
+    private static final int[] CATEGORY_BITS = {Card.RAMP, Card.DRAW, Card.REMOVAL,
+            Card.BOARD_WIPE};
+
+    /**
+     * This class only has static methods, so it is never constructed.
+     */
+    private DeckAnalyzer() {}
+
+    /**
+     * This method analyses a Deck.
+     * @param entries a List of DeckCardEntries, one for each Card in the Deck.
+     * @return a DeckStats holding the results.
+     */
+    public static DeckStats analyze(List<DeckCardEntry> entries) {
+        int[] manaCurve = new int[DeckStats.CURVE_LABELS.length];
+        int[] colourPips = new int[DeckStats.PIP_LABELS.length];
+        int[] typeCounts = new int[DeckStats.TYPE_LABELS.length];
+        int[] categoryCounts = new int[DeckStats.CATEGORY_LABELS.length];
+        int totalCards = 0;
+        int landCount = 0;
+        long manaValueSum = 0;
+        long nonLandManaValueSum = 0;
+
+        for (int i = 0; i < entries.size(); i++) {
+            DeckCardEntry entry = entries.get(i);
+            Card card = entry.getCard();
+            int quantity = entry.getQuantity();
+            if (quantity <= 0) {
+                continue;
+            }
+            totalCards += quantity;
+
+            int manaValue = Math.max(0, card.getManaValue());
+            manaValueSum += (long) manaValue * quantity;
+
+            String types = card.getTypes() == null ? "" : card.getTypes();
+            for (int t = 0; t < DeckStats.TYPE_LABELS.length; t++) {
+                if (types.contains(DeckStats.TYPE_LABELS[t])) {
+                    typeCounts[t] += quantity;
+                }
+            }
+
+            // Lands are left off the mana curve and the non-land average.
+            if (types.contains("Land")) {
+                landCount += quantity;
+            } else {
+                manaCurve[Math.min(manaValue, MAX_CURVE_VALUE + 1)] += quantity;
+                nonLandManaValueSum += (long) manaValue * quantity;
+            }
+
+            // The symbols were counted when the Card was imported.
+            for (int p = 0; p < ManaCost.PIP_KINDS; p++) {
+                colourPips[p] += card.getPips(p) * quantity;
+            }
+
+            int categories = Card.parseCategoryMask(card.getCategories());
+            for (int c = 0; c < CATEGORY_BITS.length; c++) {
+                if ((categories & CATEGORY_BITS[c]) != 0) {
+                    categoryCounts[c] += quantity;
+                }
+            }
+        }
+
+        int nonLandCount = totalCards - landCount;
+        return new DeckStats(totalCards, landCount, manaCurve, colourPips, typeCounts,
+                categoryCounts,
+                totalCards == 0 ? 0 : (double) manaValueSum / totalCards,
+                nonLandCount == 0 ? 0 : (double) nonLandManaValueSum / nonLandCount);
+    }
+}
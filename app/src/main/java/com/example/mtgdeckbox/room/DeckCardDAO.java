@@ -15,6 +15,12 @@ import java.util.List;
 @Dao
 public interface DeckCardDAO {
 
+    /* This statement is shared with the CardRepository, which reads it
+     * straight from a Cursor to build the CoOccurrenceIndex.
+     */
+    String CO_OCCURRENCE_ROWS = "SELECT deck_ID, card_ID FROM deckcards " +
+            "WHERE quantity > 0 ORDER BY deck_ID";
+
     /**
      * This method returns the quantity of a specified Card in a
      * specified Deck.
@@ -44,6 +50,17 @@ public interface DeckCardDAO {
     @Query("SELECT * FROM deckcards WHERE deck_ID = :deckID")
     List<DeckCards> getDeckCardQuantities(int deckID);
 
+    /**
+     * This method returns the total quantity of a Card in a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return an Integer containing the quantity, or 0 if the Card is not
+     * in the Deck.
+     */
+    @Query("SELECT IFNULL(SUM(quantity), 0) FROM deckcards " +
+            "WHERE deck_ID = :deckID AND card_ID = :cardID")
+    int getCardQuantity(int deckID, int cardID);
+
     /**
      * This method inserts a new DeckCards into the database.
      * @param deckCards a new DeckCards to be inserted.
@@ -51,6 +68,13 @@ public interface DeckCardDAO {
     @Insert
     void insertDeckCards(DeckCards deckCards);
 
+    /**
+     * This method inserts many new DeckCards into the database at once.
+     * @param deckCards a List of new DeckCards to be inserted.
+     */
+    @Insert
+    void insertAllDeckCards(List<DeckCards> deckCards);
+
     /**
      * This method deletes any DeckCards where the quantity has been changed
      * to zero.
@@ -93,4 +117,33 @@ public interface DeckCardDAO {
     @Query("DELETE FROM deckcards")
     void deleteAllDeckCards();
 
+
+    /**
+     * This method returns every Card in a Deck along with its quantity, as a
+     * LiveData, using a single join rather than one lookup per Card.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of DeckCardEntries for the Deck.
+     */
+    @Query("SELECT card.*, deckcards.quantity AS quantity FROM deckcards " +
+            "INNER JOIN card ON card.cardID = deckcards.card_ID " +
+            "WHERE deckcards.deck_ID = :deckID AND deckcards.quantity > 0")
+    LiveData<List<DeckCardEntry>> getLiveDeckEntries(int deckID);
+
+    /**
+     * This method returns every Card in a Deck along with its quantity.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a List of DeckCardEntries for the Deck.
+     */
+    @Query("SELECT card.*, deckcards.quantity AS quantity FROM deckcards " +
+            "INNER JOIN card ON card.cardID = deckcards.card_ID " +
+            "WHERE deckcards.deck_ID = :deckID AND deckcards.quantity > 0")
+    List<DeckCardEntry> getDeckEntries(int deckID);
+
+    /**
+     * This method returns the ID numbers of every Card in a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return an Array of the ID numbers of the Cards in the Deck.
+     */
+    @Query("SELECT card_ID FROM deckcards WHERE deck_ID = :deckID AND quantity > 0")
+    int[] getDeckCardIDs(int deckID);
 }
@@ -0,0 +1,68 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+/**
+ * This class holds one Card in a Deck together with how many copies of it
+ * the Deck holds. It is filled in by a single join of DeckCards and Card.
+ */
+public class DeckCardEntry {
+    @Embedded
+    @NonNull
+    private Card card;
+
+    @ColumnInfo (name = "quantity")
+    private int quantity;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckCardEntry() {
+        card = new Card();
+    }
+
+    /**
+     * This is the non-default constructor.
+     * @param card the Card in the Deck.
+     * @param quantity an Integer containing the number of copies in the Deck.
+     */
+    public DeckCardEntry(@NonNull Card card, int quantity) {
+        this.card = card;
+        this.quantity = quantity;
+    }
+
+    /**
+     * This is the Accessor method for the card field.
+     * @return the Card in the Deck.
+     */
+    @NonNull
+    public Card getCard() {
+        return card;
+    }
+
+    /**
+     * This is the Accessor method for the quantity field.
+     * @return an Integer containing the number of copies in the Deck.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * This is the Mutator method for the card field.
+     * @param card the Card in the Deck.
+     */
+    public void setCard(@NonNull Card card) {
+        this.card = card;
+    }
+
+    /**
+     * This is the Mutator method for the quantity field.
+     * @param quantity an Integer containing the number of copies in the Deck.
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.mtgdeckbox.room;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
@@ -10,7 +11,7 @@ import androidx.room.PrimaryKey;
  * Card and Deck in a many-to-many relationship.
  * @author: Tom Barker
  */
-@Entity
+@Entity (indices = {@Index (value = {"deck_ID"})})
 public class DeckCards {
     @PrimaryKey (autoGenerate = true)
     private int deckCardID;
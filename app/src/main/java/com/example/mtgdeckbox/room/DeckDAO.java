@@ -1,6 +1,7 @@
 package com.example.mtgdeckbox.room;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -24,6 +25,61 @@ public interface DeckDAO {
     @Query("SELECT * FROM deck")
     LiveData<List<Deck>> getAll();
 
+    /**
+     * This method pages through the Deck summaries whose names start with a
+     * prefix, in name order. Both the filter and the order use the deckName index.
+     * @param pattern a String containing the name prefix followed by '%'.
+     * @return a PagingSource of DeckSummaries, sorted by name.
+     */
+    @Query("SELECT " + DeckSummary.COLUMNS + " WHERE deck.deckName LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY deck.deckName")
+    PagingSource<Integer, DeckSummary> getDeckSummariesByName(String pattern);
+
+    /**
+     * This method pages through the Deck summaries whose names start with a
+     * prefix, most recently changed first, using the lastModified index.
+     * @param pattern a String containing the name prefix followed by '%'.
+     * @return a PagingSource of DeckSummaries, newest first.
+     */
+    @Query("SELECT " + DeckSummary.COLUMNS + " WHERE deck.deckName LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY deck.lastModified DESC")
+    PagingSource<Integer, DeckSummary> getDeckSummariesByRecent(String pattern);
+
+    /**
+     * This method pages through the Deck summaries whose names start with a
+     * prefix, largest Deck first.
+     * @param pattern a String containing the name prefix followed by '%'.
+     * @return a PagingSource of DeckSummaries, largest first.
+     */
+    @Query("SELECT " + DeckSummary.COLUMNS + " WHERE deck.deckName LIKE :pattern ESCAPE '\\' " +
+            "ORDER BY cardCount DESC, deck.deckName")
+    PagingSource<Integer, DeckSummary> getDeckSummariesBySize(String pattern);
+
+    /**
+     * This method returns the DeckSummaries of a set of Decks.
+     * @param deckIDs an Array of Deck ID numbers.
+     * @return a List of DeckSummaries, in no particular order.
+     */
+    @Query("SELECT " + DeckSummary.COLUMNS + " WHERE deck.deckID IN (:deckIDs)")
+    List<DeckSummary> getDeckSummariesByID(int[] deckIDs);
+
+    /**
+     * This method marks a Deck as changed.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param time a Long containing the time of the change, in milliseconds
+     *             since the epoch.
+     */
+    @Query("UPDATE deck SET lastModified = :time WHERE deckID = :deckID")
+    void touchDeck(int deckID, long time);
+
+    /**
+     * This method moves a Deck to a new version of its history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the number of events applied.
+     */
+    @Query("UPDATE deck SET version = :version WHERE deckID = :deckID")
+    void setVersion(int deckID, int version);
+
     /**
      * This method returns a list of all the Decks in the database.
      * @return a List of all Decks in the database.
@@ -34,9 +90,10 @@ public interface DeckDAO {
     /**
      * This method inserts a new Deck into the database.
      * @param deck the Deck to be inserted.
+     * @return a Long containing the ID number of the new Deck.
      */
     @Insert
-    void insertDeck(Deck deck);
+    long insertDeck(Deck deck);
 
     /**
      * This method updates a Deck in the database.
@@ -0,0 +1,281 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * This class is the DeckEvent Entity - one change made to a Deck, recorded in
+ * the Deck's history. Events are numbered from 1 in the order they were made,
+ * and each holds both the old and new value, so it can be replayed forwards
+ * for redo or backwards for undo.
+ *
+ * Card events hold the Card's ID number and its old and new quantity. A
+ * commander event holds the old and new commander's ID number, and a rename
+ * holds the old and new name.
+ */
+@Entity (indices = {@Index (value = {"deck_ID", "sequence"}, unique = true)})
+public class DeckEvent {
+    // The kinds of change which are recorded.
+    public static final int ADD = 0;
+    public static final int REMOVE = 1;
+    public static final int QUANTITY = 2;
+    public static final int COMMANDER = 3;
+    public static final int RENAME = 4;
+
+    @PrimaryKey (autoGenerate = true)
+    private int eventID;
+
+    @ColumnInfo (name = "deck_ID")
+    private int deckID;
+
+    @ColumnInfo (name = "sequence")
+    private int sequence;
+
+    @ColumnInfo (name = "type")
+    private int type;
+
+    @ColumnInfo (name = "card_ID")
+    private int cardID;
+
+    @ColumnInfo (name = "oldValue")
+    private int oldValue;
+
+    @ColumnInfo (name = "newValue")
+    private int newValue;
+
+    @ColumnInfo (name = "oldName")
+    private String oldName;
+
+    @ColumnInfo (name = "newName")
+    private String newName;
+
+    @ColumnInfo (name = "time")
+    private long time;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckEvent() {}
+
+    /**
+     * This method creates an event for a change to a Card's quantity.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param oldQuantity an Integer containing the quantity before the change.
+     * @param newQuantity an Integer containing the quantity after the change.
+     * @return a DeckEvent of type ADD, REMOVE or QUANTITY.
+     */
+    public static DeckEvent cardChange(int deckID, int cardID, int oldQuantity,
+                                       int newQuantity) {
+        DeckEvent event = new DeckEvent();
+        event.deckID = deckID;
+        event.type = oldQuantity == 0 ? ADD : newQuantity == 0 ? REMOVE : QUANTITY;
+        event.cardID = cardID;
+        event.oldValue = oldQuantity;
+        event.newValue = newQuantity;
+        event.time = System.currentTimeMillis();
+        return event;
+    }
+
+    /**
+     * This method creates an event for a change of commander.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param oldCommanderID an Integer containing the old commander's ID number.
+     * @param newCommanderID an Integer containing the new commander's ID number.
+     * @return a DeckEvent of type COMMANDER.
+     */
+    public static DeckEvent commanderChange(int deckID, int oldCommanderID,
+                                            int newCommanderID) {
+        DeckEvent event = new DeckEvent();
+        event.deckID = deckID;
+        event.type = COMMANDER;
+        event.oldValue = oldCommanderID;
+        event.newValue = newCommanderID;
+        event.time = System.currentTimeMillis();
+        return event;
+    }
+
+    /**
+     * This method creates an event for a change of Deck name.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param oldName a String containing the name before the change.
+     * @param newName a String containing the name after the change.
+     * @return a DeckEvent of type RENAME.
+     */
+    public static DeckEvent rename(int deckID, String oldName, String newName) {
+        DeckEvent event = new DeckEvent();
+        event.deckID = deckID;
+        event.type = RENAME;
+        event.oldName = oldName;
+        event.newName = newName;
+        event.time = System.currentTimeMillis();
+        return event;
+    }
+
+    /**
+     * This is the Accessor method for the eventID field.
+     * @return an Integer containing the ID number of this event.
+     */
+    public int getEventID() {
+        return eventID;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the sequence field.
+     * @return an Integer containing this event's place in the Deck's history,
+     * counting from 1.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * This is the Accessor method for the type field.
+     * @return an Integer containing the kind of change.
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * This is the Accessor method for the cardID field.
+     * @return an Integer containing the ID number of the Card changed.
+     */
+    public int getCardID() {
+        return cardID;
+    }
+
+    /**
+     * This is the Accessor method for the oldValue field.
+     * @return an Integer containing the quantity or commander before the change.
+     */
+    public int getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * This is the Accessor method for the newValue field.
+     * @return an Integer containing the quantity or commander after the change.
+     */
+    public int getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * This is the Accessor method for the oldName field.
+     * @return a String containing the Deck name before a rename.
+     */
+    public String getOldName() {
+        return oldName;
+    }
+
+    /**
+     * This is the Accessor method for the newName field.
+     * @return a String containing the Deck name after a rename.
+     */
+    public String getNewName() {
+        return newName;
+    }
+
+    /**
+     * This is the Accessor method for the time field.
+     * @return a Long containing when the change was made, in milliseconds
+     * since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * This is the Mutator method for the eventID field.
+     * @param eventID an Integer containing the ID number of this event.
+     */
+    public void setEventID(int eventID) {
+        this.eventID = eventID;
+    }
+
+    /**
+     * This is the Mutator method for the deckID field.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void setDeckID(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Mutator method for the sequence field.
+     * @param sequence an Integer containing this event's place in the Deck's
+     *                 history.
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * This is the Mutator method for the type field.
+     * @param type an Integer containing the kind of change.
+     */
+    public void setType(int type) {
+        this.type = type;
+    }
+
+    /**
+     * This is the Mutator method for the cardID field.
+     * @param cardID an Integer containing the ID number of the Card changed.
+     */
+    public void setCardID(int cardID) {
+        this.cardID = cardID;
+    }
+
+    /**
+     * This is the Mutator method for the oldValue field.
+     * @param oldValue an Integer containing the quantity or commander before
+     *                 the change.
+     */
+    public void setOldValue(int oldValue) {
+        this.oldValue = oldValue;
+    }
+
+    /**
+     * This is the Mutator method for the newValue field.
+     * @param newValue an Integer containing the quantity or commander after
+     *                 the change.
+     */
+    public void setNewValue(int newValue) {
+        this.newValue = newValue;
+    }
+
+    /**
+     * This is the Mutator method for the oldName field.
+     * @param oldName a String containing the Deck name before a rename.
+     */
+    public void setOldName(String oldName) {
+        this.oldName = oldName;
+    }
+
+    /**
+     * This is the Mutator method for the newName field.
+     * @param newName a String containing the Deck name after a rename.
+     */
+    public void setNewName(String newName) {
+        this.newName = newName;
+    }
+
+    /**
+     * This is the Mutator method for the time field.
+     * @param time a Long containing when the change was made.
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+}
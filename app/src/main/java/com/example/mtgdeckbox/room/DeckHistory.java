@@ -0,0 +1,353 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class keeps the history of every Deck. Each change is appended to the
+ * deckevent table as a small DeckEvent, and the Deck's version field records
+ * how far along its history the Deck currently is. Undo and redo move the
+ * version back and forth along the events; making a new change after undoing
+ * forgets the events which were undone, as in any editor.
+ *
+ * An automatic DeckSnapshot is taken when a Deck's history starts and every
+ * SNAPSHOT_INTERVAL events after that. Moving to any version starts from
+ * whichever is closer - the Deck as it is now, or the nearest snapshot - and
+ * replays only the events in between, so it costs O(changes) rather than
+ * O(history).
+ *
+ * Every method must be called inside the Deck's write on the DeckWriteQueue,
+ * so that it runs in a transaction and in order with the Deck's other writes.
+ */
+public class DeckHistory {
+    // The most events replayed from a snapshot to rebuild any version.
+    private static final int SNAPSHOT_INTERVAL = 32;
+
+    private final DeckDAO deckDAO;
+    private final DeckCardDAO deckCardDAO;
+    private final DeckHistoryDAO historyDAO;
+
+    /**
+     * This is the non-default constructor.
+     * @param deckDAO a DeckDAO object used to access the Deck Entity.
+     * @param deckCardDAO a DeckCardDAO object used to access the DeckCards Entity.
+     * @param historyDAO a DeckHistoryDAO object used to access the history.
+     */
+    public DeckHistory(DeckDAO deckDAO, DeckCardDAO deckCardDAO,
+                       DeckHistoryDAO historyDAO) {
+        this.deckDAO = deckDAO;
+        this.deckCardDAO = deckCardDAO;
+        this.historyDAO = historyDAO;
+    }
+
+    /**
+     * This method starts the history of a new Deck from the way it is now, so
+     * that undoing its first change puts it back to this rather than to an
+     * empty Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void startHistory(int deckID) {
+        Deck deck = deckDAO.getDeck(deckID);
+        if (deck != null && historyDAO.getNearestSnapshot(deckID, 0) == null) {
+            historyDAO.insertSnapshot(new DeckSnapshot(deckID, 0, null, readState(deck)));
+        }
+    }
+
+    /**
+     * This method records a change to a Card's quantity. It must be called
+     * before the change is written.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param newQuantity an Integer containing the quantity after the change.
+     */
+    public void recordCardChange(int deckID, int cardID, int newQuantity) {
+        int oldQuantity = deckCardDAO.getCardQuantity(deckID, cardID);
+        if (oldQuantity != newQuantity) {
+            record(deckID, Collections.singletonList(
+                    DeckEvent.cardChange(deckID, cardID, oldQuantity, newQuantity)));
+        }
+    }
+
+    /**
+     * This method records any change of commander or name made to a Deck. It
+     * must be called before the Deck is written.
+     * @param deck the Deck, as it is about to be written.
+     * @return an Integer containing the Deck's version after the change, which
+     * should be written with it.
+     */
+    public int recordDeckChange(Deck deck) {
+        Deck stored = deckDAO.getDeck(deck.getDeckID());
+        if (stored == null) {
+            return deck.getVersion();
+        }
+        List<DeckEvent> events = new ArrayList<>(2);
+        if (stored.getCommanderID() != deck.getCommanderID()) {
+            events.add(DeckEvent.commanderChange(deck.getDeckID(),
+                    stored.getCommanderID(), deck.getCommanderID()));
+        }
+        if (!stored.getDeckName().equals(deck.getDeckName())) {
+            events.add(DeckEvent.rename(deck.getDeckID(), stored.getDeckName(),
+                    deck.getDeckName()));
+        }
+        return events.isEmpty() ? stored.getVersion() : record(deck.getDeckID(), events);
+    }
+
+    /**
+     * This method undoes the latest change to a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a Boolean which is true if the Deck changed.
+     */
+    public boolean undo(int deckID) {
+        Deck deck = deckDAO.getDeck(deckID);
+        return deck != null && moveTo(deck, deck.getVersion() - 1);
+    }
+
+    /**
+     * This method redoes the latest change which was undone.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a Boolean which is true if the Deck changed.
+     */
+    public boolean redo(int deckID) {
+        Deck deck = deckDAO.getDeck(deckID);
+        return deck != null && moveTo(deck, deck.getVersion() + 1);
+    }
+
+    /**
+     * This method moves a Deck to any version in its history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param version an Integer containing the number of events to keep.
+     * @return a Boolean which is true if the Deck changed.
+     */
+    public boolean restoreVersion(int deckID, int version) {
+        Deck deck = deckDAO.getDeck(deckID);
+        return deck != null && moveTo(deck, version);
+    }
+
+    /**
+     * This method saves the Deck as it is now under a name, so it can be
+     * restored later.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param name a String containing the name of the snapshot.
+     */
+    public void saveSnapshot(int deckID, String name) {
+        Deck deck = deckDAO.getDeck(deckID);
+        if (deck != null) {
+            historyDAO.insertSnapshot(new DeckSnapshot(deckID, deck.getVersion(), name,
+                    readState(deck)));
+        }
+    }
+
+    /**
+     * This method puts a Deck back the way it was in a named snapshot. The
+     * differences are recorded as new events, so the restore can be undone.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param snapshotID an Integer containing the ID number of the snapshot.
+     * @return a Boolean which is true if the Deck changed.
+     */
+    public boolean restoreSnapshot(int deckID, int snapshotID) {
+        Deck deck = deckDAO.getDeck(deckID);
+        DeckSnapshot snapshot = historyDAO.getSnapshot(snapshotID);
+        if (deck == null || snapshot == null || snapshot.getDeckID() != deckID) {
+            return false;
+        }
+        DeckState current = readState(deck);
+        DeckState target = snapshot.toState();
+
+        List<DeckEvent> events = new ArrayList<>();
+        if (current.getCommanderID() != target.getCommanderID()) {
+            events.add(DeckEvent.commanderChange(deckID, current.getCommanderID(),
+                    target.getCommanderID()));
+        }
+        if (!current.getDeckName().equals(target.getDeckName())) {
+            events.add(DeckEvent.rename(deckID, current.getDeckName(),
+                    target.getDeckName()));
+        }
+        for (int cardID : union(current, target)) {
+            if (current.getQuantity(cardID) != target.getQuantity(cardID)) {
+                events.add(DeckEvent.cardChange(deckID, cardID,
+                        current.getQuantity(cardID), target.getQuantity(cardID)));
+            }
+        }
+        if (events.isEmpty()) {
+            return false;
+        }
+
+        int version = record(deckID, events);
+        write(deckDAO.getDeck(deckID), current, target, version);
+        return true;
+    }
+
+    /**
+     * This method deletes the whole history of a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void deleteHistory(int deckID) {
+        historyDAO.deleteEvents(deckID);
+        historyDAO.deleteSnapshots(deckID);
+    }
+
+    /**
+     * This method deletes the history of every Deck.
+     */
+    public void deleteAllHistory() {
+        historyDAO.deleteAllEvents();
+        historyDAO.deleteAllSnapshots();
+    }
+
+    /**
+     * This method appends events to a Deck's history, and moves the Deck's
+     * version past them. Events which had been undone are forgotten first.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param events a List of DeckEvents, in the order they are made.
+     * @return an Integer containing the Deck's new version.
+     */
+    private int record(int deckID, List<DeckEvent> events) {
+        Deck deck = deckDAO.getDeck(deckID);
+        if (deck == null) {
+            return 0;
+        }
+        int version = deck.getVersion();
+        if (historyDAO.getLatestSequence(deckID) > version) {
+            historyDAO.deleteEventsAfter(deckID, version);
+            historyDAO.deleteSnapshotsAfter(deckID, version);
+        }
+
+        // The first snapshot holds the Deck from before its history began.
+        DeckState state = null;
+        if (version == 0 && historyDAO.getNearestSnapshot(deckID, 0) == null) {
+            state = readState(deck);
+            historyDAO.insertSnapshot(new DeckSnapshot(deckID, 0, null, state));
+        }
+
+        int newVersion = version;
+        for (DeckEvent event : events) {
+            event.setSequence(++newVersion);
+            historyDAO.insertEvent(event);
+        }
+        deckDAO.setVersion(deckID, newVersion);
+
+        // Take a snapshot whenever the history passes another interval.
+        if (version / SNAPSHOT_INTERVAL != newVersion / SNAPSHOT_INTERVAL) {
+            if (state == null) {
+                state = readState(deck);
+            }
+            for (DeckEvent event : events) {
+                state.apply(event, true);
+            }
+            historyDAO.insertSnapshot(new DeckSnapshot(deckID, newVersion, null, state));
+        }
+        return newVersion;
+    }
+
+    /**
+     * This method moves a Deck to a version in its history, replaying the
+     * events from the Deck as it is now or from the nearest snapshot,
+     * whichever has fewer to replay.
+     * @param deck the Deck, as it is stored now.
+     * @param version an Integer containing the version to move to.
+     * @return a Boolean which is true if the Deck changed.
+     */
+    private boolean moveTo(Deck deck, int version) {
+        int deckID = deck.getDeckID();
+        int current = deck.getVersion();
+        int target = Math.max(0, Math.min(version, historyDAO.getLatestSequence(deckID)));
+        if (target == current) {
+            return false;
+        }
+
+        DeckState now = readState(deck);
+        DeckState state;
+        DeckSnapshot snapshot = historyDAO.getNearestSnapshot(deckID, target);
+        if (snapshot != null && target - snapshot.getSequence() < Math.abs(target - current)) {
+            state = snapshot.toState();
+            for (DeckEvent event : historyDAO.getEvents(deckID, snapshot.getSequence(), target)) {
+                state.apply(event, true);
+            }
+        } else if (target > current) {
+            state = readState(deck);
+            for (DeckEvent event : historyDAO.getEvents(deckID, current, target)) {
+                state.apply(event, true);
+            }
+        } else {
+            state = readState(deck);
+            List<DeckEvent> events = historyDAO.getEvents(deckID, target, current);
+            for (int i = events.size() - 1; i >= 0; i--) {
+                state.apply(events.get(i), false);
+            }
+        }
+        write(deck, now, state, target);
+        return true;
+    }
+
+    /**
+     * This method writes a DeckState to the database, touching only the Cards
+     * whose quantity differs.
+     * @param deck the Deck, as it is stored now.
+     * @param now the DeckState of the Deck as it is stored now.
+     * @param state the DeckState to be written.
+     * @param version an Integer containing the Deck's version once written.
+     */
+    private void write(Deck deck, DeckState now, DeckState state, int version) {
+        int deckID = deck.getDeckID();
+        for (int cardID : union(now, state)) {
+            int quantity = state.getQuantity(cardID);
+            if (now.getQuantity(cardID) != quantity) {
+                deckCardDAO.removeSpecificDeckCards(deckID, cardID);
+                if (quantity > 0) {
+                    deckCardDAO.insertDeckCards(new DeckCards(deckID, cardID, quantity));
+                }
+            }
+        }
+        deck.setDeckName(state.getDeckName() == null ? "" : state.getDeckName());
+        deck.setCommanderID(state.getCommanderID());
+        deck.setVersion(version);
+        deck.setLastModified(System.currentTimeMillis());
+        deckDAO.updateDeck(deck);
+    }
+
+    /**
+     * This method reads a Deck as it is stored now.
+     * @param deck the Deck.
+     * @return a new DeckState holding the Deck's name, commander and Cards.
+     */
+    private DeckState readState(Deck deck) {
+        DeckState state = new DeckState(deck.getDeckName(), deck.getCommanderID());
+        for (DeckCards deckCards : deckCardDAO.getDeckCardQuantities(deck.getDeckID())) {
+            if (deckCards.getQuantity() > 0) {
+                state.addCard(deckCards.getCardID(), deckCards.getQuantity());
+            }
+        }
+        return state;
+    }
+
+    /**
+     * This method lists every Card in either of two states.
+     * @param a a DeckState.
+     * @param b another DeckState.
+     * @return an Array of Card ID numbers, each listed once.
+     */
+    private static int[] union(DeckState a, DeckState b) {
+        int[] first = a.getCardIDs();
+        int[] second = b.getCardIDs();
+        int[] merged = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        // Both are sorted, so merge them and skip the Cards in both.
+        while (i < first.length || j < second.length) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                merged[size++] = first[i++];
+            } else if (i == first.length || second[j] < first[i]) {
+                merged[size++] = second[j++];
+            } else {
+                merged[size++] = first[i++];
+                j++;
+            }
+        }
+        int[] result = new int[size];
+        System.arraycopy(merged, 0, result, 0, size);
+        return result;
+    }
+}
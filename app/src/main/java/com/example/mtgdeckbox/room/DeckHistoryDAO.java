@@ -0,0 +1,135 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * This class is the DAO for the DeckEvent and DeckSnapshot Entities, which
+ * together hold the history of every Deck.
+ */
+@Dao
+public interface DeckHistoryDAO {
+
+    /**
+     * This method adds an event to the end of a Deck's history.
+     * @param event the DeckEvent to be inserted.
+     */
+    @Insert
+    void insertEvent(DeckEvent event);
+
+    /**
+     * This method returns the number of the latest event in a Deck's history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return an Integer containing the latest sequence number, or 0 if the
+     * Deck has no history.
+     */
+    @Query("SELECT IFNULL(MAX(sequence), 0) FROM deckevent WHERE deck_ID = :deckID")
+    int getLatestSequence(int deckID);
+
+    /**
+     * This method returns the number of the latest event in a Deck's history,
+     * as LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData Integer containing the latest sequence number.
+     */
+    @Query("SELECT IFNULL(MAX(sequence), 0) FROM deckevent WHERE deck_ID = :deckID")
+    LiveData<Integer> getLiveLatestSequence(int deckID);
+
+    /**
+     * This method returns the events between two points in a Deck's history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param after an Integer containing the sequence number to start after.
+     * @param upTo an Integer containing the last sequence number to include.
+     * @return a List of DeckEvents, oldest first.
+     */
+    @Query("SELECT * FROM deckevent WHERE deck_ID = :deckID " +
+            "AND sequence > :after AND sequence <= :upTo ORDER BY sequence ASC")
+    List<DeckEvent> getEvents(int deckID, int after, int upTo);
+
+    /**
+     * This method forgets every event after a point in a Deck's history, when a
+     * new change is made after undoing.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param sequence an Integer containing the last sequence number to keep.
+     */
+    @Query("DELETE FROM deckevent WHERE deck_ID = :deckID AND sequence > :sequence")
+    void deleteEventsAfter(int deckID, int sequence);
+
+    /**
+     * This method saves a snapshot of a Deck.
+     * @param snapshot the DeckSnapshot to be inserted.
+     */
+    @Insert
+    void insertSnapshot(DeckSnapshot snapshot);
+
+    /**
+     * This method finds the latest automatic snapshot at or before a point in
+     * a Deck's history.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param sequence an Integer containing the sequence number to look from.
+     * @return the nearest DeckSnapshot, or null if there is none.
+     */
+    @Query("SELECT * FROM decksnapshot WHERE deck_ID = :deckID AND name IS NULL " +
+            "AND sequence <= :sequence ORDER BY sequence DESC LIMIT 1")
+    DeckSnapshot getNearestSnapshot(int deckID, int sequence);
+
+    /**
+     * This method returns a specific snapshot.
+     * @param snapshotID an Integer containing the ID number of the snapshot.
+     * @return the DeckSnapshot requested.
+     */
+    @Query("SELECT * FROM decksnapshot WHERE snapshotID = :snapshotID")
+    DeckSnapshot getSnapshot(int snapshotID);
+
+    /**
+     * This method returns the snapshots the user has named for a Deck, as
+     * LiveData.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData List of DeckSnapshots, newest first.
+     */
+    @Query("SELECT * FROM decksnapshot WHERE deck_ID = :deckID AND name IS NOT NULL " +
+            "ORDER BY time DESC")
+    LiveData<List<DeckSnapshot>> getLiveNamedSnapshots(int deckID);
+
+    /**
+     * This method forgets the automatic snapshots after a point in a Deck's
+     * history, along with the events they summarised.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param sequence an Integer containing the last sequence number to keep.
+     */
+    @Query("DELETE FROM decksnapshot WHERE deck_ID = :deckID AND name IS NULL " +
+            "AND sequence > :sequence")
+    void deleteSnapshotsAfter(int deckID, int sequence);
+
+    /**
+     * This method deletes every event recorded for a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    @Query("DELETE FROM deckevent WHERE deck_ID = :deckID")
+    void deleteEvents(int deckID);
+
+    /**
+     * This method deletes every snapshot of a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    @Query("DELETE FROM decksnapshot WHERE deck_ID = :deckID")
+    void deleteSnapshots(int deckID);
+
+    /**
+     * This method clears every Deck's history. Used mostly for debugging and
+     * testing.
+     */
+    @Query("DELETE FROM deckevent")
+    void deleteAllEvents();
+
+    /**
+     * This method clears every Deck's snapshots. Used mostly for debugging and
+     * testing.
+     */
+    @Query("DELETE FROM decksnapshot")
+    void deleteAllSnapshots();
+}
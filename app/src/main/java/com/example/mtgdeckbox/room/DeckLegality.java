@@ -0,0 +1,282 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.annotation.Nullable;
+
+import com.example.mtgdeckbox.IntHashSet;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class checks whether a Deck is legal to play in Commander. Rather than
+ * re-checking the whole Deck each time it changes, it keeps a running count of
+ * the Cards and a set of offending Card ID numbers for each rule, and updates
+ * them in O(1) for every Card which is added, removed or changes quantity.
+ */
+public class DeckLegality {
+    // The number of Cards a Commander Deck must hold, including the commander.
+    public static final int DECK_SIZE = 100;
+
+    /**
+     * The rules which can be broken by the Cards in a Deck.
+     */
+    public enum Rule {
+        // More than one copy of a Card without an alternate limit.
+        SINGLETON,
+        // A Card with a colour the commander does not have.
+        COLOUR_IDENTITY,
+        // A Card which is not legal in Commander.
+        BANNED
+    }
+
+    private final Map<Integer, DeckCardEntry> entries;
+    private final IntHashSet[] violations;
+    private final IntHashSet seen;
+    private Card commander;
+    private int cardCount;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckLegality() {
+        entries = new HashMap<>();
+        violations = new IntHashSet[Rule.values().length];
+        for (int i = 0; i < violations.length; i++) {
+            violations[i] = new IntHashSet();
+        }
+        seen = new IntHashSet();
+    }
+
+    /**
+     * This is the Accessor method for the commander field.
+     * @return the commander Card, or null if none has been chosen.
+     */
+    @Nullable
+    public Card getCommander() {
+        return commander;
+    }
+
+    /**
+     * This method returns the number of Cards in the Deck, counting the
+     * commander.
+     * @return an Integer containing the number of Cards in the Deck.
+     */
+    public int getTotalCards() {
+        return cardCount + (commander == null ? 0 : 1);
+    }
+
+    /**
+     * This method returns the Cards which break a rule.
+     * @param rule the Rule to check.
+     * @return an IntHashSet of the Card ID numbers which break the rule. It
+     * must not be changed by the caller.
+     */
+    public IntHashSet getViolations(Rule rule) {
+        return violations[rule.ordinal()];
+    }
+
+    /**
+     * This method returns the name of a Card in the Deck.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return a String containing the name of the Card, or null if it is
+     * not in the Deck.
+     */
+    @Nullable
+    public String getCardName(int cardID) {
+        if (commander != null && commander.getCardID() == cardID) {
+            return commander.getName();
+        }
+        DeckCardEntry entry = entries.get(cardID);
+        return entry == null ? null : entry.getCard().getName();
+    }
+
+    /**
+     * This method checks whether the commander is allowed to lead a Deck.
+     * @return true if a commander has been chosen and it can be a legal
+     * commander.
+     */
+    public boolean isCommanderValid() {
+        return commander != null && commander.getCanBeCommander()
+                && commander.getCommanderLegal();
+    }
+
+    /**
+     * This method checks the Deck against every rule.
+     * @return true if the Deck is legal to play.
+     */
+    public boolean isLegal() {
+        if (!isCommanderValid() || getTotalCards() != DECK_SIZE) {
+            return false;
+        }
+        for (IntHashSet ruleViolations : violations) {
+            if (!ruleViolations.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method sets the commander of the Deck. As every Card's colour
+     * identity is measured against the commander, this is the one change which
+     * checks each Card in the Deck again.
+     * @param newCommander the commander Card, or null if there is none.
+     */
+    public void setCommander(@Nullable Card newCommander) {
+        Card oldCommander = commander;
+        commander = newCommander;
+
+        // A copy of the commander in the Deck counts against the singleton rule.
+        if (oldCommander != null) {
+            checkSingleton(oldCommander.getCardID());
+        }
+        if (newCommander != null) {
+            checkSingleton(newCommander.getCardID());
+        }
+
+        IntHashSet identityViolations = getViolations(Rule.COLOUR_IDENTITY);
+        identityViolations.clear();
+        for (DeckCardEntry entry : entries.values()) {
+            checkIdentity(entry.getCard());
+        }
+    }
+
+    /**
+     * This method brings the rules up to date with the current contents of
+     * the Deck. Only the Cards whose quantity has changed since the last call
+     * are checked again.
+     * @param deckEntries a List of DeckCardEntries, one for each Card in the Deck.
+     */
+    public void update(List<DeckCardEntry> deckEntries) {
+        seen.clear();
+        for (int i = 0; i < deckEntries.size(); i++) {
+            DeckCardEntry entry = deckEntries.get(i);
+            Card card = entry.getCard();
+            seen.add(card.getCardID());
+            DeckCardEntry previous = entries.get(card.getCardID());
+            int oldQuantity = previous == null ? 0 : previous.getQuantity();
+            if (oldQuantity != entry.getQuantity()) {
+                setQuantity(card, oldQuantity, entry.getQuantity());
+            }
+        }
+
+        // Any Card we were not sent has been taken out of the Deck.
+        Iterator<DeckCardEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            DeckCardEntry entry = iterator.next();
+            if (!seen.contains(entry.getCard().getCardID())) {
+                iterator.remove();
+                cardCount -= entry.getQuantity();
+                clearViolations(entry.getCard().getCardID());
+            }
+        }
+    }
+
+    /**
+     * This method adds copies of a Card to the Deck.
+     * @param card the Card to add.
+     * @param quantity an Integer containing the number of copies to add.
+     */
+    public void addCard(Card card, int quantity) {
+        DeckCardEntry previous = entries.get(card.getCardID());
+        int oldQuantity = previous == null ? 0 : previous.getQuantity();
+        setQuantity(card, oldQuantity, oldQuantity + quantity);
+    }
+
+    /**
+     * This method removes copies of a Card from the Deck.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param quantity an Integer containing the number of copies to remove.
+     */
+    public void removeCard(int cardID, int quantity) {
+        DeckCardEntry previous = entries.get(cardID);
+        if (previous != null) {
+            setQuantity(previous.getCard(), previous.getQuantity(),
+                    Math.max(0, previous.getQuantity() - quantity));
+        }
+    }
+
+    /**
+     * This method changes how many copies of a Card the Deck holds and checks
+     * that Card against each rule.
+     * @param card the Card which has changed.
+     * @param oldQuantity an Integer containing the number of copies before.
+     * @param newQuantity an Integer containing the number of copies now.
+     */
+    private void setQuantity(Card card, int oldQuantity, int newQuantity) {
+        int cardID = card.getCardID();
+        cardCount += newQuantity - oldQuantity;
+        if (newQuantity <= 0) {
+            entries.remove(cardID);
+            clearViolations(cardID);
+            return;
+        }
+        DeckCardEntry entry = entries.get(cardID);
+        if (entry == null) {
+            entries.put(cardID, new DeckCardEntry(card, newQuantity));
+        } else {
+            entry.setQuantity(newQuantity);
+        }
+        checkSingleton(cardID);
+        checkIdentity(card);
+        setViolation(Rule.BANNED, cardID, !card.getCommanderLegal());
+    }
+
+    /**
+     * This method checks a Card against the singleton rule. Cards with an
+     * alternate limit, and basic lands, may have any number of copies.
+     * @param cardID an Integer containing the ID number of the Card.
+     */
+    private void checkSingleton(int cardID) {
+        DeckCardEntry entry = entries.get(cardID);
+        if (entry == null) {
+            setViolation(Rule.SINGLETON, cardID, false);
+            return;
+        }
+        Card card = entry.getCard();
+        int copies = entry.getQuantity();
+        if (commander != null && commander.getCardID() == cardID) {
+            copies++;
+        }
+        boolean unlimited = card.getAlternateLimit()
+                || (card.getSuperTypes() != null && card.getSuperTypes().contains("Basic"));
+        setViolation(Rule.SINGLETON, cardID, copies > 1 && !unlimited);
+    }
+
+    /**
+     * This method checks a Card's colours against the commander's colour
+     * identity. Nothing is flagged until a commander has been chosen.
+     * @param card the Card to check.
+     */
+    private void checkIdentity(Card card) {
+        boolean outside = commander != null
+                && (card.getIdentityMask() & ~commander.getIdentityMask()) != 0;
+        setViolation(Rule.COLOUR_IDENTITY, card.getCardID(), outside);
+    }
+
+    /**
+     * This method removes a Card from every rule's set of violations.
+     * @param cardID an Integer containing the ID number of the Card.
+     */
+    private void clearViolations(int cardID) {
+        for (IntHashSet ruleViolations : violations) {
+            ruleViolations.remove(cardID);
+        }
+    }
+
+    /**
+     * This method records whether a Card breaks a rule.
+     * @param rule the Rule being checked.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param broken a Boolean which is true if the Card breaks the rule.
+     */
+    private void setViolation(Rule rule, int cardID, boolean broken) {
+        if (broken) {
+            violations[rule.ordinal()].add(cardID);
+        } else {
+            violations[rule.ordinal()].remove(cardID);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * This class is the DeckSignature Entity - the MinHash signature of one Deck's
+ * Cards, kept beside the Deck so that the DeckSimilarityIndex can be filled
+ * without reading every Deck's contents. It has its own table rather than a
+ * column on Deck, as Decks are written back whole by the screens, which would
+ * put back whatever signature they had read.
+ */
+@Entity
+public class DeckSignature {
+    @PrimaryKey
+    @ColumnInfo (name = "deck_ID")
+    private int deckID;
+
+    @ColumnInfo (name = "signature", typeAffinity = ColumnInfo.BLOB)
+    private byte[] signature;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckSignature() {}
+
+    /**
+     * This is the non-default constructor.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param signature an Array of Integers holding the Deck's MinHash signature.
+     */
+    public DeckSignature(int deckID, int[] signature) {
+        this.deckID = deckID;
+        this.signature = MinHash.encode(signature);
+    }
+
+    /**
+     * This method decodes the signature.
+     * @return an Array of Integers holding the signature, or null if it was
+     * written with a different number of hash functions.
+     */
+    public int[] toSignature() {
+        return MinHash.decode(signature);
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the signature field.
+     * @return an Array of Bytes holding the encoded signature.
+     */
+    public byte[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * This is the Mutator method for the deckID field.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void setDeckID(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Mutator method for the signature field.
+     * @param signature an Array of Bytes holding the encoded signature.
+     */
+    public void setSignature(byte[] signature) {
+        this.signature = signature;
+    }
+}
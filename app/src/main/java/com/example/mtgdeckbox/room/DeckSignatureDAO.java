@@ -0,0 +1,47 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * This class is the DAO for the DeckSignature Entity.
+ */
+@Dao
+public interface DeckSignatureDAO {
+
+    /* This statement is shared with the CardRepository, which reads it
+     * straight from a Cursor to build the DeckSimilarityIndex.
+     */
+    String SIGNATURE_ROWS = "SELECT deck_ID, signature FROM decksignature";
+
+    /**
+     * This method saves a Deck's signature, replacing any older one.
+     * @param signature the DeckSignature to be saved.
+     */
+    @Insert (onConflict = OnConflictStrategy.REPLACE)
+    void saveSignature(DeckSignature signature);
+
+    /**
+     * This method returns a Deck's signature.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return the DeckSignature, or null if the Deck has no Cards.
+     */
+    @Query("SELECT * FROM decksignature WHERE deck_ID = :deckID")
+    DeckSignature getSignature(int deckID);
+
+    /**
+     * This method deletes a Deck's signature.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    @Query("DELETE FROM decksignature WHERE deck_ID = :deckID")
+    void deleteSignature(int deckID);
+
+    /**
+     * This method deletes every signature. Used mostly for debugging and
+     * testing.
+     */
+    @Query("DELETE FROM decksignature")
+    void deleteAllSignatures();
+}
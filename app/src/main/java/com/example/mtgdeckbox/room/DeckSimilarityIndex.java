@@ -0,0 +1,137 @@
+package com.example.mtgdeckbox.room;
+
+import com.example.mtgdeckbox.IntHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class finds Decks similar to a given Deck without comparing it to every
+ * other Deck. Each Deck's MinHash signature is split into bands, and the Deck
+ * is filed in one bucket per band. Only the Decks sharing at least one bucket
+ * are compared, by the share of signature rows they agree on.
+ *
+ * Decks are filed again whenever their signature changes, so the index is
+ * never rebuilt. All methods are synchronized, as Decks are written from the
+ * database threads while the screens read from their own.
+ */
+public class DeckSimilarityIndex {
+    private final Map<Integer, int[]> signatures;
+    private final Map<Long, IntHashSet> buckets;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckSimilarityIndex() {
+        signatures = new HashMap<>();
+        buckets = new HashMap<>();
+    }
+
+    /**
+     * This method files a Deck under its current signature, taking it out of
+     * the buckets of its old one.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param signature the Deck's MinHash signature, or null if the Deck has
+     *                  no Cards or has been deleted.
+     */
+    public synchronized void setDeck(int deckID, int[] signature) {
+        int[] old = signature == null ? signatures.remove(deckID)
+                : signatures.put(deckID, signature.clone());
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            long newKey = signature == null ? 0 : MinHash.bandKey(signature, band);
+            if (old != null) {
+                long oldKey = MinHash.bandKey(old, band);
+                // Most edits leave most bands as they were.
+                if (signature != null && oldKey == newKey) {
+                    continue;
+                }
+                IntHashSet bucket = buckets.get(oldKey);
+                if (bucket != null) {
+                    bucket.remove(deckID);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(oldKey);
+                    }
+                }
+            }
+            if (signature != null) {
+                IntHashSet bucket = buckets.get(newKey);
+                if (bucket == null) {
+                    bucket = new IntHashSet(4);
+                    buckets.put(newKey, bucket);
+                }
+                bucket.add(deckID);
+            }
+        }
+    }
+
+    /**
+     * This method empties the index, for when every Deck has been deleted.
+     */
+    public synchronized void clear() {
+        signatures.clear();
+        buckets.clear();
+    }
+
+    /**
+     * This method returns the Decks most similar to a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param limit an Integer containing the most Decks to return.
+     * @param minSimilarity a Double containing the lowest estimated Jaccard
+     *                      similarity to return.
+     * @return an Array of Deck ID numbers, most similar first.
+     */
+    public synchronized int[] findSimilar(int deckID, int limit, double minSimilarity) {
+        int[] signature = signatures.get(deckID);
+        if (signature == null || limit <= 0) {
+            return new int[0];
+        }
+        IntHashSet seen = new IntHashSet();
+        seen.add(deckID);
+        TopK best = new TopK(limit);
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            IntHashSet bucket = buckets.get(MinHash.bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (int otherID : bucket.toArray()) {
+                if (seen.add(otherID)) {
+                    double similarity = MinHash.similarity(signature, signatures.get(otherID));
+                    if (similarity >= minSimilarity) {
+                        best.offer(otherID, similarity);
+                    }
+                }
+            }
+        }
+        return best.drainBestFirst();
+    }
+
+    /**
+     * This method estimates how similar two Decks are.
+     * @param deckID an Integer containing the ID number of one Deck.
+     * @param otherID an Integer containing the ID number of the other Deck.
+     * @return a Double between 0 and 1, or 0 if either Deck is not indexed.
+     */
+    public synchronized double getSimilarity(int deckID, int otherID) {
+        int[] signature = signatures.get(deckID);
+        int[] other = signatures.get(otherID);
+        return signature == null || other == null ? 0 : MinHash.similarity(signature, other);
+    }
+
+    /**
+     * This method returns the signature a Deck is filed under.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a copy of the Deck's signature, or null if it is not indexed.
+     */
+    public synchronized int[] getSignature(int deckID) {
+        int[] signature = signatures.get(deckID);
+        return signature == null ? null : signature.clone();
+    }
+
+    /**
+     * This method returns the number of Decks in the index.
+     * @return an Integer containing the number of Decks with a signature.
+     */
+    public synchronized int getDeckCount() {
+        return signatures.size();
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * This class is the DeckSnapshot Entity - the whole state of a Deck at one
+ * point in its history. The Cards are stored as a DeckState encodes them:
+ * sorted, with each ID number stored as the gap from the one before, so a
+ * 100 Card Deck takes a few hundred bytes.
+ *
+ * Snapshots without a name are taken automatically every few events, so that
+ * any version can be rebuilt by replaying only the events since the nearest
+ * one. Named snapshots are saved by the user, and hold the whole Deck, so they
+ * can be restored even after the events around them are gone.
+ */
+@Entity (indices = {@Index (value = {"deck_ID", "sequence"})})
+public class DeckSnapshot {
+    @PrimaryKey (autoGenerate = true)
+    private int snapshotID;
+
+    @ColumnInfo (name = "deck_ID")
+    private int deckID;
+
+    @ColumnInfo (name = "sequence")
+    private int sequence;
+
+    @ColumnInfo (name = "name")
+    private String name;
+
+    @ColumnInfo (name = "deckName")
+    private String deckName;
+
+    @ColumnInfo (name = "commanderID")
+    private int commanderID;
+
+    @ColumnInfo (name = "cards", typeAffinity = ColumnInfo.BLOB)
+    private byte[] cards;
+
+    @ColumnInfo (name = "time")
+    private long time;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckSnapshot() {}
+
+    /**
+     * This is the non-default constructor.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param sequence an Integer containing the number of the last event
+     *                 included in the snapshot.
+     * @param name a String containing the user's name for the snapshot, or
+     *             null for an automatic one.
+     * @param state the DeckState to be stored.
+     */
+    public DeckSnapshot(int deckID, int sequence, String name, DeckState state) {
+        this.deckID = deckID;
+        this.sequence = sequence;
+        this.name = name;
+        deckName = state.getDeckName();
+        commanderID = state.getCommanderID();
+        cards = state.encodeCards();
+        time = System.currentTimeMillis();
+    }
+
+    /**
+     * This method rebuilds the DeckState held in the snapshot.
+     * @return a new DeckState.
+     */
+    public DeckState toState() {
+        return DeckState.decode(deckName, commanderID, cards);
+    }
+
+    /**
+     * This is the Accessor method for the snapshotID field.
+     * @return an Integer containing the ID number of this snapshot.
+     */
+    public int getSnapshotID() {
+        return snapshotID;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the sequence field.
+     * @return an Integer containing the number of the last event included.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * This is the Accessor method for the name field.
+     * @return a String containing the user's name for the snapshot, or null
+     * for an automatic one.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * This is the Accessor method for the deckName field.
+     * @return a String containing the Deck's name when the snapshot was taken.
+     */
+    public String getDeckName() {
+        return deckName;
+    }
+
+    /**
+     * This is the Accessor method for the commanderID field.
+     * @return an Integer containing the ID number of the commander.
+     */
+    public int getCommanderID() {
+        return commanderID;
+    }
+
+    /**
+     * This is the Accessor method for the cards field.
+     * @return an Array of Bytes holding the encoded Cards.
+     */
+    public byte[] getCards() {
+        return cards;
+    }
+
+    /**
+     * This is the Accessor method for the time field.
+     * @return a Long containing when the snapshot was taken, in milliseconds
+     * since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * This is the Mutator method for the snapshotID field.
+     * @param snapshotID an Integer containing the ID number of this snapshot.
+     */
+    public void setSnapshotID(int snapshotID) {
+        this.snapshotID = snapshotID;
+    }
+
+    /**
+     * This is the Mutator method for the deckID field.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void setDeckID(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Mutator method for the sequence field.
+     * @param sequence an Integer containing the number of the last event
+     *                 included.
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * This is the Mutator method for the name field.
+     * @param name a String containing the user's name for the snapshot.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * This is the Mutator method for the deckName field.
+     * @param deckName a String containing the Deck's name.
+     */
+    public void setDeckName(String deckName) {
+        this.deckName = deckName;
+    }
+
+    /**
+     * This is the Mutator method for the commanderID field.
+     * @param commanderID an Integer containing the ID number of the commander.
+     */
+    public void setCommanderID(int commanderID) {
+        this.commanderID = commanderID;
+    }
+
+    /**
+     * This is the Mutator method for the cards field.
+     * @param cards an Array of Bytes holding the encoded Cards.
+     */
+    public void setCards(byte[] cards) {
+        this.cards = cards;
+    }
+
+    /**
+     * This is the Mutator method for the time field.
+     * @param time a Long containing when the snapshot was taken.
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+}
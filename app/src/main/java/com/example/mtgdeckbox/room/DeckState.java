@@ -0,0 +1,175 @@
+package com.example.mtgdeckbox.room;
+
+import com.example.mtgdeckbox.IntIntHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * This class holds the whole state of a Deck in memory - its name, commander
+ * and the quantity of every Card - so that DeckEvents can be replayed onto it
+ * to rebuild any version of the Deck.
+ *
+ * For DeckSnapshots the Cards are encoded as a sorted list of ID numbers, each
+ * stored as the gap from the one before as a variable-length integer, followed
+ * by its quantity. Neighbouring ID numbers are close, so most entries take two
+ * or three bytes.
+ */
+public class DeckState {
+    private String deckName;
+    private int commanderID;
+    private final IntIntHashMap quantities;
+
+    /**
+     * This is the non-default constructor.
+     * @param deckName a String containing the Deck's name.
+     * @param commanderID an Integer containing the ID number of the commander.
+     */
+    public DeckState(String deckName, int commanderID) {
+        this.deckName = deckName;
+        this.commanderID = commanderID;
+        quantities = new IntIntHashMap();
+    }
+
+    /**
+     * This method adds copies of a Card to the state.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param quantity an Integer containing the number of copies to add.
+     */
+    public void addCard(int cardID, int quantity) {
+        quantities.addTo(cardID, quantity);
+    }
+
+    /**
+     * This method replays an event onto the state.
+     * @param event the DeckEvent to replay.
+     * @param forwards a Boolean which is true to make the change, or false to
+     *                 undo it.
+     */
+    public void apply(DeckEvent event, boolean forwards) {
+        switch (event.getType()) {
+            case DeckEvent.COMMANDER:
+                commanderID = forwards ? event.getNewValue() : event.getOldValue();
+                break;
+            case DeckEvent.RENAME:
+                deckName = forwards ? event.getNewName() : event.getOldName();
+                break;
+            default:
+                int quantity = forwards ? event.getNewValue() : event.getOldValue();
+                quantities.addTo(event.getCardID(),
+                        quantity - quantities.get(event.getCardID()));
+                break;
+        }
+    }
+
+    /**
+     * This method returns the number of copies of a Card in the state.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return an Integer containing the quantity, or 0.
+     */
+    public int getQuantity(int cardID) {
+        return quantities.get(cardID);
+    }
+
+    /**
+     * This method returns the ID number of every Card in the state, in order.
+     * @return a sorted Array of Card ID numbers.
+     */
+    public int[] getCardIDs() {
+        int[] cardIDs = new int[quantities.size()];
+        int filled = 0;
+        for (int slot = 0; slot < quantities.slotCount(); slot++) {
+            if (quantities.isUsed(slot)) {
+                cardIDs[filled++] = quantities.keyAt(slot);
+            }
+        }
+        Arrays.sort(cardIDs);
+        return cardIDs;
+    }
+
+    /**
+     * This is the Accessor method for the deckName field.
+     * @return a String containing the Deck's name.
+     */
+    public String getDeckName() {
+        return deckName;
+    }
+
+    /**
+     * This is the Accessor method for the commanderID field.
+     * @return an Integer containing the ID number of the commander.
+     */
+    public int getCommanderID() {
+        return commanderID;
+    }
+
+    /**
+     * This method encodes the Cards for a DeckSnapshot.
+     * @return an Array of Bytes holding the encoded Cards.
+     */
+    public byte[] encodeCards() {
+        int[] cardIDs = getCardIDs();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(cardIDs.length * 3 + 2);
+        writeVarInt(out, cardIDs.length);
+        int previous = 0;
+        for (int cardID : cardIDs) {
+            // Sorted, so every gap is positive; the first ID number is the gap from 0.
+            writeVarInt(out, cardID - previous);
+            writeVarInt(out, quantities.get(cardID));
+            previous = cardID;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * This method rebuilds a DeckState from a DeckSnapshot's fields.
+     * @param deckName a String containing the Deck's name.
+     * @param commanderID an Integer containing the ID number of the commander.
+     * @param cards an Array of Bytes holding the Cards, from encodeCards().
+     * @return the decoded DeckState.
+     */
+    public static DeckState decode(String deckName, int commanderID, byte[] cards) {
+        DeckState state = new DeckState(deckName, commanderID);
+        int[] position = {0};
+        int count = readVarInt(cards, position);
+        int cardID = 0;
+        for (int i = 0; i < count; i++) {
+            cardID += readVarInt(cards, position);
+            state.addCard(cardID, readVarInt(cards, position));
+        }
+        return state;
+    }
+
+    /**
+     * This method writes a non-negative Integer seven bits at a time, lowest
+     * first, with the top bit of each byte set if more follow.
+     * @param out the ByteArrayOutputStream to write to.
+     * @param value a non-negative Integer.
+     */
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * This method reads an Integer written by writeVarInt().
+     * @param bytes an Array of Bytes to read from.
+     * @param position an Array whose only element holds the place to read
+     *                 from, which is moved past the Integer.
+     * @return the Integer read.
+     */
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class holds the statistics worked out for a Deck by the DeckAnalyzer.
+ * It cannot be changed once built, so the same DeckStats can be handed to the
+ * graphs tab again without copying or recomputing it.
+ */
+public final class DeckStats {
+    // The labels for each bucket of the arrays below.
+    public static final String[] CURVE_LABELS = {"0", "1", "2", "3", "4", "5",
+            "6", "7", "8", "9", "10", "10-plus"};
+    public static final String[] PIP_LABELS = {"W", "U", "B", "R", "G", "C"};
+    public static final String[] TYPE_LABELS = FacetIndex.Facet.TYPE.getLabels();
+    public static final String[] CATEGORY_LABELS = FacetIndex.Facet.CATEGORY.getLabels();
+
+    private final int totalCards;
+    private final int landCount;
+    private final int[] manaCurve;
+    private final int[] colourPips;
+    private final int[] typeCounts;
+    private final int[] categoryCounts;
+    private final double averageManaValue;
+    private final double averageManaValueWithoutLands;
+
+    /**
+     * This is the non-default constructor, used by the DeckAnalyzer. The
+     * arrays are kept, not copied, so they must not be changed afterwards.
+     * @param totalCards an Integer containing the number of Cards in the Deck.
+     * @param landCount an Integer containing the number of lands in the Deck.
+     * @param manaCurve an Array of non-land Card counts for each CURVE_LABELS bucket.
+     * @param colourPips an Array of mana symbol counts for each PIP_LABELS colour.
+     * @param typeCounts an Array of Card counts for each TYPE_LABELS type.
+     * @param categoryCounts an Array of Card counts for each CATEGORY_LABELS category.
+     * @param averageManaValue a Double containing the average mana value of
+     *                         every Card.
+     * @param averageManaValueWithoutLands a Double containing the average mana
+     *                                     value of the non-land Cards.
+     */
+    DeckStats(int totalCards, int landCount, int[] manaCurve, int[] colourPips,
+              int[] typeCounts, int[] categoryCounts, double averageManaValue,
+              double averageManaValueWithoutLands) {
+        this.totalCards = totalCards;
+        this.landCount = landCount;
+        this.manaCurve = manaCurve;
+        this.colourPips = colourPips;
+        this.typeCounts = typeCounts;
+        this.categoryCounts = categoryCounts;
+        this.averageManaValue = averageManaValue;
+        this.averageManaValueWithoutLands = averageManaValueWithoutLands;
+    }
+
+    /**
+     * This is the Accessor method for the averageManaValue field.
+     * @return a Double containing the average mana value of every Card.
+     */
+    public double getAverageManaValue() {
+        return averageManaValue;
+    }
+
+    /**
+     * This is the Accessor method for the averageManaValueWithoutLands field.
+     * @return a Double containing the average mana value of the non-land Cards.
+     */
+    public double getAverageManaValueWithoutLands() {
+        return averageManaValueWithoutLands;
+    }
+
+    /**
+     * This method returns the number of Cards in a category.
+     * @param category an Integer containing the index into CATEGORY_LABELS.
+     * @return an Integer containing the number of Cards in the category.
+     */
+    public int getCategoryCount(int category) {
+        return categoryCounts[category];
+    }
+
+    /**
+     * This method returns the number of mana symbols of a colour.
+     * @param colour an Integer containing the index into PIP_LABELS.
+     * @return an Integer containing the number of symbols of that colour.
+     */
+    public int getColourPips(int colour) {
+        return colourPips[colour];
+    }
+
+    /**
+     * This method returns the number of non-land Cards in a mana curve bucket.
+     * @param bucket an Integer containing the index into CURVE_LABELS.
+     * @return an Integer containing the number of Cards in the bucket.
+     */
+    public int getCurveCount(int bucket) {
+        return manaCurve[bucket];
+    }
+
+    /**
+     * This is the Accessor method for the landCount field.
+     * @return an Integer containing the number of lands in the Deck.
+     */
+    public int getLandCount() {
+        return landCount;
+    }
+
+    /**
+     * This is the Accessor method for the totalCards field.
+     * @return an Integer containing the number of Cards in the Deck.
+     */
+    public int getTotalCards() {
+        return totalCards;
+    }
+
+    /**
+     * This method returns the number of Cards of a type.
+     * @param type an Integer containing the index into TYPE_LABELS.
+     * @return an Integer containing the number of Cards of that type.
+     */
+    public int getTypeCount(int type) {
+        return typeCounts[type];
+    }
+}
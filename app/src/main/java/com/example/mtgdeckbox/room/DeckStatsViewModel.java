@@ -0,0 +1,133 @@
+package com.example.mtgdeckbox.room;
+
+import android.app.Application;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is the ViewModel which keeps the statistics for the Deck being
+ * edited. It is scoped to the DeckViewsActivity, so the statistics survive
+ * the graphs tab being destroyed and recreated as the user switches tabs, and
+ * are only worked out again when the Deck's contents change. It also keeps
+ * the ManaBaseCalculator for the mana base tab, which is updated with only
+ * the Cards that changed.
+ */
+public class DeckStatsViewModel extends AndroidViewModel {
+    private final CardRepository repository;
+    private final ExecutorService analysisExecutor;
+    private final AtomicInteger generation;
+    private final AtomicInteger manaBaseGeneration;
+    private MediatorLiveData<DeckStats> stats;
+    private MediatorLiveData<ManaBase> manaBase;
+    private int deckID;
+    private int manaBaseDeckID;
+
+    /**
+     * This is the non-default constructor.
+     * @param application an Application object representing the Application.
+     */
+    public DeckStatsViewModel(Application application) {
+        super(application);
+        repository = new CardRepository(application);
+        // A single thread, so the analyses finish in the order they started.
+        analysisExecutor = Executors.newSingleThreadExecutor();
+        generation = new AtomicInteger();
+        manaBaseGeneration = new AtomicInteger();
+    }
+
+    /**
+     * This method returns the statistics for a Deck, as a LiveData. The Deck
+     * is analysed off the main thread each time its contents change.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData containing the DeckStats for the Deck.
+     */
+    public LiveData<DeckStats> getDeckStats(int deckID) {
+        if (stats != null && this.deckID == deckID) {
+            return stats;
+        }
+        this.deckID = deckID;
+        final MediatorLiveData<DeckStats> result = new MediatorLiveData<>();
+        result.addSource(repository.getLiveDeckEntries(deckID),
+                new Observer<List<DeckCardEntry>>() {
+            @Override
+            public void onChanged(@Nullable final List<DeckCardEntry> entries) {
+                if (entries == null) {
+                    return;
+                }
+                final int analysis = generation.incrementAndGet();
+                analysisExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        DeckStats deckStats = DeckAnalyzer.analyze(entries);
+                        // Drop the result if the Deck has changed again since.
+                        if (analysis == generation.get()) {
+                            result.postValue(deckStats);
+                        }
+                    }
+                });
+            }
+        });
+        stats = result;
+        return stats;
+    }
+
+    /**
+     * This method returns the recommended mana base for a Deck, as a LiveData.
+     * Each time the Deck's contents change, only the Cards which changed are
+     * counted again, off the main thread.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a LiveData containing the ManaBase for the Deck.
+     */
+    public LiveData<ManaBase> getManaBase(int deckID) {
+        if (manaBase != null && manaBaseDeckID == deckID) {
+            return manaBase;
+        }
+        manaBaseDeckID = deckID;
+        // Only touched on the analysis thread.
+        final ManaBaseCalculator deckCalculator = new ManaBaseCalculator();
+        final MediatorLiveData<ManaBase> result = new MediatorLiveData<>();
+        result.addSource(repository.getLiveDeckEntries(deckID),
+                new Observer<List<DeckCardEntry>>() {
+            @Override
+            public void onChanged(@Nullable final List<DeckCardEntry> entries) {
+                if (entries == null) {
+                    return;
+                }
+                final int analysis = manaBaseGeneration.incrementAndGet();
+                analysisExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        /* A newer list is on its way, and the calculator compares
+                         * against whichever list it saw last, so skip this one.
+                         */
+                        if (analysis != manaBaseGeneration.get()) {
+                            return;
+                        }
+                        deckCalculator.update(entries);
+                        result.postValue(deckCalculator.recommend());
+                    }
+                });
+            }
+        });
+        manaBase = result;
+        return manaBase;
+    }
+
+    /**
+     * This method stops the analysis thread when the ViewModel is cleared.
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        analysisExecutor.shutdownNow();
+    }
+}
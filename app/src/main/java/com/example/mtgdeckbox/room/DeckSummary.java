@@ -0,0 +1,157 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * This class holds one row of the deck list: a Deck's name together with the
+ * name of its commander, how many Cards it holds and when it last changed.
+ * It is filled in by a single aggregate query, so the list never has to look
+ * up each Deck's commander or contents separately.
+ */
+public class DeckSummary {
+    /* The columns of a DeckSummary. The card count is summed per Deck, so only
+     * the rows on the current page are ever counted.
+     */
+    public static final String COLUMNS = "deck.deckID, deck.deckName, deck.lastModified, " +
+            "card.card_name AS commanderName, " +
+            "(SELECT IFNULL(SUM(deckcards.quantity), 0) FROM deckcards " +
+            "WHERE deckcards.deck_ID = deck.deckID) AS cardCount " +
+            "FROM deck LEFT JOIN card ON card.cardID = deck.commanderID";
+
+    /**
+     * This enum describes the orders the deck list can be sorted in.
+     */
+    public enum Sort {
+        NAME,
+        RECENT,
+        SIZE
+    }
+
+    @ColumnInfo (name = "deckID")
+    private int deckID;
+
+    @ColumnInfo (name = "deckName")
+    @NonNull
+    private String deckName;
+
+    @ColumnInfo (name = "commanderName")
+    private String commanderName;
+
+    @ColumnInfo (name = "cardCount")
+    private int cardCount;
+
+    @ColumnInfo (name = "lastModified")
+    private long lastModified;
+
+    /**
+     * This is the default constructor.
+     */
+    public DeckSummary() {
+        deckName = "";
+    }
+
+    /**
+     * This is the Accessor method for the cardCount field.
+     * @return an Integer containing the total quantity of Cards in the Deck.
+     */
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * This is the Accessor method for the commanderName field.
+     * @return a String containing the name of the Deck's commander, or null if
+     * no commander has been chosen.
+     */
+    public String getCommanderName() {
+        return commanderName;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the Deck.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the deckName field.
+     * @return a String containing the name of the Deck.
+     */
+    @NonNull
+    public String getDeckName() {
+        return deckName;
+    }
+
+    /**
+     * This is the Accessor method for the lastModified field.
+     * @return a Long containing the time the Deck was last changed, in
+     * milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * This method turns the text typed into the deck list's filter box into a
+     * LIKE pattern which matches names starting with it.
+     * @param prefix a String containing the typed text.
+     * @return a String containing the escaped prefix followed by '%'.
+     */
+    public static String likePattern(String prefix) {
+        StringBuilder pattern = new StringBuilder();
+        String trimmed = prefix == null ? "" : prefix.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * This is the Mutator method for the cardCount field.
+     * @param cardCount an Integer containing the total quantity of Cards in
+     *                  the Deck.
+     */
+    public void setCardCount(int cardCount) {
+        this.cardCount = cardCount;
+    }
+
+    /**
+     * This is the Mutator method for the commanderName field.
+     * @param commanderName a String containing the name of the Deck's commander.
+     */
+    public void setCommanderName(String commanderName) {
+        this.commanderName = commanderName;
+    }
+
+    /**
+     * This is the Mutator method for the deckID field.
+     * @param deckID an Integer containing the ID number of the Deck.
+     */
+    public void setDeckID(int deckID) {
+        this.deckID = deckID;
+    }
+
+    /**
+     * This is the Mutator method for the deckName field.
+     * @param deckName a String containing the name of the Deck.
+     */
+    public void setDeckName(@NonNull String deckName) {
+        this.deckName = deckName;
+    }
+
+    /**
+     * This is the Mutator method for the lastModified field.
+     * @param lastModified a Long containing the time the Deck was last changed,
+     *                     in milliseconds since the epoch.
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+}
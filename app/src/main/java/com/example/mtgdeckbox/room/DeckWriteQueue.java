@@ -0,0 +1,248 @@
+package com.example.mtgdeckbox.room;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import com.example.mtgdeckbox.room.PriorityDatabaseExecutor.Priority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class queues the writes made to each Deck, so that they always run in
+ * the order they were made, no matter which thread made them.
+ *
+ * SQLite only lets one write run at a time, so rather than one queue per
+ * Deck there is one queue for every Deck. That keeps each Deck's writes in
+ * order, and also orders writes which touch every Deck, such as clean-ups,
+ * against them.
+ *
+ * Writes are collected for a short window and then run together in a single
+ * transaction, so a burst of taps only invalidates the Deck's LiveData once.
+ * Each write is all or nothing: if one write in a batch fails, the batch is
+ * rolled back and every write in it is run again in its own transaction, so
+ * only the failing write is lost, and none of its steps are kept. Anything
+ * kept outside the database, such as an in-memory index, cannot be rolled
+ * back, so a write hands changes to it to afterCommit() instead, and they are
+ * only made once the write has been committed.
+ */
+public class DeckWriteQueue {
+    // The key used for writes which touch every Deck, such as clean-ups.
+    public static final int ALL_DECKS = Integer.MIN_VALUE;
+
+    // How long to wait for more writes before running a batch.
+    private static final long COALESCE_WINDOW_MS = 50;
+
+    private final RoomDatabase database;
+    private final PriorityDatabaseExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private List<Write> pending;
+    private boolean scheduled;
+    // The write being run, which is only ever touched by the thread running it.
+    private Write running;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private final Runnable scheduleDrain = new Runnable() {
+        @Override
+        public void run() {
+            executor.execute(Priority.INTERACTIVE, drainTask);
+        }
+    };
+
+    /**
+     * This is the non-default constructor.
+     * @param database the RoomDatabase which the writes are made to.
+     * @param executor the PriorityDatabaseExecutor which runs the writes.
+     */
+    public DeckWriteQueue(RoomDatabase database, PriorityDatabaseExecutor executor) {
+        this.database = database;
+        this.executor = executor;
+        // The timer thread only ever waits, so it must not keep the process alive.
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "DeckWriteQueue timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        pending = new ArrayList<>();
+        scheduled = false;
+    }
+
+    /**
+     * This method queues a write for a Deck.
+     * @param deckID an Integer containing the ID number of the Deck being
+     *               written to, or ALL_DECKS.
+     * @param write a Runnable which makes the write through a DAO.
+     * @return a CompletableFuture which completes once the write has been
+     * committed, or completes exceptionally if it failed.
+     */
+    public CompletableFuture<Void> enqueue(int deckID, Runnable write) {
+        Write queued = new Write(deckID, write);
+        add(queued);
+        return queued.done;
+    }
+
+    /**
+     * This method returns a future which completes once every write queued
+     * before it has been committed, or has failed.
+     * @return a CompletableFuture which completes when the writes are done.
+     */
+    public CompletableFuture<Void> flush() {
+        return enqueue(ALL_DECKS, null);
+    }
+
+    /**
+     * This method delays a change outside the database, such as updating an
+     * in-memory index, until the write making it has been committed. If the
+     * write is rolled back the change is never made, and if the write is run
+     * again it must ask again.
+     * @param change a Runnable which makes the change.
+     * @throws IllegalStateException if it is not called from inside a write.
+     */
+    public void afterCommit(Runnable change) {
+        if (running == null) {
+            throw new IllegalStateException("afterCommit must be called from inside a write");
+        }
+        running.afterCommit.add(change);
+    }
+
+    /**
+     * This method adds a write to the queue, and schedules a batch if one is
+     * not already waiting. At most one batch is scheduled or running at a
+     * time, which keeps them in order.
+     * @param write the Write to add.
+     */
+    private synchronized void add(Write write) {
+        pending.add(write);
+        if (!scheduled) {
+            scheduled = true;
+            scheduler.schedule(scheduleDrain, COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This method runs every pending write in one transaction.
+     */
+    private void drain() {
+        final List<Write> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        try {
+            database.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    for (Write write : batch) {
+                        runWrite(write);
+                    }
+                }
+            });
+            for (Write write : batch) {
+                committed(write);
+            }
+        }
+        catch (RuntimeException e) {
+            // The whole batch was rolled back, so run each write on its own.
+            for (final Write write : batch) {
+                try {
+                    database.runInTransaction(new Runnable() {
+                        @Override
+                        public void run() {
+                            runWrite(write);
+                        }
+                    });
+                    committed(write);
+                }
+                catch (RuntimeException writeFailed) {
+                    Log.d("DB ERROR:", "Could not write to deck " + write.deckID + "!");
+                    write.done.completeExceptionally(writeFailed);
+                }
+            }
+        }
+
+        // Writes which arrived while we ran go straight into the next batch.
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                scheduled = false;
+            } else {
+                executor.execute(Priority.INTERACTIVE, drainTask);
+            }
+        }
+    }
+
+    /**
+     * This method runs one write, collecting the changes it hands to
+     * afterCommit(). Any collected by an earlier run which was rolled back
+     * are forgotten.
+     * @param write the Write to run.
+     */
+    private void runWrite(Write write) {
+        write.afterCommit.clear();
+        running = write;
+        try {
+            write.run();
+        }
+        finally {
+            running = null;
+        }
+    }
+
+    /**
+     * This method makes the changes a committed write handed to
+     * afterCommit(), and then completes its future.
+     * @param write the Write which has been committed.
+     */
+    private void committed(Write write) {
+        for (Runnable change : write.afterCommit) {
+            try {
+                change.run();
+            }
+            catch (RuntimeException e) {
+                Log.d("DB ERROR:", "Could not update after writing deck " + write.deckID + "!");
+            }
+        }
+        write.afterCommit.clear();
+        write.done.complete(null);
+    }
+
+    /**
+     * This class holds a single queued write, or a marker for flush(), and the
+     * future which completes once it is done.
+     */
+    private static class Write implements Runnable {
+        private final int deckID;
+        private final Runnable write;
+        private final CompletableFuture<Void> done;
+        private final List<Runnable> afterCommit;
+
+        Write(int deckID, Runnable write) {
+            this.deckID = deckID;
+            this.write = write;
+            this.done = new CompletableFuture<>();
+            this.afterCommit = new ArrayList<>();
+        }
+
+        @Override
+        public void run() {
+            if (write != null) {
+                write.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.mtgdeckbox.room;
+
+import com.example.mtgdeckbox.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class reads and writes plain-text decklists, in the format most deck
+ * sites and MTG Arena use:
+ *
+ *     Commander
+ *     1 Atraxa, Praetors' Voice
+ *
+ *     Deck
+ *     1x Sol Ring (C21) 263
+ *     1 Arcane Signet
+ *
+ * Quantities may be followed by an 'x', and set codes, collector numbers and
+ * markers such as *F* after a name are ignored. Lines before any heading are
+ * part of the Deck, and sideboard or maybeboard sections are skipped, as a
+ * Commander Deck has no sideboard.
+ */
+public class Decklist {
+    // The section headings which are recognised, lower cased.
+    private static final String[] COMMANDER_HEADINGS = {"commander", "commanders"};
+    private static final String[] DECK_HEADINGS = {"deck", "main", "mainboard", "main deck"};
+    private static final String[] SKIPPED_HEADINGS = {"sideboard", "maybeboard",
+            "considering", "companion", "tokens"};
+
+    // The most copies of a Card one line can add, so a typo cannot overflow.
+    private static final int MAX_QUANTITY = 999;
+
+    // The longest set code that will be stripped from the end of a name.
+    private static final int MAX_SET_CODE = 6;
+
+    private final List<Entry> entries;
+    private final List<String> skippedLines;
+
+    /**
+     * This is the non-default constructor.
+     * @param entries a List of the Entries read from the decklist.
+     * @param skippedLines a List of the lines which were skipped.
+     */
+    private Decklist(List<Entry> entries, List<String> skippedLines) {
+        this.entries = entries;
+        this.skippedLines = skippedLines;
+    }
+
+    /**
+     * This is the Accessor method for the entries field.
+     * @return a List of the Entries read from the decklist, in order.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * This is the Accessor method for the skippedLines field.
+     * @return a List of Strings containing each line from a skipped section.
+     */
+    public List<String> getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * This method reads a plain-text decklist.
+     * @param text a String containing the decklist, one Card per line.
+     * @return the Decklist read from the text.
+     */
+    public static Decklist parse(String text) {
+        List<Entry> entries = new ArrayList<>();
+        List<String> skippedLines = new ArrayList<>();
+        boolean inCommander = false;
+        boolean inSkipped = false;
+
+        String[] lines = text.split("\r?\n");
+        for (int lineNumber = 1; lineNumber <= lines.length; lineNumber++) {
+            String line = lines[lineNumber - 1].trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            // Headings change which section the following lines belong to.
+            String heading = heading(line);
+            if (heading != null) {
+                inCommander = contains(COMMANDER_HEADINGS, heading);
+                inSkipped = contains(SKIPPED_HEADINGS, heading);
+                continue;
+            }
+            if (line.startsWith("SB:")) {
+                skippedLines.add(line);
+                continue;
+            }
+            if (inSkipped) {
+                skippedLines.add(line);
+                continue;
+            }
+
+            // Read the quantity, if there is one, and an optional 'x' after it.
+            int quantity = 0;
+            int i = 0;
+            while (i < line.length() && Character.isDigit(line.charAt(i))) {
+                quantity = Math.min(MAX_QUANTITY, quantity * 10 + (line.charAt(i) - '0'));
+                i++;
+            }
+            if (i == 0) {
+                quantity = 1;
+            } else if (i < line.length() && (line.charAt(i) == 'x' || line.charAt(i) == 'X')) {
+                i++;
+            }
+
+            boolean isCommander = inCommander || line.contains("*CMDR*");
+            String name = stripPrinting(line.substring(i).trim());
+            if (quantity > 0 && !name.isEmpty()) {
+                entries.add(new Entry(lineNumber, quantity, name, isCommander));
+            }
+        }
+        return new Decklist(entries, skippedLines);
+    }
+
+    /**
+     * This method writes a Deck as a plain-text decklist, which parse() reads
+     * back in. Cards are listed by name.
+     * @param commander the Deck's commander, or null if it has none.
+     * @param deck a List of DeckCardEntries, one for each Card in the Deck.
+     * @return a String containing the decklist.
+     */
+    public static String format(Card commander, List<DeckCardEntry> deck) {
+        List<DeckCardEntry> sorted = new ArrayList<>(deck);
+        Collections.sort(sorted, new Comparator<DeckCardEntry>() {
+            @Override
+            public int compare(DeckCardEntry a, DeckCardEntry b) {
+                return a.getCard().getName().compareToIgnoreCase(b.getCard().getName());
+            }
+        });
+
+        StringBuilder text = new StringBuilder(sorted.size() * 24);
+        if (commander != null) {
+            text.append("Commander\n1 ").append(commander.getName()).append("\n\n");
+        }
+        text.append("Deck\n");
+        for (int i = 0; i < sorted.size(); i++) {
+            text.append(sorted.get(i).getQuantity()).append(' ')
+                    .append(sorted.get(i).getCard().getName()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * This method turns the decklist into Cards, adding up the quantities of
+     * any Card listed more than once. Lines naming no known Card are reported,
+     * along with the closest known name.
+     * @param index a CardNameIndex over every Card in the database.
+     * @return a DecklistImport holding the Cards, the commander and the problems.
+     */
+    public DecklistImport resolve(CardNameIndex index) {
+        IntIntHashMap quantities = new IntIntHashMap(entries.size());
+        List<Integer> order = new ArrayList<>(entries.size());
+        List<String> problems = new ArrayList<>();
+        int commanderID = -1;
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int cardID = index.find(entry.getName());
+            if (cardID < 0) {
+                String suggestion = index.suggest(entry.getName());
+                problems.add(suggestion == null
+                        ? "Line " + entry.getLineNumber() + ": unknown card \""
+                                + entry.getName() + "\""
+                        : "Line " + entry.getLineNumber() + ": unknown card \""
+                                + entry.getName() + "\" (did you mean " + suggestion + "?)");
+                continue;
+            }
+
+            // The first commander leads the Deck; it does not count as a Deck Card.
+            if (entry.getCommander() && commanderID < 0) {
+                commanderID = cardID;
+                continue;
+            }
+            if (quantities.addTo(cardID, entry.getQuantity()) == entry.getQuantity()) {
+                order.add(cardID);
+            }
+        }
+        for (String line : skippedLines) {
+            problems.add("Skipped \"" + line + "\"");
+        }
+
+        int[] cardIDs = new int[order.size()];
+        int[] counts = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            cardIDs[i] = order.get(i);
+            counts[i] = quantities.get(cardIDs[i]);
+        }
+        return new DecklistImport(commanderID, cardIDs, counts, problems);
+    }
+
+    /**
+     * This method checks if a line is a section heading.
+     * @param line a String containing a trimmed line of the decklist.
+     * @return a String containing the lower cased heading, or null if the line
+     * is not a heading.
+     */
+    private static String heading(String line) {
+        String text = line;
+        if (text.startsWith("//") || text.startsWith("#")) {
+            text = text.substring(text.startsWith("#") ? 1 : 2).trim();
+        } else if (Character.isDigit(text.charAt(0))) {
+            return null;
+        }
+        if (text.endsWith(":")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+        text = text.toLowerCase();
+
+        // Comments which are not known headings are ignored, but kept as headings.
+        if (contains(COMMANDER_HEADINGS, text) || contains(DECK_HEADINGS, text)
+                || contains(SKIPPED_HEADINGS, text) || line.startsWith("//")
+                || line.startsWith("#")) {
+            return text;
+        }
+        return null;
+    }
+
+    /**
+     * This method strips the printing details which deck sites add after a
+     * Card name, such as "(C21) 263" or "*F*".
+     * @param name a String containing a Card name and any printing details.
+     * @return a String containing only the Card name.
+     */
+    private static String stripPrinting(String name) {
+        String stripped = name;
+
+        // Drop markers such as *F* and *CMDR* from the end.
+        while (stripped.endsWith("*")) {
+            int start = stripped.lastIndexOf('*', stripped.length() - 2);
+            if (start < 0) {
+                break;
+            }
+            stripped = stripped.substring(0, start).trim();
+        }
+
+        // Drop a set code in brackets, and the collector number after it.
+        int open = stripped.lastIndexOf(" (");
+        if (open > 0) {
+            int close = stripped.indexOf(')', open);
+            if (close > open + 2 && close - open - 2 <= MAX_SET_CODE
+                    && stripped.indexOf(' ', close + 2) < 0
+                    && isSetCode(stripped, open + 2, close)) {
+                stripped = stripped.substring(0, open).trim();
+            }
+        }
+        return stripped;
+    }
+
+    /**
+     * This method checks if part of a String could be a set code.
+     * @param text a String.
+     * @param start an Integer containing the first character to check.
+     * @param end an Integer containing the character after the last to check.
+     * @return a Boolean which is true if every character is a letter or digit.
+     */
+    private static boolean isSetCode(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method checks if an Array of Strings holds a String.
+     * @param values an Array of Strings.
+     * @param value a String to look for.
+     * @return a Boolean which is true if the value is in the Array.
+     */
+    private static boolean contains(String[] values, String value) {
+        for (String candidate : values) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This class is one Card line of a decklist.
+     */
+    public static class Entry {
+        private final int lineNumber;
+        private final int quantity;
+        private final String name;
+        private final boolean commander;
+
+        /**
+         * This is the non-default constructor.
+         * @param lineNumber an Integer containing the line the Card was on,
+         *                   counting from 1.
+         * @param quantity an Integer containing the number of copies.
+         * @param name a String containing the Card name.
+         * @param commander a Boolean which is true if the Card is the commander.
+         */
+        public Entry(int lineNumber, int quantity, String name, boolean commander) {
+            this.lineNumber = lineNumber;
+            this.quantity = quantity;
+            this.name = name;
+            this.commander = commander;
+        }
+
+        /**
+         * This is the Accessor method for the lineNumber field.
+         * @return an Integer containing the line the Card was on.
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * This is the Accessor method for the quantity field.
+         * @return an Integer containing the number of copies.
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * This is the Accessor method for the name field.
+         * @return a String containing the Card name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * This is the Accessor method for the commander field.
+         * @return a Boolean which is true if the Card is the commander.
+         */
+        public boolean getCommander() {
+            return commander;
+        }
+    }
+}
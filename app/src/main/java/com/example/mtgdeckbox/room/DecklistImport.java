@@ -0,0 +1,95 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.List;
+
+/**
+ * This class holds the outcome of importing a plain-text decklist: the Cards
+ * it named, the commander, and a line for every problem found, so the user
+ * can see what was left out.
+ */
+public class DecklistImport {
+    private int deckID;
+    private final int commanderID;
+    private final int[] cardIDs;
+    private final int[] quantities;
+    private final List<String> problems;
+
+    /**
+     * This is the non-default constructor.
+     * @param commanderID an Integer containing the ID number of the commander,
+     *                    or -1 if the decklist named none.
+     * @param cardIDs an Array of the ID numbers of the Cards, in list order.
+     * @param quantities an Array of the quantity of each Card in cardIDs.
+     * @param problems a List of Strings describing each line left out.
+     */
+    public DecklistImport(int commanderID, int[] cardIDs, int[] quantities,
+                          List<String> problems) {
+        this.deckID = -1;
+        this.commanderID = commanderID;
+        this.cardIDs = cardIDs;
+        this.quantities = quantities;
+        this.problems = problems;
+    }
+
+    /**
+     * This is the Accessor method for the deckID field.
+     * @return an Integer containing the ID number of the new Deck, or -1 if
+     * it has not been written yet.
+     */
+    public int getDeckID() {
+        return deckID;
+    }
+
+    /**
+     * This is the Accessor method for the commanderID field.
+     * @return an Integer containing the ID number of the commander, or -1.
+     */
+    public int getCommanderID() {
+        return commanderID;
+    }
+
+    /**
+     * This is the Accessor method for the cardIDs field.
+     * @return an Array of the ID numbers of the Cards.
+     */
+    public int[] getCardIDs() {
+        return cardIDs;
+    }
+
+    /**
+     * This is the Accessor method for the quantities field.
+     * @return an Array of the quantity of each Card.
+     */
+    public int[] getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * This is the Accessor method for the problems field.
+     * @return a List of Strings describing each line left out.
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * This method counts every copy of every Card imported, not including the
+     * commander.
+     * @return an Integer containing the number of Cards.
+     */
+    public int getCardCount() {
+        int total = 0;
+        for (int quantity : quantities) {
+            total += quantity;
+        }
+        return total;
+    }
+
+    /**
+     * This is the Mutator method for the deckID field.
+     * @param deckID an Integer containing the ID number of the new Deck.
+     */
+    public void setDeckID(int deckID) {
+        this.deckID = deckID;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is an in-memory index over the card catalogue, used to filter the
+ * card picker by several facets at once without going back to the database.
+ *
+ * Cards are numbered by their position in rank order, and each facet value
+ * keeps a BitSet of the positions of the Cards which have it. A filter is an
+ * OR of the chosen values within each facet, and an AND across facets, so
+ * every chip toggle is a handful of word-wide bit operations.
+ */
+public class FacetIndex {
+
+    /**
+     * This enum describes the facets which the catalogue can be filtered by.
+     */
+    public enum Facet {
+        TYPE(new String[] {"Creature", "Instant", "Sorcery", "Artifact",
+                "Enchantment", "Planeswalker", "Land"}),
+        MANA_VALUE(new String[] {"0", "1", "2", "3", "4", "5", "6", "7+"}),
+        COLOUR(new String[] {"W", "U", "B", "R", "G", "Colourless"}),
+        CATEGORY(new String[] {"Ramp", "Draw", "Removal", "Board Wipe"}),
+        COMMANDER(new String[] {"Commander Legal"});
+
+        private final String[] labels;
+
+        Facet(String[] labels) {
+            this.labels = labels;
+        }
+
+        /**
+         * This is the Accessor method for the labels field.
+         * @return an Array of Strings naming each value of the facet.
+         */
+        public String[] getLabels() {
+            return labels.clone();
+        }
+
+        /**
+         * This method returns the number of values the facet has.
+         * @return an Integer containing the number of values.
+         */
+        public int size() {
+            return labels.length;
+        }
+    }
+
+    // The highest mana value with its own chip. Anything above shares the last one.
+    private static final int MAX_MANA_VALUE = 7;
+
+    private final CardSummary[] cards;
+    private final BitSet[][] bits;
+
+    /**
+     * This is the non-default constructor, used by the Builder.
+     * @param cards an Array of CardSummaries, in rank order.
+     * @param bits an Array of BitSets for each value of each facet.
+     */
+    private FacetIndex(CardSummary[] cards, BitSet[][] bits) {
+        this.cards = cards;
+        this.bits = bits;
+    }
+
+    /**
+     * This method filters the catalogue.
+     * @param selected an Array with one entry per Facet, in ordinal order. Each
+     *                 entry has bit i set if value i of that facet is chosen.
+     *                 A facet with no values chosen does not filter.
+     * @return a Result with the matching Cards and the count for each value.
+     */
+    public Result filter(int[] selected) {
+        Facet[] facets = Facet.values();
+        BitSet[] facetMatches = new BitSet[facets.length];
+        for (int f = 0; f < facets.length; f++) {
+            facetMatches[f] = union(f, selected[f]);
+        }
+
+        BitSet matches = intersect(facetMatches, -1);
+
+        /* The count for each value is how many Cards would match if it were
+         * the only value chosen in its facet, keeping the other facets' filters.
+         */
+        int[][] counts = new int[facets.length][];
+        BitSet scratch = new BitSet(cards.length);
+        for (int f = 0; f < facets.length; f++) {
+            BitSet others = intersect(facetMatches, f);
+            counts[f] = new int[facets[f].size()];
+            for (int v = 0; v < counts[f].length; v++) {
+                scratch.clear();
+                scratch.or(others);
+                scratch.and(bits[f][v]);
+                counts[f][v] = scratch.cardinality();
+            }
+        }
+
+        // Walk the matching positions, which are already in rank order.
+        List<CardSummary> results = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            results.add(cards[i]);
+        }
+        return new Result(results, counts);
+    }
+
+    /**
+     * This method returns every Card in the index.
+     * @return an unmodifiable List of CardSummaries, in rank order.
+     */
+    public List<CardSummary> getCards() {
+        return Collections.unmodifiableList(Arrays.asList(cards));
+    }
+
+    /**
+     * This method returns the number of Cards in the index.
+     * @return an Integer containing the number of Cards.
+     */
+    public int size() {
+        return cards.length;
+    }
+
+    /**
+     * This method combines the chosen values of a facet.
+     * @param facet an Integer containing the ordinal of the facet.
+     * @param mask an Integer with a bit set for each chosen value.
+     * @return a BitSet of every Card with any chosen value, or null if no
+     *         value is chosen.
+     */
+    private BitSet union(int facet, int mask) {
+        if (mask == 0) {
+            return null;
+        }
+        BitSet union = new BitSet(cards.length);
+        for (int v = 0; v < bits[facet].length; v++) {
+            if ((mask & (1 << v)) != 0) {
+                union.or(bits[facet][v]);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * This method combines the filters of every facet but one.
+     * @param facetMatches an Array of BitSets for each facet, or null where a
+     *                     facet does not filter.
+     * @param skip an Integer containing the ordinal of the facet to leave out,
+     *             or -1 to combine them all.
+     * @return a BitSet of every Card matching the combined filters.
+     */
+    private BitSet intersect(BitSet[] facetMatches, int skip) {
+        BitSet result = new BitSet(cards.length);
+        result.set(0, cards.length);
+        for (int f = 0; f < facetMatches.length; f++) {
+            if (f != skip && facetMatches[f] != null) {
+                result.and(facetMatches[f]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This class holds the outcome of filtering the index.
+     */
+    public static class Result {
+        private final List<CardSummary> cards;
+        private final int[][] counts;
+
+        /**
+         * This is the non-default constructor.
+         * @param cards a List of the matching CardSummaries, in rank order.
+         * @param counts an Array of counts for each value of each facet.
+         */
+        public Result(List<CardSummary> cards, int[][] counts) {
+            this.cards = cards;
+            this.counts = counts;
+        }
+
+        /**
+         * This is the Accessor method for the cards field.
+         * @return a List of the matching CardSummaries, in rank order.
+         */
+        public List<CardSummary> getCards() {
+            return cards;
+        }
+
+        /**
+         * This method returns the count for a value of a facet.
+         * @param facet the Facet the value belongs to.
+         * @param value an Integer containing the index of the value.
+         * @return an Integer containing the number of Cards which would match
+         * with that value chosen.
+         */
+        public int getCount(Facet facet, int value) {
+            return counts[facet.ordinal()][value];
+        }
+    }
+
+    /**
+     * This class builds a FacetIndex one Card at a time. Cards must be added
+     * in rank order.
+     */
+    public static class Builder {
+        private final List<CardSummary> cards;
+        private final BitSet[][] bits;
+
+        /**
+         * This is the default constructor.
+         */
+        public Builder() {
+            cards = new ArrayList<>();
+            Facet[] facets = Facet.values();
+            bits = new BitSet[facets.length][];
+            for (int f = 0; f < facets.length; f++) {
+                bits[f] = new BitSet[facets[f].size()];
+                for (int v = 0; v < bits[f].length; v++) {
+                    bits[f][v] = new BitSet();
+                }
+            }
+        }
+
+        /**
+         * This method adds a Card to the index.
+         * @param card a CardSummary for the Card.
+         * @param manaValue an Integer containing the Card's mana value.
+         * @param categories a String containing the Card's categories.
+         * @param commanderLegal a Boolean which is true if the Card is legal
+         *                       in Commander.
+         */
+        public void add(CardSummary card, int manaValue, String categories,
+                        boolean commanderLegal) {
+            int position = cards.size();
+            cards.add(card);
+
+            String types = card.getTypes();
+            String[] typeLabels = Facet.TYPE.labels;
+            for (int v = 0; v < typeLabels.length; v++) {
+                if (types.contains(typeLabels[v])) {
+                    set(Facet.TYPE, v, position);
+                }
+            }
+
+            set(Facet.MANA_VALUE, Math.max(0, Math.min(manaValue, MAX_MANA_VALUE)), position);
+
+            int mask = card.getIdentityMask();
+            if (mask == 0) {
+                set(Facet.COLOUR, 5, position);
+            } else {
+                int[] colours = {Card.WHITE, Card.BLUE, Card.BLACK, Card.RED, Card.GREEN};
+                for (int v = 0; v < colours.length; v++) {
+                    if ((mask & colours[v]) != 0) {
+                        set(Facet.COLOUR, v, position);
+                    }
+                }
+            }
+
+            // Match the categories the same way as the CardDAO queries.
+            int categoryMask = Card.parseCategoryMask(categories);
+            int[] categoryBits = {Card.RAMP, Card.DRAW, Card.REMOVAL, Card.BOARD_WIPE};
+            for (int v = 0; v < categoryBits.length; v++) {
+                if ((categoryMask & categoryBits[v]) != 0) {
+                    set(Facet.CATEGORY, v, position);
+                }
+            }
+
+            if (commanderLegal) {
+                set(Facet.COMMANDER, 0, position);
+            }
+        }
+
+        /**
+         * This method builds the index from every Card added so far.
+         * @return the finished FacetIndex.
+         */
+        public FacetIndex build() {
+            return new FacetIndex(cards.toArray(new CardSummary[0]), bits);
+        }
+
+        private void set(Facet facet, int value, int position) {
+            bits[facet.ordinal()][value].set(position);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class holds the results of a GoldfishSimulator run. The simulator's
+ * workers count their trials into one long array each, which are added
+ * together and kept here, and the probabilities are worked out on request.
+ */
+public final class GoldfishResult {
+    // Where each counter is kept in the counters array.
+    static final int KEEPABLE = 0;
+    static final int OPENING_LANDS = 1;
+    static final int REACHED_TARGET = 2;
+    static final int LAND_DROPS = 3;
+
+    private final int trials;
+    private final int turns;
+    private final int targetManaValue;
+    private final int targetTurn;
+    private final long[] counters;
+
+    /**
+     * This is the non-default constructor, used by the GoldfishSimulator.
+     * @param trials an Integer containing the number of games played.
+     * @param turns an Integer containing the number of turns in each game.
+     * @param targetManaValue an Integer containing the mana value to reach.
+     * @param targetTurn an Integer containing the turn to reach it by.
+     * @param counters an Array of counts, laid out by countersFor().
+     */
+    GoldfishResult(int trials, int turns, int targetManaValue, int targetTurn,
+                   long[] counters) {
+        this.trials = trials;
+        this.turns = turns;
+        this.targetManaValue = targetManaValue;
+        this.targetTurn = targetTurn;
+        this.counters = counters;
+    }
+
+    /**
+     * This method returns the size of the counters array for a number of turns.
+     * The land drop counts take one slot per turn from LAND_DROPS, and the
+     * cast counts take one slot per turn after those.
+     * @param turns an Integer containing the number of turns in each game.
+     * @return an Integer containing the number of counters.
+     */
+    static int countersFor(int turns) {
+        return LAND_DROPS + 2 * turns;
+    }
+
+    /**
+     * This method returns how often an opening hand held a keepable number
+     * of lands.
+     * @return a Double between 0 and 1.
+     */
+    public double getKeepableHandChance() {
+        return chance(counters[KEEPABLE]);
+    }
+
+    /**
+     * This method returns the average number of lands in an opening hand.
+     * @return a Double containing the average number of lands.
+     */
+    public double getAverageOpeningLands() {
+        return chance(counters[OPENING_LANDS]);
+    }
+
+    /**
+     * This method returns how often every land drop was made up to a turn.
+     * @param turn an Integer containing the turn, counting from 0.
+     * @return a Double between 0 and 1.
+     */
+    public double getLandDropChance(int turn) {
+        return chance(counters[LAND_DROPS + turn]);
+    }
+
+    /**
+     * This method returns how often at least one spell was cast on a turn.
+     * @param turn an Integer containing the turn, counting from 0.
+     * @return a Double between 0 and 1.
+     */
+    public double getCastChance(int turn) {
+        return chance(counters[LAND_DROPS + turns + turn]);
+    }
+
+    /**
+     * This method returns how often the target mana value could be paid for
+     * by the target turn.
+     * @return a Double between 0 and 1.
+     */
+    public double getTargetChance() {
+        return chance(counters[REACHED_TARGET]);
+    }
+
+    /**
+     * This is the Accessor method for the targetManaValue field.
+     * @return an Integer containing the mana value to reach.
+     */
+    public int getTargetManaValue() {
+        return targetManaValue;
+    }
+
+    /**
+     * This is the Accessor method for the targetTurn field.
+     * @return an Integer containing the turn to reach the mana value by.
+     */
+    public int getTargetTurn() {
+        return targetTurn;
+    }
+
+    /**
+     * This is the Accessor method for the trials field.
+     * @return an Integer containing the number of games played.
+     */
+    public int getTrials() {
+        return trials;
+    }
+
+    /**
+     * This is the Accessor method for the turns field.
+     * @return an Integer containing the number of turns in each game.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * This method divides a count by the number of trials.
+     * @param count a Long containing the count.
+     * @return a Double containing the count per trial, or 0 if none were played.
+     */
+    private double chance(long count) {
+        return trials == 0 ? 0 : (double) count / trials;
+    }
+}
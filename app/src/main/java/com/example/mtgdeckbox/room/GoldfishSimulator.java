@@ -0,0 +1,221 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class plays a Deck out many times against an empty board ("goldfishing")
+ * to estimate how often it hits its land drops and has something to cast. The
+ * trials are split across every core with fork/join. Each worker shuffles its
+ * own int array copy of the Deck, so a trial allocates nothing.
+ */
+public final class GoldfishSimulator {
+    // The number of Cards in an opening hand.
+    public static final int HAND_SIZE = 7;
+
+    // The fewest and most lands in an opening hand worth keeping.
+    public static final int MIN_KEEP_LANDS = 2;
+    public static final int MAX_KEEP_LANDS = 4;
+
+    // How a land is stored in the int array Deck. Spells store their mana value.
+    private static final int LAND = -1;
+
+    // Spells above this mana value share its bucket in the hand counts.
+    private static final int MAX_MANA_VALUE = 15;
+
+    // The fewest trials worth giving to a worker of their own.
+    private static final int TRIALS_PER_TASK = 4096;
+
+    /**
+     * This class only has static methods, so it is never constructed.
+     */
+    private GoldfishSimulator() {}
+
+    /**
+     * This method simulates a Deck. Each trial shuffles the Deck, draws an
+     * opening hand, and then for each turn draws a Card (except on the first
+     * turn), plays a land if it has one, and casts the most expensive spells it
+     * can afford. The commander stays in the command zone.
+     * @param entries a List of DeckCardEntries, one for each Card in the Deck.
+     * @param trials an Integer containing the number of games to play.
+     * @param turns an Integer containing the number of turns in each game.
+     * @param targetManaValue an Integer containing the mana value to reach.
+     * @param targetTurn an Integer containing the turn to reach it by.
+     * @return a GoldfishResult holding the estimated probabilities.
+     */
+    public static GoldfishResult simulate(List<DeckCardEntry> entries, int trials, int turns,
+                                          int targetManaValue, int targetTurn) {
+        int[] deck = buildDeck(entries);
+        if (deck.length < HAND_SIZE + turns || trials <= 0 || turns <= 0) {
+            return new GoldfishResult(0, turns, targetManaValue, targetTurn,
+                    new long[GoldfishResult.countersFor(turns)]);
+        }
+        long[] counters = ForkJoinPool.commonPool().invoke(new TrialTask(deck, 0, trials,
+                turns, targetManaValue, Math.min(targetTurn, turns), new SplittableRandom()));
+        return new GoldfishResult(trials, turns, targetManaValue, targetTurn, counters);
+    }
+
+    /**
+     * This method turns a Deck into an int array, with one element for each
+     * copy of each Card. Lands are detected from the Card's types.
+     * @param entries a List of DeckCardEntries, one for each Card in the Deck.
+     * @return an Array of Integers holding LAND or a spell's mana value.
+     */
+    static int[] buildDeck(List<DeckCardEntry> entries) {
+        int size = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            size += Math.max(0, entries.get(i).getQuantity());
+        }
+        int[] deck = new int[size];
+        int next = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Card card = entries.get(i).getCard();
+            boolean land = card.getTypes() != null && card.getTypes().contains("Land");
+            int code = land ? LAND
+                    : Math.min(Math.max(0, card.getManaValue()), MAX_MANA_VALUE);
+            for (int copy = 0; copy < entries.get(i).getQuantity(); copy++) {
+                deck[next++] = code;
+            }
+        }
+        return deck;
+    }
+
+    /**
+     * This class is one share of the trials. It splits itself in half until
+     * the share is small enough, then plays its trials on one thread.
+     */
+    private static final class TrialTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] deck;
+        private final int first;
+        private final int last;
+        private final int turns;
+        private final int targetManaValue;
+        private final int targetTurn;
+        private final SplittableRandom random;
+
+        /**
+         * This is the non-default constructor.
+         * @param deck an Array holding the Deck, which is copied before shuffling.
+         * @param first an Integer containing the first trial in this share.
+         * @param last an Integer containing one past the last trial in this share.
+         * @param turns an Integer containing the number of turns in each game.
+         * @param targetManaValue an Integer containing the mana value to reach.
+         * @param targetTurn an Integer containing the turn to reach it by.
+         * @param random a SplittableRandom used only by this task.
+         */
+        TrialTask(int[] deck, int first, int last, int turns, int targetManaValue,
+                  int targetTurn, SplittableRandom random) {
+            this.deck = deck;
+            this.first = first;
+            this.last = last;
+            this.turns = turns;
+            this.targetManaValue = targetManaValue;
+            this.targetTurn = targetTurn;
+            this.random = random;
+        }
+
+        /**
+         * This method plays this share of the trials.
+         * @return an Array of counters, laid out as described by GoldfishResult.
+         */
+        @Override
+        protected long[] compute() {
+            if (last - first <= TRIALS_PER_TASK) {
+                return play();
+            }
+            int middle = (first + last) >>> 1;
+            // Split the generator here, on the thread which owns it.
+            TrialTask right = new TrialTask(deck, middle, last, turns, targetManaValue,
+                    targetTurn, random.split());
+            TrialTask left = new TrialTask(deck, first, middle, turns, targetManaValue,
+                    targetTurn, random);
+            right.fork();
+            long[] counters = left.compute();
+            long[] rightCounters = right.join();
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] += rightCounters[i];
+            }
+            return counters;
+        }
+
+        /**
+         * This method plays every trial in this share on the current thread.
+         * @return an Array of counters, laid out as described by GoldfishResult.
+         */
+        private long[] play() {
+            long[] counters = new long[GoldfishResult.countersFor(turns)];
+            int[] cards = deck.clone();
+            int[] hand = new int[MAX_MANA_VALUE + 1];
+            int drawCount = HAND_SIZE + turns - 1;
+
+            for (int trial = first; trial < last; trial++) {
+                // Shuffle only as far as the Cards which will be drawn.
+                for (int i = 0; i < drawCount; i++) {
+                    int j = i + random.nextInt(cards.length - i);
+                    int swap = cards[i];
+                    cards[i] = cards[j];
+                    cards[j] = swap;
+                }
+
+                Arrays.fill(hand, 0);
+                int landsInHand = 0;
+                for (int i = 0; i < HAND_SIZE; i++) {
+                    if (cards[i] == LAND) {
+                        landsInHand++;
+                    } else {
+                        hand[cards[i]]++;
+                    }
+                }
+                counters[GoldfishResult.OPENING_LANDS] += landsInHand;
+                if (landsInHand >= MIN_KEEP_LANDS && landsInHand <= MAX_KEEP_LANDS) {
+                    counters[GoldfishResult.KEEPABLE]++;
+                }
+
+                int landsInPlay = 0;
+                int nextCard = HAND_SIZE;
+                for (int turn = 0; turn < turns; turn++) {
+                    // On the play, so there is no draw on the first turn.
+                    if (turn > 0) {
+                        int drawn = cards[nextCard++];
+                        if (drawn == LAND) {
+                            landsInHand++;
+                        } else {
+                            hand[drawn]++;
+                        }
+                    }
+                    if (landsInHand > 0) {
+                        landsInHand--;
+                        landsInPlay++;
+                    }
+                    if (landsInPlay == turn + 1) {
+                        counters[GoldfishResult.LAND_DROPS + turn]++;
+                    }
+                    // Each land in play gives one mana.
+                    if (turn == targetTurn - 1 && landsInPlay >= targetManaValue) {
+                        counters[GoldfishResult.REACHED_TARGET]++;
+                    }
+
+                    // Spend the mana on the most expensive spells first.
+                    int mana = landsInPlay;
+                    boolean cast = false;
+                    for (int value = Math.min(mana, MAX_MANA_VALUE); value >= 0; value--) {
+                        while (hand[value] > 0 && value <= mana) {
+                            hand[value]--;
+                            mana -= value;
+                            cast = true;
+                        }
+                    }
+                    if (cast) {
+                        counters[GoldfishResult.LAND_DROPS + turns + turn]++;
+                    }
+                }
+            }
+            return counters;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class works out exact draw odds with the hypergeometric distribution,
+ * such as the chance of at least one ramp Card in the top 7 Cards of a Deck.
+ * Binomial coefficients are built from a table of log-factorials worked out
+ * once, so each answer costs a few additions and exponentials.
+ */
+public final class Hypergeometric {
+    // The largest Deck the table covers. Bigger Decks work the rest out on demand.
+    private static final int TABLE_SIZE = 512;
+
+    // LOG_FACTORIAL[n] holds ln(n!).
+    private static final double[] LOG_FACTORIAL = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int n = 1; n <= TABLE_SIZE; n++) {
+            LOG_FACTORIAL[n] = LOG_FACTORIAL[n - 1] + Math.log(n);
+        }
+    }
+
+    /**
+     * This class only has static methods, so it is never constructed.
+     */
+    private Hypergeometric() {}
+
+    /**
+     * This method returns the chance of drawing at least a number of hits.
+     * @param population an Integer containing the number of Cards in the Deck.
+     * @param successes an Integer containing the number of hits in the Deck.
+     * @param draws an Integer containing the number of Cards drawn.
+     * @param atLeast an Integer containing the fewest hits wanted.
+     * @return a Double between 0 and 1.
+     */
+    public static double atLeast(int population, int successes, int draws, int atLeast) {
+        if (atLeast <= 0) {
+            return 1;
+        }
+        if (population <= 0) {
+            return 0;
+        }
+        successes = Math.max(0, Math.min(successes, population));
+        draws = Math.max(0, Math.min(draws, population));
+        if (atLeast > Math.min(successes, draws)) {
+            return 0;
+        }
+
+        // Add up the chances of falling short, which is a short sum for small targets.
+        double missed = 0;
+        for (int hits = Math.max(0, draws - (population - successes)); hits < atLeast; hits++) {
+            missed += exactly(population, successes, draws, hits);
+        }
+        return Math.max(0, Math.min(1, 1 - missed));
+    }
+
+    /**
+     * This method returns the chance of drawing exactly a number of hits.
+     * @param population an Integer containing the number of Cards in the Deck.
+     * @param successes an Integer containing the number of hits in the Deck.
+     * @param draws an Integer containing the number of Cards drawn.
+     * @param hits an Integer containing the number of hits wanted.
+     * @return a Double between 0 and 1.
+     */
+    public static double exactly(int population, int successes, int draws, int hits) {
+        if (hits < 0 || hits > successes || hits > draws
+                || draws - hits > population - successes) {
+            return 0;
+        }
+        return Math.exp(logChoose(successes, hits)
+                + logChoose(population - successes, draws - hits)
+                - logChoose(population, draws));
+    }
+
+    /**
+     * This method returns the natural log of a binomial coefficient.
+     * @param n an Integer containing the number of items.
+     * @param k an Integer containing the number chosen.
+     * @return a Double containing ln(n choose k).
+     */
+    static double logChoose(int n, int k) {
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+
+    /**
+     * This method returns the natural log of a factorial.
+     * @param n an Integer containing the number.
+     * @return a Double containing ln(n!).
+     */
+    static double logFactorial(int n) {
+        if (n <= TABLE_SIZE) {
+            return LOG_FACTORIAL[n];
+        }
+        double result = LOG_FACTORIAL[TABLE_SIZE];
+        for (int i = TABLE_SIZE + 1; i <= n; i++) {
+            result += Math.log(i);
+        }
+        return result;
+    }
+}
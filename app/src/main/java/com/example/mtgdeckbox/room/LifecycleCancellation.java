@@ -0,0 +1,75 @@
+package com.example.mtgdeckbox.room;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * This class ties repository queries to the lifecycle of the Fragment or
+ * Activity which is waiting on them, so that work nobody will read is
+ * cancelled when the screen is closed.
+ */
+public class LifecycleCancellation {
+    // Observers are added and removed on the main thread.
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * This is the default constructor.
+     */
+    private LifecycleCancellation() {}
+
+    /**
+     * This method cancels a future when its owner's lifecycle reaches DESTROYED.
+     * Once the future completes, its owner stops watching for it, so a screen
+     * which stays open does not collect observers. It must be called on the
+     * main thread.
+     * @param owner the LifecycleOwner which is waiting on the future. For a
+     *              Fragment this should be the view LifecycleOwner.
+     * @param future a CompletableFuture returned by the CardRepository.
+     * @return the same CompletableFuture, for chaining.
+     */
+    public static <T> CompletableFuture<T> cancelOnDestroy(@NonNull LifecycleOwner owner,
+                                                           @NonNull final CompletableFuture<T> future) {
+        final Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            future.cancel(true);
+            return future;
+        }
+        if (future.isDone()) {
+            return future;
+        }
+
+        final LifecycleEventObserver observer = new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source,
+                                       @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    future.cancel(true);
+                    lifecycle.removeObserver(this);
+                }
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        // The future may complete on any thread, so remove the observer on the main thread.
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        lifecycle.removeObserver(observer);
+                    }
+                });
+            }
+        });
+        return future;
+    }
+}
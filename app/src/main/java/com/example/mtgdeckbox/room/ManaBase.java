@@ -0,0 +1,105 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class holds a mana base recommended for a Deck by the
+ * ManaBaseCalculator: how many lands the Deck should play, how they should be
+ * split between the colours, and how many sources of each colour the Deck's
+ * lands already give. It cannot be changed once built, like DeckStats.
+ */
+public final class ManaBase {
+    private final int recommendedLands;
+    private final int currentLands;
+    private final int[] recommendedByColour;
+    private final int[] currentSources;
+    private final double[] demandShare;
+    private final double averageManaValue;
+    private final int cheapRampAndDraw;
+
+    /**
+     * This is the non-default constructor, used by the ManaBaseCalculator. The
+     * arrays are kept, not copied, so they must not be changed afterwards.
+     * @param recommendedLands an Integer containing the number of lands the
+     *                         Deck should play.
+     * @param currentLands an Integer containing the number of lands it plays now.
+     * @param recommendedByColour an Array of land counts for each
+     *                            DeckStats.PIP_LABELS colour.
+     * @param currentSources an Array of the number of lands which make each
+     *                       colour now.
+     * @param demandShare an Array of each colour's share of the weighted pips.
+     * @param averageManaValue a Double containing the average mana value of
+     *                         the non-land Cards.
+     * @param cheapRampAndDraw an Integer containing the number of ramp and draw
+     *                         Cards of mana value 2 or less.
+     */
+    ManaBase(int recommendedLands, int currentLands, int[] recommendedByColour,
+             int[] currentSources, double[] demandShare, double averageManaValue,
+             int cheapRampAndDraw) {
+        this.recommendedLands = recommendedLands;
+        this.currentLands = currentLands;
+        this.recommendedByColour = recommendedByColour;
+        this.currentSources = currentSources;
+        this.demandShare = demandShare;
+        this.averageManaValue = averageManaValue;
+        this.cheapRampAndDraw = cheapRampAndDraw;
+    }
+
+    /**
+     * This is the Accessor method for the averageManaValue field.
+     * @return a Double containing the average mana value of the non-land Cards.
+     */
+    public double getAverageManaValue() {
+        return averageManaValue;
+    }
+
+    /**
+     * This is the Accessor method for the cheapRampAndDraw field.
+     * @return an Integer containing the number of ramp and draw Cards of mana
+     * value 2 or less.
+     */
+    public int getCheapRampAndDraw() {
+        return cheapRampAndDraw;
+    }
+
+    /**
+     * This method returns the number of lands which make a colour now.
+     * @param colour an Integer containing the index into DeckStats.PIP_LABELS.
+     * @return an Integer containing the number of lands.
+     */
+    public int getCurrentSources(int colour) {
+        return currentSources[colour];
+    }
+
+    /**
+     * This is the Accessor method for the currentLands field.
+     * @return an Integer containing the number of lands the Deck plays now.
+     */
+    public int getCurrentLands() {
+        return currentLands;
+    }
+
+    /**
+     * This method returns a colour's share of the Deck's weighted pips.
+     * @param colour an Integer containing the index into DeckStats.PIP_LABELS.
+     * @return a Double between 0 and 1.
+     */
+    public double getDemandShare(int colour) {
+        return demandShare[colour];
+    }
+
+    /**
+     * This method returns the number of lands recommended for a colour.
+     * @param colour an Integer containing the index into DeckStats.PIP_LABELS.
+     * @return an Integer containing the number of lands.
+     */
+    public int getRecommendedForColour(int colour) {
+        return recommendedByColour[colour];
+    }
+
+    /**
+     * This is the Accessor method for the recommendedLands field.
+     * @return an Integer containing the number of lands the Deck should play.
+     */
+    public int getRecommendedLands() {
+        return recommendedLands;
+    }
+}
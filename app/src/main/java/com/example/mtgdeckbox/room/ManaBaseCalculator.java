@@ -0,0 +1,191 @@
+package com.example.mtgdeckbox.room;
+
+import com.example.mtgdeckbox.IntHashSet;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class recommends a mana base for a Deck. The number of lands comes from
+ * Frank Karsten's fit for Commander decks: 31.42 lands, plus 3.13 for each
+ * point of average mana value, less 0.28 for each cheap ramp or draw spell.
+ * Those lands are then split between the colours by the Deck's demand for
+ * each, counted from the pips of its spells.
+ *
+ * A pip is weighted by how early its spell wants to be cast, as a cheap spell
+ * needs its colours on the first turns, when few lands have been drawn. A pip
+ * on a one-drop counts three times as much as a pip on a seven-drop.
+ *
+ * The calculator keeps running totals, so when the Deck changes only the
+ * Cards whose quantity changed are added or taken out. It is not thread safe,
+ * and is only used from the DeckStatsViewModel's analysis thread.
+ */
+public class ManaBaseCalculator {
+    // Karsten's land count fit, and the range it is kept within.
+    private static final double BASE_LANDS = 31.42;
+    private static final double LANDS_PER_MANA_VALUE = 3.13;
+    private static final double LANDS_PER_CHEAP_SPELL = 0.28;
+    private static final int MIN_LANDS = 30;
+    private static final int MAX_LANDS = 42;
+
+    // The highest mana value of a ramp or draw spell which counts as cheap.
+    private static final int CHEAP_MANA_VALUE = 2;
+
+    // Pip weights are this divided by (mana value + 2), so they stay whole numbers.
+    private static final int WEIGHT_SCALE = 240;
+
+    private final Map<Integer, DeckCardEntry> entries;
+    private final IntHashSet seen;
+    private final long[] demand;
+    private final int[] sources;
+    private int landCount;
+    private int nonLandCount;
+    private long nonLandManaValueSum;
+    private int cheapRampAndDraw;
+
+    /**
+     * This is the default constructor.
+     */
+    public ManaBaseCalculator() {
+        entries = new HashMap<>();
+        seen = new IntHashSet();
+        demand = new long[ManaCost.PIP_KINDS];
+        sources = new int[ManaCost.PIP_KINDS];
+    }
+
+    /**
+     * This method brings the totals up to date with the current contents of
+     * the Deck. Only the Cards whose quantity has changed since the last call
+     * are counted again.
+     * @param deckEntries a List of DeckCardEntries, one for each Card in the Deck.
+     */
+    public void update(List<DeckCardEntry> deckEntries) {
+        seen.clear();
+        for (int i = 0; i < deckEntries.size(); i++) {
+            DeckCardEntry entry = deckEntries.get(i);
+            Card card = entry.getCard();
+            seen.add(card.getCardID());
+            DeckCardEntry previous = entries.get(card.getCardID());
+            int oldQuantity = previous == null ? 0 : previous.getQuantity();
+            int newQuantity = Math.max(0, entry.getQuantity());
+            if (oldQuantity != newQuantity) {
+                count(card, newQuantity - oldQuantity);
+                if (newQuantity == 0) {
+                    entries.remove(card.getCardID());
+                } else {
+                    entries.put(card.getCardID(), entry);
+                }
+            }
+        }
+
+        // Any Card we were not sent has been taken out of the Deck.
+        Iterator<DeckCardEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            DeckCardEntry entry = iterator.next();
+            if (!seen.contains(entry.getCard().getCardID())) {
+                iterator.remove();
+                count(entry.getCard(), -entry.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * This method works out the mana base from the current totals.
+     * @return a ManaBase holding the recommendation.
+     */
+    public ManaBase recommend() {
+        double averageManaValue = nonLandCount == 0 ? 0
+                : (double) nonLandManaValueSum / nonLandCount;
+        int lands = (int) Math.round(BASE_LANDS + LANDS_PER_MANA_VALUE * averageManaValue
+                - LANDS_PER_CHEAP_SPELL * cheapRampAndDraw);
+        lands = Math.max(MIN_LANDS, Math.min(MAX_LANDS, lands));
+
+        long totalDemand = 0;
+        for (long colourDemand : demand) {
+            totalDemand += colourDemand;
+        }
+        double[] share = new double[ManaCost.PIP_KINDS];
+        int[] byColour = new int[ManaCost.PIP_KINDS];
+        if (totalDemand > 0) {
+            // Give each colour its whole share, then the rest by largest remainder.
+            double[] remainders = new double[ManaCost.PIP_KINDS];
+            int given = 0;
+            for (int c = 0; c < ManaCost.PIP_KINDS; c++) {
+                share[c] = (double) demand[c] / totalDemand;
+                double exact = share[c] * lands;
+                byColour[c] = (int) exact;
+                remainders[c] = exact - byColour[c];
+                given += byColour[c];
+            }
+            while (given < lands) {
+                int best = 0;
+                for (int c = 1; c < ManaCost.PIP_KINDS; c++) {
+                    if (remainders[c] > remainders[best]) {
+                        best = c;
+                    }
+                }
+                byColour[best]++;
+                remainders[best] = -1;
+                given++;
+            }
+
+            // A splashed colour still needs a land, taken from the largest colour.
+            for (int c = 0; c < ManaCost.PIP_KINDS; c++) {
+                if (demand[c] > 0 && byColour[c] == 0) {
+                    int largest = 0;
+                    for (int other = 1; other < ManaCost.PIP_KINDS; other++) {
+                        if (byColour[other] > byColour[largest]) {
+                            largest = other;
+                        }
+                    }
+                    if (byColour[largest] > 1) {
+                        byColour[largest]--;
+                        byColour[c]++;
+                    }
+                }
+            }
+        }
+        return new ManaBase(lands, landCount, byColour, sources.clone(), share,
+                averageManaValue, cheapRampAndDraw);
+    }
+
+    /**
+     * This method adds copies of a Card to the totals, or takes them out.
+     * @param card the Card.
+     * @param delta an Integer containing the number of copies to add, or a
+     *              negative number to take out.
+     */
+    private void count(Card card, int delta) {
+        String types = card.getTypes() == null ? "" : card.getTypes();
+        if (types.contains("Land")) {
+            // A land's colour identity is the colours it can make.
+            landCount += delta;
+            int mask = card.getIdentityMask();
+            if (mask == 0) {
+                sources[ManaCost.COLOURLESS] += delta;
+            }
+            for (int c = 0; c < ManaCost.COLOURLESS; c++) {
+                if ((mask & (1 << c)) != 0) {
+                    sources[c] += delta;
+                }
+            }
+            return;
+        }
+
+        int manaValue = Math.max(0, card.getManaValue());
+        nonLandCount += delta;
+        nonLandManaValueSum += (long) manaValue * delta;
+        if (manaValue <= CHEAP_MANA_VALUE
+                && (Card.parseCategoryMask(card.getCategories())
+                    & (Card.RAMP | Card.DRAW)) != 0) {
+            cheapRampAndDraw += delta;
+        }
+
+        long weight = WEIGHT_SCALE / (manaValue + 2);
+        for (int c = 0; c < ManaCost.PIP_KINDS; c++) {
+            demand[c] += card.getPips(c) * weight * delta;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class reads a mana cost such as "{2}{W}{U/B}" into counts of each kind
+ * of mana symbol. It is run once for each Card as the Cards are imported, and
+ * the counts are stored as columns of the Card, so the graphs and the mana
+ * base never have to read the mana cost text again.
+ *
+ * The cost is read in a single pass over its characters, without splitting it
+ * into substrings. A coloured symbol counts once towards each colour it names,
+ * so the hybrid {U/B} counts as one blue and one black pip and the Phyrexian
+ * {W/P} as one white pip. Generic, X and colourless symbols are counted apart,
+ * and snow symbols are not counted. A symbol which can be paid with either of
+ * two kinds of mana is flagged HYBRID, and one which can be paid with life is
+ * flagged PHYREXIAN, so the hybrid Phyrexian {G/U/P} is flagged as both.
+ */
+public final class ManaCost {
+    // The index of each kind of pip, in DeckStats.PIP_LABELS order.
+    public static final int WHITE = 0;
+    public static final int BLUE = 1;
+    public static final int BLACK = 2;
+    public static final int RED = 3;
+    public static final int GREEN = 4;
+    public static final int COLOURLESS = 5;
+    public static final int PIP_KINDS = 6;
+
+    // The bits of the flags, for costs which can be paid in more than one way.
+    public static final int HYBRID = 1;
+    public static final int PHYREXIAN = 2;
+
+    private final int[] pips;
+    private int generic;
+    private int xCount;
+    private int flags;
+
+    /**
+     * This is the default constructor, for a Card with no mana cost.
+     */
+    public ManaCost() {
+        pips = new int[PIP_KINDS];
+    }
+
+    /**
+     * This method reads a mana cost.
+     * @param manaCost a String containing the mana cost, or null.
+     * @return a ManaCost holding the counts of each kind of symbol.
+     */
+    public static ManaCost parse(String manaCost) {
+        ManaCost cost = new ManaCost();
+        if (manaCost == null) {
+            return cost;
+        }
+
+        boolean inSymbol = false;
+        boolean slash = false;
+        boolean phyrexian = false;
+        int colours = 0;
+        int number = -1;
+        for (int i = 0; i < manaCost.length(); i++) {
+            char c = manaCost.charAt(i);
+            if (c == '{') {
+                inSymbol = true;
+                slash = false;
+                phyrexian = false;
+                colours = 0;
+                number = -1;
+                continue;
+            }
+            if (!inSymbol) {
+                continue;
+            }
+            switch (c) {
+                case '}':
+                    inSymbol = false;
+                    // A plain number is generic mana; in {2/W} it is one half of a hybrid.
+                    if (number >= 0 && !slash) {
+                        cost.generic += number;
+                    }
+                    // {G/P} is only Phyrexian, but {G/U/P} is hybrid as well.
+                    if (slash && phyrexian) {
+                        cost.flags |= PHYREXIAN;
+                    }
+                    if (slash && colours + (number >= 0 ? 1 : 0) >= 2) {
+                        cost.flags |= HYBRID;
+                    }
+                    break;
+                case '/':
+                    slash = true;
+                    break;
+                case 'P':
+                    phyrexian = true;
+                    break;
+                case 'X':
+                    cost.xCount++;
+                    break;
+                case 'W':
+                    cost.pips[WHITE]++;
+                    colours++;
+                    break;
+                case 'U':
+                    cost.pips[BLUE]++;
+                    colours++;
+                    break;
+                case 'B':
+                    cost.pips[BLACK]++;
+                    colours++;
+                    break;
+                case 'R':
+                    cost.pips[RED]++;
+                    colours++;
+                    break;
+                case 'G':
+                    cost.pips[GREEN]++;
+                    colours++;
+                    break;
+                case 'C':
+                    cost.pips[COLOURLESS]++;
+                    break;
+                default:
+                    if (c >= '0' && c <= '9') {
+                        number = Math.max(number, 0) * 10 + (c - '0');
+                    }
+                    break;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * This method returns the number of pips of one kind.
+     * @param kind an Integer containing WHITE, BLUE, BLACK, RED, GREEN or
+     *             COLOURLESS.
+     * @return an Integer containing the number of pips.
+     */
+    public int getPips(int kind) {
+        return pips[kind];
+    }
+
+    /**
+     * This is the Accessor method for the generic field.
+     * @return an Integer containing the amount of generic mana in the cost.
+     */
+    public int getGeneric() {
+        return generic;
+    }
+
+    /**
+     * This is the Accessor method for the xCount field.
+     * @return an Integer containing the number of X symbols in the cost.
+     */
+    public int getXCount() {
+        return xCount;
+    }
+
+    /**
+     * This is the Accessor method for the flags field.
+     * @return an Integer with the HYBRID and PHYREXIAN bits set if the cost
+     * holds those symbols.
+     */
+    public int getFlags() {
+        return flags;
+    }
+}
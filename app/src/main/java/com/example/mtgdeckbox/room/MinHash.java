@@ -0,0 +1,183 @@
+package com.example.mtgdeckbox.room;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class computes MinHash signatures of Decks. A signature keeps, for each
+ * of NUM_HASHES hash functions, the smallest hash of any Card ID number in the
+ * Deck. The chance that two Decks agree on any one row is exactly the Jaccard
+ * similarity of their Cards, so the share of matching rows estimates it
+ * without looking at the Cards again.
+ *
+ * Signatures are also split into BANDS bands of ROWS rows. Two Decks whose
+ * signatures agree on a whole band are very likely to be similar, so the
+ * DeckSimilarityIndex only compares Decks which share a band. With 40 bands of
+ * 3 rows, Decks which are 30% similar share a band about two times in three,
+ * and Decks which are 50% similar almost always do.
+ */
+public final class MinHash {
+    // The number of hash functions, and so the length of every signature.
+    public static final int NUM_HASHES = 120;
+    // The number of bands the signature is split into for the index.
+    public static final int BANDS = 40;
+    // The number of rows of the signature in each band.
+    public static final int ROWS = NUM_HASHES / BANDS;
+
+    // One seed per hash function, drawn once from a fixed sequence.
+    private static final int[] SEEDS = new int[NUM_HASHES];
+
+    static {
+        long state = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            SEEDS[i] = (int) (z ^ (z >>> 31));
+        }
+    }
+
+    /**
+     * This is the default constructor. It is private, as the class only holds
+     * static methods.
+     */
+    private MinHash() {}
+
+    /**
+     * This method returns the signature of a Deck with no Cards, which any
+     * Card will lower.
+     * @return an Array of NUM_HASHES Integers.
+     */
+    public static int[] empty() {
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    /**
+     * This method computes the signature of a set of Cards.
+     * @param cardIDs an Array of Card ID numbers.
+     * @return an Array of NUM_HASHES Integers.
+     */
+    public static int[] of(int[] cardIDs) {
+        int[] signature = empty();
+        for (int cardID : cardIDs) {
+            add(signature, cardID);
+        }
+        return signature;
+    }
+
+    /**
+     * This method updates a signature for a Card added to the Deck. Adding a
+     * Card can only lower each row, so the rest of the Deck is not needed.
+     * @param signature an Array of NUM_HASHES Integers, updated in place.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return a Boolean which is true if the signature changed.
+     */
+    public static boolean add(int[] signature, int cardID) {
+        boolean changed = false;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int hash = hash(cardID, i);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * This method checks whether removing a Card could change a signature. It
+     * only can if the Card holds the smallest hash of some row; otherwise the
+     * signature stays as it is and the Deck need not be read again.
+     * @param signature an Array of NUM_HASHES Integers.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @return a Boolean which is true if the signature must be computed again.
+     */
+    public static boolean dependsOn(int[] signature, int cardID) {
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (hash(cardID, i) == signature[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method estimates the Jaccard similarity of two Decks from their
+     * signatures.
+     * @param a the signature of one Deck.
+     * @param b the signature of the other Deck.
+     * @return a Double between 0 and 1.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int matches = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / NUM_HASHES;
+    }
+
+    /**
+     * This method hashes one band of a signature, together with the band's
+     * number, so equal rows in different bands do not share a bucket.
+     * @param signature an Array of NUM_HASHES Integers.
+     * @param band an Integer containing the number of the band.
+     * @return a Long identifying the band's bucket.
+     */
+    public static long bandKey(int[] signature, int band) {
+        long key = band * 0x9E3779B97F4A7C15L;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = (key ^ (signature[i] & 0xFFFFFFFFL)) * 0x100000001B3L;
+            key ^= key >>> 29;
+        }
+        return key;
+    }
+
+    /**
+     * This method encodes a signature for the decksignature table.
+     * @param signature an Array of NUM_HASHES Integers.
+     * @return an Array of Bytes.
+     */
+    public static byte[] encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(NUM_HASHES * 4);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    /**
+     * This method decodes a signature written by encode().
+     * @param bytes an Array of Bytes.
+     * @return an Array of NUM_HASHES Integers, or null if the bytes do not
+     * hold a signature of the current length.
+     */
+    public static int[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length != NUM_HASHES * 4) {
+            return null;
+        }
+        int[] signature = new int[NUM_HASHES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    /**
+     * This method computes one of the hash functions for a Card. Each is the
+     * Card's ID number mixed with that function's seed by the MurmurHash3
+     * finaliser.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param function an Integer containing the number of the hash function.
+     * @return an Integer containing the hash.
+     */
+    private static int hash(int cardID, int function) {
+        int h = cardID ^ SEEDS[function];
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
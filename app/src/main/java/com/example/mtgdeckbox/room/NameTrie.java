@@ -0,0 +1,349 @@
+package com.example.mtgdeckbox.room;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class completes Card names as they are typed. It is a radix trie over
+ * the normalised names, where each edge holds a run of characters rather than
+ * one, so a chain of nodes with a single child is kept as one node. Every node
+ * also keeps the best ranked Cards below it, so completing a prefix is a walk
+ * down the trie of at most one step per typed character, and then a read of
+ * that node's list. No query is run and nothing is sorted.
+ *
+ * The trie is packed into flat arrays: the names are stored end to end as
+ * bytes, each edge is an offset and length into them, and each node's children
+ * and best Cards are runs in shared arrays. The Cards are given in rank order,
+ * so a Card's position is its rank, and a node's best Cards are simply the
+ * lowest positions below it.
+ */
+public final class NameTrie {
+    // The most completions each node keeps.
+    public static final int TOP_K = 8;
+
+    private final List<CardSummary> cards;
+    private final byte[] text;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] top;
+
+    /**
+     * This is the non-default constructor, used by the Builder.
+     * @param cards the List of CardSummaries, in rank order.
+     * @param text an Array of every normalised name, end to end.
+     * @param labelStart an Array of where each node's edge starts in text.
+     * @param labelLength an Array of the length of each node's edge.
+     * @param firstChild an Array of each node's first child.
+     * @param childCount an Array of the number of children of each node.
+     * @param topStart an Array of where each node's best Cards start in top.
+     * @param topCount an Array of the number of best Cards for each node.
+     * @param top an Array of the positions of each node's best Cards.
+     */
+    private NameTrie(List<CardSummary> cards, byte[] text, int[] labelStart,
+                     int[] labelLength, int[] firstChild, int[] childCount,
+                     int[] topStart, int[] topCount, int[] top) {
+        this.cards = cards;
+        this.text = text;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.top = top;
+    }
+
+    /**
+     * This method builds the trie over a list of Cards.
+     * @param cards a List of CardSummaries, in rank order. It is kept, not
+     *              copied, so it must not be changed afterwards.
+     * @return the NameTrie.
+     */
+    public static NameTrie build(List<CardSummary> cards) {
+        return new Builder(cards).build();
+    }
+
+    /**
+     * This method completes a typed prefix of a Card name.
+     * @param prefix a String containing what has been typed, in any case or
+     *               punctuation.
+     * @return a List of up to TOP_K CardSummaries whose names start with the
+     * prefix, best ranked first.
+     */
+    public List<CardSummary> complete(String prefix) {
+        String key = CardNameIndex.normalise(prefix);
+        int node = 0;
+        int matched = 0;
+        while (matched < key.length()) {
+            // Children are sorted by their first character, so search them by it.
+            int child = findChild(node, (byte) key.charAt(matched));
+            if (child < 0) {
+                return Collections.emptyList();
+            }
+            int length = Math.min(labelLength[child], key.length() - matched);
+            for (int i = 0; i < length; i++) {
+                if (text[labelStart[child] + i] != key.charAt(matched + i)) {
+                    return Collections.emptyList();
+                }
+            }
+            matched += length;
+            node = child;
+        }
+
+        List<CardSummary> completions = new ArrayList<>(topCount[node]);
+        for (int i = topStart[node]; i < topStart[node] + topCount[node]; i++) {
+            completions.add(cards.get(top[i]));
+        }
+        return completions;
+    }
+
+    /**
+     * This method returns the number of nodes in the trie.
+     * @return an Integer containing the number of nodes, including the root.
+     */
+    public int getNodeCount() {
+        return labelStart.length;
+    }
+
+    /**
+     * This method finds the child of a node whose edge starts with a character.
+     * @param node an Integer containing the node.
+     * @param first a Byte containing the character.
+     * @return an Integer containing the child, or -1 if there is none.
+     */
+    private int findChild(int node, byte first) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            byte b = text[labelStart[mid]];
+            if (b < first) {
+                low = mid + 1;
+            } else if (b > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This class builds a NameTrie from the names sorted into order, where
+     * every node covers a run of neighbouring names. Nodes are numbered
+     * breadth first, so the children of a node always sit side by side.
+     */
+    private static class Builder {
+        private final List<CardSummary> cards;
+        private final byte[] text;
+        private final int[] keyStart;
+        private final int[] keyLength;
+        private final Integer[] order;
+        private final int[] labelStart;
+        private final int[] labelLength;
+        private final int[] firstChild;
+        private final int[] childCount;
+        private final int[] rangeLow;
+        private final int[] rangeHigh;
+        private final int[] depth;
+        private int nodes;
+
+        /**
+         * This is the non-default constructor. It normalises every name and
+         * sorts the Cards by it.
+         * @param cards a List of CardSummaries, in rank order.
+         */
+        Builder(List<CardSummary> cards) {
+            this.cards = cards;
+            keyStart = new int[cards.size()];
+            keyLength = new int[cards.size()];
+            StringBuilder all = new StringBuilder();
+            for (int i = 0; i < cards.size(); i++) {
+                String key = CardNameIndex.normalise(cards.get(i).getName());
+                keyStart[i] = all.length();
+                keyLength[i] = key.length();
+                all.append(key);
+            }
+            text = all.toString().getBytes(StandardCharsets.US_ASCII);
+
+            // Sort positions by name; the sort is stable, so equal names stay in rank order.
+            order = new Integer[cards.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return compareKeys(a, b);
+                }
+            });
+
+            int capacity = 2 * cards.size() + 1;
+            labelStart = new int[capacity];
+            labelLength = new int[capacity];
+            firstChild = new int[capacity];
+            childCount = new int[capacity];
+            rangeLow = new int[capacity];
+            rangeHigh = new int[capacity];
+            depth = new int[capacity];
+        }
+
+        /**
+         * This method builds the trie.
+         * @return the finished NameTrie.
+         */
+        NameTrie build() {
+            // The root covers every name, and matches nothing.
+            nodes = 1;
+            rangeLow[0] = 0;
+            rangeHigh[0] = order.length;
+
+            // Split each node's run of names by their next character, breadth first.
+            for (int node = 0; node < nodes; node++) {
+                int low = rangeLow[node];
+                int high = rangeHigh[node];
+                int at = depth[node];
+                firstChild[node] = nodes;
+                // Names which end at this node sort first in its run.
+                while (low < high && keyLength[order[low]] == at) {
+                    low++;
+                }
+                while (low < high) {
+                    byte first = charAt(order[low], at);
+                    int end = low + 1;
+                    while (end < high && charAt(order[end], at) == first) {
+                        end++;
+                    }
+                    addChild(low, end, at);
+                    childCount[node]++;
+                    low = end;
+                }
+            }
+
+            // Fill in each node's best Cards, children before their parents.
+            int[] topStart = new int[nodes];
+            int[] topCount = new int[nodes];
+            int[] top = new int[nodes * TOP_K];
+            int used = 0;
+            for (int node = nodes - 1; node >= 0; node--) {
+                topStart[node] = used;
+                topCount[node] = bestInRange(node, top, topStart, topCount, used);
+                used += topCount[node];
+            }
+
+            return new NameTrie(cards, text, Arrays.copyOf(labelStart, nodes),
+                    Arrays.copyOf(labelLength, nodes), Arrays.copyOf(firstChild, nodes),
+                    Arrays.copyOf(childCount, nodes), topStart, topCount,
+                    Arrays.copyOf(top, used));
+        }
+
+        /**
+         * This method adds a node for a run of names which share their next
+         * character. Its edge runs on as far as every name in the run agrees.
+         * @param low an Integer containing the start of the run in order.
+         * @param high an Integer containing the end of the run in order.
+         * @param at an Integer containing the depth of the parent node.
+         */
+        private void addChild(int low, int high, int at) {
+            // The run is sorted, so its first and last names share the least.
+            int first = order[low];
+            int last = order[high - 1];
+            int shared = at + 1;
+            int limit = Math.min(keyLength[first], keyLength[last]);
+            while (shared < limit && charAt(first, shared) == charAt(last, shared)) {
+                shared++;
+            }
+
+            int node = nodes++;
+            labelStart[node] = keyStart[first] + at;
+            labelLength[node] = shared - at;
+            rangeLow[node] = low;
+            rangeHigh[node] = high;
+            depth[node] = shared;
+        }
+
+        /**
+         * This method writes the best ranked Cards in a node's run of names.
+         * As positions are ranks, they are the lowest positions in the run,
+         * found by merging the lists already written for its children.
+         * @param node an Integer containing the node.
+         * @param top the Array to write into.
+         * @param topStart an Array of where each node's list starts in top.
+         * @param topCount an Array of the length of each node's list.
+         * @param at an Integer containing where to start writing.
+         * @return an Integer containing the number of Cards written.
+         */
+        private int bestInRange(int node, int[] top, int[] topStart, int[] topCount, int at) {
+            int count = 0;
+            // Names ending at this node come before any child's.
+            int low = rangeLow[node];
+            while (low < rangeHigh[node] && keyLength[order[low]] == depth[node]) {
+                count = insert(top, at, count, order[low]);
+                low++;
+            }
+            for (int c = firstChild[node]; c < firstChild[node] + childCount[node]; c++) {
+                for (int i = topStart[c]; i < topStart[c] + topCount[c]; i++) {
+                    count = insert(top, at, count, top[i]);
+                }
+            }
+            return count;
+        }
+
+        /**
+         * This method keeps the TOP_K lowest positions in a sorted run.
+         * @param top the Array holding the run.
+         * @param at an Integer containing the start of the run.
+         * @param count an Integer containing the length of the run.
+         * @param position an Integer containing the position to add.
+         * @return an Integer containing the new length of the run.
+         */
+        private static int insert(int[] top, int at, int count, int position) {
+            if (count == TOP_K && position >= top[at + count - 1]) {
+                return count;
+            }
+            int i = count < TOP_K ? count++ : count - 1;
+            while (i > 0 && top[at + i - 1] > position) {
+                top[at + i] = top[at + i - 1];
+                i--;
+            }
+            top[at + i] = position;
+            return count;
+        }
+
+        /**
+         * This method returns a character of a Card's normalised name.
+         * @param position an Integer containing the Card's position.
+         * @param i an Integer containing the index of the character.
+         * @return a Byte containing the character.
+         */
+        private byte charAt(int position, int i) {
+            return text[keyStart[position] + i];
+        }
+
+        /**
+         * This method compares two Cards' normalised names.
+         * @param a an Integer containing one Card's position.
+         * @param b an Integer containing the other Card's position.
+         * @return a negative Integer, zero or a positive Integer as a's name
+         * sorts before, with or after b's.
+         */
+        private int compareKeys(int a, int b) {
+            int length = Math.min(keyLength[a], keyLength[b]);
+            for (int i = 0; i < length; i++) {
+                int diff = charAt(a, i) - charAt(b, i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return keyLength[a] - keyLength[b];
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the thread pool used for database work. Each task is tagged
+ * with a Priority, so that reads the user is waiting on run ahead of
+ * prefetching and bulk work such as the card import.
+ *
+ * Interactive tasks always run first. Prefetch and bulk tasks are ordered
+ * between themselves by the time they were queued plus a delay for their
+ * Priority, so a bulk task is promoted ahead of newer prefetch work once it
+ * has waited that long, and can never be starved by it.
+ *
+ * Prefetch and bulk tasks may only hold all but one of the threads, so there
+ * is always a thread free for the user's reads, however much background work
+ * is queued. Bulk tasks also run one at a time, in the order they were
+ * queued, so a clean-up queued before the card import always finishes first.
+ */
+public class PriorityDatabaseExecutor extends ThreadPoolExecutor {
+
+    /**
+     * This enum describes how urgently a database task needs to run.
+     */
+    public enum Priority {
+        // Reads and writes the user is waiting on, such as opening a deck.
+        INTERACTIVE(0),
+        // Lists loaded ahead of being shown, such as the card pickers.
+        PREFETCH(250),
+        // Large background jobs, such as the card import and clean-ups.
+        BULK(2000);
+
+        private final long delayNanos;
+
+        Priority(long delayMillis) {
+            delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+    }
+
+    private final AtomicLong sequence;
+    private final int maxBackgroundTasks;
+    private final Object backgroundLock;
+    private final PriorityQueue<PrioritizedTask> backgroundQueue;
+    private final ArrayDeque<Runnable> bulkBacklog;
+    private int backgroundRunning;
+    private boolean bulkQueued;
+    private Priority defaultPriority;
+
+    /**
+     * This is the non-default constructor.
+     * @param threads an Integer containing the number of threads in the pool.
+     */
+    public PriorityDatabaseExecutor(int threads) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>());
+        sequence = new AtomicLong();
+        maxBackgroundTasks = Math.max(1, threads - 1);
+        backgroundLock = new Object();
+        backgroundQueue = new PriorityQueue<>();
+        bulkBacklog = new ArrayDeque<>();
+        backgroundRunning = 0;
+        bulkQueued = false;
+        defaultPriority = Priority.PREFETCH;
+    }
+
+    /**
+     * This method runs a task at the default Priority.
+     * @param command a Runnable to be run on the pool.
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command instanceof PrioritizedTask) {
+            super.execute(command);
+        } else {
+            execute(defaultPriority, command);
+        }
+    }
+
+    /**
+     * This method runs a task at the given Priority.
+     * @param priority the Priority of the task.
+     * @param command a Runnable to be run on the pool.
+     */
+    public void execute(Priority priority, Runnable command) {
+        if (priority == Priority.INTERACTIVE) {
+            super.execute(new PrioritizedTask(command, priority, sequence.getAndIncrement()));
+            return;
+        }
+
+        synchronized (backgroundLock) {
+            if (priority == Priority.BULK) {
+                // Wait behind the bulk task already queued or running, if there is one.
+                if (bulkQueued) {
+                    bulkBacklog.add(command);
+                    return;
+                }
+                bulkQueued = true;
+            }
+            backgroundQueue.add(new PrioritizedTask(new BackgroundTask(command, priority),
+                    priority, sequence.getAndIncrement()));
+        }
+        admitBackgroundTasks();
+    }
+
+    /**
+     * This method hands background tasks to the pool, as long as they would
+     * leave a thread free for interactive tasks.
+     */
+    private void admitBackgroundTasks() {
+        while (true) {
+            PrioritizedTask next;
+            synchronized (backgroundLock) {
+                if (backgroundRunning == maxBackgroundTasks || backgroundQueue.isEmpty()) {
+                    return;
+                }
+                next = backgroundQueue.poll();
+                backgroundRunning++;
+            }
+            super.execute(next);
+        }
+    }
+
+    /**
+     * This method is called when a background task finishes. It queues the
+     * next bulk task if that one was bulk, and admits more background tasks.
+     * @param priority the Priority of the task which finished.
+     */
+    private void backgroundTaskFinished(Priority priority) {
+        synchronized (backgroundLock) {
+            backgroundRunning--;
+            if (priority == Priority.BULK) {
+                queueNextBulkTask();
+            }
+        }
+        admitBackgroundTasks();
+    }
+
+    /**
+     * This method queues the next bulk task from the backlog, once the one
+     * before it has finished or been removed. It must be called holding the
+     * backgroundLock.
+     */
+    private void queueNextBulkTask() {
+        Runnable next = bulkBacklog.poll();
+        bulkQueued = next != null;
+        if (next != null) {
+            backgroundQueue.add(new PrioritizedTask(new BackgroundTask(next, Priority.BULK),
+                    Priority.BULK, sequence.getAndIncrement()));
+        }
+    }
+
+    /**
+     * This method takes a task off the queue if it has not started yet, so a
+     * cancelled query does not wait its turn only to do nothing. The task is
+     * found whether it is still waiting as background work or has already
+     * been handed to the pool.
+     * @param task the Runnable which was passed to execute.
+     * @return a Boolean which is true if the task was queued and is now removed.
+     */
+    @Override
+    public boolean remove(Runnable task) {
+        boolean removed = false;
+        synchronized (backgroundLock) {
+            Iterator<PrioritizedTask> waiting = backgroundQueue.iterator();
+            while (waiting.hasNext()) {
+                PrioritizedTask queued = waiting.next();
+                BackgroundTask background = (BackgroundTask) queued.task;
+                if (background.task == task) {
+                    waiting.remove();
+                    if (background.priority == Priority.BULK) {
+                        queueNextBulkTask();
+                    }
+                    removed = true;
+                    break;
+                }
+            }
+            if (!removed && bulkBacklog.remove(task)) {
+                return true;
+            }
+        }
+        if (removed) {
+            admitBackgroundTasks();
+            return true;
+        }
+
+        for (Runnable queued : getQueue()) {
+            PrioritizedTask prioritized = (PrioritizedTask) queued;
+            Runnable command = prioritized.task;
+            BackgroundTask background = null;
+            if (command instanceof BackgroundTask) {
+                background = (BackgroundTask) command;
+                command = background.task;
+            }
+            if (command == task && super.remove(prioritized)) {
+                // A background task counts as running from when it is handed over.
+                if (background != null) {
+                    backgroundTaskFinished(background.priority);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns an Executor which runs everything it is given at a
+     * single Priority, for use with CompletableFuture.
+     * @param priority the Priority which tasks should run at.
+     * @return an Executor which tags its tasks with the Priority.
+     */
+    public Executor forPriority(final Priority priority) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                PriorityDatabaseExecutor.this.execute(priority, command);
+            }
+        };
+    }
+
+    /**
+     * This method returns the number of prefetch and bulk tasks which have not
+     * yet been handed to the pool.
+     * @return an Integer containing the number of waiting background tasks.
+     */
+    public int getBackgroundBacklog() {
+        synchronized (backgroundLock) {
+            return backgroundQueue.size() + bulkBacklog.size();
+        }
+    }
+
+    /**
+     * This is the Accessor method for the defaultPriority field.
+     * @return the Priority given to tasks which were not tagged.
+     */
+    public Priority getDefaultPriority() {
+        return defaultPriority;
+    }
+
+    /**
+     * This is the Mutator method for the defaultPriority field.
+     * @param defaultPriority the Priority to give to tasks which were not tagged.
+     */
+    public void setDefaultPriority(Priority defaultPriority) {
+        this.defaultPriority = defaultPriority;
+    }
+
+    /**
+     * This class runs a prefetch or bulk task, and then lets the next one in.
+     */
+    private final class BackgroundTask implements Runnable {
+        private final Runnable task;
+        private final Priority priority;
+
+        BackgroundTask(Runnable task, Priority priority) {
+            this.task = task;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            }
+            finally {
+                backgroundTaskFinished(priority);
+            }
+        }
+    }
+
+    /**
+     * This class wraps a task with the key used to order it in the queue.
+     */
+    private static final class PrioritizedTask implements Runnable,
+            Comparable<PrioritizedTask> {
+        private final Runnable task;
+        private final boolean interactive;
+        private final long dueNanos;
+        private final long sequence;
+
+        PrioritizedTask(Runnable task, Priority priority, long sequence) {
+            this.task = task;
+            this.interactive = priority == Priority.INTERACTIVE;
+            this.dueNanos = System.nanoTime() + priority.delayNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            // Interactive tasks are never aged behind background work.
+            if (interactive != other.interactive) {
+                return interactive ? -1 : 1;
+            }
+            // Compare the difference, as nanoTime values may overflow.
+            long difference = dueNanos - other.dueNanos;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
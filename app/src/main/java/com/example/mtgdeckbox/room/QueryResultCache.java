@@ -0,0 +1,246 @@
+package com.example.mtgdeckbox.room;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * This class caches the results of read queries in memory, keyed by the query
+ * and its arguments. The least recently used result is evicted once the cache
+ * is full, and everything is dropped when Room reports that one of the watched
+ * tables has changed.
+ *
+ * A load is cached as soon as it starts, rather than when it finishes, so
+ * requests for a query which is already loading wait for that load instead of
+ * running the query again. A load which fails is dropped, so the next request
+ * tries again. The load is only cancelled once every request waiting on it
+ * has been cancelled.
+ */
+public class QueryResultCache {
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry<?>> entries;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * This is the non-default constructor.
+     * @param maxEntries an Integer containing the most results to hold at once.
+     */
+    public QueryResultCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        // Iterate in access order, so the eldest entry is the least recently used.
+        entries = new LinkedHashMap<String, Entry<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<?>> eldest) {
+                return size() > QueryResultCache.this.maxEntries;
+            }
+        };
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * This method clears the cache whenever one of the given tables changes.
+     * @param database the RoomDatabase whose InvalidationTracker we listen to.
+     * @param tables the names of the tables which the cached queries read.
+     */
+    public void watch(RoomDatabase database, String... tables) {
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changedTables) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * This method returns a cached result, joins a load of the same query which
+     * is already running, or runs the loader. Cancelling a returned future
+     * only stops that caller waiting, while anyone else is still waiting on
+     * the load. Once every caller waiting on an unfinished load has cancelled,
+     * the load itself is cancelled, which stops its query, and is dropped.
+     * @param key a String identifying the query and its arguments.
+     * @param loader a Supplier which starts the query.
+     * @return a CompletableFuture containing the result of the query.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> get(final String key,
+                                        Supplier<CompletableFuture<T>> loader) {
+        final Entry<T> entry;
+        final CompletableFuture<T> waiter;
+        synchronized (entries) {
+            Entry<T> cached = (Entry<T>) entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return waitOn(key, cached);
+            }
+            entry = new Entry<>();
+            entries.put(key, entry);
+            waiter = waitOn(key, entry);
+        }
+        misses.incrementAndGet();
+
+        // Drop a load which fails or finds nothing, unless it was already dropped.
+        entry.shared.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                if (result == null || throwable != null) {
+                    synchronized (entries) {
+                        entries.remove(key, entry);
+                    }
+                }
+            }
+        });
+
+        final CompletableFuture<T> load;
+        try {
+            load = loader.get();
+        }
+        catch (RuntimeException e) {
+            entry.shared.completeExceptionally(e);
+            return waiter;
+        }
+        load.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                if (throwable != null) {
+                    entry.shared.completeExceptionally(throwable);
+                } else {
+                    entry.shared.complete(result);
+                }
+            }
+        });
+
+        // Pass cancellation of the shared load through to the query.
+        entry.shared.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                if (entry.shared.isCancelled()) {
+                    load.cancel(true);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * This method drops every cached result, and any load still running, so
+     * the next request reads the tables again. Loads which were running still
+     * complete for the callers waiting on them.
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * This method returns a future which completes with a shared load, and
+     * counts its caller as waiting on the load until the future is cancelled.
+     * It must be called holding the lock on the entries.
+     * @param key a String identifying the query and its arguments.
+     * @param entry the Entry of the shared load.
+     * @return a new CompletableFuture which completes with the shared load.
+     */
+    private <T> CompletableFuture<T> waitOn(final String key, final Entry<T> entry) {
+        final CompletableFuture<T> waiter = entry.shared.thenApply(new Function<T, T>() {
+            @Override
+            public T apply(T result) {
+                return result;
+            }
+        });
+        if (waiter.isDone()) {
+            return waiter;
+        }
+        entry.waiters++;
+        waiter.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                if (waiter.isCancelled()) {
+                    release(key, entry);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * This method is called when a caller cancels its wait on a shared load.
+     * If nobody else is waiting and the load has not finished, the load is
+     * dropped and cancelled.
+     * @param key a String identifying the query and its arguments.
+     * @param entry the Entry of the shared load.
+     */
+    private void release(String key, Entry<?> entry) {
+        synchronized (entries) {
+            if (--entry.waiters > 0 || entry.shared.isDone()) {
+                return;
+            }
+            entries.remove(key, entry);
+        }
+        entry.shared.cancel(true);
+    }
+
+    /**
+     * This method builds the key for a query and its arguments.
+     * @param sql a String containing the query.
+     * @param args the arguments bound to the query.
+     * @return a String which identifies the query and its arguments.
+     */
+    public static String key(String sql, Object... args) {
+        return sql + " " + Arrays.deepToString(args);
+    }
+
+    /**
+     * This is the Accessor method for the hits field.
+     * @return a Long containing the number of requests served from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * This is the Accessor method for the maxEntries field.
+     * @return an Integer containing the most results the cache will hold.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * This is the Accessor method for the misses field.
+     * @return a Long containing the number of requests which ran the query.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * This method returns the number of results currently cached.
+     * @return an Integer containing the number of cached results.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * This class holds a load shared by every request for one query, and the
+     * number of those requests still waiting on it.
+     */
+    private static final class Entry<T> {
+        private final CompletableFuture<T> shared = new CompletableFuture<>();
+        private int waiters;
+    }
+}
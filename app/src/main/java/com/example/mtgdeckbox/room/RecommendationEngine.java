@@ -0,0 +1,200 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class recommends Cards to add to a Deck. It is built once from the
+ * Commander-legal catalogue, and keeps a list of Cards for each exact colour
+ * identity, already sorted by EDHREC rank.
+ *
+ * A recommendation walks only the lists inside the commander's identity,
+ * skips Cards already in the Deck, and the commander itself, with a BitSet of
+ * their ID numbers, and
+ * scores each Card by how popular it is and how much it helps the categories
+ * the Deck is short on. The best K are kept in a bounded min-heap, and a list
+ * is abandoned as soon as nothing further down it could beat the heap.
+ */
+public class RecommendationEngine {
+    // The number of Cards of each category a Deck should aim for, in the order
+    // of CATEGORY_BITS. These match the suggestions tab.
+    public static final int[] CATEGORY_TARGETS = {12, 10, 10, 3};
+    public static final int[] CATEGORY_BITS = {Card.RAMP, Card.DRAW, Card.REMOVAL,
+            Card.BOARD_WIPE};
+
+    // How much filling a whole category is worth, next to being the top ranked Card.
+    private static final double DEFICIT_WEIGHT = 2.0;
+
+    // The number of distinct colour identities.
+    private static final int IDENTITIES = 32;
+
+    private final CardSummary[] cards;
+    private final int[] categoryMasks;
+    private final int[][] byIdentity;
+
+    /**
+     * This is the non-default constructor, used by the Builder.
+     * @param cards an Array of CardSummaries, in rank order.
+     * @param categoryMasks an Array of category masks for each Card.
+     * @param byIdentity an Array holding, for each colour identity, the
+     *                   positions of its Cards in rank order.
+     */
+    private RecommendationEngine(CardSummary[] cards, int[] categoryMasks,
+                                 int[][] byIdentity) {
+        this.cards = cards;
+        this.categoryMasks = categoryMasks;
+        this.byIdentity = byIdentity;
+    }
+
+    /**
+     * This method returns the number of Cards the engine can recommend.
+     * @return an Integer containing the number of Cards.
+     */
+    public int size() {
+        return cards.length;
+    }
+
+    /**
+     * This method recommends Cards for a Deck.
+     * @param commanderMask an Integer with one bit set for each colour in the
+     *                      commander's colour identity.
+     * @param commanderID an Integer containing the ID number of the commander,
+     *                    or -1 if the Deck has none. A second copy of it would
+     *                    break the singleton rule, so it is never recommended.
+     * @param deck a List of DeckCardEntries, one for each Card in the Deck.
+     * @param requiredCategory an Integer containing a category bit every
+     *                         recommendation must have, or 0 for any Card.
+     * @param limit an Integer containing the most Cards to return.
+     * @return a List of CardSummaries, best first.
+     */
+    public List<CardSummary> recommend(int commanderMask, int commanderID,
+                                       List<DeckCardEntry> deck, int requiredCategory,
+                                       int limit) {
+        if (limit <= 0 || cards.length == 0) {
+            return Collections.emptyList();
+        }
+
+        // Mark the Cards already in the Deck, and count what each category has.
+        BitSet inDeck = new BitSet();
+        if (commanderID >= 0) {
+            inDeck.set(commanderID);
+        }
+        int[] categoryCounts = new int[CATEGORY_BITS.length];
+        for (int i = 0; i < deck.size(); i++) {
+            Card card = deck.get(i).getCard();
+            inDeck.set(card.getCardID());
+            int mask = Card.parseCategoryMask(card.getCategories());
+            for (int c = 0; c < CATEGORY_BITS.length; c++) {
+                if ((mask & CATEGORY_BITS[c]) != 0) {
+                    categoryCounts[c] += deck.get(i).getQuantity();
+                }
+            }
+        }
+
+        // A category is worth up to DEFICIT_WEIGHT, shrinking as the Deck fills it.
+        double[] deficits = new double[CATEGORY_BITS.length];
+        double bestCategoryScore = 0;
+        for (int c = 0; c < CATEGORY_BITS.length; c++) {
+            int missing = Math.max(0, CATEGORY_TARGETS[c] - categoryCounts[c]);
+            deficits[c] = DEFICIT_WEIGHT * missing / CATEGORY_TARGETS[c];
+            bestCategoryScore += deficits[c];
+        }
+
+        TopK best = new TopK(limit);
+        for (int identity = 0; identity < IDENTITIES; identity++) {
+            if ((identity & ~commanderMask) != 0) {
+                continue;
+            }
+            int[] positions = byIdentity[identity];
+            for (int i = 0; i < positions.length; i++) {
+                int position = positions[i];
+                double popularity = popularity(position);
+
+                // Further down the list, popularity only falls, so stop here.
+                if (best.isFull() && popularity + bestCategoryScore <= best.lowestScore()) {
+                    break;
+                }
+                int mask = categoryMasks[position];
+                if ((mask & requiredCategory) != requiredCategory
+                        || inDeck.get(cards[position].getCardID())) {
+                    continue;
+                }
+                double score = popularity;
+                for (int c = 0; c < CATEGORY_BITS.length; c++) {
+                    if ((mask & CATEGORY_BITS[c]) != 0) {
+                        score += deficits[c];
+                    }
+                }
+                best.offer(position, score);
+            }
+        }
+
+        int[] order = best.drainBestFirst();
+        List<CardSummary> results = new ArrayList<>(order.length);
+        for (int position : order) {
+            results.add(cards[position]);
+        }
+        return results;
+    }
+
+    /**
+     * This method scores a Card by its place in the rank order.
+     * @param position an Integer containing the Card's position in rank order.
+     * @return a Double from 1 for the top Card, falling towards 0.
+     */
+    private double popularity(int position) {
+        return 1.0 - (double) position / cards.length;
+    }
+
+    /**
+     * This class builds a RecommendationEngine one Card at a time. Cards must
+     * be added in rank order.
+     */
+    public static class Builder {
+        private final List<CardSummary> cards;
+        private final List<Integer> categoryMasks;
+        private final int[] identityCounts;
+
+        /**
+         * This is the default constructor.
+         */
+        public Builder() {
+            cards = new ArrayList<>();
+            categoryMasks = new ArrayList<>();
+            identityCounts = new int[IDENTITIES];
+        }
+
+        /**
+         * This method adds a Card to the engine.
+         * @param card a CardSummary for the Card.
+         * @param categories a String containing the Card's categories.
+         */
+        public void add(CardSummary card, String categories) {
+            cards.add(card);
+            categoryMasks.add(Card.parseCategoryMask(categories));
+            identityCounts[card.getIdentityMask() & (IDENTITIES - 1)]++;
+        }
+
+        /**
+         * This method builds the engine from every Card added so far.
+         * @return the finished RecommendationEngine.
+         */
+        public RecommendationEngine build() {
+            int[][] byIdentity = new int[IDENTITIES][];
+            for (int identity = 0; identity < IDENTITIES; identity++) {
+                byIdentity[identity] = new int[identityCounts[identity]];
+            }
+            int[] filled = new int[IDENTITIES];
+            int[] masks = new int[cards.size()];
+            for (int position = 0; position < cards.size(); position++) {
+                int identity = cards.get(position).getIdentityMask() & (IDENTITIES - 1);
+                byIdentity[identity][filled[identity]++] = position;
+                masks[position] = categoryMasks.get(position);
+            }
+            return new RecommendationEngine(cards.toArray(new CardSummary[0]), masks,
+                    byIdentity);
+        }
+    }
+}
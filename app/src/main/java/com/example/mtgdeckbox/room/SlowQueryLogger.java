@@ -0,0 +1,655 @@
+package com.example.mtgdeckbox.room;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a Room QueryCallback which reports any statement which has to
+ * scan a whole table, or which is slower than a threshold. It is installed in
+ * debug builds, and by the query plan tests.
+ *
+ * Room only tells us that a statement is about to run, so the callback just
+ * captures the SQL, and runs EXPLAIN QUERY PLAN once for each distinct
+ * statement. Statements are never run a second time.
+ *
+ * Once attached with CardDatabase.logSlowQueries(), every query and statement
+ * Room runs, from DAO methods, LiveData, raw queries and Room's own
+ * bookkeeping, is handed to time() and timed as it runs. A query is charged
+ * for the time spent in SQLite, in query() and in stepping its Cursor, and not
+ * for what the caller does with each row.
+ */
+public class SlowQueryLogger implements RoomDatabase.QueryCallback {
+    private static final String TAG = "SLOW QUERY:";
+    private static final String EXPLAIN_MARKER = "/* slow-query-log */ ";
+    private static final int MAX_REPORTS = 100;
+
+    private final ExecutorService executor;
+    private final HashMap<String, List<String>> plans;
+    private final ArrayList<QueryReport> reports;
+    private volatile long thresholdMillis;
+    private volatile RoomDatabase database;
+
+    /**
+     * This is the non-default constructor.
+     * @param thresholdMillis a Long containing the number of milliseconds a
+     *                        statement may take before it is flagged as slow.
+     */
+    public SlowQueryLogger(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+        executor = Executors.newSingleThreadExecutor();
+        plans = new HashMap<>();
+        reports = new ArrayList<>();
+    }
+
+    /**
+     * This method installs the logger on a database builder. Once it is built,
+     * the database must be given the logger with CardDatabase.logSlowQueries().
+     * @param builder the RoomDatabase.Builder which will build the database.
+     */
+    public <T extends RoomDatabase> void install(RoomDatabase.Builder<T> builder) {
+        builder.setQueryCallback(this, executor);
+    }
+
+    /**
+     * This method gives the logger access to the database, so it can capture
+     * query plans. It is called by CardDatabase.logSlowQueries().
+     * @param database the RoomDatabase which the logger was installed on.
+     */
+    public void attach(RoomDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * This method runs on the logger's thread each time Room runs a statement.
+     * The first time a SELECT is seen, its query plan is captured.
+     * @param sqlQuery a String containing the SQL statement.
+     * @param bindArgs a List of the arguments bound to the statement.
+     */
+    @Override
+    public void onQuery(@NonNull String sqlQuery, @NonNull List<Object> bindArgs) {
+        // Ignore our own EXPLAINs, and anything which isn't a read.
+        if (sqlQuery.startsWith(EXPLAIN_MARKER)) {
+            return;
+        }
+        String statement = sqlQuery.trim();
+        if (!statement.toUpperCase(Locale.ROOT).startsWith("SELECT")) {
+            return;
+        }
+        checkPlan(statement, bindArgs.toArray());
+    }
+
+    /**
+     * This method wraps the Cursor of a query which has just been run, so the
+     * time spent stepping through its results is added to the time the query
+     * took. The total is recorded when the Cursor is closed.
+     * @param sql a String containing the query.
+     * @param args an Array of the arguments bound to the query.
+     * @param queryNanos a Long containing how long the query took to run, in
+     *                   nanoseconds.
+     * @param cursor the Cursor returned by the query.
+     * @return a Cursor which reads from the given one.
+     */
+    public Cursor time(String sql, Object[] args, long queryNanos, Cursor cursor) {
+        return new TimedCursor(cursor, sql, args, queryNanos);
+    }
+
+    /**
+     * This method wraps a compiled statement, such as an insert, update or
+     * delete, so the time each execution takes is recorded.
+     * @param sql a String containing the statement.
+     * @param statement the SupportSQLiteStatement compiled from it.
+     * @return a SupportSQLiteStatement which runs the given one.
+     */
+    public SupportSQLiteStatement time(String sql, SupportSQLiteStatement statement) {
+        return new TimedStatement(sql, statement);
+    }
+
+    /**
+     * This method reads the arguments bound to a query.
+     * @param query a SupportSQLiteQuery.
+     * @return an Array of the arguments, in order.
+     */
+    public static Object[] argsOf(SupportSQLiteQuery query) {
+        BoundArgs args = new BoundArgs();
+        query.bindTo(args);
+        return args.toArray();
+    }
+
+    /**
+     * This method records how long a statement took where it really ran. A
+     * statement over the threshold is reported along with its query plan.
+     * It may be called on any thread.
+     * @param sql a String containing the SQL statement.
+     * @param args an Array of the arguments bound to the statement.
+     * @param nanos a Long containing how long the statement took, including
+     *              stepping through its results, in nanoseconds.
+     */
+    public void recordTiming(final String sql, final Object[] args, long nanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis < thresholdMillis || sql.startsWith(EXPLAIN_MARKER)) {
+            return;
+        }
+        // Capture the plan on the logger's thread, so the caller isn't slowed further.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String statement = sql.trim();
+                List<String> plan = checkPlan(statement, args);
+                addReport(new QueryReport(statement, millis, plan, true, containsFullScan(plan)));
+            }
+        });
+    }
+
+    /**
+     * This method waits until every statement seen so far has been checked.
+     * Tests call it before reading the reports.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitChecks() throws InterruptedException {
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {}
+            }).get();
+        }
+        catch (ExecutionException e) {
+            Log.d(TAG, "Could not wait for query checks");
+        }
+    }
+
+    /**
+     * This method returns the query plan of a statement, running EXPLAIN QUERY
+     * PLAN the first time the statement is seen, and reporting it if it scans
+     * a whole table. It runs on the logger's thread.
+     * @param statement a String containing the SQL statement.
+     * @param args an Array of the arguments bound to the statement.
+     * @return a List of Strings, one for each step of the query plan, or an
+     * empty List if the plan could not be captured.
+     */
+    private List<String> checkPlan(String statement, Object[] args) {
+        List<String> plan = plans.get(statement);
+        if (plan != null) {
+            return plan;
+        }
+        if (database == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            plan = explain(database.getOpenHelper().getReadableDatabase(), statement, args);
+        }
+        catch (Exception e) {
+            Log.d(TAG, "Could not explain query: " + statement);
+            return new ArrayList<>();
+        }
+        plans.put(statement, plan);
+
+        if (containsFullScan(plan)) {
+            addReport(new QueryReport(statement, -1, plan, false, true));
+        }
+        return plan;
+    }
+
+    /**
+     * This method runs EXPLAIN QUERY PLAN for a statement.
+     * @param db the SupportSQLiteDatabase to run the statement against.
+     * @param statement a String containing the SQL statement.
+     * @param args an Array of the arguments bound to the statement.
+     * @return a List of Strings, one for each step of the query plan.
+     */
+    private List<String> explain(SupportSQLiteDatabase db, String statement, Object[] args) {
+        List<String> plan = new ArrayList<>();
+        Cursor cursor = db.query(new SimpleSQLiteQuery(
+                EXPLAIN_MARKER + "EXPLAIN QUERY PLAN " + statement, args));
+        try {
+            int detail = cursor.getColumnIndex("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return plan;
+    }
+
+    /**
+     * This method keeps a report and writes it to the log.
+     * @param report the QueryReport to keep.
+     */
+    private void addReport(QueryReport report) {
+        synchronized (reports) {
+            if (reports.size() == MAX_REPORTS) {
+                reports.remove(0);
+            }
+            reports.add(report);
+        }
+        Log.w(TAG, report.toString());
+    }
+
+    /**
+     * This method checks if any step of a query plan is a full table scan.
+     * @param plan a List of Strings containing the steps of a query plan.
+     * @return a Boolean which is true if a step scans a table without an index.
+     */
+    private static boolean containsFullScan(List<String> plan) {
+        for (String step : plan) {
+            if (isFullScan(step)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method checks if a step of a query plan is a full table scan.
+     * @param step a String containing one step of a query plan.
+     * @return a Boolean which is true if the step scans a table without an index.
+     */
+    public static boolean isFullScan(String step) {
+        return step.startsWith("SCAN") && !step.contains("INDEX")
+                && !step.contains("CONSTANT ROW");
+    }
+
+    /**
+     * This method clears all of the collected reports, and forgets which
+     * statements have been checked, so they are checked again.
+     */
+    public void clear() {
+        synchronized (reports) {
+            reports.clear();
+        }
+        // The plans are only read on the logger's thread, so clear them there.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                plans.clear();
+            }
+        });
+    }
+
+    /**
+     * This method returns the statements which have been found to scan
+     * a whole table.
+     * @return a List of QueryReports for statements with a full table scan.
+     */
+    public List<QueryReport> getFullTableScans() {
+        List<QueryReport> scans = new ArrayList<>();
+        synchronized (reports) {
+            for (QueryReport report : reports) {
+                if (report.isFullScan() && !report.isSlow()) {
+                    scans.add(report);
+                }
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * This method returns all of the collected reports.
+     * @return a List of QueryReports, oldest first.
+     */
+    public List<QueryReport> getReports() {
+        synchronized (reports) {
+            return new ArrayList<>(reports);
+        }
+    }
+
+    /**
+     * This is the Accessor method for the thresholdMillis field.
+     * @return a Long containing the slow statement threshold, in milliseconds.
+     */
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * This is the Mutator method for the thresholdMillis field.
+     * @param thresholdMillis a Long containing the new slow statement
+     *                        threshold, in milliseconds.
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * This class reads from the Cursor of a query, and adds the time spent
+     * moving through it to the time the query took. SQLite only steps the
+     * query as rows are read, so that is where most of a long query's time
+     * is spent.
+     */
+    private final class TimedCursor extends CursorWrapper {
+        private final String sql;
+        private final Object[] args;
+        private long nanos;
+        private boolean recorded;
+
+        TimedCursor(Cursor cursor, String sql, Object[] args, long queryNanos) {
+            super(cursor);
+            this.sql = sql;
+            this.args = args;
+            this.nanos = queryNanos;
+        }
+
+        @Override
+        public int getCount() {
+            long start = System.nanoTime();
+            try {
+                return super.getCount();
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean move(int offset) {
+            long start = System.nanoTime();
+            try {
+                return super.move(offset);
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            long start = System.nanoTime();
+            try {
+                return super.moveToPosition(position);
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            long start = System.nanoTime();
+            try {
+                return super.moveToFirst();
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToLast() {
+            long start = System.nanoTime();
+            try {
+                return super.moveToLast();
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToNext() {
+            long start = System.nanoTime();
+            try {
+                return super.moveToNext();
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            long start = System.nanoTime();
+            try {
+                return super.moveToPrevious();
+            }
+            finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (!recorded) {
+                recorded = true;
+                recordTiming(sql, args, nanos);
+            }
+        }
+    }
+
+    /**
+     * This class runs a compiled statement, and records how long each
+     * execution takes along with the arguments bound to it.
+     */
+    private final class TimedStatement implements SupportSQLiteStatement {
+        private final String sql;
+        private final SupportSQLiteStatement statement;
+        private final BoundArgs args;
+
+        TimedStatement(String sql, SupportSQLiteStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+            this.args = new BoundArgs();
+        }
+
+        @Override
+        public void execute() {
+            long start = System.nanoTime();
+            statement.execute();
+            recordTiming(sql, args.toArray(), System.nanoTime() - start);
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            long start = System.nanoTime();
+            int rows = statement.executeUpdateDelete();
+            recordTiming(sql, args.toArray(), System.nanoTime() - start);
+            return rows;
+        }
+
+        @Override
+        public long executeInsert() {
+            long start = System.nanoTime();
+            long rowID = statement.executeInsert();
+            recordTiming(sql, args.toArray(), System.nanoTime() - start);
+            return rowID;
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            long start = System.nanoTime();
+            long result = statement.simpleQueryForLong();
+            recordTiming(sql, args.toArray(), System.nanoTime() - start);
+            return result;
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            long start = System.nanoTime();
+            String result = statement.simpleQueryForString();
+            recordTiming(sql, args.toArray(), System.nanoTime() - start);
+            return result;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            args.bindNull(index);
+            statement.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            args.bindLong(index, value);
+            statement.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            args.bindDouble(index, value);
+            statement.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            args.bindString(index, value);
+            statement.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            args.bindBlob(index, value);
+            statement.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            args.clearBindings();
+            statement.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            statement.close();
+        }
+    }
+
+    /**
+     * This class collects the arguments bound to a query or statement, so its
+     * plan can be explained with the same arguments.
+     */
+    private static final class BoundArgs implements SupportSQLiteProgram {
+        private final ArrayList<Object> args = new ArrayList<>();
+
+        /**
+         * This method stores an argument at its one-based index.
+         * @param index an Integer containing the index the argument is bound to.
+         * @param value the argument.
+         */
+        private void set(int index, Object value) {
+            while (args.size() < index) {
+                args.add(null);
+            }
+            args.set(index - 1, value);
+        }
+
+        /**
+         * This method returns the arguments collected so far.
+         * @return an Array of the arguments, in order.
+         */
+        Object[] toArray() {
+            return args.toArray();
+        }
+
+        @Override
+        public void bindNull(int index) {set(index, null);}
+
+        @Override
+        public void bindLong(int index, long value) {set(index, value);}
+
+        @Override
+        public void bindDouble(int index, double value) {set(index, value);}
+
+        @Override
+        public void bindString(int index, String value) {set(index, value);}
+
+        @Override
+        public void bindBlob(int index, byte[] value) {set(index, value);}
+
+        @Override
+        public void clearBindings() {args.clear();}
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * This class describes a single flagged statement. A statement with a full
+     * table scan is reported once when its plan is first captured, and again
+     * each time it runs slowly.
+     */
+    public static class QueryReport {
+        private final String sql;
+        private final long millis;
+        private final List<String> plan;
+        private final boolean slow;
+        private final boolean fullScan;
+
+        /**
+         * This is the non-default constructor.
+         * @param sql a String containing the flagged statement.
+         * @param millis a Long containing how long the statement took, or -1
+         *               if it was flagged for its plan alone.
+         * @param plan a List of Strings containing the query plan.
+         * @param slow a Boolean which is true if the statement was over the threshold.
+         * @param fullScan a Boolean which is true if the plan scans a whole table.
+         */
+        public QueryReport(String sql, long millis, List<String> plan,
+                           boolean slow, boolean fullScan) {
+            this.sql = sql;
+            this.millis = millis;
+            this.plan = plan;
+            this.slow = slow;
+            this.fullScan = fullScan;
+        }
+
+        /**
+         * This is the Accessor method for the sql field.
+         * @return a String containing the flagged statement.
+         */
+        public String getSql() {return sql;}
+
+        /**
+         * This is the Accessor method for the millis field.
+         * @return a Long containing how long the statement took, in
+         * milliseconds, or -1 if it was not timed.
+         */
+        public long getMillis() {return millis;}
+
+        /**
+         * This is the Accessor method for the plan field.
+         * @return a List of Strings containing each step of the query plan.
+         */
+        public List<String> getPlan() {return plan;}
+
+        /**
+         * This is the Accessor method for the slow field.
+         * @return a Boolean which is true if the statement was over the threshold.
+         */
+        public boolean isSlow() {return slow;}
+
+        /**
+         * This is the Accessor method for the fullScan field.
+         * @return a Boolean which is true if the plan scans a whole table.
+         */
+        public boolean isFullScan() {return fullScan;}
+
+        /**
+         * This method returns the report in a String format.
+         * @return a String describing the flagged statement and its plan.
+         */
+        public String toString() {
+            return (slow ? "slow " + millis + "ms " : "") + (fullScan ? "full-scan " : "") +
+                    sql + " PLAN " + plan;
+        }
+    }
+}
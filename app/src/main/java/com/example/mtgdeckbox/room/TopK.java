@@ -0,0 +1,108 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class keeps the K highest scoring items seen so far, such as Card
+ * positions or ID numbers, in a min-heap of parallel arrays, so the weakest
+ * is always at the top to be replaced. It is shared by the recommendation
+ * and co-occurrence searches, which would otherwise sort every candidate.
+ */
+final class TopK {
+    private final int[] positions;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * This is the non-default constructor.
+     * @param limit an Integer containing the most items to keep.
+     */
+    TopK(int limit) {
+        positions = new int[limit];
+        scores = new double[limit];
+    }
+
+    /**
+     * This method checks whether the heap holds K items.
+     * @return true if the heap is full.
+     */
+    boolean isFull() {
+        return size == positions.length;
+    }
+
+    /**
+     * This method returns the weakest score being kept.
+     * @return a Double containing the lowest score in the heap.
+     */
+    double lowestScore() {
+        return scores[0];
+    }
+
+    /**
+     * This method offers an item to the heap, which keeps it if it beats
+     * the weakest item being kept.
+     * @param position an Integer identifying the item.
+     * @param score a Double containing the item's score.
+     */
+    void offer(int position, double score) {
+        if (size < positions.length) {
+            int i = size++;
+            // Sift up.
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                positions[i] = positions[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            positions[i] = position;
+            scores[i] = score;
+        } else if (score > scores[0]) {
+            siftDown(0, position, score);
+        }
+    }
+
+    /**
+     * This method places an item at a slot and moves it down the heap until
+     * both of its children score higher.
+     * @param slot an Integer containing the slot to start at.
+     * @param position an Integer identifying the item.
+     * @param score a Double containing the item's score.
+     */
+    private void siftDown(int slot, int position, double score) {
+        int i = slot;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (scores[child] >= score) {
+                break;
+            }
+            positions[i] = positions[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        positions[i] = position;
+        scores[i] = score;
+    }
+
+    /**
+     * This method empties the heap.
+     * @return an Array of the kept items, highest score first.
+     */
+    int[] drainBestFirst() {
+        int[] order = new int[size];
+        for (int i = order.length - 1; i >= 0; i--) {
+            order[i] = positions[0];
+            size--;
+            if (size > 0) {
+                siftDown(0, positions[size], scores[size]);
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.mtgdeckbox.room;
+
+import java.util.Arrays;
+
+/**
+ * This class finds the names closest to a misspelt one, by Levenshtein edit
+ * distance. Each normalised name is broken into trigrams, the runs of three
+ * characters in it, with two blanks before the name and one after so that
+ * short names still have a few. Each edit can break at most three trigrams,
+ * so a name within k edits of the key must share all but 3k of the key's
+ * trigrams. Only the names which do are compared with the key in full, which
+ * is usually a few dozen out of sixteen thousand.
+ *
+ * Names are made of the letters and digits kept by CardNameIndex.normalise(),
+ * so each trigram is a number below 37 cubed, and the names holding each one
+ * are kept in a single flat array, indexed by an array of offsets. Names added
+ * earlier win ties, so names should be added most popular first.
+ */
+final class TrigramIndex {
+    // Each character of a trigram is one of 36 letters and digits, or a blank.
+    private static final int ALPHABET = 37;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+
+    private final String[] keys;
+    private final int[] values;
+    private final int[] offsets;
+    private final int[] postings;
+
+    /**
+     * This is the non-default constructor. It builds the index from every name.
+     * @param keys an Array of normalised names, most popular first.
+     * @param values an Array of the value, such as a Card ID number, for each name.
+     */
+    TrigramIndex(String[] keys, int[] values) {
+        this.keys = keys;
+        this.values = values;
+        offsets = new int[TRIGRAMS + 1];
+
+        // Count the names holding each trigram, then lay the lists end to end.
+        int[][] grams = new int[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            grams[i] = trigrams(keys[i]);
+            for (int gram : grams[i]) {
+                offsets[gram + 1]++;
+            }
+        }
+        for (int gram = 0; gram < TRIGRAMS; gram++) {
+            offsets[gram + 1] += offsets[gram];
+        }
+        postings = new int[offsets[TRIGRAMS]];
+        int[] next = Arrays.copyOf(offsets, TRIGRAMS);
+        for (int i = 0; i < keys.length; i++) {
+            for (int gram : grams[i]) {
+                postings[next[gram]++] = i;
+            }
+        }
+    }
+
+    /**
+     * This method finds the names closest to a key.
+     * @param key a String containing a normalised name.
+     * @param maxDistance an Integer containing the most edits a match may be.
+     * @param limit an Integer containing the most matches to return.
+     * @return an Array of the values of the matches, closest first, and most
+     * popular first among matches equally close.
+     */
+    int[] search(String key, int maxDistance, int limit) {
+        if (keys.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        int[] keyGrams = trigrams(key);
+        int needed = keyGrams.length - 3 * maxDistance;
+        int[][] rows = new int[2][key.length() + 1];
+        TopK best = new TopK(limit);
+        int[] radius = {maxDistance};
+
+        if (needed <= 0) {
+            // The key is too short to filter on, so check every name of a close length.
+            for (int i = 0; i < keys.length; i++) {
+                check(key, i, rows, best, radius);
+            }
+        } else {
+            // Compare only the names which share enough of the key's trigrams.
+            short[] shared = new short[keys.length];
+            for (int gram : keyGrams) {
+                for (int p = offsets[gram]; p < offsets[gram + 1]; p++) {
+                    int i = postings[p];
+                    if (++shared[i] == needed) {
+                        check(key, i, rows, best, radius);
+                    }
+                }
+            }
+        }
+
+        int[] order = best.drainBestFirst();
+        for (int i = 0; i < order.length; i++) {
+            order[i] = values[order[i]];
+        }
+        return order;
+    }
+
+    /**
+     * This method returns the number of names in the index.
+     * @return an Integer containing the number of names.
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * This method compares one name with the key, and keeps it if it is
+     * close enough.
+     * @param key a String containing the normalised key.
+     * @param i an Integer containing the position of the name.
+     * @param rows an Array of two work rows, longer than the key.
+     * @param best the TopK of the closest names so far.
+     * @param radius an Array holding the furthest distance still worth keeping,
+     *               which shrinks once the TopK is full.
+     */
+    private void check(String key, int i, int[][] rows, TopK best, int[] radius) {
+        int distance = distance(key, keys[i], radius[0], rows);
+        if (distance > radius[0]) {
+            return;
+        }
+        // Closer names score higher, then earlier (more popular) names.
+        best.offer(i, -((double) distance * keys.length + i));
+        if (best.isFull()) {
+            radius[0] = (int) (-best.lowestScore() / keys.length);
+        }
+    }
+
+    /**
+     * This method lists the distinct trigrams of a name, with two blanks
+     * before it and one after.
+     * @param key a String containing a normalised name.
+     * @return an Array of the trigrams, each as a number below TRIGRAMS.
+     */
+    private static int[] trigrams(String key) {
+        int[] grams = new int[key.length() + 1];
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i <= key.length(); i++) {
+            int c = i < key.length() ? code(key.charAt(i)) : 0;
+            grams[i] = (a * ALPHABET + b) * ALPHABET + c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * This method numbers a character of a normalised name.
+     * @param c a Character which is a lower case letter or a digit.
+     * @return an Integer from 1 to 36.
+     */
+    private static int code(char c) {
+        return c >= 'a' && c <= 'z' ? c - 'a' + 1 : Math.max(0, Math.min(9, c - '0')) + 27;
+    }
+
+    /**
+     * This method computes the Levenshtein distance between two Strings, but
+     * gives up once it is sure the distance is more than a cap.
+     * @param a a String.
+     * @param b another String.
+     * @param cap an Integer containing the largest distance worth knowing.
+     * @param rows an Array of two work rows, longer than a.
+     * @return an Integer containing the distance, or cap + 1 if it is more
+     * than cap.
+     */
+    private static int distance(String a, String b, int cap, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > cap) {
+            return cap + 1;
+        }
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int i = 0; i <= a.length(); i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= b.length(); j++) {
+            current[0] = j;
+            int rowMin = j;
+            char bc = b.charAt(j - 1);
+            for (int i = 1; i <= a.length(); i++) {
+                int cost = a.charAt(i - 1) == bc ? 0 : 1;
+                int d = Math.min(Math.min(current[i - 1], previous[i]) + 1,
+                        previous[i - 1] + cost);
+                current[i] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            // Every later cell is at least the smallest in this row.
+            if (rowMin > cap) {
+                return cap + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[a.length()];
+    }
+}
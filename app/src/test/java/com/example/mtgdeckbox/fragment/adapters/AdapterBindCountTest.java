@@ -0,0 +1,240 @@
+package com.example.mtgdeckbox.fragment.adapters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.paging.PagingData;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.mtgdeckbox.R;
+import com.example.mtgdeckbox.room.CardArtSummary;
+import com.example.mtgdeckbox.room.DeckSummary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+
+/**
+ * These tests lay out a RecyclerView for each of the diffing adapters, change
+ * a single row, and count how many rows are bound again. Only the row which
+ * changed should be, where notifyDataSetChanged() rebinds every one.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdapterBindCountTest {
+    private static final int ROWS = 20;
+    private static final long TIMEOUT_MS = 5000;
+
+    private RecyclerView recyclerView;
+    private AtomicInteger binds;
+
+    @Before
+    public void createRecyclerView() {
+        recyclerView = new RecyclerView(new ContextThemeWrapper(
+                ApplicationProvider.getApplicationContext(), R.style.Theme_MtGDeckBox));
+        recyclerView.setLayoutManager(new LinearLayoutManager(recyclerView.getContext()));
+        // Without animations, a changed row is rebound in place straight away.
+        recyclerView.setItemAnimator(null);
+        binds = new AtomicInteger();
+    }
+
+    @Test
+    public void deckContentsRebindOnlyTheChangedCard() {
+        DeckContentsAdapter adapter = new DeckContentsAdapter() {
+            @Override
+            public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+                binds.incrementAndGet();
+                super.onBindViewHolder(holder, position);
+            }
+        };
+        recyclerView.setAdapter(adapter);
+        List<CardArtSummary> cards = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            cards.add(card(i, "Creature"));
+        }
+        submitAndLayout(adapter, cards);
+        assertEquals(ROWS, binds.getAndSet(0));
+
+        // Change one Card's type line.
+        List<CardArtSummary> changed = new ArrayList<>(cards);
+        changed.set(5, card(5, "Artifact Creature"));
+        submitAndLayout(adapter, changed);
+        assertEquals(1, binds.getAndSet(0));
+
+        // Remove a Card; the rows after it move up without being rebound.
+        List<CardArtSummary> removed = new ArrayList<>(changed);
+        removed.remove(10);
+        submitAndLayout(adapter, removed);
+        assertEquals(0, binds.getAndSet(0));
+
+        // The same contents again bind nothing.
+        submitAndLayout(adapter, new ArrayList<>(removed));
+        assertEquals(0, binds.getAndSet(0));
+
+        // Before the adapters diffed, every update rebound every row.
+        adapter.notifyDataSetChanged();
+        layout();
+        assertEquals(ROWS - 1, binds.get());
+    }
+
+    @Test
+    public void decklistRebindsOnlyTheChangedDeck() {
+        DecklistAdapter adapter = new DecklistAdapter() {
+            @Override
+            public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+                binds.incrementAndGet();
+                super.onBindViewHolder(holder, position);
+            }
+        };
+        recyclerView.setAdapter(adapter);
+        TestOwner owner = new TestOwner();
+        owner.registry.setCurrentState(Lifecycle.State.RESUMED);
+
+        List<DeckSummary> decks = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            decks.add(deck(i, "Deck " + i, 100));
+        }
+        submitAndLayout(adapter, owner, decks);
+        assertEquals(ROWS, binds.getAndSet(0));
+
+        // Add a Card to one Deck, which changes its count.
+        List<DeckSummary> changed = new ArrayList<>(decks);
+        changed.set(3, deck(3, "Deck 3", 101));
+        submitAndLayout(adapter, owner, changed);
+        assertEquals(1, binds.getAndSet(0));
+
+        // Rename a different Deck.
+        changed.set(12, deck(12, "Renamed", 100));
+        submitAndLayout(adapter, owner, new ArrayList<>(changed));
+        assertEquals(1, binds.getAndSet(0));
+    }
+
+    /**
+     * This method gives a DeckContentsAdapter new contents, waits for the diff
+     * to be applied, and lays the list out again.
+     * @param adapter the DeckContentsAdapter.
+     * @param cards a List of the new contents.
+     */
+    private void submitAndLayout(DeckContentsAdapter adapter, List<CardArtSummary> cards) {
+        final AtomicBoolean committed = new AtomicBoolean();
+        adapter.submitList(cards, new Runnable() {
+            @Override
+            public void run() {
+                committed.set(true);
+            }
+        });
+        waitFor(committed);
+        layout();
+    }
+
+    /**
+     * This method gives a DecklistAdapter a new page of Decks, waits for the
+     * diff to be applied, and lays the list out again.
+     * @param adapter the DecklistAdapter.
+     * @param owner the LifecycleOwner which the page is submitted under.
+     * @param decks a List of the new Decks.
+     */
+    private void submitAndLayout(DecklistAdapter adapter, LifecycleOwner owner,
+                                 List<DeckSummary> decks) {
+        final AtomicBoolean updated = new AtomicBoolean();
+        Function0<Unit> listener = new Function0<Unit>() {
+            @Override
+            public Unit invoke() {
+                updated.set(true);
+                return Unit.INSTANCE;
+            }
+        };
+        adapter.addOnPagesUpdatedListener(listener);
+        adapter.submitData(owner.getLifecycle(), PagingData.from(decks));
+        waitFor(updated);
+        adapter.removeOnPagesUpdatedListener(listener);
+        layout();
+    }
+
+    /**
+     * This method runs the main looper until a flag is set. The diff runs on a
+     * background thread and posts its result back to the main looper.
+     * @param flag an AtomicBoolean which is set once the update is applied.
+     */
+    private static void waitFor(AtomicBoolean flag) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (!flag.get()) {
+            assertTrue("The update was never applied", System.nanoTime() < deadline);
+            ShadowLooper.idleMainLooper();
+            Thread.yield();
+        }
+    }
+
+    /**
+     * This method measures and lays out the RecyclerView, tall enough to show
+     * every row, which binds any rows that need it.
+     */
+    private void layout() {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(20000, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1080, 20000);
+    }
+
+    /**
+     * This method builds a Card for the deck contents.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param types a String containing the Card's type line.
+     * @return a new CardArtSummary.
+     */
+    private static CardArtSummary card(int cardID, String types) {
+        CardArtSummary card = new CardArtSummary();
+        card.setCardID(cardID);
+        card.setName("Card " + cardID);
+        card.setTypes(types);
+        return card;
+    }
+
+    /**
+     * This method builds a Deck for the list of Decks.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @param name a String containing the name of the Deck.
+     * @param cardCount an Integer containing the number of Cards in the Deck.
+     * @return a new DeckSummary.
+     */
+    private static DeckSummary deck(int deckID, String name, int cardCount) {
+        DeckSummary deck = new DeckSummary();
+        deck.setDeckID(deckID);
+        deck.setDeckName(name);
+        deck.setCardCount(cardCount);
+        deck.setLastModified(0);
+        return deck;
+    }
+
+    /**
+     * This class is a screen whose lifecycle the tests move by hand.
+     */
+    private static class TestOwner implements LifecycleOwner {
+        private final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * These tests write a database as the first version of the app left it, then
+ * open it with every Migration and no destructive fallback, so Room rejects
+ * any table which does not match the current schema. The Cards, Decks and
+ * DeckCards must survive, with the new columns filled in.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CardDatabaseMigrationTest {
+    private static final String NAME = "migration-test.db";
+
+    private Context context;
+    private CardDatabase database;
+
+    @Before
+    public void writeFirstVersion() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(NAME);
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(
+                context.getDatabasePath(NAME), null);
+        db.execSQL("CREATE TABLE `Card` (`cardID` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`card_name` TEXT NOT NULL, `superTypes` TEXT NOT NULL, `types` TEXT NOT NULL, "
+                + "`subtypes` TEXT NOT NULL, `colourIdentity` TEXT NOT NULL, "
+                + "`manaCost` TEXT NOT NULL, `manaValue` INTEGER NOT NULL, "
+                + "`rank` INTEGER NOT NULL, `alternateLimit` INTEGER NOT NULL, "
+                + "`canBeCommander` INTEGER NOT NULL, `multiverseID` INTEGER NOT NULL, "
+                + "`scryfallID` TEXT NOT NULL, `commanderLegal` INTEGER NOT NULL, "
+                + "`categories` TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE `Deck` (`deckID` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`deckName` TEXT NOT NULL, `commanderID` INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE `DeckCards` (`deckCardID` INTEGER PRIMARY KEY AUTOINCREMENT "
+                + "NOT NULL, `deck_ID` INTEGER NOT NULL, `card_ID` INTEGER NOT NULL, "
+                + "`quantity` INTEGER NOT NULL)");
+
+        insertCard(db, 1, "Atraxa, Praetors' Voice", "W,U,B,G", "{G}{W}{U}{B}", 1);
+        insertCard(db, 2, "Sol Ring", "", "{1}", 0);
+        insertCard(db, 3, "Kozilek, the Great Distortion", "", "{8}{C}{C}", 1);
+        insertCard(db, 4, "Fireball", "R", "{X}{R}", 0);
+        db.execSQL("INSERT INTO `Deck` VALUES (5, 'beta', 1)");
+        db.execSQL("INSERT INTO `Deck` VALUES (3, 'Alpha', 3)");
+        db.execSQL("INSERT INTO `Deck` VALUES (4, 'Empty', -1)");
+        db.execSQL("INSERT INTO `DeckCards` (`deck_ID`, `card_ID`, `quantity`) "
+                + "VALUES (5, 2, 1), (5, 4, 1), (3, 2, 1), (3, 4, 0)");
+        db.setVersion(1);
+        db.close();
+
+        database = Room.databaseBuilder(context, CardDatabase.class, NAME)
+                .addMigrations(CardDatabase.MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+        context.deleteDatabase(NAME);
+    }
+
+    @Test
+    public void cardsGainTheirIdentityAndManaSymbols() {
+        Card atraxa = database.cardDAO().getCardByID(1);
+        assertEquals(Card.WHITE | Card.BLUE | Card.BLACK | Card.GREEN, atraxa.getIdentityMask());
+        assertEquals(1, atraxa.getGreenPips());
+        assertEquals(1, atraxa.getBluePips());
+        assertEquals(0, atraxa.getGenericMana());
+
+        Card kozilek = database.cardDAO().getCardByID(3);
+        assertEquals(0, kozilek.getIdentityMask());
+        assertEquals(8, kozilek.getGenericMana());
+        assertEquals(2, kozilek.getColourlessPips());
+
+        Card fireball = database.cardDAO().getCardByID(4);
+        assertEquals(Card.RED, fireball.getIdentityMask());
+        assertEquals(1, fireball.getXCount());
+        assertEquals(ManaCost.parse("{X}{R}").getFlags(), fireball.getManaFlags());
+    }
+
+    @Test
+    public void decksKeepTheirCardsAndSortWithoutCase() {
+        List<String> names = new ArrayList<>();
+        Cursor cursor = database.query("SELECT deckName FROM deck ORDER BY deckName", null);
+        try {
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(0));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        assertEquals(Arrays.asList("Alpha", "beta", "Empty"), names);
+
+        Deck deck = database.deckDAO().getDeck(5);
+        assertEquals(1, deck.getCommanderID());
+        assertEquals(0, deck.getVersion());
+        int[] cardIDs = database.quantities().getDeckCardIDs(5);
+        Arrays.sort(cardIDs);
+        assertArrayEquals(new int[] {2, 4}, cardIDs);
+    }
+
+    @Test
+    public void decksWithCardsGainASignature() {
+        DeckSignature beta = database.signatures().getSignature(5);
+        assertNotNull(beta);
+        assertArrayEquals(MinHash.of(new int[] {2, 4}), beta.toSignature());
+        // The zero row is not one of the Deck's Cards.
+        assertArrayEquals(MinHash.of(new int[] {2}),
+                database.signatures().getSignature(3).toSignature());
+        assertNull(database.signatures().getSignature(4));
+    }
+
+    @Test
+    public void theHistoryStartsFromTheMigratedDeck() {
+        DeckHistory history = new DeckHistory(database.deckDAO(), database.quantities(),
+                database.history());
+        history.recordCardChange(5, 2, 0);
+        database.quantities().removeSpecificDeckCards(5, 2);
+        assertEquals(1, database.deckDAO().getDeck(5).getVersion());
+
+        history.restoreVersion(5, 0);
+        int[] cardIDs = database.quantities().getDeckCardIDs(5);
+        Arrays.sort(cardIDs);
+        assertArrayEquals(new int[] {2, 4}, cardIDs);
+    }
+
+    /**
+     * This method writes a Card as the first version stored it.
+     * @param db the SQLiteDatabase being written.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param name a String containing the name of the Card.
+     * @param colourIdentity a String containing the colour identity, such as "W,U".
+     * @param manaCost a String containing the mana cost of the Card.
+     * @param canBeCommander an Integer which is 1 if the Card can lead a Deck.
+     */
+    private static void insertCard(SQLiteDatabase db, int cardID, String name,
+                                   String colourIdentity, String manaCost, int canBeCommander) {
+        db.execSQL("INSERT INTO `Card` VALUES (?, ?, '', 'Creature', '', ?, ?, 0, ?, 0, ?, "
+                + "0, '', 1, '')", new Object[] {cardID, name, colourIdentity, manaCost, cardID,
+                canBeCommander});
+    }
+}
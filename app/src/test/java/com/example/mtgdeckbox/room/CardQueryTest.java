@@ -0,0 +1,269 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * These tests compile searches typed into the card picker and check the SQL
+ * and arguments produced: each kind of term and comparison, negation, the
+ * colour identity IN list, escaping, quoting, terms which cannot be read and
+ * the plan cache.
+ */
+public class CardQueryTest {
+    private static final String SELECT = "SELECT " + CardSummary.COLUMNS + " FROM card";
+    private static final String BY_RANK =
+            " ORDER BY card.rank < 0, card.rank, card.card_name LIMIT ?";
+    private static final String ANY_COMMANDER = "card.canBeCommander IN (0, 1)";
+    private static final Integer LIMIT = CardQuery.RESULT_LIMIT;
+
+    @Test
+    public void anEmptySearchListsEveryCardByRank() {
+        CardQuery query = CardQuery.compile("   ");
+        assertEquals(SELECT + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void plainWordsSearchTheName() {
+        CardQuery query = CardQuery.compile("Lightning bolt");
+        assertEquals(SELECT + " WHERE card.card_name LIKE ? ESCAPE '\\'"
+                + " AND card.card_name LIKE ? ESCAPE '\\'" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {"%lightning%", "%bolt%", LIMIT}, query.getArgs());
+        assertEquals("lightning bolt", query.getNameText());
+    }
+
+    @Test
+    public void quotesKeepSpacesInsideOneTerm() {
+        CardQuery query = CardQuery.compile("\"Serra Angel\" t:\"legendary creature\"");
+        assertEquals(SELECT + " WHERE card.card_name LIKE ? ESCAPE '\\'"
+                + " AND (card.superTypes || ' ' || card.types || ' ' || card.subtypes)"
+                + " LIKE ? ESCAPE '\\'" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {"%serra angel%", "%legendary creature%", LIMIT},
+                query.getArgs());
+    }
+
+    @Test
+    public void likeWildcardsAreEscaped() {
+        CardQuery query = CardQuery.compile("50%_off\\");
+        assertArrayEquals(new Object[] {"%50\\%\\_off\\\\%", LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void aSingleTypeWordSearchesEachTypeColumn() {
+        CardQuery query = CardQuery.compile("t:elf -type:legendary");
+        assertEquals(SELECT
+                + " WHERE (card.types LIKE ? ESCAPE '\\' OR card.superTypes LIKE ? ESCAPE '\\'"
+                + " OR card.subtypes LIKE ? ESCAPE '\\')"
+                + " AND NOT (card.types LIKE ? ESCAPE '\\' OR card.superTypes LIKE ? ESCAPE '\\'"
+                + " OR card.subtypes LIKE ? ESCAPE '\\')" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {"%elf%", "%elf%", "%elf%", "%legendary%",
+                "%legendary%", "%legendary%", LIMIT}, query.getArgs());
+        assertEquals("", query.getNameText());
+    }
+
+    @Test
+    public void numbersAreComparedWithEachOperator() {
+        String[] ops = {":", "=", "!=", "<", "<=", ">", ">="};
+        String[] sqlOps = {"=", "=", "!=", "<", "<=", ">", ">="};
+        for (int i = 0; i < ops.length; i++) {
+            CardQuery query = CardQuery.compile("mv" + ops[i] + "3");
+            assertEquals(SELECT + " WHERE card.manaValue " + sqlOps[i] + " ?" + BY_RANK,
+                    query.getSql());
+            assertArrayEquals(new Object[] {3, LIMIT}, query.getArgs());
+
+            query = CardQuery.compile("-cmc" + ops[i] + "3");
+            assertEquals(SELECT + " WHERE NOT card.manaValue " + sqlOps[i] + " ?" + BY_RANK,
+                    query.getSql());
+        }
+    }
+
+    @Test
+    public void unrankedCardsNeverCountAsHighlyRanked() {
+        CardQuery query = CardQuery.compile("rank<100");
+        assertEquals(SELECT + " WHERE (card.rank >= 0 AND card.rank < ?)" + BY_RANK,
+                query.getSql());
+        assertArrayEquals(new Object[] {100, LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void numbersAreComparedBeforeTextIsMatched() {
+        CardQuery query = CardQuery.compile("bolt mv<=1");
+        assertEquals(SELECT + " WHERE card.manaValue <= ?"
+                + " AND card.card_name LIKE ? ESCAPE '\\'" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {1, "%bolt%", LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void identityComparisonsListTheMasksTheyAllow() {
+        int bg = Card.BLACK | Card.GREEN;
+        assertArrayEquals(new int[] {0, Card.BLACK, Card.GREEN, bg}, identities("id:bg"));
+        assertArrayEquals(identities("id:bg"), identities("ci<=bg"));
+        assertArrayEquals(new int[] {0, Card.BLACK, Card.GREEN}, identities("id<bg"));
+        assertArrayEquals(new int[] {bg}, identities("identity=bg"));
+        assertArrayEquals(new int[] {0}, identities("id:c"));
+
+        List<Integer> supersets = new ArrayList<>();
+        for (int mask = 0; mask < 32; mask++) {
+            if ((mask & bg) == bg) {
+                supersets.add(mask);
+            }
+        }
+        assertArrayEquals(toArray(supersets), identities("id>=bg"));
+        supersets.remove(Integer.valueOf(bg));
+        assertArrayEquals(toArray(supersets), identities("id>bg"));
+        assertArrayEquals(allBut(bg), identities("id!=bg"));
+        assertArrayEquals(allBut(bg), identities("-id=bg"));
+    }
+
+    @Test
+    public void negatedIdentityListsEveryOtherMask() {
+        List<Integer> outside = new ArrayList<>();
+        for (int mask = 0; mask < 32; mask++) {
+            if ((mask & ~Card.GREEN) != 0) {
+                outside.add(mask);
+            }
+        }
+        assertArrayEquals(toArray(outside), identities("-id:g"));
+    }
+
+    @Test
+    public void identityTermsNarrowEachOther() {
+        assertArrayEquals(new int[] {0, Card.GREEN}, identities("id:bg id:gu"));
+    }
+
+    @Test
+    public void contradictoryIdentitiesMatchNothing() {
+        CardQuery query = CardQuery.compile("id=w id=u");
+        assertEquals(SELECT + " WHERE " + ANY_COMMANDER + " AND 0" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void isCommanderTakesThePlaceOfTheInList() {
+        CardQuery query = CardQuery.compile("is:commander id:g");
+        assertEquals(SELECT + " WHERE card.identityMask IN (?, ?)"
+                + " AND card.canBeCommander = 1" + BY_RANK, query.getSql());
+        assertFalse(query.getSql().contains(ANY_COMMANDER));
+        assertArrayEquals(new Object[] {0, Card.GREEN, LIMIT}, query.getArgs());
+
+        query = CardQuery.compile("-is:commander id:g");
+        assertEquals(SELECT + " WHERE " + ANY_COMMANDER + " AND card.identityMask IN (?, ?)"
+                + " AND +card.canBeCommander = 0" + BY_RANK, query.getSql());
+
+        // Without an identity term there is no IN list to replace.
+        query = CardQuery.compile("is:commander");
+        assertEquals(SELECT + " WHERE card.canBeCommander = 1" + BY_RANK, query.getSql());
+    }
+
+    @Test
+    public void isLegalChecksCommanderLegality() {
+        assertEquals(SELECT + " WHERE card.commanderLegal = 1" + BY_RANK,
+                CardQuery.compile("is:legal").getSql());
+        assertEquals(SELECT + " WHERE card.commanderLegal = 0" + BY_RANK,
+                CardQuery.compile("-is:legal").getSql());
+    }
+
+    @Test
+    public void categoriesMatchTheDaoLists() {
+        CardQuery query = CardQuery.compile("cat:ramp -category:draw cat:wipe cat:tutor");
+        assertEquals(SELECT + " WHERE (card.categories LIKE ? OR card.categories LIKE ?)"
+                + " AND card.categories NOT LIKE ? ESCAPE '\\'"
+                + " AND card.categories LIKE ? ESCAPE '\\'"
+                + " AND card.categories LIKE ? ESCAPE '\\'" + BY_RANK, query.getSql());
+        assertArrayEquals(new Object[] {"%ramp%", "%mana%", "%cardraw%", "%wrath%", "%tutor%",
+                LIMIT}, query.getArgs());
+    }
+
+    @Test
+    public void sortChoosesTheOrder() {
+        assertTrue(CardQuery.compile("sort:mv").getSql().endsWith(
+                " ORDER BY card.manaValue, card.rank < 0, card.rank LIMIT ?"));
+        assertTrue(CardQuery.compile("order:name").getSql().endsWith(
+                " ORDER BY card.card_name LIMIT ?"));
+        assertTrue(CardQuery.compile("sort:name sort:rank").getSql().endsWith(BY_RANK));
+    }
+
+    @Test
+    public void termsWhichCannotBeReadAreLeftOut() {
+        String[] invalid = {"foo:bar", "mv:x", "id:xyz", "sort:colour", "-sort:name",
+                "is:foil", "t<creature", "rank=>3", "mv:"};
+        for (String term : invalid) {
+            CardQuery query = CardQuery.compile("elf " + term);
+            assertEquals(term, Collections.singletonList(term), query.getInvalidTerms());
+            assertEquals(term, SELECT + " WHERE card.card_name LIKE ? ESCAPE '\\'" + BY_RANK,
+                    query.getSql());
+            assertArrayEquals(term, new Object[] {"%elf%", LIMIT}, query.getArgs());
+            // Only a search of nothing but name words is looked for as a misspelling.
+            assertEquals(term, "", query.getNameText());
+        }
+        // A lone '-' is a word, not an empty negated term.
+        assertEquals(Collections.emptyList(), CardQuery.compile("-").getInvalidTerms());
+    }
+
+    @Test
+    public void searchesDifferingInCaseOrSpacingShareAPlan() {
+        CardQuery query = CardQuery.compile("t:Creature   MV<3");
+        assertSame(query, CardQuery.compile("  t:creature mv<3 "));
+        assertNotSame(query, CardQuery.compile("t:creature mv<4"));
+
+        // The cached plan's arguments cannot be changed through getArgs.
+        query.getArgs()[0] = "changed";
+        assertEquals("%creature%", CardQuery.compile("t:creature mv<3").getArgs()[1]);
+    }
+
+    /**
+     * This method compiles a search of only identity terms and returns the
+     * identity masks it allows.
+     * @param search a String containing the search.
+     * @return an Array of the identity masks bound to the IN list.
+     */
+    private static int[] identities(String search) {
+        CardQuery query = CardQuery.compile(search);
+        assertTrue(search, query.getSql().startsWith(SELECT + " WHERE " + ANY_COMMANDER
+                + " AND card.identityMask IN ("));
+        Object[] args = query.getArgs();
+        int[] masks = new int[args.length - 1];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = (Integer) args[i];
+        }
+        return masks;
+    }
+
+    /**
+     * This method lists every identity mask but one.
+     * @param excluded an Integer containing the mask to leave out.
+     * @return an Array of the other 31 masks, in order.
+     */
+    private static int[] allBut(int excluded) {
+        List<Integer> masks = new ArrayList<>();
+        for (int mask = 0; mask < 32; mask++) {
+            if (mask != excluded) {
+                masks.add(mask);
+            }
+        }
+        return toArray(masks);
+    }
+
+    /**
+     * This method turns a List of masks into an Array.
+     * @param masks a List of Integers.
+     * @return an Array of the same Integers.
+     */
+    private static int[] toArray(List<Integer> masks) {
+        int[] array = new int[masks.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = masks.get(i);
+        }
+        return array;
+    }
+}
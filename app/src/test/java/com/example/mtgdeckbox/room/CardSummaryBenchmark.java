@@ -0,0 +1,189 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * This benchmark compares loading the full catalog as whole Cards with loading
+ * it as CardSummaries, as the list screens now do. A Cursor hands back a new
+ * String for every text column it reads, so the rows are held as character
+ * arrays and each text column is copied into a new String as it is read, the
+ * way readCards and readSummaries read them.
+ *
+ * It prints the time to turn every row into objects, best of a few runs, and
+ * the heap the resulting list keeps alive. Both depend on the machine and the
+ * garbage collector, so it is ignored and run by hand.
+ */
+@Ignore("Benchmark; run by hand")
+public class CardSummaryBenchmark {
+    private static final int CATALOG = 30000;
+    private static final int RUNS = 7;
+
+    // Text columns, in the order readCards reads them.
+    private static final int NAME = 0;
+    private static final int SUPER_TYPES = 1;
+    private static final int TYPES = 2;
+    private static final int SUBTYPES = 3;
+    private static final int COLOUR_IDENTITY = 4;
+    private static final int MANA_COST = 5;
+    private static final int SCRYFALL_ID = 6;
+    private static final int CATEGORIES = 7;
+    private static final int TEXT_COLUMNS = 8;
+
+    private final char[][][] text = new char[CATALOG][TEXT_COLUMNS][];
+    private final int[][] numbers = new int[CATALOG][];
+
+    @Test
+    public void summariesAreCheaperThanWholeCards() {
+        fillCatalog(new Random(30));
+
+        long cardNanos = Long.MAX_VALUE;
+        long summaryNanos = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            List<Card> cards = readCards();
+            cardNanos = Math.min(cardNanos, System.nanoTime() - start);
+            assertEquals(CATALOG, cards.size());
+
+            start = System.nanoTime();
+            List<CardSummary> summaries = readSummaries();
+            summaryNanos = Math.min(summaryNanos, System.nanoTime() - start);
+            assertEquals(CATALOG, summaries.size());
+        }
+
+        long base = usedHeap();
+        List<Card> cards = readCards();
+        long cardBytes = usedHeap() - base;
+        assertEquals(CATALOG, cards.size());
+        cards = null;
+
+        base = usedHeap();
+        List<CardSummary> summaries = readSummaries();
+        long summaryBytes = usedHeap() - base;
+        assertEquals(CATALOG, summaries.size());
+
+        System.out.println(String.format("Full catalog, %d rows:", CATALOG));
+        System.out.println(String.format("  Card:        %.1f ms, %.1f MB retained",
+                cardNanos / 1e6, cardBytes / 1048576.0));
+        System.out.println(String.format("  CardSummary: %.1f ms, %.1f MB retained",
+                summaryNanos / 1e6, summaryBytes / 1048576.0));
+    }
+
+    /**
+     * This method reads every row into a whole Card, as readCards does.
+     * @return a List of Cards.
+     */
+    private List<Card> readCards() {
+        List<Card> cards = new ArrayList<>();
+        for (int row = 0; row < CATALOG; row++) {
+            char[][] t = text[row];
+            int[] n = numbers[row];
+            Card card = new Card();
+            card.setCardID(n[0]);
+            card.setName(new String(t[NAME]));
+            card.setSuperTypes(new String(t[SUPER_TYPES]));
+            card.setTypes(new String(t[TYPES]));
+            card.setSubtypes(new String(t[SUBTYPES]));
+            card.setColourIdentity(new String(t[COLOUR_IDENTITY]));
+            card.setManaCost(new String(t[MANA_COST]));
+            card.setManaValue(n[1]);
+            card.setRank(n[2]);
+            card.setAlternateLimit(n[3] != 0);
+            card.setCanBeCommander(n[4] != 0);
+            card.setMultiverseID(n[5]);
+            card.setScryfallID(new String(t[SCRYFALL_ID]));
+            card.setCommanderLegal(n[6] != 0);
+            card.setCategories(new String(t[CATEGORIES]));
+            card.setIdentityMask(n[7]);
+            card.setWhitePips(n[8]);
+            card.setBluePips(n[9]);
+            card.setBlackPips(n[10]);
+            card.setRedPips(n[11]);
+            card.setGreenPips(n[12]);
+            card.setColourlessPips(n[13]);
+            card.setGenericMana(n[14]);
+            card.setXCount(n[15]);
+            card.setManaFlags(n[16]);
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * This method reads every row into a CardSummary, as readSummaries does.
+     * @return a List of CardSummaries.
+     */
+    private List<CardSummary> readSummaries() {
+        List<CardSummary> summaries = new ArrayList<>();
+        for (int row = 0; row < CATALOG; row++) {
+            char[][] t = text[row];
+            int[] n = numbers[row];
+            summaries.add(new CardSummary(n[0], new String(t[NAME]), new String(t[TYPES]),
+                    n[2], n[7]));
+        }
+        return summaries;
+    }
+
+    /**
+     * This method fills the catalog with rows shaped like the imported Cards.
+     * @param random the Random to draw the rows from.
+     */
+    private void fillCatalog(Random random) {
+        String[] types = {"Creature", "Instant", "Sorcery", "Artifact", "Enchantment",
+                "Land", "Artifact Creature", "Planeswalker"};
+        String[] costs = {"{G}", "{1}{U}", "{2}{B}{B}", "{X}{R}{R}", "{3}{W/U}", "{4}{G}{G}"};
+        for (int row = 0; row < CATALOG; row++) {
+            String cost = costs[random.nextInt(costs.length)];
+            text[row][NAME] = word(random, 8 + random.nextInt(16)).toCharArray();
+            text[row][SUPER_TYPES] = (random.nextInt(5) == 0 ? "Legendary" : "").toCharArray();
+            text[row][TYPES] = types[random.nextInt(types.length)].toCharArray();
+            text[row][SUBTYPES] = word(random, random.nextInt(14)).toCharArray();
+            text[row][COLOUR_IDENTITY] = "G,U".toCharArray();
+            text[row][MANA_COST] = cost.toCharArray();
+            text[row][SCRYFALL_ID] = UUID.randomUUID().toString().toCharArray();
+            text[row][CATEGORIES] = "ramp,cardraw,removal".substring(0, random.nextInt(20))
+                    .toCharArray();
+
+            ManaCost parsed = ManaCost.parse(cost);
+            numbers[row] = new int[] {row, parsed.getGeneric() + 1, row, 0,
+                    random.nextInt(10) == 0 ? 1 : 0, 400000 + row, 1, 18,
+                    parsed.getPips(ManaCost.WHITE), parsed.getPips(ManaCost.BLUE),
+                    parsed.getPips(ManaCost.BLACK), parsed.getPips(ManaCost.RED),
+                    parsed.getPips(ManaCost.GREEN), parsed.getPips(ManaCost.COLOURLESS),
+                    parsed.getGeneric(), parsed.getXCount(), parsed.getFlags()};
+        }
+    }
+
+    /**
+     * This method makes a random lower case word.
+     * @param random the Random to draw letters from.
+     * @param length an Integer containing the length of the word.
+     * @return a String containing the word.
+     */
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * This method returns the heap in use once the garbage collector has run.
+     * @return a Long containing the bytes in use.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
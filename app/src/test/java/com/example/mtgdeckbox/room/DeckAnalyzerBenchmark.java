@@ -0,0 +1,63 @@
+package com.example.mtgdeckbox.room;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This benchmark times the DeckAnalyzer on a 100-card Commander Deck, the
+ * largest the graphs tab normally sees, and prints the time per analysis once
+ * the JIT has warmed up. The timings depend on the machine, so it is ignored
+ * and run by hand; DeckAnalyzerTest checks the analysis itself.
+ */
+@Ignore("Benchmark; run by hand")
+public class DeckAnalyzerBenchmark {
+    private static final int WARMUP_RUNS = 20000;
+    private static final int TIMED_RUNS = 100000;
+
+    @Test
+    public void analyseACommanderDeck() {
+        List<DeckCardEntry> deck = commanderDeck();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            DeckAnalyzer.analyze(deck);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            DeckAnalyzer.analyze(deck);
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.println(String.format("DeckAnalyzer: %d entries, %.2f us per analysis",
+                deck.size(), nanos / 1000.0 / TIMED_RUNS));
+    }
+
+    /**
+     * This method builds a Deck shaped like a typical Commander Deck: 37
+     * basic lands, some non-basic lands, and single copies of everything else.
+     * @return a List of DeckCardEntries holding 100 Cards.
+     */
+    private static List<DeckCardEntry> commanderDeck() {
+        String[] types = {"Creature", "Instant", "Sorcery", "Artifact", "Enchantment",
+                "Artifact Creature", "Planeswalker"};
+        String[] costs = {"{G}", "{1}{U}", "{2}{B}{B}", "{X}{R}{R}", "{3}{W/U}",
+                "{G/U/P}", "{4}{G}{G}", "{7}"};
+        String[] categories = {"ramp", "cardraw", "removal", "wrath", ""};
+
+        List<DeckCardEntry> deck = new ArrayList<>();
+        deck.add(TestCards.entry("Forest", "Land", "", 0, "", 37));
+        for (int i = 0; i < 63; i++) {
+            if (i < 5) {
+                deck.add(TestCards.entry("Land " + i, "Land", "", 0, "", 1));
+                continue;
+            }
+            String cost = costs[i % costs.length];
+            deck.add(TestCards.entry("Card " + i, types[i % types.length], cost,
+                    ManaCost.parse(cost).getGeneric() + i % 3, categories[i % categories.length],
+                    1));
+        }
+        return deck;
+    }
+}
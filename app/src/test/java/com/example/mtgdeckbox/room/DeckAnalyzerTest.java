@@ -0,0 +1,105 @@
+package com.example.mtgdeckbox.room;
+
+import static com.example.mtgdeckbox.room.TestCards.entry;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * These tests analyse a small fixed Deck and check every count shown on the
+ * graphs tab against totals worked out by hand.
+ */
+public class DeckAnalyzerTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * This method builds the Deck used by the tests: nine different Cards, of
+     * which ten are Forests, a Land Creature, and a Card with no copies.
+     * @return a List of DeckCardEntries.
+     */
+    private static List<DeckCardEntry> fixedDeck() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        deck.add(entry("Sol Ring", "Artifact", "{1}", 1, "ramp", 1));
+        deck.add(entry("Llanowar Elves", "Creature", "{G}", 1, "ramp", 1));
+        deck.add(entry("Counterspell", "Instant", "{U}{U}", 2, "removal", 1));
+        deck.add(entry("Wrath of God", "Sorcery", "{2}{W}{W}", 4, "wrath", 1));
+        deck.add(entry("Harmonize", "Sorcery", "{2}{G}{G}", 4, "cardraw", 1));
+        deck.add(entry("Solemn Simulacrum", "Artifact Creature", "{4}", 4, "ramp", 1));
+        deck.add(entry("Ulamog, the Infinite Gyre", "Creature", "{11}", 11, "", 1));
+        deck.add(entry("Forest", "Land", "", 0, "", 10));
+        deck.add(entry("Dryad Arbor", "Land Creature", "", 0, "", 1));
+        deck.add(entry("Lightning Bolt", "Instant", "{R}", 1, "removal", 0));
+        return deck;
+    }
+
+    @Test
+    public void countsCardsAndLands() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        assertEquals(18, stats.getTotalCards());
+        assertEquals(11, stats.getLandCount());
+    }
+
+    @Test
+    public void curveLeavesOutLandsAndCapsHighValues() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        int[] curve = new int[DeckStats.CURVE_LABELS.length];
+        for (int i = 0; i < curve.length; i++) {
+            curve[i] = stats.getCurveCount(i);
+        }
+        // 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10-plus
+        assertArrayEquals(new int[] {0, 2, 1, 0, 3, 0, 0, 0, 0, 0, 0, 1}, curve);
+    }
+
+    @Test
+    public void countsColouredPips() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        int[] pips = new int[DeckStats.PIP_LABELS.length];
+        for (int i = 0; i < pips.length; i++) {
+            pips[i] = stats.getColourPips(i);
+        }
+        // W, U, B, R, G, C; the Lightning Bolt has no copies.
+        assertArrayEquals(new int[] {2, 2, 0, 0, 3, 0}, pips);
+    }
+
+    @Test
+    public void countsEachTypeOfACardWithSeveral() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        int[] types = new int[DeckStats.TYPE_LABELS.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = stats.getTypeCount(i);
+        }
+        // Creature, Instant, Sorcery, Artifact, Enchantment, Planeswalker, Land
+        assertArrayEquals(new int[] {4, 1, 2, 2, 0, 0, 11}, types);
+    }
+
+    @Test
+    public void countsCategories() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        int[] categories = new int[DeckStats.CATEGORY_LABELS.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = stats.getCategoryCount(i);
+        }
+        // Ramp, Draw, Removal, Board Wipe
+        assertArrayEquals(new int[] {3, 1, 1, 1}, categories);
+    }
+
+    @Test
+    public void averagesManaValueWithAndWithoutLands() {
+        DeckStats stats = DeckAnalyzer.analyze(fixedDeck());
+        assertEquals(27.0 / 18, stats.getAverageManaValue(), DELTA);
+        assertEquals(27.0 / 7, stats.getAverageManaValueWithoutLands(), DELTA);
+    }
+
+    @Test
+    public void emptyDeckHasNoAverages() {
+        DeckStats stats = DeckAnalyzer.analyze(Collections.<DeckCardEntry>emptyList());
+        assertEquals(0, stats.getTotalCards());
+        assertEquals(0, stats.getAverageManaValue(), DELTA);
+        assertEquals(0, stats.getAverageManaValueWithoutLands(), DELTA);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * These tests make more changes to a Deck than fit between two automatic
+ * snapshots, then undo back past a snapshot, jump between versions, branch
+ * off an earlier version and restore a named snapshot. At every version the
+ * Deck's Cards, name and commander are checked against a record of what the
+ * Deck held when that version was first made.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DeckHistoryTest {
+    // More than the 32 events between automatic snapshots.
+    private static final int CHANGES = 45;
+    private static final int CARD_POOL = 12;
+
+    private CardDatabase database;
+    private DeckDAO deckDAO;
+    private DeckCardDAO deckCardDAO;
+    private DeckHistory history;
+    private int deckID;
+    private Random random;
+    // What the Deck held at each version, indexed by version.
+    private List<Version> versions;
+
+    @Before
+    public void createDeck() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                CardDatabase.class).allowMainThreadQueries().build();
+        deckDAO = database.deckDAO();
+        deckCardDAO = database.quantities();
+        history = new DeckHistory(deckDAO, deckCardDAO, database.history());
+
+        Deck deck = new Deck();
+        deck.setDeckName("Start");
+        deckID = (int) deckDAO.insertDeck(deck);
+        deckCardDAO.insertDeckCards(new DeckCards(deckID, 1, 1));
+        deckCardDAO.insertDeckCards(new DeckCards(deckID, 2, 4));
+        history.startHistory(deckID);
+
+        random = new Random(45);
+        versions = new ArrayList<>();
+        versions.add(read());
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void everyVersionIsRebuiltAcrossTheSnapshotBoundary() {
+        makeChanges(CHANGES);
+        assertEquals(CHANGES, read().version);
+
+        // Step back one version at a time, past the snapshot at 32.
+        for (int version = CHANGES - 1; version >= 0; version--) {
+            assertTrue(history.undo(deckID));
+            assertAt(version);
+        }
+        assertFalse(history.undo(deckID));
+
+        // Jump about, so some versions are rebuilt from a snapshot and some
+        // from the Deck as it is.
+        for (int version : new int[] {CHANGES, 33, 31, 40, 2, 32, CHANGES}) {
+            history.restoreVersion(deckID, version);
+            assertAt(version);
+        }
+        assertFalse(history.redo(deckID));
+    }
+
+    @Test
+    public void aChangeAfterUndoingStartsABranch() {
+        makeChanges(CHANGES);
+        history.restoreVersion(deckID, 20);
+        assertAt(20);
+
+        // The undone versions are forgotten as soon as the Deck changes.
+        versions.subList(21, versions.size()).clear();
+        makeChanges(1);
+        assertFalse(history.redo(deckID));
+        assertTrue(history.undo(deckID));
+        assertAt(20);
+        assertTrue(history.redo(deckID));
+        assertAt(21);
+
+        // The branch grows past the snapshot at 32 again.
+        makeChanges(CHANGES - 21);
+        for (int version : new int[] {33, 10, 32, CHANGES - 1, 0, CHANGES}) {
+            history.restoreVersion(deckID, version);
+            assertAt(version);
+        }
+    }
+
+    @Test
+    public void restoringANamedSnapshotCanBeUndone() {
+        makeChanges(10);
+        history.saveSnapshot(deckID, "Before cuts");
+        Version saved = versions.get(10);
+        makeChanges(CHANGES - 10);
+        Version beforeRestore = versions.get(CHANGES);
+
+        assertTrue(history.restoreSnapshot(deckID, namedSnapshotID("Before cuts")));
+        Version restored = read();
+        assertSameDeck(saved, restored);
+        // The restore is recorded as new changes, rather than moving back.
+        assertTrue(restored.version > CHANGES);
+
+        history.restoreVersion(deckID, CHANGES);
+        assertSameDeck(beforeRestore, read());
+        history.restoreVersion(deckID, restored.version);
+        assertSameDeck(saved, read());
+    }
+
+    /**
+     * This method makes random changes to the Deck, the way the repository
+     * writes them, and records what the Deck holds after each.
+     * @param changes an Integer containing the number of changes to make.
+     */
+    private void makeChanges(int changes) {
+        for (int i = 0; i < changes; i++) {
+            int kind = random.nextInt(8);
+            if (kind == 0) {
+                Deck deck = deckDAO.getDeck(deckID);
+                deck.setDeckName("Name " + versions.size());
+                writeDeck(deck);
+            } else if (kind == 1) {
+                Deck deck = deckDAO.getDeck(deckID);
+                deck.setCommanderID(deck.getCommanderID() + 1 + random.nextInt(3));
+                writeDeck(deck);
+            } else {
+                int cardID = 1 + random.nextInt(CARD_POOL);
+                int quantity = deckCardDAO.getCardQuantity(deckID, cardID);
+                // Always a different quantity, so every change is one event.
+                int newQuantity = (quantity + 1 + random.nextInt(3)) % 4;
+                history.recordCardChange(deckID, cardID, newQuantity);
+                deckCardDAO.removeSpecificDeckCards(deckID, cardID);
+                if (newQuantity > 0) {
+                    deckCardDAO.insertDeckCards(new DeckCards(deckID, cardID, newQuantity));
+                }
+            }
+            Version version = read();
+            assertEquals(versions.size(), version.version);
+            versions.add(version);
+        }
+    }
+
+    /**
+     * This method writes a change to the Deck's name or commander, as
+     * CardRepository.updateDeck does.
+     * @param deck the Deck, as it should be written.
+     */
+    private void writeDeck(Deck deck) {
+        deck.setVersion(history.recordDeckChange(deck));
+        deckDAO.updateDeck(deck);
+    }
+
+    /**
+     * This method checks the Deck is at a version and holds what it held
+     * when that version was made.
+     * @param version an Integer containing the version.
+     */
+    private void assertAt(int version) {
+        Version now = read();
+        assertEquals(version, now.version);
+        assertSameDeck(versions.get(version), now);
+    }
+
+    /**
+     * This method checks two reads of the Deck hold the same things.
+     * @param expected the Version expected.
+     * @param actual the Version read.
+     */
+    private static void assertSameDeck(Version expected, Version actual) {
+        String at = "At version " + actual.version;
+        assertEquals(at, expected.deckName, actual.deckName);
+        assertEquals(at, expected.commanderID, actual.commanderID);
+        assertEquals(at, expected.cards, actual.cards);
+    }
+
+    /**
+     * This method reads the Deck as it is stored now.
+     * @return a new Version holding the Deck's name, commander and Cards.
+     */
+    private Version read() {
+        Deck deck = deckDAO.getDeck(deckID);
+        Version version = new Version(deck.getVersion(), deck.getDeckName(),
+                deck.getCommanderID());
+        for (DeckCards deckCards : deckCardDAO.getDeckCardQuantities(deckID)) {
+            if (deckCards.getQuantity() > 0) {
+                version.cards.put(deckCards.getCardID(), deckCards.getQuantity());
+            }
+        }
+        return version;
+    }
+
+    /**
+     * This method finds the ID number of a named snapshot of the Deck.
+     * @param name a String containing the name of the snapshot.
+     * @return an Integer containing the ID number of the snapshot.
+     */
+    private int namedSnapshotID(String name) {
+        Cursor cursor = database.query("SELECT snapshotID FROM decksnapshot "
+                + "WHERE deck_ID = ? AND name = ?", new Object[] {deckID, name});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * This class holds what the Deck held at one version.
+     */
+    private static class Version {
+        private final int version;
+        private final String deckName;
+        private final int commanderID;
+        private final Map<Integer, Integer> cards = new TreeMap<>();
+
+        Version(int version, String deckName, int commanderID) {
+            this.version = version;
+            this.deckName = deckName;
+            this.commanderID = commanderID;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.mtgdeckbox.IntHashSet;
+import com.example.mtgdeckbox.room.DeckLegality.Rule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * These tests apply a long series of changes to a DeckLegality, through
+ * update, addCard, removeCard and setCommander, and check after every step
+ * that its verdict matches checking the same Deck from scratch. They also
+ * check each exemption and rule on its own.
+ */
+public class DeckLegalityTest {
+    private static final int STEPS = 2000;
+
+    private static final Card FOREST = card(1, "Basic", Card.GREEN, false, true, false);
+    private static final Card RATS = card(2, "", Card.BLACK, true, true, false);
+    private static final Card BANNED = card(3, "", 0, false, false, false);
+    private static final Card BLUE_SPELL = card(4, "", Card.BLUE, false, true, false);
+    private static final Card RED_SPELL = card(5, "", Card.RED, false, true, false);
+    private static final Card ARTIFACT = card(6, "", 0, false, true, false);
+    private static final Card GREEN_SPELL = card(7, "", Card.GREEN, false, true, false);
+    private static final Card GREEN_COMMANDER =
+            card(8, "Legendary", Card.GREEN, false, true, true);
+    private static final Card SIMIC_COMMANDER =
+            card(9, "Legendary", Card.GREEN | Card.BLUE, false, true, true);
+    private static final Card BANNED_COMMANDER =
+            card(10, "Legendary", Card.RED, false, false, true);
+    private static final Card[] POOL = {FOREST, RATS, BANNED, BLUE_SPELL, RED_SPELL,
+            ARTIFACT, GREEN_SPELL, GREEN_COMMANDER, SIMIC_COMMANDER, BANNED_COMMANDER};
+    private static final Card[] COMMANDERS = {null, GREEN_COMMANDER, SIMIC_COMMANDER,
+            BANNED_COMMANDER};
+
+    @Test
+    public void everyStepMatchesCheckingFromScratch() {
+        Random random = new Random(39);
+        Map<Integer, Integer> deck = new LinkedHashMap<>();
+        Card commander = null;
+        DeckLegality legality = new DeckLegality();
+
+        for (int step = 0; step < STEPS; step++) {
+            Card card = POOL[random.nextInt(POOL.length)];
+            int quantity = 1 + random.nextInt(3);
+            switch (random.nextInt(4)) {
+                case 0:
+                    // The Deck screen sends the whole Deck after an edit.
+                    for (Card changed : POOL) {
+                        if (random.nextInt(3) == 0) {
+                            setQuantity(deck, changed.getCardID(), random.nextInt(4));
+                        }
+                    }
+                    legality.update(entries(deck));
+                    break;
+                case 1:
+                    setQuantity(deck, card.getCardID(), quantityOf(deck, card) + quantity);
+                    legality.addCard(card, quantity);
+                    break;
+                case 2:
+                    setQuantity(deck, card.getCardID(),
+                            Math.max(0, quantityOf(deck, card) - quantity));
+                    legality.removeCard(card.getCardID(), quantity);
+                    break;
+                default:
+                    commander = COMMANDERS[random.nextInt(COMMANDERS.length)];
+                    legality.setCommander(commander);
+                    break;
+            }
+            assertSameVerdict("Step " + step, fromScratch(commander, deck), legality);
+        }
+    }
+
+    @Test
+    public void aCopyOfTheCommanderBreaksSingleton() {
+        DeckLegality legality = new DeckLegality();
+        legality.addCard(GREEN_COMMANDER, 1);
+        assertFalse(legality.getViolations(Rule.SINGLETON).contains(8));
+
+        legality.setCommander(GREEN_COMMANDER);
+        assertTrue(legality.getViolations(Rule.SINGLETON).contains(8));
+        assertEquals(2, legality.getTotalCards());
+
+        legality.setCommander(SIMIC_COMMANDER);
+        assertFalse(legality.getViolations(Rule.SINGLETON).contains(8));
+    }
+
+    @Test
+    public void basicLandsAndAlternateLimitsAreExempt() {
+        DeckLegality legality = new DeckLegality();
+        legality.addCard(FOREST, 30);
+        legality.addCard(RATS, 20);
+        legality.addCard(GREEN_SPELL, 2);
+
+        assertArrayEquals(new int[] {7}, sorted(legality.getViolations(Rule.SINGLETON)));
+        legality.removeCard(GREEN_SPELL.getCardID(), 1);
+        assertTrue(legality.getViolations(Rule.SINGLETON).isEmpty());
+    }
+
+    @Test
+    public void choosingACommanderChecksEveryCardsIdentity() {
+        DeckLegality legality = new DeckLegality();
+        legality.addCard(BLUE_SPELL, 1);
+        legality.addCard(GREEN_SPELL, 1);
+        legality.addCard(ARTIFACT, 1);
+        // Nothing is outside the identity until there is a commander.
+        assertTrue(legality.getViolations(Rule.COLOUR_IDENTITY).isEmpty());
+
+        legality.setCommander(GREEN_COMMANDER);
+        assertArrayEquals(new int[] {4}, sorted(legality.getViolations(Rule.COLOUR_IDENTITY)));
+
+        legality.setCommander(SIMIC_COMMANDER);
+        assertTrue(legality.getViolations(Rule.COLOUR_IDENTITY).isEmpty());
+
+        legality.setCommander(null);
+        assertTrue(legality.getViolations(Rule.COLOUR_IDENTITY).isEmpty());
+    }
+
+    @Test
+    public void cardsLeftOutOfAnUpdateAreRemoved() {
+        DeckLegality legality = new DeckLegality();
+        legality.setCommander(GREEN_COMMANDER);
+        Map<Integer, Integer> deck = new LinkedHashMap<>();
+        deck.put(BANNED.getCardID(), 1);
+        deck.put(RED_SPELL.getCardID(), 2);
+        deck.put(FOREST.getCardID(), 5);
+        legality.update(entries(deck));
+        assertEquals(9, legality.getTotalCards());
+        assertTrue(legality.getViolations(Rule.BANNED).contains(3));
+        assertTrue(legality.getViolations(Rule.SINGLETON).contains(5));
+        assertTrue(legality.getViolations(Rule.COLOUR_IDENTITY).contains(5));
+
+        deck.remove(BANNED.getCardID());
+        deck.remove(RED_SPELL.getCardID());
+        legality.update(entries(deck));
+        assertEquals(6, legality.getTotalCards());
+        for (Rule rule : Rule.values()) {
+            assertTrue(legality.getViolations(rule).isEmpty());
+        }
+        assertNull(legality.getCardName(RED_SPELL.getCardID()));
+    }
+
+    @Test
+    public void aFullDeckUnderAValidCommanderIsLegal() {
+        DeckLegality legality = new DeckLegality();
+        legality.addCard(FOREST, 98);
+        legality.addCard(GREEN_SPELL, 1);
+        assertFalse(legality.isLegal());
+
+        legality.setCommander(GREEN_COMMANDER);
+        assertTrue(legality.isLegal());
+
+        legality.setCommander(BANNED_COMMANDER);
+        assertFalse(legality.isCommanderValid());
+        assertFalse(legality.isLegal());
+    }
+
+    /**
+     * This method checks a Deck from scratch, as a new screen would.
+     * @param commander the commander Card, or null if there is none.
+     * @param deck a Map of Card ID numbers to the number of copies held.
+     * @return a new DeckLegality holding the Deck.
+     */
+    private static DeckLegality fromScratch(Card commander, Map<Integer, Integer> deck) {
+        DeckLegality legality = new DeckLegality();
+        legality.setCommander(commander);
+        legality.update(entries(deck));
+        return legality;
+    }
+
+    /**
+     * This method checks that two DeckLegalities reach the same verdict.
+     * @param step a String naming the step, for the failure message.
+     * @param expected the DeckLegality checked from scratch.
+     * @param actual the DeckLegality kept up to date.
+     */
+    private static void assertSameVerdict(String step, DeckLegality expected,
+                                          DeckLegality actual) {
+        assertEquals(step, expected.getTotalCards(), actual.getTotalCards());
+        assertEquals(step, expected.isCommanderValid(), actual.isCommanderValid());
+        assertEquals(step, expected.isLegal(), actual.isLegal());
+        for (Rule rule : Rule.values()) {
+            assertArrayEquals(step + " " + rule, sorted(expected.getViolations(rule)),
+                    sorted(actual.getViolations(rule)));
+        }
+    }
+
+    /**
+     * This method lists the Cards of a Deck as the Deck screen sends them.
+     * @param deck a Map of Card ID numbers to the number of copies held.
+     * @return a List of DeckCardEntries, one for each Card held.
+     */
+    private static List<DeckCardEntry> entries(Map<Integer, Integer> deck) {
+        List<DeckCardEntry> entries = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> held : deck.entrySet()) {
+            entries.add(new DeckCardEntry(POOL[held.getKey() - 1], held.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * This method changes the number of copies of a Card in a Deck.
+     * @param deck a Map of Card ID numbers to the number of copies held.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param quantity an Integer containing the new number of copies.
+     */
+    private static void setQuantity(Map<Integer, Integer> deck, int cardID, int quantity) {
+        if (quantity > 0) {
+            deck.put(cardID, quantity);
+        } else {
+            deck.remove(cardID);
+        }
+    }
+
+    /**
+     * This method returns the number of copies of a Card in a Deck.
+     * @param deck a Map of Card ID numbers to the number of copies held.
+     * @param card the Card to count.
+     * @return an Integer containing the number of copies held.
+     */
+    private static int quantityOf(Map<Integer, Integer> deck, Card card) {
+        Integer quantity = deck.get(card.getCardID());
+        return quantity == null ? 0 : quantity;
+    }
+
+    /**
+     * This method lists a set of Card ID numbers in order.
+     * @param cardIDs an IntHashSet of Card ID numbers.
+     * @return a sorted Array of the Card ID numbers.
+     */
+    private static int[] sorted(IntHashSet cardIDs) {
+        int[] array = cardIDs.toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * This method builds a Card for the pool.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param superTypes a String containing the supertypes of the Card.
+     * @param identityMask an Integer with a bit set for each colour of the Card.
+     * @param alternateLimit a Boolean which is true if any number of copies are allowed.
+     * @param commanderLegal a Boolean which is true if the Card is legal in Commander.
+     * @param canBeCommander a Boolean which is true if the Card can lead a Deck.
+     * @return a new Card.
+     */
+    private static Card card(int cardID, String superTypes, int identityMask,
+                             boolean alternateLimit, boolean commanderLegal,
+                             boolean canBeCommander) {
+        Card card = new Card();
+        card.setCardID(cardID);
+        card.setName("Card " + cardID);
+        card.setSuperTypes(superTypes);
+        card.setIdentityMask(identityMask);
+        card.setAlternateLimit(alternateLimit);
+        card.setCommanderLegal(commanderLegal);
+        card.setCanBeCommander(canBeCommander);
+        return card;
+    }
+}
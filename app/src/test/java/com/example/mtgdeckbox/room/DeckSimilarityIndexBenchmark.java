@@ -0,0 +1,97 @@
+package com.example.mtgdeckbox.room;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This benchmark files 10k synthetic Decks in a DeckSimilarityIndex, and
+ * compares its answers with an exact Jaccard scan over every Deck.
+ *
+ * The Decks are built like real ones: each starts from one of a few hundred
+ * archetypes and swaps a random number of its 100 Cards for others from the
+ * card pool, so Decks of the same archetype range from near copies to barely
+ * alike. For a sample of queries it prints the time per query and the share
+ * of the truly similar Decks which the index found. The timings depend on the
+ * machine, so it is ignored and run by hand; DeckSimilarityIndexTest checks
+ * the recall on a smaller set of Decks.
+ */
+@Ignore("Benchmark; run by hand")
+public class DeckSimilarityIndexBenchmark {
+    private static final int DECKS = 10000;
+    private static final int ARCHETYPES = 400;
+    private static final int QUERIES = 200;
+    private static final long SEED = 46;
+
+    // The similarity above which the LSH bands all but guarantee a match.
+    private static final double CLEARLY_SIMILAR = 0.5;
+    // The similarity which the screens ask for.
+    private static final double SIMILAR = 0.3;
+
+    @Test
+    public void indexAgainstAnExactScan() {
+        Random random = new Random(SEED);
+        int[][] decks = DeckSimilarityIndexTest.syntheticDecks(random, DECKS, ARCHETYPES);
+        DeckSimilarityIndex index = new DeckSimilarityIndex();
+        long start = System.nanoTime();
+        for (int deckID = 0; deckID < DECKS; deckID++) {
+            index.setDeck(deckID, MinHash.of(decks[deckID]));
+        }
+        long indexNanos = System.nanoTime() - start;
+
+        long lshNanos = 0;
+        long scanNanos = 0;
+        int clearlySimilar = 0;
+        int clearlyFound = 0;
+        int similar = 0;
+        int similarFound = 0;
+        double worstError = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int query = random.nextInt(DECKS);
+
+            start = System.nanoTime();
+            int[] found = index.findSimilar(query, DECKS, 0);
+            lshNanos += System.nanoTime() - start;
+            Arrays.sort(found);
+
+            start = System.nanoTime();
+            double[] exact = new double[DECKS];
+            for (int other = 0; other < DECKS; other++) {
+                exact[other] = DeckSimilarityIndexTest.jaccard(decks[query], decks[other]);
+            }
+            scanNanos += System.nanoTime() - start;
+
+            for (int other = 0; other < DECKS; other++) {
+                if (other == query) {
+                    continue;
+                }
+                boolean wasFound = Arrays.binarySearch(found, other) >= 0;
+                if (exact[other] >= CLEARLY_SIMILAR) {
+                    clearlySimilar++;
+                    clearlyFound += wasFound ? 1 : 0;
+                }
+                if (exact[other] >= SIMILAR) {
+                    similar++;
+                    similarFound += wasFound ? 1 : 0;
+                }
+                if (wasFound) {
+                    worstError = Math.max(worstError,
+                            Math.abs(index.getSimilarity(query, other) - exact[other]));
+                }
+            }
+        }
+
+        double clearRecall = (double) clearlyFound / clearlySimilar;
+        System.out.println(String.format("DeckSimilarityIndex: %d decks indexed in %d ms",
+                DECKS, indexNanos / 1000000));
+        System.out.println(String.format("  LSH query:  %.3f ms, exact scan: %.3f ms",
+                lshNanos / 1e6 / QUERIES, scanNanos / 1e6 / QUERIES));
+        System.out.println(String.format("  recall at J >= %.1f: %.3f (%d pairs)",
+                CLEARLY_SIMILAR, clearRecall, clearlySimilar));
+        System.out.println(String.format("  recall at J >= %.1f: %.3f (%d pairs)",
+                SIMILAR, (double) similarFound / similar, similar));
+        System.out.println(String.format("  worst estimate error: %.3f", worstError));
+    }
+}
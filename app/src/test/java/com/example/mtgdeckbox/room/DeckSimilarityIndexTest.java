@@ -0,0 +1,156 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * These tests file synthetic Decks in a DeckSimilarityIndex and check that it
+ * finds nearly every Deck which an exact Jaccard scan says is clearly similar.
+ *
+ * The Decks are built like real ones: each starts from one of a set of
+ * archetypes and swaps a random number of its 100 Cards for others from the
+ * card pool, so Decks of the same archetype range from near copies to barely
+ * alike.
+ */
+public class DeckSimilarityIndexTest {
+    private static final int DECKS = 2000;
+    private static final int ARCHETYPES = 100;
+    private static final int QUERIES = 200;
+    private static final int DECK_SIZE = 100;
+    private static final int CARD_POOL = 25000;
+
+    // The similarity above which the LSH bands all but guarantee a match.
+    private static final double CLEARLY_SIMILAR = 0.5;
+    private static final double MIN_RECALL = 0.97;
+
+    @Test
+    public void findsNearlyEveryClearlySimilarDeck() {
+        Random random = new Random(46);
+        int[][] decks = syntheticDecks(random, DECKS, ARCHETYPES);
+        DeckSimilarityIndex index = new DeckSimilarityIndex();
+        for (int deckID = 0; deckID < DECKS; deckID++) {
+            index.setDeck(deckID, MinHash.of(decks[deckID]));
+        }
+
+        int clearlySimilar = 0;
+        int clearlyFound = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int query = random.nextInt(DECKS);
+            int[] found = index.findSimilar(query, DECKS, 0);
+            Arrays.sort(found);
+            for (int other = 0; other < DECKS; other++) {
+                if (other != query && jaccard(decks[query], decks[other]) >= CLEARLY_SIMILAR) {
+                    clearlySimilar++;
+                    clearlyFound += Arrays.binarySearch(found, other) >= 0 ? 1 : 0;
+                }
+            }
+        }
+
+        assertTrue("Too few pairs to measure recall", clearlySimilar > QUERIES);
+        double recall = (double) clearlyFound / clearlySimilar;
+        assertTrue("Recall at J >= " + CLEARLY_SIMILAR + " was " + recall,
+                recall >= MIN_RECALL);
+    }
+
+    @Test
+    public void aDeckIsNeverSimilarToItself() {
+        int[][] decks = syntheticDecks(new Random(7), 50, 5);
+        DeckSimilarityIndex index = new DeckSimilarityIndex();
+        for (int deckID = 0; deckID < decks.length; deckID++) {
+            index.setDeck(deckID, MinHash.of(decks[deckID]));
+        }
+        for (int deckID = 0; deckID < decks.length; deckID++) {
+            for (int similar : index.findSimilar(deckID, decks.length, 0)) {
+                assertTrue(similar != deckID);
+            }
+        }
+        assertEquals(decks.length, index.getDeckCount());
+        assertArrayEquals(MinHash.of(decks[3]), index.getSignature(3));
+    }
+
+    /**
+     * This method builds synthetic Decks.
+     * @param random the Random to draw Cards from.
+     * @param decks an Integer containing the number of Decks wanted.
+     * @param archetypes an Integer containing the number of archetypes to build them from.
+     * @return an Array of Decks, each a sorted Array of distinct Card ID numbers.
+     */
+    static int[][] syntheticDecks(Random random, int decks, int archetypes) {
+        int[][] bases = new int[archetypes][];
+        for (int a = 0; a < archetypes; a++) {
+            bases[a] = distinctCards(random, new int[0], DECK_SIZE);
+        }
+        int[][] built = new int[decks][];
+        for (int d = 0; d < decks; d++) {
+            int[] archetype = bases[random.nextInt(archetypes)];
+            int kept = DECK_SIZE - random.nextInt(DECK_SIZE);
+            int[] shuffled = archetype.clone();
+            for (int i = shuffled.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = swap;
+            }
+            built[d] = distinctCards(random, Arrays.copyOf(shuffled, kept), DECK_SIZE);
+        }
+        return built;
+    }
+
+    /**
+     * This method fills a Deck up with random Cards it does not already hold.
+     * @param random the Random to draw Cards from.
+     * @param start an Array of the Cards the Deck starts with.
+     * @param size an Integer containing the number of Cards wanted.
+     * @return a sorted Array of size distinct Card ID numbers.
+     */
+    private static int[] distinctCards(Random random, int[] start, int size) {
+        int[] cards = Arrays.copyOf(start, size);
+        int count = start.length;
+        Arrays.sort(cards, 0, count);
+        while (count < size) {
+            int card = random.nextInt(CARD_POOL);
+            boolean held = false;
+            for (int i = 0; i < count; i++) {
+                if (cards[i] == card) {
+                    held = true;
+                    break;
+                }
+            }
+            if (!held) {
+                cards[count++] = card;
+            }
+        }
+        Arrays.sort(cards);
+        return cards;
+    }
+
+    /**
+     * This method works out the exact Jaccard similarity of two Decks.
+     * @param a a sorted Array of distinct Card ID numbers.
+     * @param b another sorted Array of distinct Card ID numbers.
+     * @return a Double between 0 and 1.
+     */
+    static double jaccard(int[] a, int[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+}
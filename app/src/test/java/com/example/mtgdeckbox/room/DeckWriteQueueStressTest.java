@@ -0,0 +1,203 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This test hammers one Deck with adds, removes and clean-ups from several
+ * threads at once, through the CardRepository, and checks the Deck, its
+ * signature and its history end up as if each thread's writes had run in
+ * the order it made them.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DeckWriteQueueStressTest {
+    private static final int THREADS = 8;
+    private static final int CARDS_PER_THREAD = 60;
+
+    private CardRepository repository;
+    private CardDatabase database;
+    private ExecutorService background;
+
+    @Before
+    public void createRepository() {
+        Application application = ApplicationProvider.getApplicationContext();
+        repository = new CardRepository(application);
+        database = CardDatabase.getInstance(application);
+        // Room won't run queries on the main thread, which the test runs on.
+        background = Executors.newSingleThreadExecutor();
+    }
+
+    @Test
+    public void concurrentWritesToOneDeckKeepEachThreadsOrder() throws Exception {
+        final int deckID = onBackground(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return (int) database.deckDAO().insertDeck(new Deck());
+            }
+        });
+
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int firstCard = (t + 1) * 1000;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < CARDS_PER_THREAD; i++) {
+                        int cardID = firstCard + i;
+                        repository.insertDeckCards(new DeckCards(deckID, cardID, 1));
+                        if (i % 2 == 0) {
+                            repository.removeSpecificDeckCards(deckID, cardID);
+                        }
+                        if (i % 4 == 0) {
+                            repository.insertDeckCards(new DeckCards(deckID, cardID, 2));
+                        }
+                        if (i % 5 == 0) {
+                            // A zero row must be cleaned up, as the clean-up comes after it.
+                            repository.insertDeckCards(new DeckCards(deckID, cardID + 500, 0));
+                            repository.cleanDeckCards();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        repository.flushDeckWrites().get(30, TimeUnit.SECONDS);
+
+        // Work out what each thread's writes leave, in the order it made them.
+        final TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < CARDS_PER_THREAD; i++) {
+                int cardID = (t + 1) * 1000 + i;
+                if (i % 4 == 0) {
+                    expected.put(cardID, 2);
+                } else if (i % 2 != 0) {
+                    expected.put(cardID, 1);
+                }
+            }
+        }
+
+        List<DeckCards> rows = onBackground(new Callable<List<DeckCards>>() {
+            @Override
+            public List<DeckCards> call() {
+                return database.quantities().getDeckCardQuantities(deckID);
+            }
+        });
+        Map<Integer, Integer> actual = new TreeMap<>();
+        for (DeckCards row : rows) {
+            assertNotZero(row);
+            Integer quantity = actual.get(row.getCardID());
+            actual.put(row.getCardID(), (quantity == null ? 0 : quantity) + row.getQuantity());
+        }
+        assertEquals(expected, actual);
+
+        // The signature must match the Deck's final Cards.
+        DeckSignature signature = onBackground(new Callable<DeckSignature>() {
+            @Override
+            public DeckSignature call() {
+                return database.signatures().getSignature(deckID);
+            }
+        });
+        assertNotNull(signature);
+        int[] cardIDs = new int[expected.size()];
+        int i = 0;
+        for (int cardID : expected.keySet()) {
+            cardIDs[i++] = cardID;
+        }
+        assertArrayEquals(MinHash.of(cardIDs), signature.toSignature());
+
+        // Moving back to the start of the history and forward again must give the same Deck.
+        final DeckHistory history = new DeckHistory(database.deckDAO(), database.quantities(),
+                database.history());
+        Map<Integer, Integer> emptied = onBackground(new Callable<Map<Integer, Integer>>() {
+            @Override
+            public Map<Integer, Integer> call() {
+                database.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        history.restoreVersion(deckID, 0);
+                    }
+                });
+                return readQuantities(deckID);
+            }
+        });
+        assertEquals(new TreeMap<Integer, Integer>(), emptied);
+        Map<Integer, Integer> replayed = onBackground(new Callable<Map<Integer, Integer>>() {
+            @Override
+            public Map<Integer, Integer> call() {
+                database.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        history.restoreVersion(deckID, database.history().getLatestSequence(deckID));
+                    }
+                });
+                return readQuantities(deckID);
+            }
+        });
+        assertEquals(expected, replayed);
+    }
+
+    /**
+     * This method reads the quantity of each Card in a Deck.
+     * @param deckID an Integer containing the ID number of the Deck.
+     * @return a Map from each Card's ID number to its quantity.
+     */
+    private Map<Integer, Integer> readQuantities(int deckID) {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (DeckCards row : database.quantities().getDeckCardQuantities(deckID)) {
+            if (row.getQuantity() > 0) {
+                quantities.put(row.getCardID(), row.getQuantity());
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * This method fails the test if a row with quantity zero survived.
+     * @param row a DeckCards row read back from the Deck.
+     */
+    private static void assertNotZero(DeckCards row) {
+        assertTrue("Zero row for card " + row.getCardID() + " was not cleaned up",
+                row.getQuantity() != 0);
+    }
+
+    /**
+     * This method runs a database read off the main thread and waits for it.
+     * @param task a Callable which reads from the database.
+     * @return the result of the Callable.
+     * @throws Exception if the Callable fails.
+     */
+    private <T> T onBackground(Callable<T> task) throws Exception {
+        return background.submit(task).get(30, TimeUnit.SECONDS);
+    }
+}
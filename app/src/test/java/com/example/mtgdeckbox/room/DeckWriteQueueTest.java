@@ -0,0 +1,132 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * These tests check that the changes a write hands to afterCommit() are only
+ * made once the write has been committed, and never for a write which was
+ * rolled back, even when the write is run a second time on its own after its
+ * batch failed.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DeckWriteQueueTest {
+    private CardDatabase database;
+    private PriorityDatabaseExecutor executor;
+    private DeckWriteQueue queue;
+    private List<String> changes;
+
+    @Before
+    public void createQueue() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                CardDatabase.class).allowMainThreadQueries().build();
+        executor = new PriorityDatabaseExecutor(2);
+        queue = new DeckWriteQueue(database, executor);
+        changes = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @After
+    public void closeDatabase() {
+        executor.shutdown();
+        database.close();
+    }
+
+    @Test
+    public void changesAreMadeOnceTheWriteIsCommitted() throws Exception {
+        CompletableFuture<Void> first = queue.enqueue(1, insertDeck("First", false));
+        CompletableFuture<Void> second = queue.enqueue(2, insertDeck("Second", false));
+        second.get(10, TimeUnit.SECONDS);
+
+        assertTrue(first.isDone());
+        assertEquals(Arrays.asList("First", "Second"), changes);
+        assertEquals(2, database.deckDAO().getAllDecks().size());
+    }
+
+    @Test
+    public void aRolledBackWriteMakesNoChanges() throws Exception {
+        // All three land in one batch, which fails and is run again write by write.
+        queue.enqueue(1, insertDeck("Kept", false));
+        CompletableFuture<Void> failed = queue.enqueue(2, insertDeck("Lost", true));
+        queue.enqueue(3, insertDeck("Also kept", false));
+        queue.flush().get(10, TimeUnit.SECONDS);
+
+        try {
+            failed.get();
+            fail("The failing write completed");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // Each kept change is made once, though its write ran twice.
+        assertEquals(Arrays.asList("Kept", "Also kept"), changes);
+        assertEquals(2, database.deckDAO().getAllDecks().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void changesCanOnlyBeHandedOverFromInsideAWrite() {
+        queue.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                changes.add("Outside");
+            }
+        });
+    }
+
+    @Test
+    public void theTimerThreadDoesNotKeepTheProcessAlive() throws Exception {
+        queue.flush().get(10, TimeUnit.SECONDS);
+        boolean found = false;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("DeckWriteQueue timer")) {
+                assertTrue(thread.isDaemon());
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+
+    /**
+     * This method builds a write which inserts a Deck and hands over a
+     * change recording its name.
+     * @param deckName a String containing the name of the Deck.
+     * @param fail a Boolean which is true if the write should then fail.
+     * @return a Runnable which makes the write.
+     */
+    private Runnable insertDeck(final String deckName, final boolean fail) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                Deck deck = new Deck();
+                deck.setDeckName(deckName);
+                database.deckDAO().insertDeck(deck);
+                queue.afterCommit(new Runnable() {
+                    @Override
+                    public void run() {
+                        changes.add(deckName);
+                    }
+                });
+                if (fail) {
+                    throw new IllegalStateException("Write failed");
+                }
+            }
+        };
+    }
+}
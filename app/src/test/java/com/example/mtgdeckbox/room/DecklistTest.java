@@ -0,0 +1,231 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * These tests read decklists in the formats deck sites export, and check the
+ * Cards, quantities and commander they resolve to, the lines skipped and the
+ * problems reported. They also check that a Deck written by format() reads
+ * back the same.
+ */
+public class DecklistTest {
+    private static final String[] NAMES = {"Atraxa, Praetors' Voice", "Sol Ring",
+            "Arcane Signet", "Forest", "Relentless Rats", "B.F.M. (Big Furry Monster)",
+            "Delver of Secrets // Insectile Aberration", "Mox Opal", "Swords to Plowshares"};
+
+    private CardNameIndex index;
+
+    @Before
+    public void buildIndex() {
+        CardNameIndex.Builder builder = new CardNameIndex.Builder();
+        for (int i = 0; i < NAMES.length; i++) {
+            builder.add(cardID(NAMES[i]), NAMES[i]);
+        }
+        index = builder.build();
+    }
+
+    @Test
+    public void headingsChooseTheSection() {
+        Decklist decklist = Decklist.parse("Commander\n"
+                + "1 Atraxa, Praetors' Voice\n"
+                + "\n"
+                + "Deck\n"
+                + "1 Sol Ring\n"
+                + "Sideboard:\n"
+                + "1 Swords to Plowshares\n"
+                + "// Mainboard\n"
+                + "1 Arcane Signet\n"
+                + "# Maybeboard\n"
+                + "1 Mox Opal\n"
+                + "MAIN DECK\n"
+                + "10 Forest\n");
+
+        assertEntries(decklist, "2 1 Atraxa, Praetors' Voice *", "5 1 Sol Ring",
+                "9 1 Arcane Signet", "13 10 Forest");
+        assertEquals(Arrays.asList("1 Swords to Plowshares", "1 Mox Opal"),
+                decklist.getSkippedLines());
+    }
+
+    @Test
+    public void linesBeforeAnyHeadingArePartOfTheDeck() {
+        Decklist decklist = Decklist.parse("4 Forest\r\nSol Ring\r\n// ramp\r\n1 Arcane Signet");
+        assertEntries(decklist, "1 4 Forest", "2 1 Sol Ring", "4 1 Arcane Signet");
+        assertTrue(decklist.getSkippedLines().isEmpty());
+    }
+
+    @Test
+    public void sideboardLinesAreSkippedAnywhere() {
+        Decklist decklist = Decklist.parse("1 Sol Ring\nSB: 1 Swords to Plowshares\n");
+        assertEntries(decklist, "1 1 Sol Ring");
+        assertEquals(Collections.singletonList("SB: 1 Swords to Plowshares"),
+                decklist.getSkippedLines());
+    }
+
+    @Test
+    public void printingDetailsAreStripped() {
+        Decklist decklist = Decklist.parse("1x Sol Ring (C21) 263\n"
+                + "1 Mox Opal (SOM) 179 *F*\n"
+                + "1 Atraxa, Praetors' Voice *CMDR*\n"
+                + "1 Arcane Signet (2XM)\n"
+                + "1 B.F.M. (Big Furry Monster)\n"
+                + "1 Forest (PLST) C21-263\n");
+        assertEntries(decklist, "1 1 Sol Ring", "2 1 Mox Opal",
+                "3 1 Atraxa, Praetors' Voice *", "4 1 Arcane Signet",
+                "5 1 B.F.M. (Big Furry Monster)", "6 1 Forest");
+    }
+
+    @Test
+    public void quantitiesAreReadAndClamped() {
+        Decklist decklist = Decklist.parse("3X Forest\n"
+                + "12x Relentless Rats\n"
+                + "99999999999 Relentless Rats\n"
+                + "0 Sol Ring\n"
+                + "7\n");
+        assertEntries(decklist, "1 3 Forest", "2 12 Relentless Rats", "3 999 Relentless Rats");
+    }
+
+    @Test
+    public void duplicatesAreAddedUpInFirstSeenOrder() {
+        DecklistImport imported = Decklist.parse("2 Forest\n"
+                + "1 Sol Ring\n"
+                + "3 forest\n"
+                + "1 Delver of Secrets\n").resolve(index);
+        assertArrayEquals(ids("Forest", "Sol Ring", "Delver of Secrets // Insectile Aberration"),
+                imported.getCardIDs());
+        assertArrayEquals(new int[] {5, 1, 1}, imported.getQuantities());
+        assertEquals(-1, imported.getCommanderID());
+        assertTrue(imported.getProblems().isEmpty());
+    }
+
+    @Test
+    public void onlyTheFirstCommanderLeadsTheDeck() {
+        DecklistImport imported = Decklist.parse("1 Atraxa, Praetors' Voice *CMDR*\n"
+                + "1 Sol Ring *CMDR*\n"
+                + "1 Arcane Signet\n").resolve(index);
+        assertEquals(cardID("Atraxa, Praetors' Voice"), imported.getCommanderID());
+        assertArrayEquals(ids("Sol Ring", "Arcane Signet"), imported.getCardIDs());
+    }
+
+    @Test
+    public void unknownCardsAndSkippedLinesAreReported() {
+        DecklistImport imported = Decklist.parse("1 Sol Rign\n"
+                + "1 Zzyzx\n"
+                + "1 Arcane Signet\n"
+                + "Sideboard\n"
+                + "1 Mox Opal\n").resolve(index);
+        assertArrayEquals(ids("Arcane Signet"), imported.getCardIDs());
+        assertEquals(Arrays.asList(
+                "Line 1: unknown card \"Sol Rign\" (did you mean Sol Ring?)",
+                "Line 2: unknown card \"Zzyzx\"",
+                "Skipped \"1 Mox Opal\""), imported.getProblems());
+    }
+
+    @Test
+    public void aFormattedDeckReadsBackTheSame() {
+        Card commander = card("Atraxa, Praetors' Voice");
+        List<DeckCardEntry> deck = new ArrayList<>();
+        deck.add(new DeckCardEntry(card("Sol Ring"), 1));
+        deck.add(new DeckCardEntry(card("Relentless Rats"), 30));
+        deck.add(new DeckCardEntry(card("Delver of Secrets // Insectile Aberration"), 1));
+        deck.add(new DeckCardEntry(card("B.F.M. (Big Furry Monster)"), 1));
+        deck.add(new DeckCardEntry(card("forest"), 36));
+
+        String text = Decklist.format(commander, deck);
+        assertTrue(text.startsWith("Commander\n1 Atraxa, Praetors' Voice\n\nDeck\n"));
+        DecklistImport imported = Decklist.parse(text).resolve(index);
+
+        assertEquals(commander.getCardID(), imported.getCommanderID());
+        assertTrue(imported.getProblems().isEmpty());
+        assertEquals(deck.size(), imported.getCardIDs().length);
+        for (DeckCardEntry entry : deck) {
+            int at = indexOf(imported.getCardIDs(), entry.getCard().getCardID());
+            assertEquals(entry.getCard().getName(), entry.getQuantity(),
+                    imported.getQuantities()[at]);
+        }
+
+        // Without a commander there is no Commander section.
+        String noCommander = Decklist.format(null, deck);
+        assertFalse(noCommander.contains("Commander"));
+        assertEquals(-1, Decklist.parse(noCommander).resolve(index).getCommanderID());
+    }
+
+    /**
+     * This method checks the entries read from a decklist.
+     * @param decklist the Decklist read.
+     * @param expected Strings of each entry's line number, quantity and name,
+     *                 followed by " *" if it is the commander.
+     */
+    private static void assertEntries(Decklist decklist, String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (Decklist.Entry entry : decklist.getEntries()) {
+            actual.add(entry.getLineNumber() + " " + entry.getQuantity() + " " + entry.getName()
+                    + (entry.getCommander() ? " *" : ""));
+        }
+        assertEquals(Arrays.asList(expected), actual);
+    }
+
+    /**
+     * This method builds a Card from the test's names.
+     * @param name a String containing a name, in any case.
+     * @return a new Card with the full name and its ID number.
+     */
+    private static Card card(String name) {
+        Card card = new Card();
+        card.setCardID(cardID(name));
+        card.setName(NAMES[card.getCardID() - 1]);
+        return card;
+    }
+
+    /**
+     * This method returns the ID number the test gives a Card.
+     * @param name a String containing one of the test's names, in any case.
+     * @return an Integer containing the ID number.
+     */
+    private static int cardID(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * This method returns the ID numbers of some of the test's Cards.
+     * @param names Strings containing the names.
+     * @return an Array of ID numbers, in the same order.
+     */
+    private static int[] ids(String... names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = cardID(names[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * This method finds a value in an Array.
+     * @param values an Array of Integers.
+     * @param value an Integer to look for.
+     * @return an Integer containing the position of the value.
+     */
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        throw new AssertionError("Missing " + value);
+    }
+}
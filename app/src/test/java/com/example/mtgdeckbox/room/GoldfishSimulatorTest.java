@@ -0,0 +1,101 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * These tests goldfish fixed Decks. Decks of only lands or only spells must
+ * give certain answers, and a mixed Deck's opening hands must match the
+ * hypergeometric odds to within the noise of the trials.
+ */
+public class GoldfishSimulatorTest {
+    private static final int TRIALS = 200000;
+    private static final int TURNS = 10;
+    private static final int DECK_SIZE = 99;
+    private static final int LANDS = 37;
+    // More than ten standard errors of a chance estimated from TRIALS games.
+    private static final double TOLERANCE = 0.012;
+
+    @Test
+    public void aDeckOfLandsMakesEveryLandDrop() {
+        GoldfishResult result = GoldfishSimulator.simulate(deck(DECK_SIZE, 0), TRIALS, TURNS,
+                5, 5);
+        assertEquals(TRIALS, result.getTrials());
+        assertEquals(GoldfishSimulator.HAND_SIZE, result.getAverageOpeningLands(), 0);
+        assertEquals(0, result.getKeepableHandChance(), 0);
+        for (int turn = 0; turn < TURNS; turn++) {
+            assertEquals(1, result.getLandDropChance(turn), 0);
+            assertEquals(0, result.getCastChance(turn), 0);
+        }
+        assertEquals(1, result.getTargetChance(), 0);
+    }
+
+    @Test
+    public void aDeckOfSpellsMakesNoLandDrop() {
+        GoldfishResult result = GoldfishSimulator.simulate(deck(0, DECK_SIZE), TRIALS, TURNS,
+                1, 5);
+        assertEquals(0, result.getAverageOpeningLands(), 0);
+        assertEquals(0, result.getKeepableHandChance(), 0);
+        for (int turn = 0; turn < TURNS; turn++) {
+            assertEquals(0, result.getLandDropChance(turn), 0);
+            assertEquals(0, result.getCastChance(turn), 0);
+        }
+        assertEquals(0, result.getTargetChance(), 0);
+    }
+
+    @Test
+    public void openingHandsMatchTheHypergeometricOdds() {
+        GoldfishResult result = GoldfishSimulator.simulate(deck(LANDS, DECK_SIZE - LANDS),
+                TRIALS, TURNS, 3, 3);
+        int hand = GoldfishSimulator.HAND_SIZE;
+
+        double keepable = 0;
+        for (int lands = GoldfishSimulator.MIN_KEEP_LANDS;
+             lands <= GoldfishSimulator.MAX_KEEP_LANDS; lands++) {
+            keepable += Hypergeometric.exactly(DECK_SIZE, LANDS, hand, lands);
+        }
+        assertEquals(keepable, result.getKeepableHandChance(), TOLERANCE);
+        assertEquals((double) hand * LANDS / DECK_SIZE, result.getAverageOpeningLands(),
+                TOLERANCE * hand);
+
+        // A land on the first turn needs one in the hand, and a land on the
+        // second needs two in the first eight Cards.
+        assertEquals(Hypergeometric.atLeast(DECK_SIZE, LANDS, hand, 1),
+                result.getLandDropChance(0), TOLERANCE);
+        assertEquals(Hypergeometric.atLeast(DECK_SIZE, LANDS, hand + 1, 2),
+                result.getLandDropChance(1), TOLERANCE);
+
+        // Three mana on the third turn means the first three land drops were made.
+        assertEquals(result.getLandDropChance(2), result.getTargetChance(), 0);
+    }
+
+    @Test
+    public void aDeckTooSmallToPlayOutIsNotSimulated() {
+        GoldfishResult result = GoldfishSimulator.simulate(deck(5, 5), TRIALS, TURNS, 3, 3);
+        assertEquals(0, result.getTrials());
+        assertEquals(0, result.getKeepableHandChance(), 0);
+        assertEquals(0, result.getLandDropChance(0), 0);
+    }
+
+    /**
+     * This method builds a Deck of basic lands and two mana spells.
+     * @param lands an Integer containing the number of lands.
+     * @param spells an Integer containing the number of spells.
+     * @return a List of DeckCardEntries.
+     */
+    private static List<DeckCardEntry> deck(int lands, int spells) {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        if (lands > 0) {
+            deck.add(TestCards.entry("Forest", "Land", "", 0, "", lands));
+        }
+        // Spread the spells over Cards, as a singleton Deck holds them.
+        for (int i = 0; i < spells; i++) {
+            deck.add(TestCards.entry("Spell " + i, "Creature", "{1}{G}", 2, "", 1));
+        }
+        return deck;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * These tests check Hypergeometric against odds worked out by hand from
+ * binomial coefficients, against the odds of Decks larger than its table of
+ * log-factorials, and against targets which cannot or must be met.
+ */
+public class HypergeometricTest {
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void smallDrawsMatchOddsWorkedOutByHand() {
+        // Three hits in ten Cards, two drawn: C(3,1) C(7,1) / C(10,2) = 21 / 45.
+        assertEquals(21.0 / 45, Hypergeometric.exactly(10, 3, 2, 1), DELTA);
+        assertEquals(3.0 / 45, Hypergeometric.exactly(10, 3, 2, 2), DELTA);
+        assertEquals(24.0 / 45, Hypergeometric.atLeast(10, 3, 2, 1), DELTA);
+
+        // Four of a kind in a five card hand: C(48,1) / C(52,5).
+        assertEquals(48.0 / 2598960, Hypergeometric.exactly(52, 4, 5, 4), DELTA);
+
+        // The one copy of a Card is in the top seven of 99 a seventh of the time.
+        assertEquals(7.0 / 99, Hypergeometric.atLeast(99, 1, 7, 1), DELTA);
+
+        // Two of 24 lands in a hand of 7 from 60, by what is left out:
+        // 1 - (C(36,7) + 24 C(36,6)) / C(60,7).
+        assertEquals(1 - (8347680.0 + 24 * 1947792.0) / 386206920.0,
+                Hypergeometric.atLeast(60, 24, 7, 2), DELTA);
+    }
+
+    @Test
+    public void everyNumberOfHitsAddsUpToCertainty() {
+        int[][] decks = {{99, 37, 7}, {60, 24, 10}, {40, 17, 40}, {100, 0, 7}, {7, 7, 7}};
+        for (int[] deck : decks) {
+            double total = 0;
+            for (int hits = 0; hits <= deck[2]; hits++) {
+                double chance = Hypergeometric.exactly(deck[0], deck[1], deck[2], hits);
+                assertEquals(Hypergeometric.atLeast(deck[0], deck[1], deck[2], hits)
+                                - Hypergeometric.atLeast(deck[0], deck[1], deck[2], hits + 1),
+                        chance, 1e-9);
+                total += chance;
+            }
+            assertEquals(1, total, 1e-9);
+        }
+    }
+
+    @Test
+    public void targetsWhichCannotBeMetHaveNoChance() {
+        // More hits wanted than the Deck holds, or than are drawn.
+        assertEquals(0, Hypergeometric.atLeast(99, 3, 7, 4), 0);
+        assertEquals(0, Hypergeometric.atLeast(99, 37, 7, 8), 0);
+        assertEquals(0, Hypergeometric.exactly(99, 3, 7, 4), 0);
+        assertEquals(0, Hypergeometric.exactly(99, 37, 7, 8), 0);
+        assertEquals(0, Hypergeometric.exactly(99, 37, 7, -1), 0);
+        // Too few misses left to fill the rest of the draw.
+        assertEquals(0, Hypergeometric.exactly(10, 8, 5, 2), 0);
+        // An empty Deck.
+        assertEquals(0, Hypergeometric.atLeast(0, 0, 7, 1), 0);
+    }
+
+    @Test
+    public void targetsWhichMustBeMetAreCertain() {
+        assertEquals(1, Hypergeometric.atLeast(99, 0, 7, 0), 0);
+        assertEquals(1, Hypergeometric.atLeast(0, 0, 0, -3), 0);
+        // Drawing more Cards than the Deck holds draws the whole Deck.
+        assertEquals(1, Hypergeometric.atLeast(10, 3, 20, 3), DELTA);
+        assertEquals(1, Hypergeometric.atLeast(10, 15, 20, 10), DELTA);
+        // Two misses in ten leave at least three hits in any five.
+        assertEquals(1, Hypergeometric.atLeast(10, 8, 5, 3), DELTA);
+    }
+
+    @Test
+    public void logFactorialsCarryOnPastTheTable() {
+        // The table stops at 512.
+        double sum = 0;
+        for (int n = 1; n <= 1000; n++) {
+            sum += Math.log(n);
+            assertEquals("ln(" + n + "!)", sum, Hypergeometric.logFactorial(n), 1e-12 * sum);
+        }
+        assertEquals(0, Hypergeometric.logFactorial(0), 0);
+        assertEquals(Math.log(1000 * 999 / 2), Hypergeometric.logChoose(1000, 2), 1e-9);
+
+        // Decks bigger than the table still get exact answers.
+        assertEquals(7.0 / 1000, Hypergeometric.atLeast(1000, 1, 7, 1), 1e-9);
+        assertEquals(400.0 * 399 / (1000 * 999), Hypergeometric.exactly(1000, 400, 2, 2), 1e-9);
+    }
+}
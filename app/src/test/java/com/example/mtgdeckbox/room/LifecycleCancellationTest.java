@@ -0,0 +1,247 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.mtgdeckbox.room.PriorityDatabaseExecutor.Priority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * These tests open and close screens rapidly while their repository queries
+ * are still queued behind busy database threads, and check that the
+ * cancelled queries are taken off the queue and never run, that screens which
+ * stay open do not collect observers, and that a load shared through the
+ * QueryResultCache is only stopped once every screen waiting on it is closed.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LifecycleCancellationTest {
+    private static final int CYCLES = 200;
+    private static final int SCREENS = 20;
+    private static final int CARDS = 50;
+    private static final long TIMEOUT_MS = 10000;
+
+    private final PriorityDatabaseExecutor executor = CardDatabase.databaseWriteExecutor;
+
+    private CardDatabase database;
+    private CardRepository repository;
+    private List<CancellationSignal> signals;
+    private CountDownLatch release;
+
+    @Before
+    public void createRepository() throws InterruptedException {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                CardDatabase.class).allowMainThreadQueries().build();
+        List<Card> cards = new ArrayList<>();
+        for (int i = 1; i <= CARDS; i++) {
+            Card card = new Card();
+            card.setCardID(i);
+            card.setName("Card " + i);
+            cards.add(card);
+        }
+        database.cardDAO().insertAllCards(cards);
+
+        signals = Collections.synchronizedList(new ArrayList<CancellationSignal>());
+        repository = new CardRepository(database) {
+            @Override
+            CancellationSignal createCancellationSignal() {
+                CancellationSignal signal = super.createCancellationSignal();
+                signals.add(signal);
+                return signal;
+            }
+        };
+        // Another test may have left the picker lists of its own database cached.
+        CardRepository.getQueryCache().invalidate();
+
+        // Hold every database thread, so each query queues up behind them.
+        release = new CountDownLatch(1);
+        final CountDownLatch held = new CountDownLatch(executor.getCorePoolSize());
+        for (int i = 0; i < executor.getCorePoolSize(); i++) {
+            executor.execute(Priority.INTERACTIVE, new Runnable() {
+                @Override
+                public void run() {
+                    held.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        assertTrue(held.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void closeDatabase() throws InterruptedException {
+        release.countDown();
+        awaitIdle();
+        database.close();
+    }
+
+    @Test
+    public void rapidOpenCloseCyclesLeaveNothingQueued() throws Exception {
+        long completedBefore = executor.getCompletedTaskCount();
+        List<CompletableFuture<?>> queries = new ArrayList<>();
+        for (int i = 0; i < CYCLES; i++) {
+            TestOwner screen = new TestOwner();
+            screen.registry.setCurrentState(Lifecycle.State.RESUMED);
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getDeckContentsByFuture(i)));
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getAllCardsByFuture()));
+            screen.registry.setCurrentState(Lifecycle.State.DESTROYED);
+            assertEquals(0, screen.registry.getObserverCount());
+        }
+
+        // Open a batch of screens before closing any, so more are queued at once.
+        List<TestOwner> screens = new ArrayList<>();
+        for (int i = 0; i < SCREENS; i++) {
+            TestOwner screen = new TestOwner();
+            screen.registry.setCurrentState(Lifecycle.State.RESUMED);
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getDeckContentsByFuture(i)));
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getFacetIndex()));
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getBoardWipesByFuture()));
+            screens.add(screen);
+        }
+        for (TestOwner screen : screens) {
+            screen.registry.setCurrentState(Lifecycle.State.DESTROYED);
+        }
+
+        // Every query was taken off the queue while the threads were still held.
+        assertEquals("Cancelled queries are still queued", 0, executor.getQueue().size());
+        assertEquals("Cancelled queries are still waiting", 0, executor.getBackgroundBacklog());
+        for (CompletableFuture<?> query : queries) {
+            assertTrue(query.isCancelled());
+        }
+        for (CancellationSignal signal : signals) {
+            assertTrue(signal.isCanceled());
+        }
+
+        // Only the tasks holding the threads ever ran.
+        release.countDown();
+        awaitIdle();
+        assertEquals(executor.getCorePoolSize(),
+                executor.getCompletedTaskCount() - completedBefore);
+
+        // The removed background queries gave back their places, so new ones still run.
+        assertEquals(CARDS, repository.getAllCardsByFuture()
+                .get(TIMEOUT_MS, TimeUnit.MILLISECONDS).size());
+    }
+
+    @Test
+    public void completedQueriesReleaseTheirObserver() throws Exception {
+        TestOwner screen = new TestOwner();
+        screen.registry.setCurrentState(Lifecycle.State.RESUMED);
+        List<CompletableFuture<List<Card>>> queries = new ArrayList<>();
+        for (int i = 0; i < CYCLES; i++) {
+            queries.add(LifecycleCancellation.cancelOnDestroy(screen,
+                    repository.getDeckContentsByFuture(i)));
+        }
+        assertEquals(CYCLES, screen.registry.getObserverCount());
+
+        release.countDown();
+        for (CompletableFuture<List<Card>> query : queries) {
+            query.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(0, screen.registry.getObserverCount());
+        for (CancellationSignal signal : signals) {
+            assertFalse(signal.isCanceled());
+        }
+    }
+
+    @Test
+    public void closingEveryScreenOnASharedLoadFiresItsSignal() {
+        TestOwner first = new TestOwner();
+        TestOwner second = new TestOwner();
+        first.registry.setCurrentState(Lifecycle.State.RESUMED);
+        second.registry.setCurrentState(Lifecycle.State.RESUMED);
+        CompletableFuture<List<CardSummary>> firstLoad =
+                LifecycleCancellation.cancelOnDestroy(first, repository.getAllCardsByFuture());
+        CompletableFuture<List<CardSummary>> secondLoad =
+                LifecycleCancellation.cancelOnDestroy(second, repository.getAllCardsByFuture());
+        assertEquals("Both screens should share one query", 1, signals.size());
+
+        first.registry.setCurrentState(Lifecycle.State.DESTROYED);
+        assertTrue(firstLoad.isCancelled());
+        assertFalse(signals.get(0).isCanceled());
+
+        second.registry.setCurrentState(Lifecycle.State.DESTROYED);
+        assertTrue(secondLoad.isCancelled());
+        assertTrue(signals.get(0).isCanceled());
+        assertEquals(0, CardRepository.getQueryCache().size());
+
+        // The next screen starts the query again, rather than joining the cancelled one.
+        repository.getAllCardsByFuture();
+        assertEquals(2, signals.size());
+        assertFalse(signals.get(1).isCanceled());
+    }
+
+    @Test
+    public void aScreenStillOpenGetsTheSharedLoad() throws Exception {
+        TestOwner closed = new TestOwner();
+        closed.registry.setCurrentState(Lifecycle.State.RESUMED);
+        LifecycleCancellation.cancelOnDestroy(closed, repository.getAllCardsByFuture());
+        CompletableFuture<List<CardSummary>> open = repository.getAllCardsByFuture();
+        closed.registry.setCurrentState(Lifecycle.State.DESTROYED);
+
+        release.countDown();
+        assertEquals(CARDS, open.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).size());
+        assertEquals(1, signals.size());
+        assertFalse(signals.get(0).isCanceled());
+    }
+
+    /**
+     * This method waits until the database threads have nothing running or
+     * queued, so one test's queries cannot run during the next.
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()
+                || executor.getBackgroundBacklog() > 0) {
+            assertTrue("The database threads never went idle", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * This class is a screen whose lifecycle the tests move by hand.
+     */
+    private static class TestOwner implements LifecycleOwner {
+        private final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.mtgdeckbox.room;
+
+import static com.example.mtgdeckbox.room.TestCards.entry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * These tests check the number of lands the ManaBaseCalculator recommends, how
+ * it splits them between the colours, and that keeping its totals up to date
+ * gives the same answer as counting the Deck from scratch.
+ */
+public class ManaBaseCalculatorTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void splitsLandsByWeightedPips() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        // Ten green one-drops weigh 80 a pip; five blue two-drops weigh 60.
+        for (int i = 0; i < 10; i++) {
+            deck.add(entry(i, "Creature", "{G}", 1, 0, 1));
+        }
+        for (int i = 10; i < 15; i++) {
+            deck.add(entry(i, "Instant", "{1}{U}", 2, 0, 1));
+        }
+        ManaBase base = recommend(deck);
+
+        // 31.42 + 3.13 x 20 / 15 rounds to 36.
+        assertEquals(36, base.getRecommendedLands());
+        assertEquals(800.0 / 1100, base.getDemandShare(ManaCost.GREEN), DELTA);
+        assertEquals(300.0 / 1100, base.getDemandShare(ManaCost.BLUE), DELTA);
+        // 26.18 green and 9.82 blue; the spare land goes to the larger remainder.
+        assertEquals(26, base.getRecommendedForColour(ManaCost.GREEN));
+        assertEquals(10, base.getRecommendedForColour(ManaCost.BLUE));
+        assertEquals(0, base.getRecommendedForColour(ManaCost.RED));
+    }
+
+    @Test
+    public void splashedColourStillGetsALand() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            deck.add(entry(i, "Creature", "{G}{G}", 2, 0, 1));
+        }
+        deck.add(entry(60, "Sorcery", "{9}{R}", 10, 0, 1));
+        ManaBase base = recommend(deck);
+
+        int total = 0;
+        for (int c = 0; c < ManaCost.PIP_KINDS; c++) {
+            total += base.getRecommendedForColour(c);
+        }
+        assertEquals(base.getRecommendedLands(), total);
+        assertTrue(base.getDemandShare(ManaCost.RED) * base.getRecommendedLands() < 0.5);
+        assertEquals(1, base.getRecommendedForColour(ManaCost.RED));
+    }
+
+    @Test
+    public void cheapRampAndDrawLowerTheLandCount() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            deck.add(entry(i, "Artifact", "{2}", 2, 0, 1));
+        }
+        int withoutRamp = recommend(deck).getRecommendedLands();
+
+        deck.clear();
+        for (int i = 0; i < 20; i++) {
+            Card card = entry(i, "Artifact", "{2}", 2, 0, 1).getCard();
+            card.setCategories("ramp");
+            deck.add(new DeckCardEntry(card, 1));
+        }
+        ManaBase base = recommend(deck);
+        assertEquals(20, base.getCheapRampAndDraw());
+        // 20 x 0.28 is between five and six lands.
+        assertTrue(withoutRamp - base.getRecommendedLands() >= 5);
+    }
+
+    @Test
+    public void countsCurrentSourcesFromLands() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        deck.add(entry(0, "Land", "", 0, Card.GREEN, 12));
+        deck.add(entry(1, "Land", "", 0, Card.GREEN | Card.BLUE, 3));
+        deck.add(entry(2, "Land", "", 0, 0, 2));
+        deck.add(entry(3, "Creature", "{G}{U}", 2, 0, 1));
+        ManaBase base = recommend(deck);
+
+        assertEquals(17, base.getCurrentLands());
+        assertEquals(15, base.getCurrentSources(ManaCost.GREEN));
+        assertEquals(3, base.getCurrentSources(ManaCost.BLUE));
+        assertEquals(2, base.getCurrentSources(ManaCost.COLOURLESS));
+    }
+
+    @Test
+    public void updatingMatchesCountingFromScratch() {
+        List<DeckCardEntry> before = new ArrayList<>();
+        before.add(entry(0, "Creature", "{G}", 1, 0, 1));
+        before.add(entry(1, "Sorcery", "{3}{B}{B}", 5, 0, 1));
+        before.add(entry(2, "Land", "", 0, Card.BLACK, 10));
+        List<DeckCardEntry> after = new ArrayList<>();
+        after.add(entry(0, "Creature", "{G}", 1, 0, 1));
+        after.add(entry(2, "Land", "", 0, Card.BLACK, 12));
+        after.add(entry(3, "Instant", "{W/U}", 1, 0, 1));
+
+        ManaBaseCalculator calculator = new ManaBaseCalculator();
+        calculator.update(before);
+        calculator.update(after);
+        ManaBase updated = calculator.recommend();
+        ManaBase fresh = recommend(after);
+
+        assertEquals(fresh.getRecommendedLands(), updated.getRecommendedLands());
+        assertEquals(fresh.getCurrentLands(), updated.getCurrentLands());
+        for (int c = 0; c < ManaCost.PIP_KINDS; c++) {
+            assertEquals(fresh.getRecommendedForColour(c), updated.getRecommendedForColour(c));
+            assertEquals(fresh.getDemandShare(c), updated.getDemandShare(c), DELTA);
+            assertEquals(fresh.getCurrentSources(c), updated.getCurrentSources(c));
+        }
+    }
+
+    /**
+     * This method works out the mana base of a Deck from scratch.
+     * @param deck a List of DeckCardEntries.
+     * @return the ManaBase recommended.
+     */
+    private static ManaBase recommend(List<DeckCardEntry> deck) {
+        ManaBaseCalculator calculator = new ManaBaseCalculator();
+        calculator.update(deck);
+        return calculator.recommend();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * These tests read mana costs of each kind of symbol, and check the pips,
+ * generic mana, X count and flags counted from them.
+ */
+public class ManaCostTest {
+
+    @Test
+    public void countsColouredPipsAndGenericMana() {
+        ManaCost cost = ManaCost.parse("{2}{W}{W}{U}");
+        assertArrayEquals(new int[] {2, 1, 0, 0, 0, 0}, pips(cost));
+        assertEquals(2, cost.getGeneric());
+        assertEquals(0, cost.getFlags());
+    }
+
+    @Test
+    public void readsGenericManaOfMoreThanOneDigit() {
+        ManaCost cost = ManaCost.parse("{15}");
+        assertEquals(15, cost.getGeneric());
+        assertArrayEquals(new int[] {0, 0, 0, 0, 0, 0}, pips(cost));
+    }
+
+    @Test
+    public void countsXAndColourlessApart() {
+        ManaCost cost = ManaCost.parse("{X}{X}{C}{R}");
+        assertEquals(2, cost.getXCount());
+        assertEquals(0, cost.getGeneric());
+        assertArrayEquals(new int[] {0, 0, 0, 1, 0, 1}, pips(cost));
+    }
+
+    @Test
+    public void hybridCountsTowardsBothColours() {
+        ManaCost cost = ManaCost.parse("{U/B}{U/B}");
+        assertArrayEquals(new int[] {0, 2, 2, 0, 0, 0}, pips(cost));
+        assertEquals(ManaCost.HYBRID, cost.getFlags());
+    }
+
+    @Test
+    public void monocolouredHybridIsHybridButNotGeneric() {
+        ManaCost cost = ManaCost.parse("{2/W}");
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0}, pips(cost));
+        assertEquals(0, cost.getGeneric());
+        assertEquals(ManaCost.HYBRID, cost.getFlags());
+    }
+
+    @Test
+    public void phyrexianIsOnlyPhyrexian() {
+        ManaCost cost = ManaCost.parse("{1}{W/P}");
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0}, pips(cost));
+        assertEquals(1, cost.getGeneric());
+        assertEquals(ManaCost.PHYREXIAN, cost.getFlags());
+    }
+
+    @Test
+    public void hybridPhyrexianIsBoth() {
+        ManaCost cost = ManaCost.parse("{G/U/P}");
+        assertArrayEquals(new int[] {0, 1, 0, 0, 1, 0}, pips(cost));
+        assertEquals(ManaCost.HYBRID | ManaCost.PHYREXIAN, cost.getFlags());
+    }
+
+    @Test
+    public void snowAndTextOutsideSymbolsAreIgnored() {
+        ManaCost cost = ManaCost.parse("{S}{S} // {1}{G}");
+        assertArrayEquals(new int[] {0, 0, 0, 0, 1, 0}, pips(cost));
+        assertEquals(1, cost.getGeneric());
+    }
+
+    @Test
+    public void missingCostsAreEmpty() {
+        for (String manaCost : new String[] {null, ""}) {
+            ManaCost cost = ManaCost.parse(manaCost);
+            assertArrayEquals(new int[] {0, 0, 0, 0, 0, 0}, pips(cost));
+            assertEquals(0, cost.getGeneric());
+            assertEquals(0, cost.getXCount());
+            assertEquals(0, cost.getFlags());
+        }
+    }
+
+    /**
+     * This method lists the pips of a cost.
+     * @param cost a ManaCost.
+     * @return an Array of the number of pips of each kind, in PIP_LABELS order.
+     */
+    private static int[] pips(ManaCost cost) {
+        int[] pips = new int[ManaCost.PIP_KINDS];
+        for (int kind = 0; kind < ManaCost.PIP_KINDS; kind++) {
+            pips[kind] = cost.getPips(kind);
+        }
+        return pips;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * These tests check that signatures kept up to date one Card at a time match
+ * those computed from scratch, and that they estimate Jaccard similarity.
+ */
+public class MinHashTest {
+
+    @Test
+    public void addingCardsOneAtATimeMatchesComputingFromScratch() {
+        int[] cardIDs = {17, 4, 2900, 381, 55, 12001, 9};
+        int[] signature = MinHash.empty();
+        for (int cardID : cardIDs) {
+            MinHash.add(signature, cardID);
+        }
+        assertArrayEquals(MinHash.of(cardIDs), signature);
+        assertFalse(MinHash.add(signature, 55));
+    }
+
+    @Test
+    public void onlyCardsHoldingARowAffectTheSignature() {
+        int[] cardIDs = new int[200];
+        for (int i = 0; i < cardIDs.length; i++) {
+            cardIDs[i] = i * 7 + 1;
+        }
+        int[] signature = MinHash.of(cardIDs);
+        for (int i = 0; i < cardIDs.length; i++) {
+            int[] without = new int[cardIDs.length - 1];
+            System.arraycopy(cardIDs, 0, without, 0, i);
+            System.arraycopy(cardIDs, i + 1, without, i, without.length - i);
+            boolean changed = !Arrays.equals(signature, MinHash.of(without));
+            // dependsOn may only be wrong in the safe direction.
+            assertTrue(!changed || MinHash.dependsOn(signature, cardIDs[i]));
+        }
+    }
+
+    @Test
+    public void similarityEstimatesJaccard() {
+        // Two Decks of 100 Cards sharing 60: a Jaccard similarity of 60 / 140.
+        int[] a = new int[100];
+        int[] b = new int[100];
+        for (int i = 0; i < 100; i++) {
+            a[i] = i;
+            b[i] = i < 60 ? i : 1000 + i;
+        }
+        double exact = 60.0 / 140;
+        assertEquals(exact, MinHash.similarity(MinHash.of(a), MinHash.of(b)), 0.15);
+        assertEquals(1.0, MinHash.similarity(MinHash.of(a), MinHash.of(a)), 0);
+    }
+
+    @Test
+    public void signaturesSurviveEncoding() {
+        int[] signature = MinHash.of(new int[] {3, 1, 4, 1, 5, 9, 2, 6});
+        assertArrayEquals(signature, MinHash.decode(MinHash.encode(signature)));
+        assertNull(MinHash.decode(new byte[12]));
+    }
+}
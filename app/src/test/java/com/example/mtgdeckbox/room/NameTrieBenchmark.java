@@ -0,0 +1,120 @@
+package com.example.mtgdeckbox.room;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This benchmark builds a NameTrie over a catalog the size of the full card
+ * import, then types names into it one character at a time, as the card
+ * picker does. It prints the time to build the trie and the p50 and p99 time
+ * per keystroke, against a linear scan over the names for the same prefixes.
+ * The timings depend on the machine, so it is ignored and run by hand;
+ * NameTrieTest checks the completions against the scan.
+ */
+@Ignore("Benchmark; run by hand")
+public class NameTrieBenchmark {
+    private static final int CATALOG = 30000;
+    private static final int TYPED_NAMES = 500;
+    private static final int BUILDS = 5;
+    private static final String[] WORDS = {"sol", "ring", "lightning", "bolt", "angel",
+            "of", "the", "dragon", "elf", "goblin", "sword", "fire", "ice", "soul",
+            "shadow", "knight", "grave", "storm", "wild", "growth", "ancient", "tomb",
+            "mana", "vault", "serra", "llanowar", "elves", "signet", "talisman", "arcane"};
+
+    @Test
+    public void buildAndTypeIntoTheFullCatalog() {
+        Random random = new Random(50);
+        List<CardSummary> cards = new ArrayList<>(CATALOG);
+        for (int i = 0; i < CATALOG; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    name.append(w == 1 && random.nextBoolean() ? ", " : " ");
+                }
+                String word = WORDS[random.nextInt(WORDS.length)];
+                name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+            name.append(' ').append(i);
+            cards.add(new CardSummary(i, name.toString(), "", i, 0));
+        }
+
+        // Build a few times, so the JIT has compiled the builder for the last one.
+        NameTrie trie = null;
+        long buildNanos = 0;
+        for (int b = 0; b < BUILDS; b++) {
+            long start = System.nanoTime();
+            trie = NameTrie.build(cards);
+            buildNanos = System.nanoTime() - start;
+        }
+
+        // Every prefix of a sample of names, as they would be typed.
+        List<String> prefixes = new ArrayList<>();
+        for (int n = 0; n < TYPED_NAMES; n++) {
+            String name = cards.get(random.nextInt(CATALOG)).getName();
+            for (int end = 1; end <= name.length(); end++) {
+                prefixes.add(name.substring(0, end));
+            }
+        }
+        String[] keys = new String[CATALOG];
+        for (int i = 0; i < CATALOG; i++) {
+            keys[i] = CardNameIndex.normalise(cards.get(i).getName());
+        }
+
+        long[] trieNanos = new long[prefixes.size()];
+        long[] scanNanos = new long[prefixes.size()];
+        for (int i = 0; i < prefixes.size(); i++) {
+            long start = System.nanoTime();
+            trie.complete(prefixes.get(i));
+            trieNanos[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            linearScan(keys, prefixes.get(i));
+            scanNanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(trieNanos);
+        Arrays.sort(scanNanos);
+
+        System.out.println(String.format("NameTrie: %d names, %d nodes, built in %.1f ms",
+                CATALOG, trie.getNodeCount(), buildNanos / 1e6));
+        System.out.println(String.format("  per keystroke, %d prefixes: trie p50 %.1f us, "
+                        + "p99 %.1f us; linear scan p50 %.1f us, p99 %.1f us",
+                prefixes.size(), percentile(trieNanos, 50) / 1e3,
+                percentile(trieNanos, 99) / 1e3, percentile(scanNanos, 50) / 1e3,
+                percentile(scanNanos, 99) / 1e3));
+    }
+
+    /**
+     * This method counts the completions of a prefix by scanning every name
+     * in rank order, stopping at TOP_K.
+     * @param keys an Array of normalised names, in rank order.
+     * @param prefix a String containing what has been typed.
+     * @return an Integer containing the number of completions found.
+     */
+    private static int linearScan(String[] keys, String prefix) {
+        String key = CardNameIndex.normalise(prefix);
+        int found = 0;
+        for (String name : keys) {
+            if (name.startsWith(key) && ++found == NameTrie.TOP_K) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * This method returns a percentile of some sorted timings.
+     * @param sorted an Array of timings, sorted.
+     * @param percentile an Integer from 0 to 100.
+     * @return a Long containing the timing at that percentile.
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
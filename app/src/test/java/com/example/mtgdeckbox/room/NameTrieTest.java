@@ -0,0 +1,136 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * These tests check every completion of the NameTrie against a linear scan of
+ * the Cards in rank order, which is what the trie replaces.
+ */
+public class NameTrieTest {
+    private static final String[] REAL_NAMES = {"Sol Ring", "Solemn Simulacrum",
+            "Sol Talisman", "Arcane Signet", "Lightning Bolt", "Lightning Greaves",
+            "Lightning Helix", "Aether Vial", "Æther Hub", "Jötun Grunt",
+            "Who // What // When // Where // Why", "Sol Ring", "Forest", "Fork"};
+
+    private List<CardSummary> cards;
+    private NameTrie trie;
+
+    @Before
+    public void buildTrie() {
+        // Names from a small alphabet share long prefixes, which splits many edges.
+        Random random = new Random(50);
+        cards = new ArrayList<>();
+        for (String name : REAL_NAMES) {
+            cards.add(card(name));
+        }
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int c = 0; c < length; c++) {
+                name.append("abc d,'".charAt(random.nextInt(7)));
+            }
+            cards.add(card(name.toString()));
+        }
+        trie = NameTrie.build(cards);
+    }
+
+    @Test
+    public void everyPrefixOfEveryNameMatchesALinearScan() {
+        for (CardSummary card : cards) {
+            String name = card.getName();
+            for (int end = 0; end <= name.length(); end++) {
+                String prefix = name.substring(0, end);
+                assertSameCards(prefix, linearScan(prefix), trie.complete(prefix));
+            }
+        }
+    }
+
+    @Test
+    public void prefixesNoCardHasMatchNothing() {
+        for (String prefix : new String[] {"zzz", "sol ringx", "abcabcabcabcabcabc", "q"}) {
+            assertSameCards(prefix, linearScan(prefix), trie.complete(prefix));
+            assertTrue(trie.complete(prefix).isEmpty());
+        }
+    }
+
+    @Test
+    public void caseAccentsAndPunctuationAreIgnored() {
+        assertSameCards("AETHER", linearScan("aether"), trie.complete("AETHER"));
+        assertEquals(2, trie.complete("Æther").size());
+        assertEquals("Jötun Grunt", trie.complete("jotun").get(0).getName());
+        assertEquals("Who // What // When // Where // Why",
+                trie.complete("who what").get(0).getName());
+    }
+
+    @Test
+    public void emptyPrefixReturnsTheBestRankedCards() {
+        List<CardSummary> completions = trie.complete("");
+        assertEquals(NameTrie.TOP_K, completions.size());
+        assertSameCards("", cards.subList(0, NameTrie.TOP_K), completions);
+    }
+
+    /**
+     * This method completes a prefix by checking every Card in rank order.
+     * @param prefix a String containing what has been typed.
+     * @return a List of up to TOP_K CardSummaries, best ranked first.
+     */
+    private List<CardSummary> linearScan(String prefix) {
+        String key = CardNameIndex.normalise(prefix);
+        List<CardSummary> completions = new ArrayList<>();
+        for (CardSummary card : cards) {
+            if (CardNameIndex.normalise(card.getName()).startsWith(key)) {
+                completions.add(card);
+                if (completions.size() == NameTrie.TOP_K) {
+                    break;
+                }
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * This method fails the test unless two lists hold the same Cards in the
+     * same order.
+     * @param prefix a String containing the prefix, for the message.
+     * @param expected a List of the CardSummaries expected.
+     * @param actual a List of the CardSummaries returned.
+     */
+    private static void assertSameCards(String prefix, List<CardSummary> expected,
+                                        List<CardSummary> actual) {
+        assertEquals("Completions of \"" + prefix + "\"", names(expected), names(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("Completions of \"" + prefix + "\"", expected.get(i) == actual.get(i));
+        }
+    }
+
+    /**
+     * This method lists the names of some Cards.
+     * @param cards a List of CardSummaries.
+     * @return a List of their names, in the same order.
+     */
+    private static List<String> names(List<CardSummary> cards) {
+        List<String> names = new ArrayList<>(cards.size());
+        for (CardSummary card : cards) {
+            names.add(card.getName());
+        }
+        return names;
+    }
+
+    /**
+     * This method builds a Card with a name. Its ID number is its rank.
+     * @param name a String containing the name of the Card.
+     * @return a new CardSummary.
+     */
+    private CardSummary card(String name) {
+        int rank = cards.size();
+        return new CardSummary(rank, name, "", rank, 0);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.mtgdeckbox.room;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.mtgdeckbox.room.PriorityDatabaseExecutor.Priority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark measures how long the user's reads wait while the 16k row
+ * card import is running. It runs against a real CardDatabase, kept in a file
+ * so it is opened in WAL mode as on a device: the import inserts 500 Cards a
+ * transaction, as addCards does, picker lists are prefetched alongside it,
+ * and the reads are the lookups a screen makes when it opens a Deck.
+ *
+ * It prints the p50 and p99 latency of the reads with no import running, with
+ * the import on a plain FIFO pool, and with the import on the
+ * PriorityDatabaseExecutor. The timings depend on the machine, so it is
+ * ignored and run by hand; PriorityDatabaseExecutorTest checks the ordering
+ * it relies on.
+ */
+@Ignore("Benchmark; run by hand")
+@RunWith(RobolectricTestRunner.class)
+public class PriorityDatabaseExecutorBenchmark {
+    private static final String DATABASE = "executor-benchmark.db";
+    private static final int THREADS = 4;
+    private static final int IMPORT_ROWS = 16000;
+    private static final int BATCH_SIZE = 500;
+    // Cards already in the database, which the reads look up.
+    private static final int EXISTING_ROWS = 2000;
+    private static final int READS = 200;
+    private static final long READ_INTERVAL_MILLIS = 2;
+
+    private Context context;
+    private CardDatabase database;
+    private int deckID;
+    private int nextCardID;
+
+    @Before
+    public void createDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE);
+        database = Room.databaseBuilder(context, CardDatabase.class, DATABASE).build();
+        database.cardDAO().insertAllCards(cards(EXISTING_ROWS));
+        Deck deck = new Deck();
+        deck.setDeckName("Benchmark");
+        deckID = (int) database.deckDAO().insertDeck(deck);
+    }
+
+    @After
+    public void deleteDatabase() {
+        database.close();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void interactiveLatencyDuringImport() throws InterruptedException {
+        long[] idle = run(new PriorityDatabaseExecutor(THREADS), false);
+        long[] fifo = run(Executors.newFixedThreadPool(THREADS), true);
+        long[] priority = run(new PriorityDatabaseExecutor(THREADS), true);
+
+        System.out.println("Interactive read latency, " + READS + " reads, "
+                + IMPORT_ROWS + " row import in " + BATCH_SIZE + " row batches:");
+        System.out.println("  no import:                     " + describe(idle));
+        System.out.println("  FIFO pool, import running:     " + describe(fifo));
+        System.out.println("  priority pool, import running: " + describe(priority));
+    }
+
+    /**
+     * This method times the user's reads on a pool, with or without the import
+     * and some prefetching queued ahead of them.
+     * @param executor the ExecutorService to run everything on.
+     * @param withImport a Boolean which is true if the import should run.
+     * @return an Array of the latency of each read, from being queued to
+     * finishing, in nanoseconds, sorted.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private long[] run(ExecutorService executor, boolean withImport)
+            throws InterruptedException {
+        final CardDAO cardDAO = database.cardDAO();
+        final DeckDAO deckDAO = database.deckDAO();
+        List<Card> imported = withImport ? cards(IMPORT_ROWS) : new ArrayList<Card>();
+        final CountDownLatch batches = new CountDownLatch(
+                (imported.size() + BATCH_SIZE - 1) / BATCH_SIZE);
+        for (int start = 0; start < imported.size(); start += BATCH_SIZE) {
+            final List<Card> batch = new ArrayList<>(
+                    imported.subList(start, Math.min(start + BATCH_SIZE, imported.size())));
+            submit(executor, Priority.BULK, new Runnable() {
+                @Override
+                public void run() {
+                    cardDAO.insertAllCards(batch);
+                    batches.countDown();
+                }
+            });
+        }
+        if (withImport) {
+            for (int i = 0; i < THREADS * 2; i++) {
+                submit(executor, Priority.PREFETCH, new Runnable() {
+                    @Override
+                    public void run() {
+                        cardDAO.getAllCards();
+                    }
+                });
+            }
+        }
+
+        Random random = new Random(27);
+        final long[] latencies = new long[READS];
+        final CountDownLatch done = new CountDownLatch(READS);
+        for (int i = 0; i < READS; i++) {
+            final int read = i;
+            final int cardID = 1 + random.nextInt(EXISTING_ROWS);
+            final long queued = System.nanoTime();
+            submit(executor, Priority.INTERACTIVE, new Runnable() {
+                @Override
+                public void run() {
+                    deckDAO.getDeck(deckID);
+                    cardDAO.getCardByID(cardID);
+                    latencies[read] = System.nanoTime() - queued;
+                    done.countDown();
+                }
+            });
+            Thread.sleep(READ_INTERVAL_MILLIS);
+        }
+        done.await();
+        batches.await();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /**
+     * This method makes Cards shaped like the imported ones, each with a new
+     * ID number.
+     * @param count an Integer containing the number of Cards wanted.
+     * @return a List of new Cards.
+     */
+    private List<Card> cards(int count) {
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Card card = new Card();
+            card.setCardID(++nextCardID);
+            card.setName("Card " + nextCardID);
+            card.setTypes(i % 3 == 0 ? "Land" : "Creature");
+            card.setManaCost("{2}{G}");
+            card.setManaValue(3);
+            card.setRank(nextCardID);
+            card.setColourIdentity("G");
+            card.setIdentityMask(Card.GREEN);
+            card.setCategories(i % 5 == 0 ? "ramp" : "");
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * This method queues a task, at a Priority if the pool supports them.
+     * @param executor the ExecutorService to queue the task on.
+     * @param priority the Priority of the task.
+     * @param task a Runnable to be run.
+     */
+    private static void submit(ExecutorService executor, Priority priority, Runnable task) {
+        if (executor instanceof PriorityDatabaseExecutor) {
+            ((PriorityDatabaseExecutor) executor).execute(priority, task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * This method returns a percentile of some sorted latencies.
+     * @param sorted an Array of latencies, sorted.
+     * @param percentile an Integer from 0 to 100.
+     * @return a Long containing the latency at that percentile.
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * This method describes some sorted latencies.
+     * @param sorted an Array of latencies, sorted.
+     * @return a String containing their p50 and p99, in milliseconds.
+     */
+    private static String describe(long[] sorted) {
+        return String.format("p50 %.1fms, p99 %.1fms",
+                percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6);
+    }
+}
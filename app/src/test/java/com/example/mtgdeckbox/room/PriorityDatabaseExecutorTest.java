@@ -0,0 +1,198 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.mtgdeckbox.room.PriorityDatabaseExecutor.Priority;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * These tests check the order the PriorityDatabaseExecutor runs its tasks in:
+ * interactive tasks ahead of queued background work, a thread always kept
+ * free for them, bulk tasks one at a time in the order they were queued, and
+ * removed tasks never run. The threads are held by latches rather than timed,
+ * so each order is certain.
+ */
+public class PriorityDatabaseExecutorTest {
+    private static final long TIMEOUT_MS = 10000;
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PriorityDatabaseExecutor executor;
+
+    @After
+    public void shutDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void interactiveTasksRunAheadOfQueuedBackgroundWork() throws InterruptedException {
+        executor = new PriorityDatabaseExecutor(1);
+        hold(1);
+        // The prefetch takes the one background slot; the rest wait for it.
+        executor.execute(Priority.PREFETCH, record("prefetch"));
+        executor.execute(Priority.BULK, record("bulk"));
+        executor.execute(record("untagged"));
+        executor.execute(Priority.INTERACTIVE, record("interactive"));
+
+        release.countDown();
+        awaitIdle();
+        // Untagged tasks are prefetches, and prefetches are due before bulk work.
+        assertEquals(Arrays.asList("interactive", "prefetch", "untagged", "bulk"), ran);
+    }
+
+    @Test
+    public void aThreadIsAlwaysLeftForInteractiveWork() throws InterruptedException {
+        executor = new PriorityDatabaseExecutor(3);
+        final CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(Priority.PREFETCH, new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    awaitRelease();
+                }
+            });
+        }
+        assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(8, executor.getBackgroundBacklog());
+
+        final CountDownLatch read = new CountDownLatch(1);
+        executor.execute(Priority.INTERACTIVE, new Runnable() {
+            @Override
+            public void run() {
+                read.countDown();
+            }
+        });
+        assertTrue("The read waited behind background work",
+                read.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        // The background work is still held, and none of it took the free thread.
+        assertEquals(8, executor.getBackgroundBacklog());
+    }
+
+    @Test
+    public void bulkTasksRunOneAtATimeInOrder() throws InterruptedException {
+        executor = new PriorityDatabaseExecutor(4);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger mostRunning = new AtomicInteger();
+        List<String> queued = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String name = "bulk " + i;
+            queued.add(name);
+            executor.execute(Priority.BULK, new Runnable() {
+                @Override
+                public void run() {
+                    int now = running.incrementAndGet();
+                    mostRunning.set(Math.max(mostRunning.get(), now));
+                    ran.add(name);
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        awaitIdle();
+        assertEquals(1, mostRunning.get());
+        assertEquals(queued, ran);
+    }
+
+    @Test
+    public void removedTasksNeverRun() throws InterruptedException {
+        executor = new PriorityDatabaseExecutor(1);
+        hold(1);
+        Runnable interactive = record("interactive");
+        Runnable prefetch = record("prefetch");
+        Runnable firstBulk = record("first bulk");
+        Runnable secondBulk = record("second bulk");
+        executor.execute(Priority.INTERACTIVE, interactive);
+        // Handed to the pool, as the background slot is free.
+        executor.execute(Priority.PREFETCH, prefetch);
+        // Waiting for the slot, and waiting behind the first bulk task.
+        executor.execute(Priority.BULK, firstBulk);
+        executor.execute(Priority.BULK, secondBulk);
+        Runnable kept = record("kept bulk");
+        executor.execute(Priority.BULK, kept);
+
+        assertTrue(executor.remove(interactive));
+        assertTrue(executor.remove(prefetch));
+        assertTrue(executor.remove(firstBulk));
+        assertTrue(executor.remove(secondBulk));
+        assertFalse(executor.remove(secondBulk));
+
+        release.countDown();
+        awaitIdle();
+        // The removed tasks gave back their places, so the rest still ran.
+        assertEquals(Collections.singletonList("kept bulk"), ran);
+        assertEquals(0, executor.getBackgroundBacklog());
+    }
+
+    /**
+     * This method holds some of the threads until the test releases them.
+     * @param threads an Integer containing the number of threads to hold.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void hold(int threads) throws InterruptedException {
+        final CountDownLatch held = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(Priority.INTERACTIVE, new Runnable() {
+                @Override
+                public void run() {
+                    held.countDown();
+                    awaitRelease();
+                }
+            });
+        }
+        assertTrue(held.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * This method makes a task which notes its name when it runs.
+     * @param name a String containing the name of the task.
+     * @return a Runnable which adds the name to ran.
+     */
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(name);
+            }
+        };
+    }
+
+    /**
+     * This method blocks a task until the test releases the threads.
+     */
+    private void awaitRelease() {
+        try {
+            release.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method waits until the pool has nothing running or queued.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()
+                || executor.getBackgroundBacklog() > 0) {
+            assertTrue("The pool never went idle", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
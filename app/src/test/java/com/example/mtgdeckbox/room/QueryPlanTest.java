@@ -0,0 +1,330 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * These tests run the DAO queries against an in-memory database with a
+ * SlowQueryLogger installed, and fail if a lookup has to scan a whole table.
+ * They also check that the logger times DAO, LiveData and raw queries, and
+ * the inserts, updates and deletes the DAOs compile.
+ *
+ * Every DAO method, and every SQL constant the DAOs declare for the
+ * Repository's raw queries, must be listed in exactly one of the sets below,
+ * so a new query fails the build until it has been checked here or marked as
+ * a read of a whole table. Reads of a whole table may only scan that table.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+
+    // Queries which are run by the tests below, and must use an index.
+    private static final Set<String> CHECKED = new HashSet<>(Arrays.asList(
+            "CardDAO.getLiveDeckContents", "CardDAO.getCommanders",
+            "CardDAO.getCommanderIdentity", "CardDAO.getSummariesByID",
+            "CardDAO.searchCards", "CardDAO.getCardByID",
+            "DeckDAO.getDeckSummariesByID", "DeckDAO.getDeck", "DeckDAO.getLiveDeck",
+            "DeckDAO.getLatestDeck",
+            "DeckCardDAO.getQuantities", "DeckCardDAO.getDeckCardQuantities",
+            "DeckCardDAO.getCardQuantity", "DeckCardDAO.getSpecificDeckCards",
+            "DeckCardDAO.getLiveDeckCards", "DeckCardDAO.getLiveDeckEntries",
+            "DeckCardDAO.getDeckEntries", "DeckCardDAO.getDeckCardIDs",
+            "DeckHistoryDAO.getLatestSequence", "DeckHistoryDAO.getLiveLatestSequence",
+            "DeckHistoryDAO.getEvents", "DeckHistoryDAO.getNearestSnapshot",
+            "DeckHistoryDAO.getSnapshot", "DeckHistoryDAO.getLiveNamedSnapshots",
+            "DeckSignatureDAO.getSignature",
+            "CardDAO.DECK_CONTENTS", "CardDAO.DECK_CONTENT_SUMMARIES"));
+
+    // Queries which read every row of a table on purpose, such as the
+    // catalogue lists, which the repository caches.
+    private static final Set<String> WHOLE_TABLE = new HashSet<>(Arrays.asList(
+            "CardDAO.getAll", "CardDAO.getAllCards", "CardDAO.getCardCount",
+            "CardDAO.getFutureCardsByColourIdentity", "CardDAO.getFutureColourlessCards",
+            "CardDAO.getRampCards", "CardDAO.getDrawCards", "CardDAO.getRemovalCards",
+            "CardDAO.getBoardWipes",
+            "DeckDAO.getAll", "DeckDAO.getAllDecks", "DeckDAO.getDeckSummariesByName",
+            "DeckDAO.getDeckSummariesByRecent", "DeckDAO.getDeckSummariesBySize",
+            "CardDAO.ALL_CARDS", "CardDAO.RAMP_CARDS", "CardDAO.DRAW_CARDS",
+            "CardDAO.REMOVAL_CARDS", "CardDAO.BOARD_WIPES", "CardDAO.FACET_ROWS",
+            "CardDAO.RECOMMENDATION_ROWS", "CardDAO.NAME_ROWS",
+            "DeckCardDAO.CO_OCCURRENCE_ROWS", "DeckSignatureDAO.SIGNATURE_ROWS"));
+
+    // The raw reads of a whole table, and the table each one reads.
+    private static final String[][] WHOLE_TABLE_READS = {
+            {CardDAO.ALL_CARDS, "card"}, {CardDAO.RAMP_CARDS, "card"},
+            {CardDAO.DRAW_CARDS, "card"}, {CardDAO.REMOVAL_CARDS, "card"},
+            {CardDAO.BOARD_WIPES, "card"}, {CardDAO.FACET_ROWS, "card"},
+            {CardDAO.RECOMMENDATION_ROWS, "card"}, {CardDAO.NAME_ROWS, "card"},
+            {DeckCardDAO.CO_OCCURRENCE_ROWS, "deckcards"},
+            {DeckSignatureDAO.SIGNATURE_ROWS, "decksignature"}};
+
+    // Card picker searches which narrow the colour identity, and so must use the index.
+    private static final String[] INDEXED_SEARCHES = {"id<=bg", "id<=bg t:creature",
+            "id:wu cat:ramp", "id<=g -is:commander", "id>=r sort:mv", "is:commander",
+            "is:commander t:\"legendary creature\" sort:name", "id=c mv<=2 cat:draw"};
+
+    // Card picker searches which can only be answered by reading the card table.
+    private static final String[] SCANNING_SEARCHES = {"t:creature", "cat:ramp",
+            "-is:commander", "sort:mv", "lightning bolt", "-t:land mv>=3 rank<100"};
+
+    // Inserts, updates and deletes, which are not checked.
+    private static final Set<String> WRITES = new HashSet<>(Arrays.asList(
+            "CardDAO.insertCard", "CardDAO.insertAllCards", "CardDAO.updateCard",
+            "CardDAO.deleteCard", "CardDAO.deleteAllCards",
+            "DeckDAO.touchDeck", "DeckDAO.setVersion", "DeckDAO.insertDeck",
+            "DeckDAO.updateDeck", "DeckDAO.deleteDeck", "DeckDAO.deleteAllDecks",
+            "DeckCardDAO.deleteDeck", "DeckCardDAO.insertDeckCards",
+            "DeckCardDAO.insertAllDeckCards", "DeckCardDAO.cleanDeckCards",
+            "DeckCardDAO.removeSpecificDeckCards", "DeckCardDAO.deleteAllDeckCards",
+            "DeckHistoryDAO.insertEvent", "DeckHistoryDAO.deleteEventsAfter",
+            "DeckHistoryDAO.insertSnapshot", "DeckHistoryDAO.deleteSnapshotsAfter",
+            "DeckHistoryDAO.deleteEvents", "DeckHistoryDAO.deleteSnapshots",
+            "DeckHistoryDAO.deleteAllEvents", "DeckHistoryDAO.deleteAllSnapshots",
+            "DeckSignatureDAO.saveSignature", "DeckSignatureDAO.deleteSignature",
+            "DeckSignatureDAO.deleteAllSignatures"));
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private CardDatabase database;
+    private SlowQueryLogger logger;
+
+    @Before
+    public void createDatabase() {
+        // Run LiveData queries on the calling thread, so they finish before we check.
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        RoomDatabase.Builder<CardDatabase> builder = Room.inMemoryDatabaseBuilder(
+                ApplicationProvider.getApplicationContext(), CardDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryExecutor(direct)
+                .setTransactionExecutor(direct);
+        logger = new SlowQueryLogger(Long.MAX_VALUE);
+        logger.install(builder);
+        database = builder.build();
+        database.logSlowQueries(logger);
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void everyDaoMethodIsClassified() {
+        Set<String> unclassified = new TreeSet<>();
+        Class<?>[] daos = {CardDAO.class, DeckDAO.class, DeckCardDAO.class,
+                DeckHistoryDAO.class, DeckSignatureDAO.class};
+        for (Class<?> dao : daos) {
+            List<String> names = new ArrayList<>();
+            for (Method method : dao.getDeclaredMethods()) {
+                names.add(dao.getSimpleName() + "." + method.getName());
+            }
+            for (Field field : dao.getDeclaredFields()) {
+                if (field.getType() == String.class) {
+                    names.add(dao.getSimpleName() + "." + field.getName());
+                }
+            }
+            for (String name : names) {
+                if (!CHECKED.contains(name) && !WHOLE_TABLE.contains(name)
+                        && !WRITES.contains(name)) {
+                    unclassified.add(name);
+                }
+            }
+        }
+        assertTrue("Add these DAO methods and queries to QueryPlanTest: " + unclassified,
+                unclassified.isEmpty());
+    }
+
+    @Test
+    public void cardLookupsUseAnIndex() throws InterruptedException {
+        CardDAO cards = database.cardDAO();
+        observeOnce(cards.getLiveDeckContents(1));
+        cards.getCommanders();
+        cards.getCommanderIdentity(1);
+        cards.getSummariesByID(new int[] {1, 2, 3});
+        cards.getCardByID(1);
+        cards.searchCards(CardQuery.compile("id<=bg").toQuery());
+        assertNoFullScans();
+    }
+
+    @Test
+    public void rawLookupsUseAnIndex() throws InterruptedException {
+        database.query(CardDAO.DECK_CONTENTS, new Object[] {1}).close();
+        assertNoFullScans();
+    }
+
+    @Test
+    public void rawWholeTableReadsScanOnlyTheirTable() throws InterruptedException {
+        for (String[] read : WHOLE_TABLE_READS) {
+            database.query(read[0], null).close();
+            assertOnlyScans(read[0], read[1]);
+        }
+    }
+
+    @Test
+    public void identitySearchesUseAnIndex() throws InterruptedException {
+        CardDAO cards = database.cardDAO();
+        for (String search : INDEXED_SEARCHES) {
+            CardQuery query = CardQuery.compile(search);
+            assertTrue(search, query.getInvalidTerms().isEmpty());
+            cards.searchCards(query.toQuery());
+            logger.awaitChecks();
+            List<SlowQueryLogger.QueryReport> scans = logger.getFullTableScans();
+            assertEquals("Full table scans for " + search + ": " + scans, 0, scans.size());
+        }
+    }
+
+    @Test
+    public void otherSearchesScanOnlyTheCardTable() throws InterruptedException {
+        CardDAO cards = database.cardDAO();
+        for (String search : SCANNING_SEARCHES) {
+            CardQuery query = CardQuery.compile(search);
+            assertTrue(search, query.getInvalidTerms().isEmpty());
+            cards.searchCards(query.toQuery());
+            assertOnlyScans(query.getSql(), "card");
+        }
+    }
+
+    @Test
+    public void deckLookupsUseAnIndex() throws InterruptedException {
+        DeckDAO decks = database.deckDAO();
+        decks.getDeckSummariesByID(new int[] {1, 2, 3});
+        decks.getDeck(1);
+        observeOnce(decks.getLiveDeck(1));
+        decks.getLatestDeck();
+        assertNoFullScans();
+    }
+
+    @Test
+    public void deckCardLookupsUseAnIndex() throws InterruptedException {
+        DeckCardDAO quantities = database.quantities();
+        observeOnce(quantities.getQuantities(1, 1));
+        quantities.getDeckCardQuantities(1);
+        quantities.getCardQuantity(1, 1);
+        quantities.getSpecificDeckCards(1, 1);
+        observeOnce(quantities.getLiveDeckCards(1));
+        observeOnce(quantities.getLiveDeckEntries(1));
+        quantities.getDeckEntries(1);
+        quantities.getDeckCardIDs(1);
+        assertNoFullScans();
+    }
+
+    @Test
+    public void historyLookupsUseAnIndex() throws InterruptedException {
+        DeckHistoryDAO history = database.history();
+        history.getLatestSequence(1);
+        observeOnce(history.getLiveLatestSequence(1));
+        history.getEvents(1, 0, 10);
+        history.getNearestSnapshot(1, 10);
+        history.getSnapshot(1);
+        observeOnce(history.getLiveNamedSnapshots(1));
+        database.signatures().getSignature(1);
+        assertNoFullScans();
+    }
+
+    @Test
+    public void everyKindOfStatementIsTimed() throws InterruptedException {
+        // Report every statement as slow, so each one which is timed shows up.
+        logger.setThresholdMillis(0);
+        database.deckDAO().insertDeck(new Deck());
+        database.deckDAO().getDeck(1);
+        observeOnce(database.deckDAO().getLiveDeck(1));
+        database.query(CardDAO.NAME_ROWS, null).close();
+        logger.awaitChecks();
+
+        int inserts = 0;
+        int deckReads = 0;
+        int rawReads = 0;
+        for (SlowQueryLogger.QueryReport report : logger.getReports()) {
+            if (!report.isSlow()) {
+                continue;
+            }
+            if (report.getSql().startsWith("INSERT") && report.getSql().contains("`Deck`")) {
+                inserts++;
+            } else if (report.getSql().equals("SELECT * FROM deck WHERE deckID = ?")) {
+                deckReads++;
+            } else if (report.getSql().equals(CardDAO.NAME_ROWS)) {
+                rawReads++;
+            }
+        }
+        assertEquals("Timed inserts", 1, inserts);
+        assertEquals("Timed DAO and LiveData reads", 2, deckReads);
+        assertEquals("Timed raw queries", 1, rawReads);
+    }
+
+    /**
+     * This method runs a LiveData query by observing it until its first value.
+     * @param liveData the LiveData returned by a DAO.
+     */
+    private static <T> void observeOnce(LiveData<T> liveData) {
+        Observer<T> observer = new Observer<T>() {
+            @Override
+            public void onChanged(T value) {}
+        };
+        liveData.observeForever(observer);
+        liveData.removeObserver(observer);
+    }
+
+    /**
+     * This method fails the test if a statement's plan scans any table but
+     * one, or scans that table more than once.
+     * @param sql a String containing the statement which was run.
+     * @param table a String containing the table it may scan.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void assertOnlyScans(String sql, String table) throws InterruptedException {
+        logger.awaitChecks();
+        for (SlowQueryLogger.QueryReport report : logger.getFullTableScans()) {
+            if (!report.getSql().equals(sql.trim())) {
+                continue;
+            }
+            int scans = 0;
+            for (String step : report.getPlan()) {
+                if (SlowQueryLogger.isFullScan(step)) {
+                    scans++;
+                    assertTrue(sql + " scans " + step,
+                            step.matches("SCAN (TABLE )?" + table + "( .*)?"));
+                }
+            }
+            assertTrue(sql + " scans " + scans + " times: " + report.getPlan(), scans <= 1);
+        }
+    }
+
+    /**
+     * This method fails the test if the logger has seen any full table scan.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private void assertNoFullScans() throws InterruptedException {
+        logger.awaitChecks();
+        List<SlowQueryLogger.QueryReport> scans = logger.getFullTableScans();
+        assertEquals("Full table scans: " + scans, 0, scans.size());
+    }
+}
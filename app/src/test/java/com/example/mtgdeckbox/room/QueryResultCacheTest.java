@@ -0,0 +1,131 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * These tests check that requests for a query which is already loading share
+ * that load, and that failed or invalidated loads are not kept.
+ */
+public class QueryResultCacheTest {
+    private QueryResultCache cache;
+    private AtomicInteger loads;
+    private CompletableFuture<String> load;
+
+    @Before
+    public void createCache() {
+        cache = new QueryResultCache(4);
+        loads = new AtomicInteger();
+        load = new CompletableFuture<>();
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        CompletableFuture<String> first = cache.get("facets", loader());
+        CompletableFuture<String> second = cache.get("facets", loader());
+        assertEquals(1, loads.get());
+        assertFalse(second.isDone());
+
+        load.complete("index");
+        assertEquals("index", first.get());
+        assertEquals("index", second.get());
+        assertEquals("index", cache.get("facets", loader()).get());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void cancellingOneRequestLeavesTheLoadRunning() throws Exception {
+        CompletableFuture<String> first = cache.get("facets", loader());
+        CompletableFuture<String> second = cache.get("facets", loader());
+        first.cancel(true);
+
+        load.complete("index");
+        assertEquals("index", second.get());
+        assertFalse(load.isCancelled());
+    }
+
+    @Test
+    public void cancellingEveryRequestCancelsTheLoad() throws Exception {
+        CompletableFuture<String> first = cache.get("facets", loader());
+        CompletableFuture<String> second = cache.get("facets", loader());
+        first.cancel(true);
+        assertFalse(load.isCancelled());
+        second.cancel(true);
+        assertTrue(load.isCancelled());
+        assertEquals(0, cache.size());
+
+        // The next request runs the query again, rather than joining the cancelled load.
+        load = CompletableFuture.completedFuture("index");
+        assertEquals("index", cache.get("facets", loader()).get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void cancellingAfterTheLoadFinishesKeepsIt() throws Exception {
+        CompletableFuture<String> first = cache.get("facets", loader());
+        load.complete("index");
+        first.cancel(true);
+        CompletableFuture<String> cached = cache.get("facets", loader());
+        cached.cancel(true);
+        assertEquals(1, cache.size());
+        assertEquals("index", cache.get("facets", loader()).get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedLoadsAreDropped() throws Exception {
+        CompletableFuture<String> failed = cache.get("facets", loader());
+        load.completeExceptionally(new IllegalStateException("no database"));
+        try {
+            failed.get();
+            throw new AssertionError("The failure was not passed on");
+        }
+        catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, cache.size());
+
+        load = CompletableFuture.completedFuture("index");
+        assertEquals("index", cache.get("facets", loader()).get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidatedLoadsAreNotCached() throws Exception {
+        CompletableFuture<String> stale = cache.get("facets", loader());
+        cache.invalidate();
+        load.complete("old index");
+        assertEquals("old index", stale.get());
+        assertEquals(0, cache.size());
+
+        load = CompletableFuture.completedFuture("new index");
+        assertEquals("new index", cache.get("facets", loader()).get());
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * This method returns a loader which counts how many times it runs, and
+     * returns the current load.
+     * @return a Supplier which starts the load.
+     */
+    private Supplier<CompletableFuture<String>> loader() {
+        return new Supplier<CompletableFuture<String>>() {
+            @Override
+            public CompletableFuture<String> get() {
+                loads.incrementAndGet();
+                return load;
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * These tests check that the RecommendationEngine never suggests a Card the
+ * Deck already has, including its own commander, or a Card outside the
+ * commander's colour identity.
+ */
+public class RecommendationEngineTest {
+    private static final int COMMANDER_ID = 1;
+
+    private RecommendationEngine engine;
+
+    @Before
+    public void buildEngine() {
+        RecommendationEngine.Builder builder = new RecommendationEngine.Builder();
+        // The commander is the best ranked Card, so it would be suggested first.
+        builder.add(new CardSummary(COMMANDER_ID, "Commander", "Legendary Creature", 0,
+                Card.GREEN), "ramp");
+        builder.add(new CardSummary(2, "Ramp Spell", "Sorcery", 1, Card.GREEN), "ramp");
+        builder.add(new CardSummary(3, "Blue Draw", "Instant", 2, Card.BLUE), "cardraw");
+        builder.add(new CardSummary(4, "Artifact", "Artifact", 3, 0), "");
+        builder.add(new CardSummary(5, "Green Creature", "Creature", 4, Card.GREEN), "");
+        engine = builder.build();
+    }
+
+    @Test
+    public void theCommanderIsNeverRecommended() {
+        List<CardSummary> recommended = engine.recommend(Card.GREEN, COMMANDER_ID,
+                new ArrayList<DeckCardEntry>(), 0, 10);
+        assertEquals(3, recommended.size());
+        for (CardSummary card : recommended) {
+            assertTrue(card.getCardID() != COMMANDER_ID);
+        }
+    }
+
+    @Test
+    public void aDeckWithoutACommanderCanBeOfferedOne() {
+        List<CardSummary> recommended = engine.recommend(Card.GREEN, -1,
+                new ArrayList<DeckCardEntry>(), Card.RAMP, 10);
+        assertEquals(2, recommended.size());
+        assertEquals(COMMANDER_ID, recommended.get(0).getCardID());
+    }
+
+    @Test
+    public void cardsInTheDeckAndOutsideTheIdentityAreSkipped() {
+        List<DeckCardEntry> deck = new ArrayList<>();
+        Card ramp = new Card();
+        ramp.setCardID(2);
+        ramp.setCategories("ramp");
+        deck.add(new DeckCardEntry(ramp, 1));
+
+        List<CardSummary> recommended = engine.recommend(Card.GREEN, COMMANDER_ID, deck, 0, 10);
+        List<Integer> ids = new ArrayList<>();
+        for (CardSummary card : recommended) {
+            ids.add(card.getCardID());
+        }
+        assertFalse(ids.contains(2));
+        assertFalse(ids.contains(3));
+        assertTrue(ids.contains(4));
+        assertTrue(ids.contains(5));
+    }
+}
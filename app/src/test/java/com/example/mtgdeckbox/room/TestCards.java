@@ -0,0 +1,64 @@
+package com.example.mtgdeckbox.room;
+
+/**
+ * This class builds the Cards used by the Deck tests, counting the symbols
+ * of each mana cost the way the card import does.
+ */
+final class TestCards {
+    /**
+     * This class only has static methods, so it is never constructed.
+     */
+    private TestCards() {}
+
+    /**
+     * This method builds a DeckCardEntry, counting the symbols of the mana
+     * cost the way the card import does.
+     * @param name a String containing the name of the Card.
+     * @param types a String containing the types of the Card.
+     * @param manaCost a String containing the mana cost of the Card.
+     * @param manaValue an Integer containing the mana value of the Card.
+     * @param categories a String containing the categories of the Card.
+     * @param quantity an Integer containing the number of copies in the Deck.
+     * @return a new DeckCardEntry.
+     */
+    static DeckCardEntry entry(String name, String types, String manaCost, int manaValue,
+                               String categories, int quantity) {
+        Card card = new Card();
+        card.setName(name);
+        card.setTypes(types);
+        card.setManaCost(manaCost);
+        card.setManaValue(manaValue);
+        card.setCategories(categories);
+
+        ManaCost cost = ManaCost.parse(manaCost);
+        card.setWhitePips(cost.getPips(ManaCost.WHITE));
+        card.setBluePips(cost.getPips(ManaCost.BLUE));
+        card.setBlackPips(cost.getPips(ManaCost.BLACK));
+        card.setRedPips(cost.getPips(ManaCost.RED));
+        card.setGreenPips(cost.getPips(ManaCost.GREEN));
+        card.setColourlessPips(cost.getPips(ManaCost.COLOURLESS));
+        card.setGenericMana(cost.getGeneric());
+        card.setXCount(cost.getXCount());
+        card.setManaFlags(cost.getFlags());
+        return new DeckCardEntry(card, quantity);
+    }
+
+    /**
+     * This method builds a DeckCardEntry named after its ID number, with no
+     * categories.
+     * @param cardID an Integer containing the ID number of the Card.
+     * @param types a String containing the types of the Card.
+     * @param manaCost a String containing the mana cost of the Card.
+     * @param manaValue an Integer containing the mana value of the Card.
+     * @param identityMask an Integer with a bit set for each colour a land makes.
+     * @param quantity an Integer containing the number of copies in the Deck.
+     * @return a new DeckCardEntry.
+     */
+    static DeckCardEntry entry(int cardID, String types, String manaCost, int manaValue,
+                               int identityMask, int quantity) {
+        DeckCardEntry entry = entry("Card " + cardID, types, manaCost, manaValue, "", quantity);
+        entry.getCard().setCardID(cardID);
+        entry.getCard().setIdentityMask(identityMask);
+        return entry;
+    }
+}
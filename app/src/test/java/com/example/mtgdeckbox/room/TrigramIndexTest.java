@@ -0,0 +1,174 @@
+package com.example.mtgdeckbox.room;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * These tests search a TrigramIndex of generated names for misspellings of
+ * them, and check every result against scanning each name in turn and
+ * measuring its edit distance in full.
+ */
+public class TrigramIndexTest {
+    private static final int NAMES = 3000;
+    private static final int SEARCHES = 1000;
+    private static final String[] SYLLABLES = {"ar", "bol", "cra", "dra", "el", "fi", "gor",
+            "ith", "ka", "lum", "mor", "na", "os", "pyr", "qu", "ra", "sha", "th", "ur",
+            "vex", "wy", "x", "zu", "2", "7"};
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    @Test
+    public void searchMatchesAScanOfEveryName() {
+        Random random = new Random(49);
+        String[] keys = names(random);
+        int[] values = new int[keys.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + 7 * i;
+        }
+        TrigramIndex index = new TrigramIndex(keys, values);
+        assertEquals(NAMES, index.size());
+
+        for (int search = 0; search < SEARCHES; search++) {
+            String key = search % 10 == 0 ? randomName(random)
+                    : misspell(keys[random.nextInt(keys.length)], random.nextInt(4), random);
+            int maxDistance = random.nextInt(4);
+            int limit = 1 + random.nextInt(search % 2 == 0 ? 3 : 20);
+            assertArrayEquals(key + " within " + maxDistance + ", limit " + limit,
+                    scan(keys, values, key, maxDistance, limit),
+                    index.search(key, maxDistance, limit));
+        }
+    }
+
+    @Test
+    public void shortKeysAreCheckedAgainstEveryName() {
+        String[] keys = {"ox", "ooze", "x", "ab", "bo", "axe"};
+        int[] values = {1, 2, 3, 4, 5, 6};
+        TrigramIndex index = new TrigramIndex(keys, values);
+        for (String key : new String[] {"o", "x", "ob", "", "xo"}) {
+            assertArrayEquals(key, scan(keys, values, key, 2, keys.length),
+                    index.search(key, 2, keys.length));
+        }
+    }
+
+    @Test
+    public void nothingIsFoundWithoutNamesOrRoom() {
+        assertArrayEquals(new int[0], new TrigramIndex(new String[0], new int[0])
+                .search("sol ring", 3, 5));
+        assertArrayEquals(new int[0], new TrigramIndex(new String[] {"solring"}, new int[] {1})
+                .search("solring", 3, 0));
+    }
+
+    /**
+     * This method finds the closest names by measuring the distance to each.
+     * @param keys an Array of names, most popular first.
+     * @param values an Array of the value for each name.
+     * @param key a String containing the name searched for.
+     * @param maxDistance an Integer containing the most edits a match may be.
+     * @param limit an Integer containing the most matches to return.
+     * @return an Array of the values of the matches, closest first, then
+     * earliest first.
+     */
+    private static int[] scan(String[] keys, int[] values, String key, int maxDistance,
+                              int limit) {
+        int[] distances = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            distances[i] = levenshtein(key, keys[i]);
+        }
+        List<Integer> found = new ArrayList<>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            for (int i = 0; i < keys.length && found.size() < limit; i++) {
+                if (distances[i] == distance) {
+                    found.add(values[i]);
+                }
+            }
+        }
+        int[] array = new int[found.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = found.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * This method computes the Levenshtein distance between two Strings in full.
+     * @param a a String.
+     * @param b another String.
+     * @return an Integer containing the least number of single character
+     * insertions, deletions and substitutions turning a into b.
+     */
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1,
+                        d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    /**
+     * This method generates names from a small set of syllables, so that
+     * many names are only a few edits apart. Some names appear twice.
+     * @param random the Random to draw from.
+     * @return an Array of normalised names.
+     */
+    private static String[] names(Random random) {
+        String[] keys = new String[NAMES];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i > 0 && random.nextInt(50) == 0 ? keys[random.nextInt(i)]
+                    : randomName(random);
+        }
+        return keys;
+    }
+
+    /**
+     * This method generates one name.
+     * @param random the Random to draw from.
+     * @return a String of one to six syllables.
+     */
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 1 + random.nextInt(6);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+
+    /**
+     * This method makes random edits to a name.
+     * @param name a String containing the name.
+     * @param edits an Integer containing the number of edits to make.
+     * @param random the Random to draw from.
+     * @return a String containing the misspelt name.
+     */
+    private static String misspell(String name, int edits, Random random) {
+        StringBuilder key = new StringBuilder(name);
+        for (int i = 0; i < edits; i++) {
+            char c = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+            int at = random.nextInt(key.length() + 1);
+            int kind = key.length() == 0 ? 0 : random.nextInt(3);
+            if (kind == 0) {
+                key.insert(at, c);
+            } else if (kind == 1) {
+                key.deleteCharAt(Math.min(at, key.length() - 1));
+            } else {
+                key.setCharAt(Math.min(at, key.length() - 1), c);
+            }
+        }
+        return key.toString();
+    }
+}